@@ -0,0 +1,42 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.api;
+
+import java.util.List;
+
+/**
+ * A {@link Sink} which can take a batch of data tuples at once.<p>
+ * <br>
+ * The engine hands the batches emitted with {@link DefaultOutputPort#emitBatch(List)} from sink to sink as they are,
+ * and unpacks a batch into single tuples only for the sinks which do not implement this interface. The list is
+ * shared by all the downstream sinks, it must not be modified once it was put.
+ *
+ * @param <T> type of the tuples
+ * @since 3.5.0
+ */
+public interface BatchSink<T> extends Sink<T>
+{
+  /**
+   * Process the data tuples of the batch in order.
+   *
+   * @param tuples batch of data tuples, control tuples are never batched.
+   */
+  public void putBatch(List<T> tuples);
+
+}
@@ -159,10 +159,29 @@ public interface Context
      * exceptions can be specified on the corresponding input ports.
      */
     Attribute<Boolean> UNIFIER_SINGLE_FINAL = new Attribute<Boolean>(Boolean.FALSE);
+    /**
+     * Attribute of output port to let the engine adjust the unifier topology at runtime. When the final unifier of the
+     * port falls behind (latency above {@link #UNIFIER_ADAPTIVE_LATENCY_MILLIS} or a backed up input queue), the
+     * fan-in of the unifiers is reduced and the unifiers are cascaded; when the unifiers are lightly loaded again the
+     * fan-in is raised back up to {@link #UNIFIER_LIMIT}. Only the unifiers are redeployed, not the upstream partitions.
+     */
+    Attribute<Boolean> UNIFIER_ADAPTIVE = new Attribute<Boolean>(Boolean.FALSE);
+    /**
+     * Latency of the final unifier in milliseconds above which the adaptive unifier topology cascades the unifiers.
+     * See {@link #UNIFIER_ADAPTIVE}.
+     */
+    Attribute<Integer> UNIFIER_ADAPTIVE_LATENCY_MILLIS = new Attribute<Integer>(1000);
     /**
      * Whether or not to auto record the tuples
      */
     Attribute<Boolean> AUTO_RECORD = new Attribute<Boolean>(false);
+    /**
+     * Input port attribute to deserialize the tuples received from the buffer server ahead of the operator, on a
+     * small pool of threads in the container, instead of on the operator thread. This takes the cost of the stream
+     * codec off the operator at the expense of one more hand off per tuple. The decoded tuples are bounded by the
+     * {@link #QUEUE_CAPACITY} and kept in order. The attribute has no effect on container and thread local streams.
+     */
+    Attribute<Boolean> DECODE_AHEAD = new Attribute<Boolean>(false);
     /**
      * Whether the output is unified.
      * This is a read-only attribute to query that whether the output of the operator from multiple instances is being unified.
@@ -181,6 +200,22 @@ public interface Context
      */
     Attribute<Class<?>> TUPLE_CLASS = new Attribute<>(new Class2String<>());
 
+    /**
+     * Input port attribute to let the engine generate a stream codec for the {@link #TUPLE_CLASS} of the port when
+     * the port has no {@link #STREAM_CODEC}. The generated codec writes the fields of the tuple class in a fixed layout
+     * without class names, which is faster and more compact than the default codec but is a different wire format
+     * and does not track references, so the tuples cannot share objects or form cycles. Classes the codec cannot be
+     * generated for keep the default codec.
+     */
+    Attribute<Boolean> GENERATED_STREAM_CODEC = new Attribute<Boolean>(false);
+
+    /**
+     * Comma separated names of the fields of the tuple class which decide the partition of a tuple on the input port
+     * with the {@link #GENERATED_STREAM_CODEC}. The tuples are partitioned by their hash code if the attribute is not
+     * set.
+     */
+    Attribute<String> TUPLE_KEY_FIELDS = new Attribute<String>(new String2String());
+
     @SuppressWarnings("FieldNameHidesFieldInSuperclass")
     long serialVersionUID = AttributeMap.AttributeInitializer.initialize(PortContext.class);
   }
@@ -275,6 +310,22 @@ public interface Context
      * should be specified as AT_MOST_ONCE otherwise it will result in an error.
      */
     Attribute<Operator.ProcessingMode> PROCESSING_MODE = new Attribute<Operator.ProcessingMode>(ProcessingMode.AT_LEAST_ONCE);
+    /**
+     * Whether to keep a warm standby for the container of the operator. The standby is a container launched ahead of
+     * time on another host if possible, which keeps loading the latest committed checkpoints of the operators of the
+     * container. When the container fails, the standby takes over its operators instead of a new container being
+     * requested, launched and restored. The checkpoints of the operators with a processing mode other than
+     * {@link ProcessingMode#AT_LEAST_ONCE} or with their own {@link #STORAGE_AGENT} are loaded at takeover.
+     */
+    Attribute<Boolean> WARM_STANDBY = new Attribute<Boolean>(false);
+    /**
+     * Whether to pin the thread of the operator to a CPU core. The container of an operator with this attribute set
+     * claims as many cores of its host as it has vcores, from one NUMA node if possible, gives each of its operator
+     * threads with the attribute set one of these cores in turn and keeps its other threads, like the window generator
+     * and the buffer server, on the claimed cores. The container JVM is also started with the NUMA options. Pinning
+     * requires Linux, on other platforms the attribute has no effect.
+     */
+    Attribute<Boolean> THREAD_AFFINITY = new Attribute<Boolean>(false);
     /**
      * Timeout to identify stalled processing, specified as count of streaming windows. If the last processed
      * window does not advance within the specified timeout count, the operator will be considered stuck and the
@@ -0,0 +1,75 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.api;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Input port receiving the data tuples in batches.<p>
+ * <br>
+ * The batches emitted upstream with {@link DefaultOutputPort#emitBatch(List)} are delivered to
+ * {@link #processBatch(List)} without being unpacked, single tuples are delivered as batches of one tuple.
+ *
+ * @param <T> type of the tuples
+ * @since 3.5.0
+ */
+public abstract class DefaultBatchInputPort<T> extends DefaultInputPort<T> implements BatchSink<T>
+{
+  private int batchedCount;
+
+  /** {@inheritDoc} */
+  @Override
+  public void putBatch(List<T> tuples)
+  {
+    batchedCount += tuples.size();
+    processBatch(tuples);
+  }
+
+  /** {@inheritDoc} */
+  @Override
+  public int getCount(boolean reset)
+  {
+    try {
+      return super.getCount(reset) + batchedCount;
+    } finally {
+      if (reset) {
+        batchedCount = 0;
+      }
+    }
+  }
+
+  /**
+   * Delivers the tuple as a batch of one tuple.
+   */
+  @Override
+  public void process(T tuple)
+  {
+    processBatch(Collections.singletonList(tuple));
+  }
+
+  /**
+   * Process the batch of data tuples. The list is shared with the other downstream operators and must not be
+   * modified.
+   *
+   * @param tuples the tuples in the order they were emitted
+   */
+  public abstract void processBatch(List<T> tuples);
+
+}
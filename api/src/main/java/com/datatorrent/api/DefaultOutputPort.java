@@ -18,6 +18,8 @@
  */
 package com.datatorrent.api;
 
+import java.util.List;
+
 import com.datatorrent.api.Context.PortContext;
 import com.datatorrent.api.Operator.Unifier;
 
@@ -32,6 +34,7 @@ import com.datatorrent.api.Operator.Unifier;
 public class DefaultOutputPort<T> implements Operator.OutputPort<T>
 {
   private transient Sink<Object> sink;
+  private transient BatchSink<Object> batchSink;
 
   /**
    * <p>Constructor for DefaultOutputPort.</p>
@@ -51,15 +54,40 @@ public class DefaultOutputPort<T> implements Operator.OutputPort<T>
     sink.put(tuple);
   }
 
+  /**
+   * Emit the given objects as a batch of payloads for downstream operators interested in this port. The engine
+   * passes the batch on without unpacking it to the streams and the {@link DefaultBatchInputPort}s which support
+   * batches, the other input ports receive the tuples one by one. The list must not be modified once emitted.
+   *
+   * @param tuples payloads which need to be emitted, in order.
+   */
+  @SuppressWarnings("unchecked")
+  public void emitBatch(List<T> tuples)
+  {
+    if (tuples.isEmpty()) {
+      return;
+    }
+
+    if (batchSink != null) {
+      batchSink.putBatch((List<Object>)tuples);
+    } else {
+      for (T tuple : tuples) {
+        sink.put(tuple);
+      }
+    }
+  }
+
   /**
    * {@inheritDoc}
    *
    * Called by execution engine to inject sink at deployment time.
    */
   @Override
+  @SuppressWarnings("unchecked")
   public final void setSink(Sink<Object> s)
   {
     this.sink = s == null ? Sink.BLACKHOLE : s;
+    this.batchSink = s instanceof BatchSink ? (BatchSink<Object>)s : null;
   }
 
   /**
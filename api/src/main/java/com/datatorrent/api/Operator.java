@@ -99,6 +99,74 @@ public interface Operator extends Component<OperatorContext>, GenericOperator
 
   }
 
+  /**
+   * A Unifier which can unify sliding windows incrementally. Instead of replaying the tuples of all the
+   * windows which make up a sliding window into the unifier, the engine keeps one partial aggregate (pane)
+   * per window and combines the panes when a sliding window is complete.
+   *
+   * When the unifier is used for a sliding window, the engine accumulates the tuples itself and does not call
+   * {@link #process(Object)}. {@link #beginWindow(long)} and {@link #endWindow()} are called as usual and
+   * {@link #emitAggregate(Object)} is called in between when a sliding window completes. The panes passed to the
+   * methods of this interface must not be modified as they are retained by the engine for later slides.
+   *
+   * @param <T> Type of the tuple emitted by the output port which is being unified
+   * @param <A> Type of the partial aggregate
+   * @since 3.5.0
+   */
+  interface SlidingUnifier<T, A> extends Unifier<T>
+  {
+    /**
+     * @return a new partial aggregate for a window without any tuples
+     */
+    A newPane();
+
+    /**
+     * Adds a tuple to the partial aggregate of the current window. Only the pane of the current window is
+     * passed to this method and it may be modified in place.
+     *
+     * @param pane partial aggregate of the current window
+     * @param tuple tuple to add
+     * @return the updated partial aggregate
+     */
+    A accumulate(A pane, T tuple);
+
+    /**
+     * Combines two partial aggregates into a new one without modifying either of them.
+     *
+     * @param aggregate aggregate of the earlier windows
+     * @param pane partial aggregate of the later window
+     * @return the combined aggregate
+     */
+    A combine(A aggregate, A pane);
+
+    /**
+     * Emits the result of a complete sliding window on the output port of the unifier.
+     *
+     * @param aggregate aggregate of all the windows in the sliding window
+     */
+    void emitAggregate(A aggregate);
+  }
+
+  /**
+   * A SlidingUnifier which can remove a pane from an aggregate. It lets the engine maintain a running
+   * aggregate so that the cost of each slide is independent of the number of windows in the sliding window.
+   *
+   * @param <T> Type of the tuple emitted by the output port which is being unified
+   * @param <A> Type of the partial aggregate
+   * @since 3.5.0
+   */
+  interface RetractableSlidingUnifier<T, A> extends SlidingUnifier<T, A>
+  {
+    /**
+     * Removes a pane that was previously combined into the aggregate, without modifying either of them.
+     *
+     * @param aggregate aggregate which contains the pane
+     * @param pane partial aggregate to remove
+     * @return the aggregate without the pane
+     */
+    A retract(A aggregate, A pane);
+  }
+
   /**
    * DelayOperator is an operator of which the outgoing streaming window id is incremented by *one* by the
    * engine, thus allowing loops in the "DAG". The output ports of a DelayOperator, if connected, *must*
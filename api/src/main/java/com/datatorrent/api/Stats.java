@@ -80,6 +80,25 @@ public interface Stats extends Serializable
        * If there is a recording on the port, this contains the recording id, otherwise null
        */
       public String recordingId;
+      /**
+       * Nanoseconds the port held back its producer: on an input port the time the upstream was blocked on the full
+       * queue or the stream read was suspended, on an output port the time the operator was blocked publishing.
+       */
+      public long blockedNanos;
+      /**
+       * Nanoseconds the operator waited for tuples with the queue of the input port empty.
+       */
+      public long idleNanos;
+      /**
+       * Number of times the read of the input stream was suspended and resumed.
+       */
+      public int suspendCount;
+      public int resumeCount;
+      /**
+       * Nanoseconds the input queue spent at each size by power of two bucket: empty, 1, 2-3, 4-7 and so on, the last
+       * bucket covers the larger sizes. Null if the queue was not sampled.
+       */
+      public long[] queueOccupancy;
 
       public PortStats(String id)
       {
@@ -89,7 +108,8 @@ public interface Stats extends Serializable
       @Override
       public String toString()
       {
-        return "PortStats{" + "portname=" + id + ", processedCount=" + tupleCount + ", bufferServerBytes = " + bufferServerBytes + ", queueSize = " + queueSize + ", endWindowTimestamp=" + endWindowTimestamp + '}';
+        return "PortStats{" + "portname=" + id + ", processedCount=" + tupleCount + ", bufferServerBytes = " + bufferServerBytes + ", queueSize = " + queueSize + ", endWindowTimestamp=" + endWindowTimestamp +
+            ", blockedNanos=" + blockedNanos + ", idleNanos=" + idleNanos + '}';
       }
 
     }
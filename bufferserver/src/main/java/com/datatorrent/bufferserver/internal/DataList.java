@@ -32,9 +32,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.datatorrent.bufferserver.packet.BeginWindowTuple;
 import com.datatorrent.bufferserver.packet.MessageType;
-import com.datatorrent.bufferserver.packet.ResetWindowTuple;
 import com.datatorrent.bufferserver.packet.Tuple;
 import com.datatorrent.bufferserver.storage.Storage;
 import com.datatorrent.bufferserver.util.BitVector;
@@ -67,6 +65,10 @@ public class DataList
   protected ExecutorService storageExecutor;
   protected int size;
   protected int processingOffset;
+  /**
+   * offset of the length of the tuple at processingOffset.
+   */
+  private int tupleOffset;
   protected long baseSeconds;
   private final Set<AbstractClient> suspendedClients = newHashSet();
   private final AtomicInteger numberOfInMemBlockPermits;
@@ -230,6 +232,7 @@ public class DataList
     flush:
     do {
       while (size == 0) {
+        tupleOffset = processingOffset;
         size = VarInt.read(last.data, processingOffset, writeOffset, nextOffset);
         if (nextOffset.integer > -5 && nextOffset.integer < 1) {
           if (writeOffset == last.data.length) {
@@ -257,11 +260,19 @@ public class DataList
               last.ending_window = baseSeconds | bwt.getWindowId();
               //logger.debug("assigned last window id {}", last);
             }
+            last.index.add(MessageType.BEGIN_WINDOW_VALUE, last.ending_window, tupleOffset);
             break;
 
           case MessageType.RESET_WINDOW_VALUE:
             Tuple rwt = Tuple.getTuple(last.data, processingOffset, size);
             baseSeconds = (long)rwt.getBaseSeconds() << 32;
+            last.index.add(MessageType.RESET_WINDOW_VALUE, baseSeconds, tupleOffset);
+            break;
+
+          case MessageType.CHECKPOINT_VALUE:
+          case MessageType.CODEC_STATE_VALUE:
+          case MessageType.END_STREAM_VALUE:
+            last.index.add(last.data[processingOffset], baseSeconds, tupleOffset);
             break;
 
           default:
@@ -340,7 +351,12 @@ public class DataList
       temp = temp.next;
     }
     //logger.debug("returning new iterator on temp = {}", temp);
-    return getIterator(temp);
+    final DataListIterator iterator = getIterator(temp);
+    final int offset = temp.index.getSubscribeOffset(windowId);
+    if (offset > iterator.getReadOffset()) {
+      iterator.rewind(offset);
+    }
+    return iterator;
   }
 
   public void addDataListener(DataListener dl)
@@ -549,6 +565,14 @@ public class DataList
      * when the data is null, uniqueIdentifier is the identifier in the backup storage to retrieve the object.
      */
     int uniqueIdentifier;
+    /**
+     * offsets of the windows and control tuples in the data.
+     */
+    final WindowIndex index = new WindowIndex();
+    /**
+     * the readingOffset at the time the data was stored in the backup storage, the stored data starts at it.
+     */
+    int storedReadingOffset;
     /**
      * the next in the chain.
      */
@@ -594,34 +618,14 @@ public class DataList
     public long rewind(long windowId)
     {
       long bs = starting_window & 0x7fffffff00000000L;
-      try (DataListIterator dli = getIterator(this)) {
-        done:
-        while (dli.hasNext()) {
-          final SerializedData sd = dli.next();
-          final int length = sd.length - sd.dataOffset + sd.offset;
-          switch (sd.buffer[sd.dataOffset]) {
-            case MessageType.RESET_WINDOW_VALUE:
-              final ResetWindowTuple rwt = (ResetWindowTuple)Tuple.getTuple(sd.buffer, sd.dataOffset, length);
-              bs = (long)rwt.getBaseSeconds() << 32;
-              if (bs > windowId) {
-                writingOffset = sd.offset;
-                break done;
-              }
-              break;
-
-            case MessageType.BEGIN_WINDOW_VALUE:
-              BeginWindowTuple bwt = (BeginWindowTuple)Tuple.getTuple(sd.buffer, sd.dataOffset, length);
-              if ((bs | bwt.getWindowId()) >= windowId) {
-                writingOffset = sd.offset;
-                break done;
-              }
-              break;
-
-            default:
-              break;
-          }
-        }
+      int entry = index.getRewindEntry(windowId);
+      if (entry != -1) {
+        writingOffset = index.getOffset(entry);
+        bs = index.getBaseSeconds(entry);
+      } else if ((entry = index.getLast()) != -1) {
+        bs = index.getBaseSeconds(entry);
       }
+      index.truncate(writingOffset);
 
       if (starting_window == -1) {
         starting_window = windowId;
@@ -647,44 +651,33 @@ public class DataList
       SerializedData lastReset = null;
 
       try (DataListIterator dli = getIterator(this)) {
-        done:
-        while (dli.hasNext()) {
-          SerializedData sd = dli.next();
-          final int length = sd.length - sd.dataOffset + sd.offset;
-          switch (sd.buffer[sd.dataOffset]) {
-            case MessageType.RESET_WINDOW_VALUE:
-              ResetWindowTuple rwt = (ResetWindowTuple)Tuple.getTuple(sd.buffer, sd.dataOffset, length);
-              bs = (long)rwt.getBaseSeconds() << 32;
-              lastReset = sd;
-              break;
-
-            case MessageType.BEGIN_WINDOW_VALUE:
-              BeginWindowTuple bwt = (BeginWindowTuple)Tuple.getTuple(sd.buffer, sd.dataOffset, length);
-              if ((bs | bwt.getWindowId()) > longWindowId) {
-                found = true;
-                if (lastReset != null) {
-                  /*
-                   * Restore the last Reset tuple if there was any and adjust the writingOffset to the beginning of
-                   * the reset tuple.
-                   */
-                  if (sd.offset >= lastReset.length) {
-                    sd.offset -= lastReset.length;
-                    if (!(sd.buffer == lastReset.buffer && sd.offset == lastReset.offset)) {
-                      System.arraycopy(lastReset.buffer, lastReset.offset, sd.buffer, sd.offset, lastReset.length);
-                    }
-                  }
-
-                  this.starting_window = bs | bwt.getWindowId();
-                  this.readingOffset = sd.offset;
-                  //logger.debug("assigned starting window id {}", this);
-                }
-
-                break done;
+        final int beginWindow = index.getBeginWindowAfter(longWindowId);
+        final int resetWindow = index.getResetWindowBefore(beginWindow);
+        if (resetWindow != -1) {
+          lastReset = dli.seek(index.getOffset(resetWindow));
+          bs = index.getWindowId(resetWindow);
+        }
+        if (beginWindow != -1) {
+          final SerializedData sd = dli.seek(index.getOffset(beginWindow));
+          found = true;
+          if (lastReset != null) {
+            /*
+             * Restore the last Reset tuple if there was any and adjust the writingOffset to the beginning of
+             * the reset tuple.
+             */
+            long resetBaseSeconds = -1;
+            if (sd.offset >= lastReset.length) {
+              sd.offset -= lastReset.length;
+              if (!(sd.buffer == lastReset.buffer && sd.offset == lastReset.offset)) {
+                System.arraycopy(lastReset.buffer, lastReset.offset, sd.buffer, sd.offset, lastReset.length);
               }
-              break;
+              resetBaseSeconds = bs;
+            }
 
-            default:
-              break;
+            this.starting_window = index.getWindowId(beginWindow);
+            this.readingOffset = sd.offset;
+            index.purge(readingOffset, resetBaseSeconds);
+            //logger.debug("assigned starting window id {}", this);
           }
         }
       }
@@ -697,10 +690,12 @@ public class DataList
       if (!found) {
         //logger.debug("we could not find a tuple which is in a window later than the window to be purged, " +
         //    "so this has to be the last window published so far");
+        index.clear();
         if (lastReset != null && lastReset.offset != 0) {
           this.readingOffset = this.writingOffset - lastReset.length;
           System.arraycopy(lastReset.buffer, lastReset.offset, this.data, this.readingOffset, lastReset.length);
           this.starting_window = this.ending_window = bs;
+          index.add(MessageType.RESET_WINDOW_VALUE, bs, readingOffset);
           //logger.debug("=20140220= reassign the windowids {}", this);
         } else {
           this.readingOffset = this.writingOffset;
@@ -741,6 +736,8 @@ public class DataList
           synchronized (Block.this) {
             if (Block.this.data == null) {
               Block.this.data = data;
+              index.shift(-storedReadingOffset);
+              storedReadingOffset = 0;
               readingOffset = 0;
               writingOffset = data.length;
               Block.this.notifyAll();
@@ -801,6 +798,7 @@ public class DataList
         {
           if (uniqueIdentifier == 0) {
             uniqueIdentifier = storage.store(identifier, data, readingOffset, writingOffset);
+            storedReadingOffset = readingOffset;
           }
           if (uniqueIdentifier == 0) {
             logger.warn("Storage returned unexpectedly, please check the status of the spool directory!");
@@ -1020,6 +1018,19 @@ public class DataList
       size = 0;
     }
 
+    /**
+     * @param offset offset of a tuple in the current block
+     * @return the tuple at the offset
+     */
+    SerializedData seek(int offset)
+    {
+      rewind(offset);
+      if (!hasNext()) {
+        throw new IllegalStateException("No tuple at offset " + offset + " in " + da);
+      }
+      return next();
+    }
+
     @Override
     public String toString()
     {
@@ -75,11 +75,19 @@ public class FastDataList extends DataList
             } else {
               last.ending_window = baseSeconds | btw.getWindowId();
             }
+            last.index.add(MessageType.BEGIN_WINDOW_VALUE, last.ending_window, processingOffset - 2);
             break;
 
           case MessageType.RESET_WINDOW_VALUE:
             Tuple rwt = Tuple.getTuple(last.data, processingOffset, size);
             baseSeconds = (long)rwt.getBaseSeconds() << 32;
+            last.index.add(MessageType.RESET_WINDOW_VALUE, baseSeconds, processingOffset - 2);
+            break;
+
+          case MessageType.CHECKPOINT_VALUE:
+          case MessageType.CODEC_STATE_VALUE:
+          case MessageType.END_STREAM_VALUE:
+            last.index.add(last.data[processingOffset], baseSeconds, processingOffset - 2);
             break;
 
           default:
@@ -46,11 +46,14 @@ import com.datatorrent.netlet.EventLoop;
  */
 public class LogicalNode implements DataListener
 {
+  private static final int MAX_TABLE_MASK = (1 << 16) - 1;
   private final String identifier;
   private final String upstream;
   private final String group;
   private final HashSet<PhysicalNode> physicalNodes;
   private final HashSet<BitVector> partitions;
+  private boolean[] partitionTable;
+  private int partitionTableMask;
   private final Policy policy = GiveAll.getInstance();
   private final DataListIterator iterator;
   private final long skipWindowId;
@@ -129,6 +132,31 @@ public class LogicalNode implements DataListener
   public void addPartition(int partition, int mask)
   {
     partitions.add(new BitVector(partition, mask));
+    int tableMask = partitionTableMask | mask;
+    if (tableMask < 0 || tableMask > MAX_TABLE_MASK) {
+      partitionTable = null;
+    } else {
+      // table driven routing, a value matches when any of the partitions matches the bits under the combined mask
+      if (partitionTable == null || tableMask != partitionTableMask) {
+        // the entries for the new mask bits repeat the entries of the smaller table
+        boolean[] table = new boolean[tableMask + 1];
+        if (partitionTable != null) {
+          for (int i = 0; i <= tableMask; i++) {
+            table[i] = partitionTable[i & partitionTableMask];
+          }
+        }
+        partitionTable = table;
+      }
+      // the entries of the partition, the bits outside of its mask take all the values
+      int bits = partition & mask;
+      int free = tableMask & ~mask;
+      int sub = free;
+      do {
+        partitionTable[bits | sub] = true;
+        sub = (sub - 1) & free;
+      } while (sub != free);
+    }
+    partitionTableMask = tableMask;
   }
 
   boolean ready = true;
@@ -269,6 +297,12 @@ public class LogicalNode implements DataListener
                 case MessageType.PAYLOAD_VALUE:
                   Tuple tuple = Tuple.getTuple(data.buffer, data.dataOffset, length);
                   int value = tuple.getPartition();
+                  if (partitionTable != null) {
+                    if (partitionTable[value & partitionTableMask]) {
+                      ready = policy.distribute(physicalNodes, data);
+                    }
+                    break;
+                  }
                   for (BitVector bv : partitions) {
                     if (bv.matches(value)) {
                       ready = policy.distribute(physicalNodes, data);
@@ -0,0 +1,311 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.bufferserver.internal;
+
+import java.util.Arrays;
+
+import com.datatorrent.bufferserver.packet.MessageType;
+
+/**
+ * Offsets of the control tuples within a block of a data list.<p>
+ * <br>
+ * The data list records the offset of every begin window, reset window, checkpoint, codec state and end stream tuple
+ * while it flushes the published data, so that subscribe, rewind and purge can seek to a window without parsing the
+ * tuples of the block. Every entry carries a window id: the full window id for begin window, the base seconds for
+ * reset window and the window id of the preceding entry for the other control tuples. The window ids are non
+ * decreasing, so entries are found with a binary search.
+ * <br>
+ * The offsets are those of the length prefix of the tuple. The index is kept with the block when the block data is
+ * spooled to the secondary storage.
+ *
+ * @since 3.5.0
+ */
+class WindowIndex
+{
+  private static final long BASE_SECONDS_MASK = 0xffffffff00000000L;
+  private static final int INITIAL_CAPACITY = 16;
+
+  private byte[] types = new byte[INITIAL_CAPACITY];
+  private long[] windowIds = new long[INITIAL_CAPACITY];
+  private int[] offsets = new int[INITIAL_CAPACITY];
+  /**
+   * index of the first valid entry, entries before it were purged.
+   */
+  private int first;
+  /**
+   * index after the last valid entry.
+   */
+  private int last;
+
+  /**
+   * Add an entry after all existing entries.
+   *
+   * @param type message type of the tuple
+   * @param windowId window id of begin window, base seconds of reset window or ignored for other control tuples
+   * @param offset offset of the tuple in the block
+   */
+  synchronized void add(byte type, long windowId, int offset)
+  {
+    ensureCapacity();
+    types[last] = type;
+    boolean window = type == MessageType.BEGIN_WINDOW_VALUE || type == MessageType.RESET_WINDOW_VALUE;
+    windowIds[last] = window || last == first ? windowId : windowIds[last - 1];
+    offsets[last++] = offset;
+  }
+
+  private void ensureCapacity()
+  {
+    if (last == types.length) {
+      if (first > types.length / 2) {
+        compact();
+      } else {
+        int capacity = types.length * 2;
+        types = Arrays.copyOf(types, capacity);
+        windowIds = Arrays.copyOf(windowIds, capacity);
+        offsets = Arrays.copyOf(offsets, capacity);
+      }
+    }
+  }
+
+  private void compact()
+  {
+    int size = last - first;
+    System.arraycopy(types, first, types, 0, size);
+    System.arraycopy(windowIds, first, windowIds, 0, size);
+    System.arraycopy(offsets, first, offsets, 0, size);
+    first = 0;
+    last = size;
+  }
+
+  synchronized int size()
+  {
+    return last - first;
+  }
+
+  /**
+   * Remove the entries at or after the offset, used when the block is rewound.
+   *
+   * @param offset the new writing offset of the block
+   */
+  synchronized void truncate(int offset)
+  {
+    last = searchOffset(offset);
+  }
+
+  /**
+   * Remove the entries before the offset and optionally add a reset window at the offset, used when the block is
+   * purged.
+   *
+   * @param offset the new reading offset of the block
+   * @param resetBaseSeconds base seconds of the reset window tuple copied to the offset or -1 when there is none
+   */
+  synchronized void purge(int offset, long resetBaseSeconds)
+  {
+    first = searchOffset(offset);
+    if (first == last) {
+      first = last = 0;
+    }
+    if (resetBaseSeconds != -1 && (first == last || offsets[first] != offset)) {
+      if (first == 0) {
+        ensureCapacity();
+        System.arraycopy(types, 0, types, 1, last);
+        System.arraycopy(windowIds, 0, windowIds, 1, last);
+        System.arraycopy(offsets, 0, offsets, 1, last);
+        last++;
+      } else {
+        first--;
+      }
+      types[first] = MessageType.RESET_WINDOW_VALUE;
+      windowIds[first] = resetBaseSeconds;
+      offsets[first] = offset;
+    }
+  }
+
+  synchronized void clear()
+  {
+    first = last = 0;
+  }
+
+  /**
+   * Move all offsets, used when the block data is reloaded from the secondary storage without the purged bytes.
+   *
+   * @param delta the value to add to the offsets
+   */
+  synchronized void shift(int delta)
+  {
+    for (int i = first; i < last; i++) {
+      offsets[i] += delta;
+    }
+  }
+
+  /**
+   * Find the tuple at which a rewind to the window truncates the block: the first reset window with base seconds
+   * after the window or the first begin window at or after the window.
+   *
+   * @param windowId the window id to rewind to
+   * @return the entry or -1 if there is none
+   */
+  synchronized int getRewindEntry(long windowId)
+  {
+    for (int i = searchWindowId(windowId, false); i < last; i++) {
+      if (types[i] == MessageType.BEGIN_WINDOW_VALUE
+          || types[i] == MessageType.RESET_WINDOW_VALUE && windowIds[i] > windowId) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @param windowId the window id
+   * @return the first begin window entry with a window id greater than the window id or -1 if there is none
+   */
+  synchronized int getBeginWindowAfter(long windowId)
+  {
+    for (int i = searchWindowId(windowId, true); i < last; i++) {
+      if (types[i] == MessageType.BEGIN_WINDOW_VALUE) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Find the reset window that applies to the entry, the base seconds only change with a reset window so it is the
+   * first entry with the base seconds of the entry when that is a reset window.
+   *
+   * @param entry the entry or -1 for the end of the index
+   * @return the last reset window entry before the entry or -1 if there is none
+   */
+  synchronized int getResetWindowBefore(int entry)
+  {
+    int end = entry == -1 ? last : entry;
+    if (end == first) {
+      return -1;
+    }
+    long baseSeconds = windowIds[entry == -1 ? last - 1 : entry] & BASE_SECONDS_MASK;
+    int reset = searchWindowId(baseSeconds, false);
+    if (reset < end && types[reset] == MessageType.RESET_WINDOW_VALUE && windowIds[reset] == baseSeconds) {
+      return reset;
+    }
+    return -1;
+  }
+
+  /**
+   * Find where a subscriber for the windows after the window id starts reading: at the first begin window after
+   * the window id, or earlier when there are checkpoint, codec state or end stream tuples before it that the
+   * subscriber needs. In either case reading starts at the reset window in effect at that tuple, so the subscriber
+   * has the base seconds of every window it reads.
+   *
+   * @param windowId the last window id the subscriber is not interested in
+   * @return the offset to start reading at or -1 to read from the start of the block
+   */
+  synchronized int getSubscribeOffset(long windowId)
+  {
+    if (first == last) {
+      return -1;
+    }
+    int entry = getBeginWindowAfter(windowId);
+    int start = entry == -1 ? last - 1 : entry;
+    for (int i = first; i < start; i++) {
+      if (types[i] != MessageType.BEGIN_WINDOW_VALUE && types[i] != MessageType.RESET_WINDOW_VALUE) {
+        start = i;
+        break;
+      }
+    }
+    if (types[start] != MessageType.RESET_WINDOW_VALUE) {
+      start = getResetWindowBefore(start);
+    }
+    return start == -1 ? -1 : offsets[start];
+  }
+
+  synchronized long getWindowId(int entry)
+  {
+    return windowIds[entry];
+  }
+
+  synchronized int getOffset(int entry)
+  {
+    return offsets[entry];
+  }
+
+  /**
+   * @param entry the entry
+   * @return the base seconds in effect at the entry, shifted to the upper 32 bits of the window id
+   */
+  synchronized long getBaseSeconds(int entry)
+  {
+    return windowIds[entry] & BASE_SECONDS_MASK;
+  }
+
+  /**
+   * @return the last entry or -1 if there are no entries
+   */
+  synchronized int getLast()
+  {
+    return first == last ? -1 : last - 1;
+  }
+
+  /**
+   * @param windowId the window id
+   * @param after true to find the first entry with a greater window id, false for greater or equal
+   * @return the first entry satisfying the condition or the end of the index
+   */
+  private int searchWindowId(long windowId, boolean after)
+  {
+    int low = first;
+    int high = last;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (windowIds[mid] < windowId || after && windowIds[mid] == windowId) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * @param offset the offset
+   * @return the first entry with an offset at or after the offset or the end of the index
+   */
+  private int searchOffset(int offset)
+  {
+    int low = first;
+    int high = last;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (offsets[mid] < offset) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  @Override
+  public synchronized String toString()
+  {
+    return "WindowIndex{size=" + (last - first) + ", first=" + (first == last ? "none" : offsets[first]) + ", last=" +
+        (first == last ? "none" : offsets[last - 1]) + '}';
+  }
+
+}
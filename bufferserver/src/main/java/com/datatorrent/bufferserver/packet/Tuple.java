@@ -59,6 +59,7 @@ public abstract class Tuple
         return new WindowIdTuple(buffer, offset, length);
 
       case CODEC_STATE:
+      case LATENCY_MARKER:
         return new DataTuple(buffer, offset, length);
 
       case PAYLOAD:
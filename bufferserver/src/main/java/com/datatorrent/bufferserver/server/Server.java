@@ -35,6 +35,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -59,6 +60,12 @@ import com.datatorrent.netlet.util.VarInt;
 /**
  * The buffer server application<p>
  * <br>
+ * The server accepts connections on the event loop passed to {@link #run(EventLoop)}. With more than one event loop
+ * configured with {@link #setNumberOfEventLoops(int)}, the server starts additional event loops each with its own
+ * flush executor. Every publisher identifier is assigned to one of the event loops, and the connection of the
+ * publisher, its data list and all subscribers to it are served on that event loop and flush executor, so that the
+ * data of a publisher is processed in order by a single thread.
+ * <br>
  *
  * @since 0.3.2
  */
@@ -73,6 +80,10 @@ public class Server implements ServerListener
   private InetSocketAddress address;
   private final ExecutorService serverHelperExecutor;
   private final ExecutorService storageHelperExecutor;
+  private int numberOfEventLoops = 1;
+  private Shard[] shards;
+  private final ConcurrentHashMap<String, Shard> publisherShards = new ConcurrentHashMap<>();
+  private final AtomicInteger nextShard = new AtomicInteger();
 
   private byte[] authToken;
 
@@ -101,6 +112,25 @@ public class Server implements ServerListener
     this.storage = storage;
   }
 
+  /**
+   * Set the number of event loops serving the publishers and subscribers, including the event loop the server
+   * listens on. Needs to be set before the server is run.
+   *
+   * @param numberOfEventLoops number of event loops, 1 by default
+   */
+  public void setNumberOfEventLoops(int numberOfEventLoops)
+  {
+    if (numberOfEventLoops < 1) {
+      throw new IllegalArgumentException("Invalid number of event loops " + numberOfEventLoops);
+    }
+    this.numberOfEventLoops = numberOfEventLoops;
+  }
+
+  public int getNumberOfEventLoops()
+  {
+    return numberOfEventLoops;
+  }
+
   @Override
   public synchronized void registered(SelectionKey key)
   {
@@ -115,6 +145,12 @@ public class Server implements ServerListener
   {
     serverHelperExecutor.shutdown();
     storageHelperExecutor.shutdown();
+    if (shards != null) {
+      for (int i = 1; i < shards.length; i++) {
+        shards[i].executor.shutdown();
+        ((DefaultEventLoop)shards[i].eventloop).stop();
+      }
+    }
     try {
       serverHelperExecutor.awaitTermination(5000, TimeUnit.MILLISECONDS);
     } catch (InterruptedException ex) {
@@ -125,6 +161,21 @@ public class Server implements ServerListener
 
   public synchronized InetSocketAddress run(EventLoop eventloop)
   {
+    final Shard[] shards = new Shard[numberOfEventLoops];
+    shards[0] = new Shard(eventloop, serverHelperExecutor);
+    for (int i = 1; i < shards.length; i++) {
+      try {
+        DefaultEventLoop shardEventLoop = DefaultEventLoop.createEventLoop("BufferServer-" + i);
+        shardEventLoop.start();
+        shards[i] = new Shard(shardEventLoop,
+            Executors.newSingleThreadExecutor(new NameableThreadFactory("ServerHelper-" + i)));
+      } catch (IOException ex) {
+        throw new RuntimeException(ex);
+      }
+    }
+    this.shards = shards;
+    this.eventloop = eventloop;
+
     eventloop.start(null, port, this);
     while (address == null) {
       try {
@@ -134,10 +185,92 @@ public class Server implements ServerListener
       }
     }
 
-    this.eventloop = eventloop;
     return address;
   }
 
+  /**
+   * Event loop and flush executor serving the publishers assigned to them and the subscribers to those publishers.
+   */
+  static class Shard
+  {
+    final EventLoop eventloop;
+    final ExecutorService executor;
+
+    Shard(EventLoop eventloop, ExecutorService executor)
+    {
+      this.eventloop = eventloop;
+      this.executor = executor;
+    }
+
+    @Override
+    public String toString()
+    {
+      return "Shard{eventloop=" + eventloop + '}';
+    }
+  }
+
+  /**
+   * @param publisherIdentifier identifier of the publisher
+   * @return the shard serving the publisher, assigned round robin when the publisher or a subscriber to it connects
+   * for the first time
+   */
+  private Shard getShard(String publisherIdentifier)
+  {
+    Shard shard = publisherShards.get(publisherIdentifier);
+    if (shard == null) {
+      Shard newShard = shards[(nextShard.getAndIncrement() & Integer.MAX_VALUE) % shards.length];
+      shard = publisherShards.putIfAbsent(publisherIdentifier, newShard);
+      if (shard == null) {
+        shard = newShard;
+        logger.debug("Assigned publisher {} to {}", publisherIdentifier, shard);
+      }
+    }
+    return shard;
+  }
+
+  /**
+   * @param publisherIdentifier identifier of the publisher
+   * @return the event loop serving the publisher and the subscribers to it, null if none was assigned yet
+   */
+  EventLoop getEventLoop(String publisherIdentifier)
+  {
+    Shard shard = publisherShards.get(publisherIdentifier);
+    return shard == null ? null : shard.eventloop;
+  }
+
+  /**
+   * Run the task on the shard event loop, or right away on the calling thread for the shard served by the event loop
+   * the server listens on, as a server with a single event loop always did.
+   */
+  private void execute(Shard shard, Runnable task)
+  {
+    if (shard.eventloop == eventloop) {
+      task.run();
+    } else {
+      shard.eventloop.submit(task);
+    }
+  }
+
+  /**
+   * Hand the connection over to the client serving the request on the shard event loop.
+   *
+   * @param shard the shard
+   * @param key the key of the connection on the event loop the server listens on
+   * @param ops the interest set for the client
+   * @param client the client
+   */
+  private void register(Shard shard, SelectionKey key, int ops, AbstractLengthPrependerClient client)
+  {
+    if (shard.eventloop == eventloop) {
+      key.attach(client);
+      key.interestOps(ops);
+      client.registered(key);
+    } else {
+      key.interestOps(0);
+      ((DefaultEventLoop)shard.eventloop).register((SocketChannel)key.channel(), ops, client);
+    }
+  }
+
   public void setAuthToken(byte[] authToken)
   {
     this.authToken = authToken;
@@ -175,19 +308,40 @@ public class Server implements ServerListener
   private final int blockSize;
   private final int numberOfCacheBlocks;
 
-  private void handlePurgeRequest(PurgeRequestTuple request, final AbstractLengthPrependerClient ctx) throws IOException
+  private void handlePurgeRequest(final PurgeRequestTuple request, final AbstractLengthPrependerClient ctx)
+      throws IOException
   {
-    DataList dl;
+    final DataList dl;
     dl = publisherBuffers.get(request.getIdentifier());
 
-    byte[] message;
     if (dl == null) {
-      message = ("Invalid identifier '" + request.getIdentifier() + "'").getBytes();
+      sendPurgeAck(("Invalid identifier '" + request.getIdentifier() + "'").getBytes(), ctx);
     } else {
-      dl.purge((long)request.getBaseSeconds() << 32 | request.getWindowId());
-      message = ("Request sent for processing: " + request).getBytes();
+      execute(getShard(request.getIdentifier()), new Runnable()
+      {
+        @Override
+        public void run()
+        {
+          dl.purge((long)request.getBaseSeconds() << 32 | request.getWindowId());
+          eventloop.submit(new Runnable()
+          {
+            @Override
+            public void run()
+            {
+              try {
+                sendPurgeAck(("Request sent for processing: " + request).getBytes(), ctx);
+              } catch (IOException io) {
+                throw new RuntimeException(io);
+              }
+            }
+          });
+        }
+      });
     }
+  }
 
+  private void sendPurgeAck(byte[] message, AbstractLengthPrependerClient ctx) throws IOException
+  {
     final byte[] tuple = PayloadTuple.getSerializedTuple(0, message.length);
     System.arraycopy(message, 0, tuple, tuple.length - message.length, message.length);
     if (ctx.write(tuple)) {
@@ -198,30 +352,60 @@ public class Server implements ServerListener
     }
   }
 
-  public void purge(long windowId)
+  public void purge(final long windowId)
   {
-    for (DataList dataList: publisherBuffers.values()) {
-      dataList.purge(windowId);
+    for (Entry<String, DataList> entry : publisherBuffers.entrySet()) {
+      final DataList dataList = entry.getValue();
+      execute(getShard(entry.getKey()), new Runnable()
+      {
+        @Override
+        public void run()
+        {
+          dataList.purge(windowId);
+        }
+      });
     }
   }
 
-  private void handleResetRequest(ResetRequestTuple request, final AbstractLengthPrependerClient ctx) throws IOException
+  private void handleResetRequest(final ResetRequestTuple request, final AbstractLengthPrependerClient ctx)
+      throws IOException
   {
-    DataList dl;
+    final DataList dl;
     dl = publisherBuffers.remove(request.getIdentifier());
 
-    byte[] message;
     if (dl == null) {
-      message = ("Invalid identifier '" + request.getIdentifier() + "'").getBytes();
+      sendResetAck(("Invalid identifier '" + request.getIdentifier() + "'").getBytes(), ctx);
     } else {
-      AbstractLengthPrependerClient channel = publisherChannels.remove(request.getIdentifier());
-      if (channel != null) {
-        eventloop.disconnect(channel);
-      }
-      dl.reset();
-      message = ("Request sent for processing: " + request).getBytes();
+      final Shard shard = getShard(request.getIdentifier());
+      execute(shard, new Runnable()
+      {
+        @Override
+        public void run()
+        {
+          AbstractLengthPrependerClient channel = publisherChannels.remove(request.getIdentifier());
+          if (channel != null) {
+            shard.eventloop.disconnect(channel);
+          }
+          dl.reset();
+          eventloop.submit(new Runnable()
+          {
+            @Override
+            public void run()
+            {
+              try {
+                sendResetAck(("Request sent for processing: " + request).getBytes(), ctx);
+              } catch (IOException io) {
+                throw new RuntimeException(io);
+              }
+            }
+          });
+        }
+      });
     }
+  }
 
+  private void sendResetAck(byte[] message, AbstractLengthPrependerClient ctx) throws IOException
+  {
     final byte[] tuple = PayloadTuple.getSerializedTuple(0, message.length);
     System.arraycopy(message, 0, tuple, tuple.length - message.length, message.length);
     if (ctx.write(tuple)) {
@@ -244,6 +428,7 @@ public class Server implements ServerListener
     String identifier = request.getIdentifier();
     String type = request.getStreamType();
     String upstream_identifier = request.getUpstreamIdentifier();
+    final Shard shard = getShard(upstream_identifier);
 
     // Check if there is a logical node of this type, if not create it.
     final LogicalNode ln;
@@ -254,16 +439,16 @@ public class Server implements ServerListener
        */
       AbstractLengthPrependerClient previous = subscriberChannels.put(identifier, connection);
       if (previous != null) {
-        eventloop.disconnect(previous);
+        shard.eventloop.disconnect(previous);
       }
 
       ln = subscriberGroups.get(type);
-      serverHelperExecutor.submit(new Runnable()
+      shard.executor.submit(new Runnable()
       {
         @Override
         public void run()
         {
-          ln.boot(eventloop);
+          ln.boot(shard.eventloop);
           ln.addConnection(connection);
           ln.catchUp();
         }
@@ -297,7 +482,7 @@ public class Server implements ServerListener
       }
 
       subscriberGroups.put(type, ln);
-      serverHelperExecutor.submit(new Runnable()
+      shard.executor.submit(new Runnable()
       {
         @Override
         public void run()
@@ -330,7 +515,7 @@ public class Server implements ServerListener
        */
       AbstractLengthPrependerClient previous = publisherChannels.put(identifier, connection);
       if (previous != null) {
-        eventloop.disconnect(previous);
+        getShard(identifier).eventloop.disconnect(previous);
       }
 
       dl = publisherBuffers.get(identifier);
@@ -422,42 +607,35 @@ public class Server implements ServerListener
            * unregister the unidentified client since its job is done!
            */
           unregistered(key);
+          ignore = true;
           logger.info("Received publisher request: {}", request);
-          PublishRequestTuple publisherRequest = (PublishRequestTuple)request;
-
-          DataList dl = handlePublisherRequest(publisherRequest, this);
-          dl.setAutoFlushExecutor(serverHelperExecutor);
+          final PublishRequestTuple publisherRequest = (PublishRequestTuple)request;
+          final Shard publisherShard = getShard(publisherRequest.getIdentifier());
+          final SelectionKey publisherKey = key;
+          final byte[] publisherData = Arrays.copyOfRange(this.buffer, readOffset + size, writeOffset);
+          if (publisherShard.eventloop != eventloop) {
+            publisherKey.interestOps(0);
+          }
 
-          Publisher publisher;
-          if (publisherRequest.getVersion().equals(Tuple.FAST_VERSION)) {
-            publisher = new Publisher(dl, (long)request.getBaseSeconds() << 32 | request.getWindowId())
+          execute(publisherShard, new Runnable()
+          {
+            @Override
+            public void run()
             {
-              @Override
-              public int readSize()
-              {
-                if (writeOffset - readOffset < 2) {
-                  return -1;
-                }
-
-                short s = buffer[readOffset++];
-                return s | (buffer[readOffset++] << 8);
+              final Publisher publisher = newPublisher(publisherRequest, publisherShard);
+              register(publisherShard, publisherKey, SelectionKey.OP_READ, publisher);
+              if (publisherData.length > 0) {
+                execute(publisherShard, new Runnable()
+                {
+                  @Override
+                  public void run()
+                  {
+                    publisher.transferBuffer(publisherData, 0, publisherData.length);
+                  }
+                });
               }
-
-            };
-          } else {
-            publisher = new Publisher(dl, (long)request.getBaseSeconds() << 32 | request.getWindowId());
-          }
-
-          key.attach(publisher);
-          key.interestOps(SelectionKey.OP_READ);
-          publisher.registered(key);
-
-          int len = writeOffset - readOffset - size;
-          if (len > 0) {
-            publisher.transferBuffer(this.buffer, readOffset + size, len);
-          }
-          ignore = true;
-
+            }
+          });
           break;
 
         case SUBSCRIBER_REQUEST:
@@ -468,8 +646,8 @@ public class Server implements ServerListener
           ignore = true;
           logger.info("Received subscriber request: {}", request);
 
-          SubscribeRequestTuple subscriberRequest = (SubscribeRequestTuple)request;
-          AbstractLengthPrependerClient subscriber;
+          final SubscribeRequestTuple subscriberRequest = (SubscribeRequestTuple)request;
+          final AbstractLengthPrependerClient subscriber;
 
 //          /* for backward compatibility - set the buffer size to 16k - EXPERIMENTAL */
           int bufferSize = subscriberRequest.getBufferSize();
@@ -496,11 +674,16 @@ public class Server implements ServerListener
 
             };
           }
-          key.attach(subscriber);
-          key.interestOps(SelectionKey.OP_WRITE | SelectionKey.OP_READ);
-          subscriber.registered(key);
-
-          handleSubscriberRequest(subscriberRequest, subscriber);
+          final Shard subscriberShard = getShard(subscriberRequest.getUpstreamIdentifier());
+          register(subscriberShard, key, SelectionKey.OP_WRITE | SelectionKey.OP_READ, subscriber);
+          execute(subscriberShard, new Runnable()
+          {
+            @Override
+            public void run()
+            {
+              handleSubscriberRequest(subscriberRequest, subscriber);
+            }
+          });
           break;
 
         case PURGE_REQUEST:
@@ -526,6 +709,32 @@ public class Server implements ServerListener
       }
     }
 
+    private Publisher newPublisher(PublishRequestTuple request, Shard shard)
+    {
+      DataList dl = handlePublisherRequest(request, this);
+      dl.setAutoFlushExecutor(shard.executor);
+
+      long windowId = (long)request.getBaseSeconds() << 32 | request.getWindowId();
+      if (request.getVersion().equals(Tuple.FAST_VERSION)) {
+        return new Publisher(dl, windowId, shard)
+        {
+          @Override
+          public int readSize()
+          {
+            if (writeOffset - readOffset < 2) {
+              return -1;
+            }
+
+            short s = buffer[readOffset++];
+            return s | (buffer[readOffset++] << 8);
+          }
+
+        };
+      } else {
+        return new Publisher(dl, windowId, shard);
+      }
+    }
+
   }
 
   class Subscriber extends AbstractLengthPrependerClient
@@ -615,12 +824,14 @@ public class Server implements ServerListener
   class Publisher extends SeedDataClient
   {
     private final DataList datalist;
+    private final Shard shard;
     boolean dirty;
 
-    Publisher(DataList dl, long windowId)
+    Publisher(DataList dl, long windowId, Shard shard)
     {
       super(dl.getBuffer(windowId), dl.getPosition(), 1024);
       this.datalist = dl;
+      this.shard = shard;
     }
 
     @Override
@@ -644,7 +855,7 @@ public class Server implements ServerListener
     @Override
     public boolean resumeReadIfSuspended()
     {
-      eventloop.submit(new Runnable()
+      shard.eventloop.submit(new Runnable()
       {
         @Override
         public void run()
@@ -772,7 +983,7 @@ public class Server implements ServerListener
     {
       teardown();
 
-      if (cce instanceof RejectedExecutionException && serverHelperExecutor.isTerminated()) {
+      if (cce instanceof RejectedExecutionException && shard.executor.isTerminated()) {
         logger.warn("Terminated Executor Exception for {}.", this, cce);
         el.disconnect(this);
       } else {
@@ -829,7 +1040,7 @@ public class Server implements ServerListener
       }
 
       for (LogicalNode ln : list) {
-        ln.boot(eventloop);
+        ln.boot(shard.eventloop);
       }
     }
 
@@ -0,0 +1,195 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.bufferserver.internal;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.datatorrent.bufferserver.internal.DataList.DataListIterator;
+import com.datatorrent.bufferserver.packet.BeginWindowTuple;
+import com.datatorrent.bufferserver.packet.EndWindowTuple;
+import com.datatorrent.bufferserver.packet.MessageType;
+import com.datatorrent.bufferserver.packet.PayloadTuple;
+import com.datatorrent.bufferserver.packet.ResetWindowTuple;
+import com.datatorrent.bufferserver.packet.Tuple;
+import com.datatorrent.bufferserver.packet.WindowIdTuple;
+import com.datatorrent.bufferserver.util.SerializedData;
+import com.datatorrent.bufferserver.util.VarInt;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+/**
+ * Tests subscribe, purge and rewind of the data list with the window index.
+ */
+public class DataListTest
+{
+  private ExecutorService executor;
+  private DataList dataList;
+
+  @BeforeMethod
+  public void setup()
+  {
+    executor = Executors.newSingleThreadExecutor();
+    dataList = new DataList("test", 4096, 8);
+    dataList.setAutoFlushExecutor(executor);
+    publish(1, 1, 5);
+    publish(2, 1, 5);
+  }
+
+  @AfterMethod
+  public void teardown()
+  {
+    executor.shutdownNow();
+  }
+
+  private void publish(int baseSeconds, int fromWindowId, int toWindowId)
+  {
+    byte[] buffer = dataList.getBuffer((long)baseSeconds << 32 | fromWindowId);
+    int offset = dataList.getPosition();
+    if (fromWindowId == 1) {
+      offset = write(buffer, offset, ResetWindowTuple.getSerializedTuple(baseSeconds, 500));
+    }
+    for (int windowId = fromWindowId; windowId <= toWindowId; windowId++) {
+      offset = write(buffer, offset, BeginWindowTuple.getSerializedTuple(windowId));
+      for (int i = 0; i < 10; i++) {
+        offset = write(buffer, offset, PayloadTuple.getSerializedTuple(0, 16));
+      }
+      offset = write(buffer, offset, EndWindowTuple.getSerializedTuple(windowId));
+    }
+    dataList.flush(offset);
+  }
+
+  private static int write(byte[] buffer, int offset, byte[] tuple)
+  {
+    offset = VarInt.write(tuple.length, buffer, offset);
+    System.arraycopy(tuple, 0, buffer, offset, tuple.length);
+    return offset + tuple.length;
+  }
+
+  private static Tuple nextControlTuple(DataListIterator iterator)
+  {
+    while (iterator.hasNext()) {
+      SerializedData sd = iterator.next();
+      byte type = sd.buffer[sd.dataOffset];
+      if (type != MessageType.PAYLOAD_VALUE && type != MessageType.END_WINDOW_VALUE) {
+        return Tuple.getTuple(sd.buffer, sd.dataOffset, sd.length - sd.dataOffset + sd.offset);
+      }
+    }
+    return null;
+  }
+
+  @Test
+  public void testSubscribe()
+  {
+    try (DataListIterator iterator = dataList.newIterator((2L << 32) | 3)) {
+      Tuple tuple = nextControlTuple(iterator);
+      assertEquals(tuple.getType(), MessageType.RESET_WINDOW, "first tuple");
+      assertEquals(tuple.getBaseSeconds(), 2, "base seconds");
+      tuple = nextControlTuple(iterator);
+      assertEquals(tuple.getType(), MessageType.BEGIN_WINDOW, "second tuple");
+      assertEquals(tuple.getWindowId(), 1, "window id");
+    }
+
+    try (DataListIterator iterator = dataList.newIterator((1L << 32) | 3)) {
+      Tuple tuple = nextControlTuple(iterator);
+      assertEquals(tuple.getType(), MessageType.RESET_WINDOW, "first tuple");
+      assertEquals(tuple.getBaseSeconds(), 1, "base seconds");
+    }
+  }
+
+  @Test
+  public void testSubscribeAfterCheckpoint()
+  {
+    dataList = new DataList("test", 4096, 8);
+    dataList.setAutoFlushExecutor(executor);
+    publish(1, 1, 2);
+    byte[] buffer = dataList.getBuffer((1L << 32) | 2);
+    int offset = dataList.getPosition();
+    byte[] checkpoint = WindowIdTuple.getSerializedTuple(2);
+    checkpoint[0] = MessageType.CHECKPOINT_VALUE;
+    dataList.flush(write(buffer, offset, checkpoint));
+    publish(2, 1, 2);
+
+    try (DataListIterator iterator = dataList.newIterator((2L << 32) | 1)) {
+      Tuple tuple = nextControlTuple(iterator);
+      assertEquals(tuple.getType(), MessageType.RESET_WINDOW, "first tuple");
+      assertEquals(tuple.getBaseSeconds(), 1, "base seconds of the checkpoint");
+      tuple = nextControlTuple(iterator);
+      assertEquals(tuple.getType(), MessageType.BEGIN_WINDOW, "second tuple");
+      assertEquals(tuple.getWindowId(), 1, "window id");
+    }
+  }
+
+  @Test
+  public void testPurge()
+  {
+    dataList.purge((2L << 32) | 2);
+    try (DataListIterator iterator = dataList.newIterator(0)) {
+      Tuple tuple = nextControlTuple(iterator);
+      assertEquals(tuple.getType(), MessageType.RESET_WINDOW, "first tuple");
+      assertEquals(tuple.getBaseSeconds(), 2, "base seconds");
+      tuple = nextControlTuple(iterator);
+      assertEquals(tuple.getType(), MessageType.BEGIN_WINDOW, "second tuple");
+      assertEquals(tuple.getWindowId(), 3, "window id");
+    }
+
+    dataList.purge((2L << 32) | 5);
+    try (DataListIterator iterator = dataList.newIterator(0)) {
+      Tuple tuple = nextControlTuple(iterator);
+      assertEquals(tuple.getType(), MessageType.RESET_WINDOW, "first tuple");
+      assertEquals(tuple.getBaseSeconds(), 2, "base seconds");
+      assertEquals(nextControlTuple(iterator), null, "no more windows");
+    }
+  }
+
+  @Test
+  public void testRewind() throws IOException
+  {
+    dataList.rewind(2, 4);
+    publish(2, 4, 6);
+    try (DataListIterator iterator = dataList.newIterator((2L << 32) | 3)) {
+      int windowId = 0;
+      for (Tuple tuple = nextControlTuple(iterator); tuple != null; tuple = nextControlTuple(iterator)) {
+        if (tuple.getType() == MessageType.BEGIN_WINDOW) {
+          assertTrue(tuple.getWindowId() > windowId, "window ids increase " + tuple.getWindowId());
+          windowId = tuple.getWindowId();
+        }
+      }
+      assertEquals(windowId, 6, "last window id");
+    }
+
+    dataList.rewind(1, 3);
+    try (DataListIterator iterator = dataList.newIterator(0)) {
+      Tuple tuple = nextControlTuple(iterator);
+      assertEquals(tuple.getType(), MessageType.RESET_WINDOW, "first tuple");
+      tuple = nextControlTuple(iterator);
+      assertEquals(tuple.getWindowId(), 1, "window id");
+      tuple = nextControlTuple(iterator);
+      assertEquals(tuple.getWindowId(), 2, "window id");
+      assertEquals(nextControlTuple(iterator), null, "truncated at window 3");
+    }
+  }
+
+}
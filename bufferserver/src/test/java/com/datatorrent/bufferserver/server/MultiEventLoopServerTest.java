@@ -0,0 +1,227 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.bufferserver.server;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.Test;
+
+import com.datatorrent.bufferserver.packet.BeginWindowTuple;
+import com.datatorrent.bufferserver.packet.EndWindowTuple;
+import com.datatorrent.bufferserver.packet.PayloadTuple;
+import com.datatorrent.bufferserver.packet.ResetWindowTuple;
+import com.datatorrent.bufferserver.support.Controller;
+import com.datatorrent.bufferserver.support.Publisher;
+import com.datatorrent.bufferserver.support.Subscriber;
+import com.datatorrent.netlet.DefaultEventLoop;
+import com.datatorrent.netlet.EventLoop;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+
+/**
+ * Tests the buffer server with the publishers sharded across several event loops.
+ */
+public class MultiEventLoopServerTest
+{
+  private static final Logger logger = LoggerFactory.getLogger(MultiEventLoopServerTest.class);
+  private static final int BASE_SECONDS = 0x7afebabe;
+
+  @Test
+  @SuppressWarnings("SleepWhileInLoop")
+  public void testPublishSubscribe() throws Exception
+  {
+    Cluster cluster = new Cluster(4, 2, 4096, 8);
+    try {
+      long tupleCount = cluster.run(8, 10, 20);
+      assertEquals(tupleCount, 8 * (1 + 10 * 22), "tuples received");
+
+      Controller controller = new Controller("MyController");
+      cluster.clientEventLoops[0].connect(cluster.address, controller);
+      controller.purge(null, "Publisher-1", (long)BASE_SECONDS << 32 | 1);
+      for (int i = 0; i < 300 && controller.data == null; i++) {
+        Thread.sleep(10);
+      }
+      cluster.clientEventLoops[0].disconnect(controller);
+      assertNotNull(controller.data, "purge ack");
+
+      Subscriber subscriber = new Subscriber("Subscriber-1");
+      cluster.clientEventLoops[0].connect(cluster.address, subscriber);
+      subscriber.activate(null, "Publisher-1/LateSubscriber", "Publisher-1", 0, null, 0L, 0);
+      for (int i = 0; i < 300 && subscriber.tupleCount.get() < 1 + 8 * 22; i++) {
+        Thread.sleep(10);
+      }
+      cluster.clientEventLoops[0].disconnect(subscriber);
+      assertEquals(subscriber.tupleCount.get(), 1 + 8 * 22, "tuples after purge");
+    } finally {
+      cluster.teardown();
+    }
+  }
+
+  @Test
+  public void testSpread() throws Exception
+  {
+    Cluster cluster = new Cluster(4, 2, 4096, 8);
+    try {
+      long tupleCount = cluster.run(4, 2, 5);
+      assertEquals(tupleCount, 4 * (1 + 2 * 7), "tuples received");
+
+      Set<EventLoop> eventLoops = new HashSet<>();
+      for (int i = 0; i < 4; i++) {
+        EventLoop eventLoop = cluster.server.getEventLoop("Publisher-" + i);
+        assertNotNull(eventLoop, "event loop of Publisher-" + i);
+        eventLoops.add(eventLoop);
+      }
+      assertEquals(eventLoops.size(), 4, "event loops serving the publishers and subscribers");
+    } finally {
+      cluster.teardown();
+    }
+  }
+
+  /**
+   * Measures the throughput with the number of server event loops going from 1 to 16, each event loop serving one
+   * publisher and one subscriber.
+   */
+  @Test(enabled = false)
+  public void testScaling() throws Exception
+  {
+    // warm up the code paths before measuring
+    Cluster warmup = new Cluster(1, 1, 1024 * 1024, 16);
+    try {
+      warmup.run(1, 1000, 100);
+    } finally {
+      warmup.teardown();
+    }
+
+    for (int eventLoops = 1; eventLoops <= 16; eventLoops *= 2) {
+      Cluster cluster = new Cluster(eventLoops, eventLoops, 1024 * 1024, 16);
+      try {
+        long start = System.currentTimeMillis();
+        long tupleCount = cluster.run(eventLoops, 1000, 100);
+        long elapsed = System.currentTimeMillis() - start;
+        logger.info("event loops {} tuples {} time {} ms throughput {} tuples/s", eventLoops, tupleCount, elapsed,
+            tupleCount * 1000 / Math.max(1, elapsed));
+      } finally {
+        cluster.teardown();
+      }
+    }
+  }
+
+  private static class Cluster
+  {
+    final Server server;
+    final DefaultEventLoop serverEventLoop;
+    final DefaultEventLoop[] clientEventLoops;
+    final InetSocketAddress address;
+
+    Cluster(int serverEventLoops, int clientEventLoops, int blockSize, int numberOfCacheBlocks) throws IOException
+    {
+      serverEventLoop = DefaultEventLoop.createEventLoop("server");
+      serverEventLoop.start();
+      server = new Server(0, blockSize, numberOfCacheBlocks);
+      server.setNumberOfEventLoops(serverEventLoops);
+      address = server.run(serverEventLoop);
+
+      this.clientEventLoops = new DefaultEventLoop[clientEventLoops];
+      for (int i = 0; i < clientEventLoops; i++) {
+        this.clientEventLoops[i] = DefaultEventLoop.createEventLoop("client-" + i);
+        this.clientEventLoops[i].start();
+      }
+    }
+
+    /**
+     * Publish the windows with as many publishers and subscribers as requested and wait till all the subscribers
+     * received all the tuples.
+     *
+     * @return number of tuples received by all the subscribers
+     */
+    @SuppressWarnings("SleepWhileInLoop")
+    long run(int pairs, int windows, int payloads) throws InterruptedException
+    {
+      Publisher[] publishers = new Publisher[pairs];
+      Subscriber[] subscribers = new Subscriber[pairs];
+      for (int i = 0; i < pairs; i++) {
+        DefaultEventLoop eventLoop = clientEventLoops[i % clientEventLoops.length];
+        String identifier = "Publisher-" + i;
+        subscribers[i] = new Subscriber("Subscriber-" + i);
+        eventLoop.connect(address, subscribers[i]);
+        subscribers[i].activate(null, identifier + "/Subscriber", identifier, 0, null, 0L, 0);
+        publishers[i] = new Publisher(identifier);
+        eventLoop.connect(address, publishers[i]);
+        publishers[i].activate(null, BASE_SECONDS, 0);
+      }
+
+      byte[] payload = PayloadTuple.getSerializedTuple(0, 64);
+      for (Publisher publisher : publishers) {
+        publish(publisher, ResetWindowTuple.getSerializedTuple(BASE_SECONDS, 500));
+      }
+      for (int windowId = 0; windowId < windows; windowId++) {
+        for (Publisher publisher : publishers) {
+          publish(publisher, BeginWindowTuple.getSerializedTuple(windowId));
+          for (int i = 0; i < payloads; i++) {
+            publish(publisher, payload);
+          }
+          publish(publisher, EndWindowTuple.getSerializedTuple(windowId));
+        }
+      }
+
+      long expected = (long)pairs * (1 + windows * (payloads + 2));
+      long tupleCount = 0;
+      for (int i = 0; i < 3000; i++) {
+        tupleCount = 0;
+        for (Subscriber subscriber : subscribers) {
+          tupleCount += subscriber.tupleCount.get();
+        }
+        if (tupleCount >= expected) {
+          break;
+        }
+        Thread.sleep(10);
+      }
+
+      for (int i = 0; i < pairs; i++) {
+        DefaultEventLoop eventLoop = clientEventLoops[i % clientEventLoops.length];
+        eventLoop.disconnect(subscribers[i]);
+        eventLoop.disconnect(publishers[i]);
+      }
+      return tupleCount;
+    }
+
+    private static void publish(Publisher publisher, byte[] tuple) throws InterruptedException
+    {
+      while (!publisher.write(tuple)) {
+        Thread.sleep(1);
+      }
+    }
+
+    void teardown()
+    {
+      for (DefaultEventLoop eventLoop : clientEventLoops) {
+        eventLoop.stop();
+      }
+      serverEventLoop.stop(server);
+      serverEventLoop.stop();
+    }
+  }
+
+}
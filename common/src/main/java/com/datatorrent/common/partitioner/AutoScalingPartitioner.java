@@ -0,0 +1,377 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.common.partitioner;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.validation.constraints.Min;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.datatorrent.api.Operator;
+import com.datatorrent.api.Operator.InputPort;
+import com.datatorrent.api.Stats.OperatorStats;
+import com.datatorrent.api.Stats.OperatorStats.PortStats;
+import com.datatorrent.api.StatsListener;
+
+/**
+ * Partitioner that scales the number of partitions between {@link #getMinPartitions()} and
+ * {@link #getMaxPartitions()} based on the operator stats. A partition is considered overloaded when it exceeds any of
+ * the configured targets for tuples per second, latency or input queue size and underloaded when it stays below all
+ * of them by the {@link #getScaleDownRatio()} factor. Values in between leave the partition alone, which keeps the
+ * operator from oscillating around a target.
+ * <p>
+ * A partition has to be in the same state for {@link #getEvaluations()} consecutive heartbeats before its load
+ * indicator is reported, and no repartitioning is requested within {@link #getCooldownMillis()} of the previous one.
+ * Scaling down is requested once two partitions are underloaded, as partitions are combined in pairs.
+ * Partitions are split and combined with {@link StatelessPartitioner#repartition(Collection)} or, for input operators,
+ * {@link StatelessPartitioner#repartitionInputOperator(Collection)}. The reason for each decision is passed as
+ * repartition note and recorded by the engine with the partition event.
+ * <p>
+ * The engine registers the partitioner as stats listener of the operator it partitions, it does not have to be added
+ * to the stats listeners attribute.
+ *
+ * @param <T> The type of the operator
+ * @since 3.5.0
+ */
+@StatsListener.DataQueueSize
+public class AutoScalingPartitioner<T extends Operator> extends StatelessPartitioner<T> implements StatsListener
+{
+  private static final Logger logger = LoggerFactory.getLogger(AutoScalingPartitioner.class);
+  private static final long serialVersionUID = 201610191130L;
+
+  @Min(1)
+  private int minPartitions = 1;
+  @Min(1)
+  private int maxPartitions = 32;
+  private long tuplesPerSecond;
+  private long latencyMillis;
+  private int queueSize;
+  private double scaleDownRatio = 0.5;
+  @Min(1)
+  private int evaluations = 3;
+  private long cooldownMillis = 60000;
+
+  private final Map<Integer, PartitionState> partitionStates = new HashMap<>();
+  private long lastRepartitionMillis;
+
+  private static class PartitionState implements java.io.Serializable
+  {
+    private static final long serialVersionUID = 201610191131L;
+    int hotCount;
+    int coldCount;
+    int load;
+  }
+
+  public AutoScalingPartitioner()
+  {
+  }
+
+  /**
+   * Create a partitioner that scales on throughput.
+   * @param tuplesPerSecond The target number of tuples per second per partition.
+   */
+  public AutoScalingPartitioner(long tuplesPerSecond)
+  {
+    this.tuplesPerSecond = tuplesPerSecond;
+  }
+
+  @Override
+  public Collection<Partition<T>> definePartitions(Collection<Partition<T>> partitions, PartitioningContext context)
+  {
+    if (partitions.iterator().next().getStats() == null) {
+      setPartitionCount(Math.max(minPartitions, Math.min(maxPartitions, getPartitionCount())));
+      return super.definePartitions(partitions, context);
+    }
+
+    List<Partition<T>> underloaded = new ArrayList<>();
+    for (Partition<T> p : partitions) {
+      if (p.getLoad() < 0) {
+        underloaded.add(p);
+      }
+    }
+    Collection<Partition<T>> newPartitions = super.definePartitions(partitions, context);
+    // merging modifies the existing partitions, only splits can be rolled back
+    if (underloaded.isEmpty() && newPartitions.size() > maxPartitions) {
+      logger.info("Not scaling to {} partitions, the maximum is {}", newPartitions.size(), maxPartitions);
+      return partitions;
+    }
+
+    if (!underloaded.isEmpty() && newPartitions.containsAll(underloaded) && context.getParallelPartitionCount() == 0) {
+      // only sibling partitions are combined, scale down with the underloaded partitions that are no siblings
+      if (underloaded.size() < 2 || newPartitions.size() <= minPartitions) {
+        logger.info("Not scaling down from {} partitions with {} underloaded, the minimum is {}", newPartitions.size(),
+            underloaded.size(), minPartitions);
+      } else {
+        newPartitions = new ArrayList<>(newPartitions);
+        Partition<T> removed = underloaded.get(0);
+        newPartitions.remove(removed);
+        combine(removed, underloaded.get(1));
+        logger.info("Combined underloaded partitions {} and {} that are no siblings", removed.getPartitionKeys(),
+            underloaded.get(1).getPartitionKeys());
+      }
+    }
+    return newPartitions;
+  }
+
+  /**
+   * Move the partition keys of a partition to another partition. Keys with different masks are expanded to the larger
+   * mask.
+   */
+  private static <T extends Operator> void combine(Partition<T> from, Partition<T> to)
+  {
+    if (to.getPartitionKeys().isEmpty()) {
+      // input operator, the partition is just dropped
+      return;
+    }
+    InputPort<?> port = to.getPartitionKeys().keySet().iterator().next();
+    PartitionKeys fromKeys = from.getPartitionKeys().get(port);
+    PartitionKeys toKeys = to.getPartitionKeys().get(port);
+    int mask = fromKeys.mask | toKeys.mask;
+    Set<Integer> keys = new HashSet<>();
+    for (PartitionKeys pks : new PartitionKeys[]{fromKeys, toKeys}) {
+      for (int key : pks.partitions) {
+        for (int k = key & pks.mask; k <= mask; k += pks.mask + 1) {
+          keys.add(k);
+        }
+      }
+    }
+    // put new value so the map gets marked as modified
+    to.getPartitionKeys().put(port, new PartitionKeys(mask, keys));
+  }
+
+  @Override
+  public synchronized void partitioned(Map<Integer, Partition<T>> partitions)
+  {
+    partitionStates.clear();
+    for (Integer operatorId : partitions.keySet()) {
+      partitionStates.put(operatorId, new PartitionState());
+    }
+    lastRepartitionMillis = System.currentTimeMillis();
+  }
+
+  @Override
+  public synchronized Response processStats(BatchedOperatorStats stats)
+  {
+    PartitionState state = partitionStates.get(stats.getOperatorId());
+    if (state == null) {
+      // stats of a partition that was already removed
+      return null;
+    }
+
+    Response rsp = new Response();
+    long now = System.currentTimeMillis();
+    if (now - lastRepartitionMillis < cooldownMillis) {
+      // keep the load of a pending request until the partitions are redefined
+      state.hotCount = 0;
+      state.coldCount = 0;
+      rsp.loadIndicator = state.load;
+      return rsp;
+    }
+
+    long tps = stats.getTuplesProcessedPSMA();
+    if (tps == 0L) {
+      tps = stats.getTuplesEmittedPSMA();
+    }
+    long latency = stats.getLatencyMA();
+    int queue = getMaxQueueSize(stats.getLastWindowedStats());
+
+    String hotNote = null;
+    if (tuplesPerSecond > 0 && tps > tuplesPerSecond) {
+      hotNote = String.format("Tuples per second %d is greater than the target %d", tps, tuplesPerSecond);
+    } else if (latencyMillis > 0 && latency > latencyMillis) {
+      hotNote = String.format("Latency %d ms is greater than the target %d ms", latency, latencyMillis);
+    } else if (queueSize > 0 && queue > queueSize) {
+      hotNote = String.format("Queue size %d is greater than the target %d", queue, queueSize);
+    }
+    boolean cold = hotNote == null && (tuplesPerSecond > 0 || latencyMillis > 0 || queueSize > 0)
+        && (tuplesPerSecond <= 0 || tps < tuplesPerSecond * scaleDownRatio)
+        && (latencyMillis <= 0 || latency < latencyMillis * scaleDownRatio)
+        && (queueSize <= 0 || queue < queueSize * scaleDownRatio);
+
+    String note = null;
+    state.load = 0;
+    if (hotNote != null) {
+      state.coldCount = 0;
+      if (++state.hotCount >= evaluations && countLoad(1) < maxPartitions - partitionStates.size()) {
+        state.load = 1;
+        note = "Scale up: " + hotNote;
+      }
+    } else if (cold) {
+      state.hotCount = 0;
+      if (++state.coldCount >= evaluations && (countLoad(-1) + 2) / 2 <= partitionStates.size() - minPartitions) {
+        state.load = -1;
+      }
+      // partitions are combined in pairs
+      if (state.load < 0 && countLoad(-1) > 1) {
+        note = String.format("Scale down: tuples per second %d, latency %d ms and queue size %d are below %.0f%% of the target",
+            tps, latency, queue, scaleDownRatio * 100);
+      }
+    } else {
+      state.hotCount = 0;
+      state.coldCount = 0;
+    }
+
+    rsp.loadIndicator = state.load;
+    if (note != null) {
+      logger.debug("Requesting repartitioning of {}: {}", stats.getOperatorId(), note);
+      rsp.repartitionRequired = true;
+      rsp.repartitionNote = note;
+      lastRepartitionMillis = now;
+    }
+    return rsp;
+  }
+
+  private int countLoad(int load)
+  {
+    int count = 0;
+    for (PartitionState state : partitionStates.values()) {
+      if (state.load == load) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  private static int getMaxQueueSize(List<OperatorStats> windowedStats)
+  {
+    int result = 0;
+    if (windowedStats != null && !windowedStats.isEmpty()) {
+      OperatorStats os = windowedStats.get(windowedStats.size() - 1);
+      if (os.inputPorts != null) {
+        for (PortStats ps : os.inputPorts) {
+          result = Math.max(result, ps.queueSize);
+        }
+      }
+    }
+    return result;
+  }
+
+  public int getMinPartitions()
+  {
+    return minPartitions;
+  }
+
+  /**
+   * @param minPartitions The minimum number of partitions.
+   */
+  public void setMinPartitions(int minPartitions)
+  {
+    this.minPartitions = minPartitions;
+  }
+
+  public int getMaxPartitions()
+  {
+    return maxPartitions;
+  }
+
+  /**
+   * @param maxPartitions The maximum number of partitions.
+   */
+  public void setMaxPartitions(int maxPartitions)
+  {
+    this.maxPartitions = maxPartitions;
+  }
+
+  public long getTuplesPerSecond()
+  {
+    return tuplesPerSecond;
+  }
+
+  /**
+   * @param tuplesPerSecond The target number of tuples processed (emitted for input operators) per second and
+   * partition, 0 to ignore throughput.
+   */
+  public void setTuplesPerSecond(long tuplesPerSecond)
+  {
+    this.tuplesPerSecond = tuplesPerSecond;
+  }
+
+  public long getLatencyMillis()
+  {
+    return latencyMillis;
+  }
+
+  /**
+   * @param latencyMillis The target latency in milliseconds, 0 to ignore latency.
+   */
+  public void setLatencyMillis(long latencyMillis)
+  {
+    this.latencyMillis = latencyMillis;
+  }
+
+  public int getQueueSize()
+  {
+    return queueSize;
+  }
+
+  /**
+   * @param queueSize The target number of tuples waiting in the input queues, 0 to ignore the queue size.
+   */
+  public void setQueueSize(int queueSize)
+  {
+    this.queueSize = queueSize;
+  }
+
+  public double getScaleDownRatio()
+  {
+    return scaleDownRatio;
+  }
+
+  /**
+   * @param scaleDownRatio The fraction of the targets below which a partition is considered underloaded.
+   */
+  public void setScaleDownRatio(double scaleDownRatio)
+  {
+    this.scaleDownRatio = scaleDownRatio;
+  }
+
+  public int getEvaluations()
+  {
+    return evaluations;
+  }
+
+  /**
+   * @param evaluations The number of consecutive heartbeats a partition has to be over or underloaded.
+   */
+  public void setEvaluations(int evaluations)
+  {
+    this.evaluations = evaluations;
+  }
+
+  public long getCooldownMillis()
+  {
+    return cooldownMillis;
+  }
+
+  /**
+   * @param cooldownMillis The minimum time between repartitioning requests.
+   */
+  public void setCooldownMillis(long cooldownMillis)
+  {
+    this.cooldownMillis = cooldownMillis;
+  }
+}
@@ -0,0 +1,327 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.common.partitioner;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.validation.constraints.Min;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+import com.datatorrent.api.DefaultPartition;
+import com.datatorrent.api.Operator;
+import com.datatorrent.api.Operator.InputPort;
+import com.datatorrent.api.Partitioner;
+import com.datatorrent.common.util.FSStorageAgent;
+
+/**
+ * Partitioner that maps the keys of the first connected input port to a fixed number of key groups and assigns each
+ * partition a range of key groups. The key group of a tuple is its partition code masked with the number of key
+ * groups, so the stream partitioning already routes the tuples.
+ * <p>
+ * When the partition count changes, each remaining partition keeps as many of its key groups as its new share allows
+ * and only the surplus key groups are moved. Operators that implement {@link KeyGroupState} are asked to move the
+ * state of these key groups to the new owner, which moves about 1/N of the state when scaling from N to N+1
+ * partitions. New partitions are created from a copy of the operator as it was passed to the first call of
+ * {@link #definePartitions(Collection, PartitioningContext)}.
+ * <p>
+ * On repartitioning the partition count grows by the number of partitions with positive load and shrinks by half the
+ * number of partitions with negative load. Without load information the configured partition count is used.
+ *
+ * @param <T> The type of the operator
+ * @since 3.5.0
+ */
+public class KeyGroupPartitioner<T extends Operator> implements Partitioner<T>, Serializable
+{
+  private static final Logger logger = LoggerFactory.getLogger(KeyGroupPartitioner.class);
+  private static final long serialVersionUID = 201610191400L;
+
+  /**
+   * Implemented by operators that keep state by key, to move the state of key groups between partitions.
+   *
+   * @param <T> The type of the operator
+   */
+  public interface KeyGroupState<T>
+  {
+    /**
+     * Move the state of the keys in the given key groups from this partition to the target partition.
+     *
+     * @param keyGroups The key groups to move.
+     * @param mask The key group mask, the key group of a key is its partition code & mask.
+     * @param target The partition that owns the key groups after the change.
+     */
+    void moveKeyGroups(Set<Integer> keyGroups, int mask, T target);
+  }
+
+  @Min(1)
+  private int partitionCount = 1;
+  @Min(1)
+  private int keyGroups = 128;
+  private byte[] template;
+
+  public KeyGroupPartitioner()
+  {
+  }
+
+  /**
+   * This constructor is used to create the partitioner from a property.
+   * @param value A string which is an integer of the number of partitions to create
+   */
+  public KeyGroupPartitioner(String value)
+  {
+    this(Integer.parseInt(value));
+  }
+
+  public KeyGroupPartitioner(int partitionCount)
+  {
+    this.partitionCount = partitionCount;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public Collection<Partition<T>> definePartitions(Collection<Partition<T>> partitions, PartitioningContext context)
+  {
+    List<InputPort<?>> inputPorts = context.getInputPorts();
+    InputPort<?> port = inputPorts == null || inputPorts.isEmpty() ? null : inputPorts.get(0);
+    Partition<T> first = partitions.iterator().next();
+    if (first.getStats() == null || template == null) {
+      template = serialize(first.getPartitionedInstance());
+    }
+
+    int newPartitionCount;
+    if (first.getStats() == null) {
+      newPartitionCount = DefaultPartition.getRequiredPartitionCount(context, partitionCount);
+    } else if (context.getParallelPartitionCount() != 0) {
+      newPartitionCount = context.getParallelPartitionCount();
+    } else {
+      int load = 0;
+      int lowLoad = 0;
+      for (Partition<T> p : partitions) {
+        if (p.getLoad() > 0) {
+          load++;
+        } else if (p.getLoad() < 0) {
+          lowLoad++;
+        }
+      }
+      newPartitionCount = load == 0 && lowLoad == 0 ? partitionCount : partitions.size() + load - lowLoad / 2;
+    }
+    int mask = getMask();
+    newPartitionCount = Math.max(1, Math.min(mask + 1, newPartitionCount));
+
+    // current owners, partitions without key groups of the expected mask are replaced
+    List<Partition<T>> current = Lists.newArrayList();
+    List<TreeSet<Integer>> owned = Lists.newArrayList();
+    if (first.getStats() != null) {
+      for (Partition<T> p : partitions) {
+        PartitionKeys pks = port == null ? null : p.getPartitionKeys().get(port);
+        if (port == null) {
+          current.add(p);
+          owned.add(new TreeSet<Integer>());
+        } else if (pks != null && pks.mask == mask) {
+          current.add(p);
+          owned.add(new TreeSet<>(pks.partitions));
+        }
+      }
+    }
+    if (current.size() == newPartitionCount && current.size() == partitions.size()) {
+      return partitions;
+    }
+
+    int[][] moves = assign(owned, newPartitionCount, mask + 1);
+    List<Partition<T>> newPartitions = Lists.newArrayListWithCapacity(newPartitionCount);
+    for (int i = 0; i < newPartitionCount; i++) {
+      newPartitions.add(i < current.size() ? current.get(i) : new DefaultPartition<>((T)deserialize(template)));
+    }
+
+    if (port != null) {
+      // let the previous owners hand over the state of the moved key groups
+      int[] owners = getOwners(owned, mask + 1);
+      int movedKeyGroups = 0;
+      for (int source = 0; source < moves.length; source++) {
+        Map<Integer, Set<Integer>> targets = Maps.newTreeMap();
+        for (int keyGroup : moves[source]) {
+          int target = owners[keyGroup];
+          if (target != source) {
+            Set<Integer> keys = targets.get(target);
+            if (keys == null) {
+              targets.put(target, keys = new TreeSet<>());
+            }
+            keys.add(keyGroup);
+          }
+        }
+        T sourceOperator = current.get(source).getPartitionedInstance();
+        for (Map.Entry<Integer, Set<Integer>> e : targets.entrySet()) {
+          movedKeyGroups += e.getValue().size();
+          if (sourceOperator instanceof KeyGroupState) {
+            ((KeyGroupState<T>)sourceOperator).moveKeyGroups(e.getValue(), mask, newPartitions.get(e.getKey()).getPartitionedInstance());
+          }
+        }
+      }
+      for (int i = 0; i < newPartitionCount; i++) {
+        Partition<T> p = newPartitions.get(i);
+        PartitionKeys pks = p.getPartitionKeys().get(port);
+        if (pks == null || !pks.partitions.equals(owned.get(i))) {
+          p.getPartitionKeys().put(port, new PartitionKeys(mask, owned.get(i)));
+        }
+      }
+      logger.debug("{} partitions, moved {} of {} key groups", newPartitionCount, movedKeyGroups, mask + 1);
+    }
+    return newPartitions;
+  }
+
+  /**
+   * Assign the key groups to the given number of partitions. The owned list is updated in place, it contains the key
+   * groups of the current partitions on input and the key groups of the new partitions on return. Each partition
+   * keeps the lowest of its key groups up to its new share.
+   *
+   * @param owned The key groups owned by each partition.
+   * @param partitionCount The new number of partitions.
+   * @param keyGroupCount The number of key groups.
+   * @return The key groups given up by each of the current partitions.
+   */
+  static int[][] assign(List<TreeSet<Integer>> owned, int partitionCount, int keyGroupCount)
+  {
+    int currentCount = owned.size();
+    TreeSet<Integer> unassigned = new TreeSet<>();
+    for (int i = 0; i < keyGroupCount; i++) {
+      unassigned.add(i);
+    }
+    for (TreeSet<Integer> keys : owned) {
+      unassigned.removeAll(keys);
+    }
+
+    int[][] released = new int[currentCount][];
+    TreeSet<Integer> pool = new TreeSet<>(unassigned);
+    for (int i = 0; i < currentCount; i++) {
+      TreeSet<Integer> keys = owned.get(i);
+      int share = i < partitionCount ? getShare(i, partitionCount, keyGroupCount) : 0;
+      List<Integer> surplus = new ArrayList<>();
+      while (keys.size() > share) {
+        surplus.add(keys.pollLast());
+      }
+      pool.addAll(surplus);
+      released[i] = new int[surplus.size()];
+      for (int j = 0; j < released[i].length; j++) {
+        released[i][j] = surplus.get(j);
+      }
+    }
+    while (owned.size() > partitionCount) {
+      owned.remove(owned.size() - 1);
+    }
+    for (int i = 0; i < partitionCount; i++) {
+      if (i == owned.size()) {
+        owned.add(new TreeSet<Integer>());
+      }
+      TreeSet<Integer> keys = owned.get(i);
+      int share = getShare(i, partitionCount, keyGroupCount);
+      while (keys.size() < share) {
+        keys.add(pool.pollFirst());
+      }
+    }
+    return released;
+  }
+
+  private static int getShare(int index, int partitionCount, int keyGroupCount)
+  {
+    return keyGroupCount / partitionCount + (index < keyGroupCount % partitionCount ? 1 : 0);
+  }
+
+  /**
+   * @return The index of the partition owning each key group.
+   */
+  private static int[] getOwners(List<TreeSet<Integer>> owned, int keyGroupCount)
+  {
+    int[] owners = new int[keyGroupCount];
+    for (int i = 0; i < owned.size(); i++) {
+      for (int keyGroup : owned.get(i)) {
+        owners[keyGroup] = i;
+      }
+    }
+    return owners;
+  }
+
+  /**
+   * Serialize the operator as it is checkpointed, so that the copies are created as on recovery.
+   */
+  private static byte[] serialize(Object operator)
+  {
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    FSStorageAgent.store(bos, operator);
+    return bos.toByteArray();
+  }
+
+  private static Object deserialize(byte[] bytes)
+  {
+    return FSStorageAgent.retrieve(new ByteArrayInputStream(bytes));
+  }
+
+  @Override
+  public void partitioned(Map<Integer, Partition<T>> partitions)
+  {
+  }
+
+  /**
+   * @return The key group mask, the number of key groups minus one.
+   */
+  public int getMask()
+  {
+    return keyGroups <= 1 ? 0 : Integer.highestOneBit(keyGroups - 1) * 2 - 1;
+  }
+
+  public int getPartitionCount()
+  {
+    return partitionCount;
+  }
+
+  /**
+   * @param partitionCount The number of partitions when no load information is available.
+   */
+  public void setPartitionCount(int partitionCount)
+  {
+    this.partitionCount = partitionCount;
+  }
+
+  public int getKeyGroups()
+  {
+    return keyGroups;
+  }
+
+  /**
+   * The number of key groups bounds the number of partitions and cannot be changed once the operator is partitioned.
+   * It is rounded up to the next power of 2.
+   *
+   * @param keyGroups The number of key groups.
+   */
+  public void setKeyGroups(int keyGroups)
+  {
+    this.keyGroups = keyGroups;
+  }
+}
@@ -163,6 +163,11 @@ public class StatelessPartitioner<T extends Operator> implements Partitioner<T>,
       if (load < 0) {
         // combine neighboring underutilized partitions
         PartitionKeys pks = p.getPartitionKeys().values().iterator().next(); // one port partitioned
+        if (pks.partitions.size() > 1) {
+          // keys of partitions that were combined without being siblings, leave unchanged
+          newPartitions.add(p);
+          continue;
+        }
         for (int partitionKey: pks.partitions) {
           // look for the sibling partition by excluding leading bit
           int reducedMask = pks.mask >>> 1;
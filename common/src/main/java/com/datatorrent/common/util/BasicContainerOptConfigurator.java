@@ -36,7 +36,9 @@ import com.datatorrent.api.DAG;
  * The default implementation for {@link Context.ContainerOptConfigurator}
  * <br>
  * This aggregates the heap size configurations for Xmx, Xms, Xss. If Xmx is not set for an operator, it is set to 75% of the operator memory <br>
- * For other JVM options it assumes that they are all set same for all operators deployed in container. If JVM options are set on only one operator in the container,then those configurations will be applied to all the operators deployed in the container
+ * For other JVM options it assumes that they are all set same for all operators deployed in container. If JVM options are set on only one operator in the container,then those configurations will be applied to all the operators deployed in the container <br>
+ * If an operator in the container has {@link Context.OperatorContext#THREAD_AFFINITY} set, the NUMA aware allocation
+ * is enabled unless the JVM options of the operators already configure it
  *
  * @since 2.0.0
  */
@@ -46,6 +48,8 @@ public class BasicContainerOptConfigurator implements Context.ContainerOptConfig
   private static final String XMX = "-Xmx";
   private static final String XMS = "-Xms";
   private static final String XSS = "-Xss";
+  private static final String NUMA = "UseNUMA";
+  private static final String USE_NUMA = "-XX:+" + NUMA;
   private static final String[] OPT_LIST = new String[]{XMS, XMX, XSS};
   private static final String GENERIC = "Generic";
   private static final int GB_TO_B = 1024 * 1024 * 1024;
@@ -59,8 +63,10 @@ public class BasicContainerOptConfigurator implements Context.ContainerOptConfig
     long xmx = 0;
     long xms = 0;
     long xss = 0;
+    boolean threadAffinity = false;
     List<Map<String, Object>> jvmOptsList = Lists.newArrayList();
     for (DAG.OperatorMeta operatorMeta : operatorMetaList) {
+      threadAffinity |= operatorMeta.getValue(Context.OperatorContext.THREAD_AFFINITY);
       Map<String, Object> operatorMap = parseJvmOpts(operatorMeta.getValue(Context.OperatorContext.JVM_OPTIONS), operatorMeta.getValue(Context.OperatorContext.MEMORY_MB));
       LOG.info("property map for operator {}", operatorMap);
       Set<String> operatorPropertySet = (Set<String>)operatorMap.get(GENERIC);
@@ -96,11 +102,16 @@ public class BasicContainerOptConfigurator implements Context.ContainerOptConfig
     if (xss != 0) {
       builder.append(" ").append(XSS).append(xss);
     }
+    boolean numa = false;
     if (genericProperties != null) {
       for (String property : genericProperties) {
         builder.append(" ").append(property);
+        numa |= property.contains(NUMA);
       }
     }
+    if (threadAffinity && !numa) {
+      builder.append(" ").append(USE_NUMA);
+    }
     return builder.toString();
   }
 
@@ -60,7 +60,20 @@ public class FSStorageAgent implements StorageAgent, Serializable
   protected static final String STATELESS_CHECKPOINT_WINDOW_ID = Long.toHexString(Stateless.WINDOW_ID);
   public final String path;
   protected final transient FileContext fileContext;
+  /**
+   * @deprecated {@link #store(OutputStream, Object)} and {@link #retrieve(InputStream)} use a Kryo instance per
+   * thread so that the operators of a container can be saved and restored in parallel.
+   */
+  @Deprecated
   protected static final transient Kryo kryo;
+  private static final ThreadLocal<Kryo> threadKryo = new ThreadLocal<Kryo>()
+  {
+    @Override
+    protected Kryo initialValue()
+    {
+      return new Kryo();
+    }
+  };
 
   static {
     kryo = new Kryo();
@@ -176,21 +189,18 @@ public class FSStorageAgent implements StorageAgent, Serializable
 
   public static void store(OutputStream stream, Object operator)
   {
-    synchronized (kryo) {
-      Output output = new Output(4096, Integer.MAX_VALUE);
-      output.setOutputStream(stream);
-      kryo.writeClassAndObject(output, operator);
-      output.flush();
-    }
+    Output output = new Output(4096, Integer.MAX_VALUE);
+    output.setOutputStream(stream);
+    threadKryo.get().writeClassAndObject(output, operator);
+    output.flush();
   }
 
   public static Object retrieve(InputStream stream)
   {
-    synchronized (kryo) {
-      kryo.setClassLoader(Thread.currentThread().getContextClassLoader());
-      Input input = new Input(stream);
-      return kryo.readClassAndObject(input);
-    }
+    Kryo instance = threadKryo.get();
+    instance.setClassLoader(Thread.currentThread().getContextClassLoader());
+    Input input = new Input(stream);
+    return instance.readClassAndObject(input);
   }
 
   public Object readResolve() throws ObjectStreamException
@@ -40,7 +40,8 @@ public class PubSubMessage<T>
     SUBSCRIBE_NUM_SUBSCRIBERS("subscribeNumSubscribers"),
     UNSUBSCRIBE_NUM_SUBSCRIBERS("unsubscribeNumSubscribers"),
     DATA("data"),
-    GET_LATEST_TOPICS("getLatestTopics");
+    GET_LATEST_TOPICS("getLatestTopics"),
+    GET_QUEUE_STATS("getQueueStats");
     private final String identifier;
 
     PubSubMessageType(String identifier)
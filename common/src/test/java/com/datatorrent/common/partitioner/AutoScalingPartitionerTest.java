@@ -0,0 +1,252 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.common.partitioner;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import com.datatorrent.api.DefaultInputPort;
+import com.datatorrent.api.DefaultPartition;
+import com.datatorrent.api.Operator.InputPort;
+import com.datatorrent.api.Partitioner.Partition;
+import com.datatorrent.api.Partitioner.PartitionKeys;
+import com.datatorrent.api.Stats.OperatorStats;
+import com.datatorrent.api.Stats.OperatorStats.PortStats;
+import com.datatorrent.api.StatsListener.BatchedOperatorStats;
+import com.datatorrent.api.StatsListener.OperatorResponse;
+import com.datatorrent.api.StatsListener.Response;
+import com.datatorrent.common.partitioner.StatelessPartitionerTest.DummyOperator;
+import com.datatorrent.common.partitioner.StatelessPartitionerTest.PartitioningContextImpl;
+
+public class AutoScalingPartitionerTest
+{
+  public static class TestStats implements BatchedOperatorStats
+  {
+    int operatorId;
+    long tuplesEmittedPSMA;
+    long latencyMA;
+    int queueSize;
+
+    TestStats(int operatorId)
+    {
+      this.operatorId = operatorId;
+    }
+
+    @Override
+    public List<OperatorStats> getLastWindowedStats()
+    {
+      OperatorStats os = new OperatorStats();
+      os.inputPorts = new ArrayList<>();
+      PortStats ps = new PortStats("input");
+      ps.queueSize = queueSize;
+      os.inputPorts.add(ps);
+      return Collections.singletonList(os);
+    }
+
+    @Override
+    public int getOperatorId()
+    {
+      return operatorId;
+    }
+
+    @Override
+    public long getCurrentWindowId()
+    {
+      return 0;
+    }
+
+    @Override
+    public long getTuplesProcessedPSMA()
+    {
+      return 0;
+    }
+
+    @Override
+    public long getTuplesEmittedPSMA()
+    {
+      return tuplesEmittedPSMA;
+    }
+
+    @Override
+    public double getCpuPercentageMA()
+    {
+      return 0;
+    }
+
+    @Override
+    public long getLatencyMA()
+    {
+      return latencyMA;
+    }
+
+    @Override
+    public List<OperatorResponse> getOperatorResponse()
+    {
+      return null;
+    }
+  }
+
+  private static Map<Integer, Partition<DummyOperator>> partitioned(AutoScalingPartitioner<DummyOperator> partitioner,
+      Collection<Partition<DummyOperator>> partitions)
+  {
+    Map<Integer, Partition<DummyOperator>> map = Maps.newHashMap();
+    int operatorId = 0;
+    for (Partition<DummyOperator> p : partitions) {
+      map.put(++operatorId, p);
+    }
+    partitioner.partitioned(map);
+    return map;
+  }
+
+  @Test
+  public void testInitialPartitionCount()
+  {
+    AutoScalingPartitioner<DummyOperator> partitioner = new AutoScalingPartitioner<>();
+    partitioner.setPartitionCount(5);
+    partitioner.setMaxPartitions(3);
+    Collection<Partition<DummyOperator>> partitions = Lists.newArrayList();
+    partitions.add(new DefaultPartition<>(new DummyOperator(5)));
+    Assert.assertEquals("max partitions", 3, partitioner.definePartitions(partitions, new PartitioningContextImpl(null, 0)).size());
+  }
+
+  @Test
+  public void testScaleInputOperator()
+  {
+    AutoScalingPartitioner<DummyOperator> partitioner = new AutoScalingPartitioner<>();
+    partitioner.setLatencyMillis(100);
+    partitioner.setQueueSize(1000);
+    partitioner.setEvaluations(2);
+    partitioner.setCooldownMillis(0);
+
+    DummyOperator operator = new DummyOperator(5);
+    Collection<Partition<DummyOperator>> partitions = Lists.<Partition<DummyOperator>>newArrayList(new DefaultPartition<>(operator));
+    partitioned(partitioner, partitions);
+
+    TestStats stats = new TestStats(1);
+    stats.queueSize = 2000;
+    Response rsp = partitioner.processStats(stats);
+    Assert.assertFalse("evaluations", rsp.repartitionRequired);
+    rsp = partitioner.processStats(stats);
+    Assert.assertTrue("queue size", rsp.repartitionRequired);
+    Assert.assertEquals("load", 1, rsp.loadIndicator);
+    Assert.assertTrue(rsp.repartitionNote, rsp.repartitionNote.startsWith("Scale up: Queue size 2000"));
+
+    partitions = Lists.<Partition<DummyOperator>>newArrayList(new DefaultPartition<>(operator, new DefaultPartition.PartitionPortMap(), rsp.loadIndicator, stats));
+    partitions = partitioner.definePartitions(partitions, new PartitioningContextImpl(null, 0));
+    Assert.assertEquals("scaled up", 2, partitions.size());
+    partitioned(partitioner, partitions);
+
+    // within the hysteresis band
+    stats.queueSize = 0;
+    stats.latencyMA = 80;
+    partitioner.processStats(stats);
+    Assert.assertEquals("load", 0, partitioner.processStats(stats).loadIndicator);
+
+    TestStats stats2 = new TestStats(2);
+    stats.latencyMA = 10;
+    stats2.latencyMA = 10;
+    partitioner.processStats(stats);
+    partitioner.processStats(stats2);
+    rsp = partitioner.processStats(stats);
+    Assert.assertEquals("load", -1, rsp.loadIndicator);
+    Assert.assertFalse("single underloaded partition", rsp.repartitionRequired);
+    rsp = partitioner.processStats(stats2);
+    Assert.assertTrue("scale down", rsp.repartitionRequired);
+
+    List<Partition<DummyOperator>> loaded = Lists.newArrayList();
+    for (Partition<DummyOperator> p : partitions) {
+      loaded.add(new DefaultPartition<>(p.getPartitionedInstance(), new DefaultPartition.PartitionPortMap(), -1, stats));
+    }
+    Assert.assertEquals("scaled down", 1, partitioner.definePartitions(loaded, new PartitioningContextImpl(null, 0)).size());
+    partitioned(partitioner, loaded.subList(0, 1));
+
+    stats.latencyMA = 10;
+    partitioner.processStats(stats);
+    Assert.assertEquals("min partitions", 0, partitioner.processStats(stats).loadIndicator);
+  }
+
+  @Test
+  public void testCooldown()
+  {
+    AutoScalingPartitioner<DummyOperator> partitioner = new AutoScalingPartitioner<>(100);
+    partitioner.setEvaluations(1);
+    Collection<Partition<DummyOperator>> partitions = Lists.<Partition<DummyOperator>>newArrayList(new DefaultPartition<>(new DummyOperator(5)));
+    partitioned(partitioner, partitions);
+
+    TestStats stats = new TestStats(1);
+    stats.tuplesEmittedPSMA = 1000;
+    Assert.assertFalse("cooldown after partitioning", partitioner.processStats(stats).repartitionRequired);
+    partitioner.setCooldownMillis(0);
+    Assert.assertTrue("scale up", partitioner.processStats(stats).repartitionRequired);
+    Assert.assertNull("removed partition", partitioner.processStats(new TestStats(2)));
+  }
+
+  @Test
+  public void testScaleDownNoSiblings()
+  {
+    AutoScalingPartitioner<DummyOperator> partitioner = new AutoScalingPartitioner<>();
+    partitioner.setMinPartitions(2);
+    InputPort<Integer> port = new DefaultInputPort<Integer>()
+    {
+      @Override
+      public void process(Integer tuple)
+      {
+      }
+    };
+
+    List<Partition<DummyOperator>> partitions = Lists.newArrayList();
+    for (int key = 0; key < 4; key++) {
+      Partition<DummyOperator> p = new DefaultPartition<>(new DummyOperator(key), new DefaultPartition.PartitionPortMap(),
+          key < 2 ? -1 : 0, new TestStats(key + 1));
+      p.getPartitionKeys().put(port, new PartitionKeys(3, Sets.newHashSet(key)));
+      partitions.add(p);
+    }
+    List<InputPort<?>> ports = Lists.<InputPort<?>>newArrayList(port);
+    Collection<Partition<DummyOperator>> newPartitions = partitioner.definePartitions(partitions,
+        new PartitioningContextImpl(ports, 0));
+    Assert.assertEquals("scaled down", 3, newPartitions.size());
+    Assert.assertFalse("removed partition", newPartitions.contains(partitions.get(0)));
+    Assert.assertEquals("combined keys", new PartitionKeys(3, Sets.newHashSet(0, 1)),
+        partitions.get(1).getPartitionKeys().get(port));
+
+    // the combined partition and one more underloaded, at the minimum nothing changes
+    partitions = Lists.newArrayList();
+    for (Partition<DummyOperator> p : newPartitions) {
+      partitions.add(new DefaultPartition<>(p.getPartitionedInstance(), p.getPartitionKeys(), -1, p.getStats()));
+    }
+    newPartitions = partitioner.definePartitions(partitions, new PartitioningContextImpl(ports, 0));
+    Assert.assertEquals("scaled down", 2, newPartitions.size());
+    partitions = Lists.newArrayList();
+    for (Partition<DummyOperator> p : newPartitions) {
+      partitions.add(new DefaultPartition<>(p.getPartitionedInstance(), p.getPartitionKeys(), -1, p.getStats()));
+    }
+    Assert.assertEquals("min partitions", 2, partitioner.definePartitions(partitions,
+        new PartitioningContextImpl(ports, 0)).size());
+  }
+}
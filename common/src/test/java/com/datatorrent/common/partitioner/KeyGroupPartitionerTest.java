@@ -0,0 +1,175 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.common.partitioner;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+
+import com.datatorrent.api.DefaultInputPort;
+import com.datatorrent.api.DefaultPartition;
+import com.datatorrent.api.Operator.InputPort;
+import com.datatorrent.api.Partitioner.Partition;
+import com.datatorrent.api.Partitioner.PartitionKeys;
+import com.datatorrent.common.partitioner.AutoScalingPartitionerTest.TestStats;
+import com.datatorrent.common.partitioner.StatelessPartitionerTest.PartitioningContextImpl;
+import com.datatorrent.common.util.BaseOperator;
+
+public class KeyGroupPartitionerTest
+{
+  public static class CountingOperator extends BaseOperator implements KeyGroupPartitioner.KeyGroupState<CountingOperator>
+  {
+    final Map<Integer, Long> counts = Maps.newHashMap();
+
+    public final transient DefaultInputPort<Integer> input = new DefaultInputPort<Integer>()
+    {
+      @Override
+      public void process(Integer tuple)
+      {
+        Long count = counts.get(tuple);
+        counts.put(tuple, count == null ? 1 : count + 1);
+      }
+    };
+
+    @Override
+    public void moveKeyGroups(Set<Integer> keyGroups, int mask, CountingOperator target)
+    {
+      Iterator<Map.Entry<Integer, Long>> it = counts.entrySet().iterator();
+      while (it.hasNext()) {
+        Map.Entry<Integer, Long> e = it.next();
+        if (keyGroups.contains(e.getKey().hashCode() & mask)) {
+          target.counts.put(e.getKey(), e.getValue());
+          it.remove();
+        }
+      }
+    }
+  }
+
+  private static Collection<Partition<CountingOperator>> withStats(Collection<Partition<CountingOperator>> partitions)
+  {
+    List<Partition<CountingOperator>> result = Lists.newArrayList();
+    for (Partition<CountingOperator> p : partitions) {
+      result.add(new DefaultPartition<>(p.getPartitionedInstance(), p.getPartitionKeys(), 0, new TestStats(0)));
+    }
+    return result;
+  }
+
+  private static void process(Collection<Partition<CountingOperator>> partitions, InputPort<?> port, int key)
+  {
+    for (Partition<CountingOperator> p : partitions) {
+      PartitionKeys pks = p.getPartitionKeys().get(port);
+      if (pks.partitions.contains(key & pks.mask)) {
+        p.getPartitionedInstance().input.process(key);
+        return;
+      }
+    }
+    Assert.fail("no partition for key " + key);
+  }
+
+  @Test
+  public void testScaling()
+  {
+    CountingOperator operator = new CountingOperator();
+    List<InputPort<?>> ports = Lists.<InputPort<?>>newArrayList(operator.input);
+    KeyGroupPartitioner<CountingOperator> partitioner = new KeyGroupPartitioner<>(4);
+    partitioner.setKeyGroups(100);
+    Assert.assertEquals("mask", 127, partitioner.getMask());
+
+    Collection<Partition<CountingOperator>> partitions = Lists.<Partition<CountingOperator>>newArrayList(new DefaultPartition<>(operator));
+    partitions = partitioner.definePartitions(partitions, new PartitioningContextImpl(ports, 0));
+    Assert.assertEquals("partitions", 4, partitions.size());
+    Set<Integer> first = partitions.iterator().next().getPartitionKeys().get(operator.input).partitions;
+    Assert.assertEquals("key group range", 32, first.size());
+    Assert.assertTrue("key group range", first.contains(0) && first.contains(31));
+
+    for (int key = 0; key < 1000; key++) {
+      process(partitions, operator.input, key);
+    }
+
+    partitioner.setPartitionCount(5);
+    Map<CountingOperator, Integer> sizesBefore = Maps.newHashMap();
+    for (Partition<CountingOperator> p : partitions) {
+      sizesBefore.put(p.getPartitionedInstance(), p.getPartitionedInstance().counts.size());
+    }
+    Collection<Partition<CountingOperator>> newPartitions = partitioner.definePartitions(withStats(partitions), new PartitioningContextImpl(ports, 0));
+    Assert.assertEquals("partitions", 5, newPartitions.size());
+
+    int moved = 0;
+    int total = 0;
+    Set<Integer> keyGroups = Sets.newHashSet();
+    for (Partition<CountingOperator> p : newPartitions) {
+      PartitionKeys pks = p.getPartitionKeys().get(operator.input);
+      Assert.assertEquals("mask", 127, pks.mask);
+      Assert.assertTrue("disjoint key groups", Sets.intersection(keyGroups, pks.partitions).isEmpty());
+      keyGroups.addAll(pks.partitions);
+      CountingOperator o = p.getPartitionedInstance();
+      for (Integer key : o.counts.keySet()) {
+        Assert.assertTrue("state follows key group", pks.partitions.contains(key & pks.mask));
+      }
+      Integer before = sizesBefore.get(o);
+      moved += before == null ? o.counts.size() : 0;
+      total += o.counts.size();
+    }
+    Assert.assertEquals("all key groups", 128, keyGroups.size());
+    Assert.assertEquals("state retained", 1000, total);
+    Assert.assertTrue("moved " + moved, moved <= 1000 / 5 + 8);
+
+    for (int key = 0; key < 1000; key++) {
+      process(newPartitions, operator.input, key);
+    }
+    long count = 0;
+    for (Partition<CountingOperator> p : newPartitions) {
+      for (Long c : p.getPartitionedInstance().counts.values()) {
+        count += c;
+      }
+    }
+    Assert.assertEquals("counts", 2000, count);
+
+    // scale down merges the key groups of the removed partition into the remaining ones
+    partitioner.setPartitionCount(2);
+    newPartitions = partitioner.definePartitions(withStats(newPartitions), new PartitioningContextImpl(ports, 0));
+    Assert.assertEquals("partitions", 2, newPartitions.size());
+    total = 0;
+    for (Partition<CountingOperator> p : newPartitions) {
+      Assert.assertEquals("key groups", 64, p.getPartitionKeys().get(operator.input).partitions.size());
+      total += p.getPartitionedInstance().counts.size();
+    }
+    Assert.assertEquals("state retained", 1000, total);
+  }
+
+  @Test
+  public void testUnchanged()
+  {
+    CountingOperator operator = new CountingOperator();
+    List<InputPort<?>> ports = Lists.<InputPort<?>>newArrayList(operator.input);
+    KeyGroupPartitioner<CountingOperator> partitioner = new KeyGroupPartitioner<>(3);
+    Collection<Partition<CountingOperator>> partitions = Lists.<Partition<CountingOperator>>newArrayList(new DefaultPartition<>(operator));
+    partitions = withStats(partitioner.definePartitions(partitions, new PartitioningContextImpl(ports, 0)));
+    Assert.assertSame("no change", partitions, partitioner.definePartitions(partitions, new PartitioningContextImpl(ports, 0)));
+  }
+}
@@ -20,7 +20,13 @@ package com.datatorrent.common.util;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.junit.Assert;
 import org.junit.Rule;
@@ -111,6 +117,41 @@ public class FSStorageAgentTest
     Assert.assertEquals("data of 2", dataOf2, decoded2);
   }
 
+  @Test
+  public void testParallelLoad() throws Exception
+  {
+    List<Map<Integer, String>> data = new ArrayList<>();
+    for (int operatorId = 0; operatorId < 8; operatorId++) {
+      Map<Integer, String> dataOfOperator = Maps.newHashMap();
+      for (int i = 0; i < 1000; i++) {
+        dataOfOperator.put(i, operatorId + "-" + i);
+      }
+      testMeta.storageAgent.save(dataOfOperator, operatorId, 1);
+      data.add(dataOfOperator);
+    }
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Object>> futures = new ArrayList<>();
+      for (int operatorId = 0; operatorId < data.size(); operatorId++) {
+        final int id = operatorId;
+        futures.add(executor.submit(new Callable<Object>()
+        {
+          @Override
+          public Object call() throws Exception
+          {
+            return testMeta.storageAgent.load(id, 1);
+          }
+        }));
+      }
+      for (int operatorId = 0; operatorId < data.size(); operatorId++) {
+        Assert.assertEquals("data of " + operatorId, data.get(operatorId), futures.get(operatorId).get());
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
   @Test
   public void testRecovery() throws IOException
   {
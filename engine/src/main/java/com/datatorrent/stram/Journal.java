@@ -54,7 +54,8 @@ public final class Journal
     OPERATOR_STATE(PTOperator.SET_OPERATOR_STATE),
     CONTAINER_STATE(PTContainer.SET_CONTAINER_STATE),
     OPERATOR_PROPERTY(StreamingContainerManager.SET_OPERATOR_PROPERTY),
-    PHYSICAL_OPERATOR_PROPERTY(StreamingContainerManager.SET_PHYSICAL_OPERATOR_PROPERTY);
+    PHYSICAL_OPERATOR_PROPERTY(StreamingContainerManager.SET_PHYSICAL_OPERATOR_PROPERTY),
+    STANDBY_STATE(PTContainer.SET_STANDBY_STATE);
 
     private static final Map<Class<? extends Recoverable>, Integer> classToId;
 
@@ -184,6 +185,7 @@ public final class Journal
           switch (recoverableOperation) {
             case OPERATOR_STATE:
             case CONTAINER_STATE:
+            case STANDBY_STATE:
               recoverableOperation.operation.read(scm.getPhysicalPlan(), in);
               break;
             case OPERATOR_PROPERTY:
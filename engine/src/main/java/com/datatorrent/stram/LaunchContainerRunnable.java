@@ -126,18 +126,28 @@ public class LaunchContainerRunnable implements Runnable
   }
 
   public static void addFileToLocalResources(final String name, final FileStatus fileStatus, final LocalResourceType type, final Map<String, LocalResource> localResources)
+  {
+    addFileToLocalResources(name, fileStatus, type, LocalResourceVisibility.APPLICATION, localResources);
+  }
+
+  public static void addFileToLocalResources(final String name, final FileStatus fileStatus, final LocalResourceType type, final LocalResourceVisibility visibility, final Map<String, LocalResource> localResources)
   {
     final LocalResource localResource = LocalResource.newInstance(ConverterUtils.getYarnUrlFromPath(fileStatus.getPath()),
-        type, LocalResourceVisibility.APPLICATION, fileStatus.getLen(), fileStatus.getModificationTime());
+        type, visibility, fileStatus.getLen(), fileStatus.getModificationTime());
     localResources.put(name, localResource);
   }
 
   public static void addFilesToLocalResources(LocalResourceType type, String commaSeparatedFileNames, Map<String, LocalResource> localResources, FileSystem fs) throws IOException
+  {
+    addFilesToLocalResources(type, LocalResourceVisibility.APPLICATION, commaSeparatedFileNames, localResources, fs);
+  }
+
+  public static void addFilesToLocalResources(LocalResourceType type, LocalResourceVisibility visibility, String commaSeparatedFileNames, Map<String, LocalResource> localResources, FileSystem fs) throws IOException
   {
     String[] files = StringUtils.splitByWholeSeparator(commaSeparatedFileNames, StramClient.LIB_JARS_SEP);
     for (String file : files) {
       final Path dst = new Path(file);
-      addFileToLocalResources(dst.getName(), fs.getFileStatus(dst), type, localResources);
+      addFileToLocalResources(dst.getName(), fs.getFileStatus(dst), type, visibility, localResources);
     }
   }
 
@@ -168,7 +178,8 @@ public class LaunchContainerRunnable implements Runnable
     try {
       // child VM dependencies
       try (FileSystem fs = StramClientUtils.newFileSystemInstance(nmClient.getConfig())) {
-        addFilesToLocalResources(LocalResourceType.FILE, dag.getAttributes().get(Context.DAGContext.LIBRARY_JARS), localResources, fs);
+        addFilesToLocalResources(LocalResourceType.FILE, dag.getValue(LogicalPlan.LIBRARY_JARS_VISIBILITY),
+            dag.getAttributes().get(Context.DAGContext.LIBRARY_JARS), localResources, fs);
         String archives = dag.getAttributes().get(LogicalPlan.ARCHIVES);
         if (archives != null) {
           addFilesToLocalResources(LocalResourceType.ARCHIVE, archives, localResources, fs);
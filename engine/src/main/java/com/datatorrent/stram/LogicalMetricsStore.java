@@ -0,0 +1,315 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.base.Preconditions;
+
+import com.datatorrent.api.AutoMetric;
+import com.datatorrent.common.util.Pair;
+
+/**
+ * Streaming store for the aggregated {@link AutoMetric}s of one logical operator.<br/>
+ * <p>
+ * The store keeps the most recent per window aggregates in a fixed size ring and maintains a rollup ring for each of
+ * the time buckets declared through {@link AutoMetric.DimensionsScheme#getTimeBuckets()}. There is a single writer
+ * (the stats processing of the application master) and any number of readers. Readers never block the writer and
+ * the memory used is bounded by the ring sizes, independent of the window rate.
+ * </p>
+ *
+ * @since 3.5.0
+ */
+public class LogicalMetricsStore
+{
+  public static final String[] DEFAULT_TIME_BUCKETS = new String[]{"1m", "1h", "1d"};
+  public static final int DEFAULT_ROLLUP_SIZE = 60;
+
+  private final int capacity;
+  private final AtomicReferenceArray<Pair<Long, Map<String, Object>>> windows;
+  // number of window aggregates written so far, published after the slot was written
+  private volatile long sequence;
+  private volatile Map<String, Object> latest;
+  private final TimeBucketRollup[] rollups;
+
+  public LogicalMetricsStore(int capacity, String[] timeBuckets, int rollupSize)
+  {
+    Preconditions.checkArgument(capacity > 0, "capacity %s", capacity);
+    this.capacity = capacity;
+    this.windows = new AtomicReferenceArray<>(capacity);
+    if (timeBuckets == null) {
+      timeBuckets = DEFAULT_TIME_BUCKETS;
+    }
+    List<TimeBucketRollup> list = new ArrayList<>(timeBuckets.length);
+    for (String timeBucket : timeBuckets) {
+      try {
+        list.add(new TimeBucketRollup(timeBucket, parseTimeBucket(timeBucket), rollupSize));
+      } catch (IllegalArgumentException ex) {
+        LOG.warn("Ignoring invalid time bucket {}", timeBucket, ex);
+      }
+    }
+    this.rollups = list.toArray(new TimeBucketRollup[list.size()]);
+  }
+
+  /**
+   * Adds the aggregate of a window. Must only be called from a single thread. Windows are added in window order and
+   * only once, an aggregate for a window that is not newer than the last added one is ignored so that the rollups
+   * do not count it twice.
+   *
+   * @param windowId window id of the aggregate
+   * @param windowMillis start time of the window, used to place the aggregate in the time buckets
+   * @param metrics aggregated logical metrics
+   * @return true if the set of metric names changed with this window
+   */
+  public boolean add(long windowId, long windowMillis, Map<String, Object> metrics)
+  {
+    Map<String, Object> previous = latest;
+    long seq = sequence;
+    if (seq > 0) {
+      long lastWindowId = windows.get((int)((seq - 1) % capacity)).first;
+      if (windowId <= lastWindowId) {
+        LOG.debug("Ignoring aggregate of window {} added after window {}", windowId, lastWindowId);
+        return false;
+      }
+    }
+    windows.set((int)(seq % capacity), new Pair<>(windowId, metrics));
+    sequence = seq + 1;
+    latest = metrics;
+    for (TimeBucketRollup rollup : rollups) {
+      rollup.add(windowMillis, metrics);
+    }
+    return previous == null || !previous.keySet().equals(metrics.keySet());
+  }
+
+  public Map<String, Object> getLatest()
+  {
+    return latest;
+  }
+
+  /**
+   * Returns the retained window aggregates with a window id larger than the given one, in window order.
+   *
+   * @param sinceWindowId exclusive lower bound of the window id, -1 for all retained windows
+   * @return list of window id and aggregate pairs
+   */
+  public List<Pair<Long, Map<String, Object>>> getWindowMetrics(long sinceWindowId)
+  {
+    long end = sequence;
+    long start = Math.max(0, end - capacity);
+    List<Pair<Long, Map<String, Object>>> entries = new ArrayList<>((int)(end - start));
+    for (long i = start; i < end; i++) {
+      entries.add(windows.get((int)(i % capacity)));
+    }
+    // skip the slots that the writer recycled while they were read
+    long validStart = Math.max(start, sequence - capacity);
+    List<Pair<Long, Map<String, Object>>> result = new ArrayList<>(entries.size());
+    for (long i = validStart; i < end; i++) {
+      Pair<Long, Map<String, Object>> entry = entries.get((int)(i - start));
+      if (entry.first > sinceWindowId) {
+        result.add(entry);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the rollups of all time buckets, keyed by the time bucket as declared.
+   * Each rollup is a list of buckets in time order, the last one being the bucket in progress.
+   *
+   * @return map of time bucket to list of buckets
+   */
+  public Map<String, List<Bucket>> getRollups()
+  {
+    Map<String, List<Bucket>> result = new LinkedHashMap<>();
+    for (TimeBucketRollup rollup : rollups) {
+      result.put(rollup.name, rollup.getBuckets());
+    }
+    return result;
+  }
+
+  /**
+   * Parses the time bucket format of {@link AutoMetric.DimensionsScheme#getTimeBuckets()} into milliseconds.
+   * Calendar based units are approximated by a fixed length.
+   *
+   * @param timeBucket time bucket such as 1m or 5s
+   * @return length of the bucket in milliseconds
+   */
+  public static long parseTimeBucket(String timeBucket)
+  {
+    Preconditions.checkArgument(timeBucket != null && timeBucket.length() > 1, "time bucket %s", timeBucket);
+    long count;
+    try {
+      count = Long.parseLong(timeBucket.substring(0, timeBucket.length() - 1).trim());
+    } catch (NumberFormatException ex) {
+      throw new IllegalArgumentException("Invalid time bucket " + timeBucket, ex);
+    }
+    Preconditions.checkArgument(count > 0, "time bucket %s", timeBucket);
+    switch (timeBucket.charAt(timeBucket.length() - 1)) {
+      case 's':
+        return TimeUnit.SECONDS.toMillis(count);
+      case 'm':
+        return TimeUnit.MINUTES.toMillis(count);
+      case 'h':
+        return TimeUnit.HOURS.toMillis(count);
+      case 'd':
+        return TimeUnit.DAYS.toMillis(count);
+      case 'w':
+        return TimeUnit.DAYS.toMillis(7 * count);
+      case 'M':
+        return TimeUnit.DAYS.toMillis(30 * count);
+      case 'q':
+        return TimeUnit.DAYS.toMillis(91 * count);
+      case 'y':
+        return TimeUnit.DAYS.toMillis(365 * count);
+      default:
+        throw new IllegalArgumentException("Invalid time bucket unit " + timeBucket);
+    }
+  }
+
+  /**
+   * Rollup of the logical metrics over one time bucket. Numeric metrics are summarized with sum, min, max, count and
+   * last value, other metrics only retain the last value. The writer merges the windows in place, readers see every
+   * metric consistently but may see the metrics of a window before it is counted in the window count.
+   */
+  public static class Bucket
+  {
+    public final long startTime;
+    public volatile long windowCount;
+    public final Map<String, Object> metrics;
+    private final Map<String, Object> values = new ConcurrentSkipListMap<>();
+
+    Bucket(long startTime)
+    {
+      this.startTime = startTime;
+      this.metrics = Collections.unmodifiableMap(values);
+    }
+
+    void merge(Map<String, Object> windowMetrics)
+    {
+      for (Map.Entry<String, Object> entry : windowMetrics.entrySet()) {
+        Object value = entry.getValue();
+        if (value instanceof Number) {
+          Object existing = values.get(entry.getKey());
+          values.put(entry.getKey(), existing instanceof NumberSummary ?
+              ((NumberSummary)existing).merge((Number)value) : new NumberSummary((Number)value));
+        } else if (value == null) {
+          values.remove(entry.getKey());
+        } else {
+          values.put(entry.getKey(), value);
+        }
+      }
+      windowCount++;
+    }
+  }
+
+  /**
+   * Immutable summary of the values of a numeric metric within a bucket.
+   */
+  public static class NumberSummary
+  {
+    public final double sum;
+    public final double min;
+    public final double max;
+    public final long count;
+    public final Number last;
+
+    NumberSummary(Number value)
+    {
+      this(value.doubleValue(), value.doubleValue(), value.doubleValue(), 1, value);
+    }
+
+    private NumberSummary(double sum, double min, double max, long count, Number last)
+    {
+      this.sum = sum;
+      this.min = min;
+      this.max = max;
+      this.count = count;
+      this.last = last;
+    }
+
+    NumberSummary merge(Number value)
+    {
+      double v = value.doubleValue();
+      return new NumberSummary(sum + v, Math.min(min, v), Math.max(max, v), count + 1, value);
+    }
+
+    public double getAvg()
+    {
+      return sum / count;
+    }
+  }
+
+  private static class TimeBucketRollup
+  {
+    private final String name;
+    private final long bucketMillis;
+    private final AtomicReferenceArray<Bucket> buckets;
+    private volatile long bucketSequence;
+
+    TimeBucketRollup(String name, long bucketMillis, int size)
+    {
+      this.name = name;
+      this.bucketMillis = bucketMillis;
+      this.buckets = new AtomicReferenceArray<>(size);
+    }
+
+    void add(long windowMillis, Map<String, Object> metrics)
+    {
+      long startTime = windowMillis - windowMillis % bucketMillis;
+      long seq = bucketSequence;
+      int size = buckets.length();
+      Bucket current = seq == 0 ? null : buckets.get((int)((seq - 1) % size));
+      if (current != null && current.startTime == startTime) {
+        current.merge(metrics);
+      } else if (current == null || current.startTime < startTime) {
+        Bucket bucket = new Bucket(startTime);
+        bucket.merge(metrics);
+        buckets.set((int)(seq % size), bucket);
+        bucketSequence = seq + 1;
+      }
+      // aggregates arriving late for a bucket that was already closed are not rolled up
+    }
+
+    List<Bucket> getBuckets()
+    {
+      long end = bucketSequence;
+      int size = buckets.length();
+      long start = Math.max(0, end - size);
+      List<Bucket> entries = new ArrayList<>((int)(end - start));
+      for (long i = start; i < end; i++) {
+        entries.add(buckets.get((int)(i % size)));
+      }
+      // skip the slots that were recycled for a newer bucket while they were read
+      long validStart = Math.max(start, bucketSequence - size);
+      return new ArrayList<>(entries.subList((int)(validStart - start), entries.size()));
+    }
+  }
+
+  private static final Logger LOG = LoggerFactory.getLogger(LogicalMetricsStore.class);
+}
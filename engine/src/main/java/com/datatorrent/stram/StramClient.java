@@ -79,6 +79,7 @@ import com.datatorrent.api.Context.OperatorContext;
 import com.datatorrent.api.StorageAgent;
 import com.datatorrent.common.util.AsyncFSStorageAgent;
 import com.datatorrent.common.util.BasicContainerOptConfigurator;
+import com.datatorrent.stram.client.JarCache;
 import com.datatorrent.stram.client.StramClientUtils;
 import com.datatorrent.stram.client.StramClientUtils.ClientRMHelper;
 import com.datatorrent.stram.engine.StreamingContainer;
@@ -440,11 +441,21 @@ public class StramClient
       } else {
         appPath = new Path(configuredAppPath);
       }
-      String libJarsCsv = copyFromLocal(fs, appPath, localJarFiles.toArray(new String[]{}));
+      String libJarsCsv;
+      if (JarCache.isEnabled(conf)) {
+        JarCache jarCache = new JarCache(fs, conf);
+        libJarsCsv = jarCache.add(localJarFiles.toArray(new String[]{}));
+        jarCache.writeReferences(appPath, libJarsCsv);
+        LOG.info("Uploaded {} of {} jars to jar cache {}", jarCache.getUploads(), localJarFiles.size(), jarCache.getCacheDir());
+        dag.setAttribute(LogicalPlan.LIBRARY_JARS_VISIBILITY, jarCache.getVisibility());
+      } else {
+        libJarsCsv = copyFromLocal(fs, appPath, localJarFiles.toArray(new String[]{}));
+      }
 
       LOG.info("libjars: {}", libJarsCsv);
       dag.getAttributes().put(Context.DAGContext.LIBRARY_JARS, libJarsCsv);
-      LaunchContainerRunnable.addFilesToLocalResources(LocalResourceType.FILE, libJarsCsv, localResources, fs);
+      LaunchContainerRunnable.addFilesToLocalResources(LocalResourceType.FILE, dag.getValue(LogicalPlan.LIBRARY_JARS_VISIBILITY),
+          libJarsCsv, localResources, fs);
 
       if (archives != null) {
         String[] localFiles = archives.split(",");
@@ -52,6 +52,7 @@ import com.datatorrent.stram.api.OperatorDeployInfo.OutputDeployInfo;
 import com.datatorrent.stram.api.OperatorDeployInfo.UnifierDeployInfo;
 import com.datatorrent.stram.api.StreamingContainerUmbilicalProtocol.StramToNodeRequest;
 import com.datatorrent.stram.api.StreamingContainerUmbilicalProtocol.StreamingContainerContext;
+import com.datatorrent.stram.codec.GeneratedStreamCodec;
 import com.datatorrent.stram.engine.OperatorContext;
 import com.datatorrent.stram.plan.logical.LogicalPlan;
 import com.datatorrent.stram.plan.logical.LogicalPlan.InputPortMeta;
@@ -110,6 +111,10 @@ public class StreamingContainerAgent
   int memoryMBFree;
   long gcCollectionCount;
   long gcCollectionTime;
+  /**
+   * checkpoints last sent to the container when it is a warm standby.
+   */
+  Map<Integer, Long> prefetchCheckpoints;
   final StreamingContainerManager dnmgr;
 
   private final ConcurrentLinkedQueue<StramToNodeRequest> operatorRequests = new ConcurrentLinkedQueue<>();
@@ -209,6 +214,7 @@ public class StreamingContainerAgent
           portInfo.bufferServerHost = oper.getContainer().bufferServerAddress.getHostName();
           portInfo.bufferServerPort = oper.getContainer().bufferServerAddress.getPort();
           portInfo.bufferServerToken = oper.getContainer().getBufferServerToken();
+          portInfo.sharedMemory = physicalPlan.isSharedMemoryStream(out);
           // Build the stream codec configuration of all sinks connected to this port
           for (PTOperator.PTInput input : out.sinks) {
             // Create mappings for all non-inline operators
@@ -265,7 +271,7 @@ public class StreamingContainerAgent
           if (!publishers.contains(sourceOutput)) {
             throw new AssertionError("Source not deployed for container local stream " + sourceOutput + " " + in);
           }
-          if (streamMeta.getLocality() == Locality.THREAD_LOCAL) {
+          if (physicalPlan.getLocality(streamMeta) == Locality.THREAD_LOCAL) {
             inputInfo.locality = Locality.THREAD_LOCAL;
             ndi.type = OperatorType.OIO;
           } else {
@@ -282,6 +288,7 @@ public class StreamingContainerAgent
           inputInfo.bufferServerHost = addr.getHostName();
           inputInfo.bufferServerPort = addr.getPort();
           inputInfo.bufferServerToken = container.getBufferServerToken();
+          inputInfo.sharedMemory = physicalPlan.isSharedMemoryStream(sourceOutput);
         }
 
         // On the input side there is a unlikely scenario of partitions even for inline stream that is being
@@ -352,6 +359,8 @@ public class StreamingContainerAgent
         if (codec != null) {
           // don't create codec multiple times - it will assign a new identifier
           inputPortMeta.getAttributes().put(PortContext.STREAM_CODEC, codec);
+        } else {
+          codec = getGeneratedStreamCodec(inputPortMeta);
         }
       }
       return codec;
@@ -359,6 +368,29 @@ public class StreamingContainerAgent
     return null;
   }
 
+  /**
+   * @return the generated codec for the tuple class of the port, null if the port has no tuple class, does not ask
+   * for the generated codec or the class is not supported
+   */
+  private static StreamCodec<?> getGeneratedStreamCodec(InputPortMeta inputPortMeta)
+  {
+    Class<?> tupleClass = inputPortMeta.getValue(PortContext.TUPLE_CLASS);
+    if (tupleClass == null || !inputPortMeta.getValue(PortContext.GENERATED_STREAM_CODEC)) {
+      return null;
+    }
+
+    String keys = inputPortMeta.getValue(PortContext.TUPLE_KEY_FIELDS);
+    String[] keyFields = keys == null || keys.trim().isEmpty() ? new String[0] : keys.trim().split("\\s*,\\s*");
+    try {
+      StreamCodec<?> codec = new GeneratedStreamCodec<>(tupleClass, keyFields);
+      inputPortMeta.getAttributes().put(PortContext.STREAM_CODEC, codec);
+      return codec;
+    } catch (IllegalArgumentException ex) {
+      LOG.warn("Using the default stream codec for {}: {}", inputPortMeta, ex.getMessage());
+      return null;
+    }
+  }
+
   /**
    * Create deploy info for operator.
    * <p>
@@ -29,6 +29,7 @@ import java.lang.reflect.Field;
 import java.net.InetSocketAddress;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
@@ -41,8 +42,8 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
-import java.util.Queue;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
@@ -52,7 +53,6 @@ import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.FutureTask;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
@@ -106,6 +106,7 @@ import com.datatorrent.api.Context.OperatorContext;
 import com.datatorrent.api.Operator;
 import com.datatorrent.api.Operator.InputPort;
 import com.datatorrent.api.Operator.OutputPort;
+import com.datatorrent.api.Operator.ProcessingMode;
 import com.datatorrent.api.Stats.OperatorStats;
 import com.datatorrent.api.StatsListener;
 import com.datatorrent.api.StorageAgent;
@@ -161,10 +162,12 @@ import com.datatorrent.stram.plan.physical.PhysicalPlan.PlanContext;
 import com.datatorrent.stram.plan.physical.PlanModifier;
 import com.datatorrent.stram.util.ConfigUtils;
 import com.datatorrent.stram.util.FSJsonLineFile;
+import com.datatorrent.stram.util.LatencyHistogram;
 import com.datatorrent.stram.util.MovingAverage.MovingAverageLong;
 import com.datatorrent.stram.util.SharedPubSubWebSocketClient;
 import com.datatorrent.stram.util.WebServicesClient;
 import com.datatorrent.stram.webapp.ContainerInfo;
+import com.datatorrent.stram.webapp.LatencyInfo;
 import com.datatorrent.stram.webapp.LogicalOperatorInfo;
 import com.datatorrent.stram.webapp.OperatorAggregationInfo;
 import com.datatorrent.stram.webapp.OperatorInfo;
@@ -200,6 +203,10 @@ public class StreamingContainerManager implements PlanContext
   public static final Recoverable SET_OPERATOR_PROPERTY = new SetOperatorProperty();
   public static final Recoverable SET_PHYSICAL_OPERATOR_PROPERTY = new SetPhysicalOperatorProperty();
   public static final int METRIC_QUEUE_SIZE = 1000;
+  /**
+   * Percentage of the time a sink port has to hold back the producer for the stream to count as backpressured.
+   */
+  public static final double BACKPRESSURE_THRESHOLD_PERCENT = 10;
 
   private final FinalVars vars;
   private final PhysicalPlan plan;
@@ -215,6 +222,7 @@ public class StreamingContainerManager implements PlanContext
   private final HashSet<PTContainer> pendingAllocation = Sets.newLinkedHashSet();
   protected String shutdownDiagnosticsMessage = "";
   private long lastResourceRequest = 0;
+  private volatile long heartbeatCycle;
   private final Map<String, StreamingContainerAgent> containers = new ConcurrentHashMap<>();
   private final List<Pair<PTOperator, Long>> purgeCheckpoints = new ArrayList<>();
   private Map<OperatorMeta, Set<OperatorMeta>> checkpointGroups;
@@ -244,10 +252,9 @@ public class StreamingContainerManager implements PlanContext
   private transient ExecutorService poolExecutor;
   private FileContext fileContext;
 
-  //logic operator name to a queue of logical metrics. this gets cleared periodically
-  private final Map<String, Queue<Pair<Long, Map<String, Object>>>> logicalMetrics = Maps.newConcurrentMap();
-  //logical operator name to latest logical metrics.
-  private final Map<String, Map<String, Object>> latestLogicalMetrics = Maps.newHashMap();
+  //logical operator name to the streaming store of its aggregated metrics
+  private final Map<String, LogicalMetricsStore> logicalMetrics = Maps.newConcurrentMap();
+  private boolean metaInfoChanged;
 
   //logical operator name to latest counters. exists for backward compatibility.
   private final Map<String, Object> latestLogicalCounters = Maps.newHashMap();
@@ -740,7 +747,11 @@ public class StreamingContainerManager implements PlanContext
 
   public Map<String, Map<String, Object>> getLatestLogicalMetrics()
   {
-    return latestLogicalMetrics;
+    Map<String, Map<String, Object>> result = Maps.newHashMap();
+    for (Map.Entry<String, LogicalMetricsStore> entry : logicalMetrics.entrySet()) {
+      result.put(entry.getKey(), entry.getValue().getLatest());
+    }
+    return result;
   }
 
 
@@ -794,6 +805,8 @@ public class StreamingContainerManager implements PlanContext
       }
     }
 
+    requestStandbyContainers();
+
     // events that may modify the plan
     processEvents();
 
@@ -802,6 +815,16 @@ public class StreamingContainerManager implements PlanContext
     if (this.vars.enableStatsRecording) {
       recordStats(currentTms);
     }
+    heartbeatCycle++;
+  }
+
+  /**
+   * @return number of completed {@link #monitorHeartbeat()} cycles, information derived from the stats needs to be
+   * refreshed at most once per cycle
+   */
+  public long getHeartbeatCycle()
+  {
+    return heartbeatCycle;
   }
 
   private void recordStats(long currentTms)
@@ -835,7 +858,6 @@ public class StreamingContainerManager implements PlanContext
         Map<Integer, EndWindowStats> endWindowStatsMap = endWindowStatsOperatorMap.get(windowId);
         Set<Integer> endWindowStatsOperators = endWindowStatsMap.keySet();
 
-        aggregateMetrics(windowId, endWindowStatsMap);
         criticalPathInfo = findCriticalPath();
 
         if (allCurrentOperators.containsAll(endWindowStatsOperators)) {
@@ -847,6 +869,8 @@ public class StreamingContainerManager implements PlanContext
               break;
             }
           } else {
+            // aggregate once all partitions reported, the stores and their rollups take every window only once
+            aggregateMetrics(windowId, endWindowStatsMap);
             endWindowStatsOperatorMap.remove(windowId);
             currentEndWindowStatsWindowId = windowId;
           }
@@ -858,6 +882,14 @@ public class StreamingContainerManager implements PlanContext
         }
         windowId = endWindowStatsOperatorMap.higherKey(windowId);
       }
+      if (metaInfoChanged) {
+        metaInfoChanged = false;
+        try {
+          saveMetaInfo();
+        } catch (IOException ex) {
+          LOG.error("Cannot save application meta info to DFS. App data sources will not be available.", ex);
+        }
+      }
     }
   }
 
@@ -893,13 +925,13 @@ public class StreamingContainerManager implements PlanContext
         continue;
       }
       Collection<PTOperator> physicalOperators = plan.getAllOperators(operatorMeta);
-      List<AutoMetric.PhysicalMetricsContext> metricPool = Lists.newArrayList();
+      // a new list for every call as the aggregator may keep a reference to it
+      List<AutoMetric.PhysicalMetricsContext> metricPool = Lists.newArrayListWithCapacity(physicalOperators.size());
 
       for (PTOperator operator : physicalOperators) {
         EndWindowStats stats = endWindowStatsMap.get(operator.getId());
         if (stats != null && stats.metrics != null) {
-          PhysicalMetricsContextImpl physicalMetrics = new PhysicalMetricsContextImpl(operator.getId(), stats.metrics);
-          metricPool.add(physicalMetrics);
+          metricPool.add(new PhysicalMetricsContextImpl(operator.getId(), stats.metrics));
         }
       }
       if (metricPool.isEmpty()) {
@@ -909,32 +941,16 @@ public class StreamingContainerManager implements PlanContext
       Map<String, Object> lm = aggregator.aggregate(windowId, metricPool);
 
       if (lm != null && lm.size() > 0) {
-        Queue<Pair<Long, Map<String, Object>>> windowMetrics = logicalMetrics.get(operatorMeta.getName());
-        if (windowMetrics == null) {
-          windowMetrics = new LinkedBlockingQueue<Pair<Long, Map<String, Object>>>(METRIC_QUEUE_SIZE)
-          {
-            private static final long serialVersionUID = 1L;
-
-            @Override
-            public boolean add(Pair<Long, Map<String, Object>> longMapPair)
-            {
-              if (remainingCapacity() <= 1) {
-                remove();
-              }
-              return super.add(longMapPair);
-            }
-          };
-          logicalMetrics.put(operatorMeta.getName(), windowMetrics);
+        LogicalMetricsStore store = logicalMetrics.get(operatorMeta.getName());
+        if (store == null) {
+          store = new LogicalMetricsStore(METRIC_QUEUE_SIZE, operatorMeta.getMetricAggregatorMeta().getTimeBuckets(),
+              LogicalMetricsStore.DEFAULT_ROLLUP_SIZE);
+          logicalMetrics.put(operatorMeta.getName(), store);
         }
         LOG.debug("Adding to logical metrics for {}", operatorMeta.getName());
-        windowMetrics.add(new Pair<>(windowId, lm));
-        Map<String, Object> oldValue = latestLogicalMetrics.put(operatorMeta.getName(), lm);
-        if (oldValue == null) {
-          try {
-            saveMetaInfo();
-          } catch (IOException ex) {
-            LOG.error("Cannot save application meta info to DFS. App data sources will not be available.", ex);
-          }
+        if (store.add(windowId, windowIdToMillis(windowId), lm)) {
+          // the metric names are part of the meta info, write it once after all pending windows are aggregated
+          metaInfoChanged = true;
         }
       }
     }
@@ -954,8 +970,8 @@ public class StreamingContainerManager implements PlanContext
         attributes.put(entry.getKey().getSimpleName(), entry.getValue());
       }
       JSONObject autoMetrics = new JSONObject();
-      for (Map.Entry<String, Map<String, Object>> entry : latestLogicalMetrics.entrySet()) {
-        autoMetrics.put(entry.getKey(), new JSONArray(entry.getValue().keySet()));
+      for (Map.Entry<String, LogicalMetricsStore> entry : logicalMetrics.entrySet()) {
+        autoMetrics.put(entry.getKey(), new JSONArray(entry.getValue().getLatest().keySet()));
       }
       top.put(APP_META_KEY_ATTRIBUTES, attributes);
       top.put(APP_META_KEY_METRICS, autoMetrics);
@@ -967,9 +983,29 @@ public class StreamingContainerManager implements PlanContext
     fileContext.rename(file, origPath, Options.Rename.OVERWRITE);
   }
 
-  public Queue<Pair<Long, Map<String, Object>>> getWindowMetrics(String operatorName)
+  /**
+   * Returns the retained logical metrics of an operator for the windows after the given window.
+   *
+   * @param operatorName logical operator name
+   * @param sinceWindowId exclusive lower bound of the window id, -1 for all retained windows
+   * @return window id and aggregated metrics pairs in window order, null when the operator has no metrics
+   */
+  public List<Pair<Long, Map<String, Object>>> getWindowMetrics(String operatorName, long sinceWindowId)
   {
-    return logicalMetrics.get(operatorName);
+    LogicalMetricsStore store = logicalMetrics.get(operatorName);
+    return store == null ? null : store.getWindowMetrics(sinceWindowId);
+  }
+
+  /**
+   * Returns the time bucket rollups of the logical metrics of an operator.
+   *
+   * @param operatorName logical operator name
+   * @return map of time bucket to buckets in time order, null when the operator has no metrics
+   */
+  public Map<String, List<LogicalMetricsStore.Bucket>> getMetricRollups(String operatorName)
+  {
+    LogicalMetricsStore store = logicalMetrics.get(operatorName);
+    return store == null ? null : store.getRollups();
   }
 
   private CriticalPathInfo findCriticalPath()
@@ -1034,6 +1070,7 @@ public class StreamingContainerManager implements PlanContext
         if (o.statsListeners != null) {
           plan.onStatusUpdate(o);
         }
+        plan.checkChaining(o);
       }
       reportStats.remove(o);
     }
@@ -1119,8 +1156,26 @@ public class StreamingContainerManager implements PlanContext
       return;
     }
 
+    PTContainer primary = cs.container.getPrimary();
+    if (primary != null) {
+      // a new standby is requested by the next heartbeat monitor cycle
+      LOG.info("Standby container {} of {} terminated", containerId, primary.toIdStateString());
+      removeContainerAgent(containerId);
+      if (primary.getStandby() == cs.container) {
+        primary.setStandby(null);
+        writeJournal(primary.getSetStandbyState());
+      }
+      return;
+    }
+
     LOG.info("Initiating recovery for {}@{}", containerId, cs.container.host);
 
+    StreamingContainerAgent standbyAgent = null;
+    PTContainer standby = cs.container.getStandby();
+    if (standby != null && standby.getState() == PTContainer.State.ACTIVE) {
+      standbyAgent = containers.get(standby.getExternalId());
+    }
+
     cs.container.setState(PTContainer.State.KILLED);
     cs.container.bufferServerAddress = null;
     cs.container.setResourceRequestPriority(-1);
@@ -1136,7 +1191,93 @@ public class StreamingContainerManager implements PlanContext
 
     // redeploy cycle for all affected operators
     LOG.info("Affected operators {}", ctx.visited);
-    deploy(Collections.<PTContainer>emptySet(), ctx.visited, Sets.newHashSet(cs.container), ctx.visited);
+    if (standbyAgent == null) {
+      deploy(Collections.<PTContainer>emptySet(), ctx.visited, Sets.newHashSet(cs.container), ctx.visited);
+    } else {
+      deploy(Collections.<PTContainer>emptySet(), ctx.visited, Collections.<PTContainer>emptySet(), ctx.visited);
+      promoteStandby(cs, standbyAgent);
+    }
+  }
+
+  /**
+   * Move the operators of the failed container to the process of its warm standby, which already runs and loaded the
+   * checkpoints of the operators. A new standby is requested by the next {@link #monitorHeartbeat()}.
+   */
+  private void promoteStandby(StreamingContainerAgent failed, StreamingContainerAgent standbyAgent)
+  {
+    PTContainer c = failed.container;
+    PTContainer standby = standbyAgent.container;
+    LOG.info("Promoting standby container {} to replace {}", standby.getExternalId(), c.getExternalId());
+    // late heartbeats of the failed container are answered with a shutdown request
+    removeContainerAgent(c.getExternalId());
+
+    c.setExternalId(standby.getExternalId());
+    c.host = standby.host;
+    c.bufferServerAddress = standby.bufferServerAddress;
+    c.nodeHttpAddress = standby.nodeHttpAddress;
+    c.setBufferServerToken(standby.getBufferServerToken());
+    c.setResourceRequestPriority(standby.getResourceRequestPriority());
+    c.setAllocatedMemoryMB(standby.getAllocatedMemoryMB());
+    c.setAllocatedVCores(standby.getAllocatedVCores());
+    c.setStartedTime(standby.getStartedTime());
+    c.setFinishedTime(-1);
+    c.setState(PTContainer.State.ACTIVE);
+    c.setStandby(null);
+    writeJournal(c.getSetContainerState());
+    writeJournal(c.getSetStandbyState());
+
+    StreamingContainerAgent sca = new StreamingContainerAgent(c, standbyAgent.getInitContext(), this);
+    sca.jvmName = standbyAgent.jvmName;
+    sca.lastHeartbeatMillis = standbyAgent.lastHeartbeatMillis;
+    sca.memoryMBFree = standbyAgent.memoryMBFree;
+    sca.gcCollectionCount = standbyAgent.gcCollectionCount;
+    sca.gcCollectionTime = standbyAgent.gcCollectionTime;
+    containers.put(c.getExternalId(), sca);
+  }
+
+  /**
+   * Request a warm standby for the active containers with operators that ask for one and do not have one yet, and
+   * release the standby of the containers whose operators no longer ask for one after a plan change.
+   */
+  private void requestStandbyContainers()
+  {
+    for (PTContainer c : plan.getContainers()) {
+      if (c.getState() != PTContainer.State.ACTIVE) {
+        continue;
+      }
+      boolean warmStandby = false;
+      for (PTOperator oper : c.getOperators()) {
+        if (oper.getOperatorMeta().getValue(OperatorContext.WARM_STANDBY)) {
+          warmStandby = true;
+          break;
+        }
+      }
+      if (!warmStandby) {
+        releaseStandby(c);
+      } else if (c.getStandby() == null) {
+        LOG.info("Requesting standby for container {}", c.toIdStateString());
+        requestContainer(plan.newStandbyContainer(c));
+      }
+    }
+  }
+
+  /**
+   * Release the warm standby of a container, whether it is still waiting for its resource or already running.
+   */
+  private void releaseStandby(PTContainer c)
+  {
+    PTContainer standby = c.getStandby();
+    if (standby == null) {
+      return;
+    }
+    LOG.info("Releasing standby container {} of {}", standby.getExternalId(), c.toIdStateString());
+    c.setStandby(null);
+    pendingAllocation.remove(standby);
+    StreamingContainerAgent sca = standby.getExternalId() == null ? null : containers.get(standby.getExternalId());
+    if (sca != null) {
+      sca.shutdownRequested = true;
+    }
+    writeJournal(c.getSetStandbyState());
   }
 
   /**
@@ -1268,7 +1409,11 @@ public class StreamingContainerManager implements PlanContext
     container.setAllocatedVCores(resource.vCores);
     container.setStartedTime(-1);
     container.setFinishedTime(-1);
-    writeJournal(container.getSetContainerState());
+    if (container.getPrimary() == null) {
+      writeJournal(container.getSetContainerState());
+    } else {
+      writeJournal(container.getPrimary().getSetStandbyState());
+    }
 
     StreamingContainerAgent sca = new StreamingContainerAgent(container, newStreamingContainerContext(container), this);
     containers.put(resource.containerId, sca);
@@ -1280,10 +1425,15 @@ public class StreamingContainerManager implements PlanContext
   {
     try {
       int bufferServerMemory = 0;
-      Iterator<PTOperator> operatorIterator = container.getOperators().iterator();
+      boolean threadAffinity = false;
+      // the standby container needs the buffer server of the container it takes over
+      PTContainer primary = container.getPrimary();
+      Iterator<PTOperator> operatorIterator = (primary != null ? primary : container).getOperators().iterator();
 
       while (operatorIterator.hasNext()) {
-        bufferServerMemory += operatorIterator.next().getBufferServerMemory();
+        PTOperator operator = operatorIterator.next();
+        bufferServerMemory += operator.getBufferServerMemory();
+        threadAffinity |= operator.getOperatorMeta().getValue(OperatorContext.THREAD_AFFINITY);
       }
       LOG.debug("Buffer Server Memory {}", bufferServerMemory);
 
@@ -1292,13 +1442,46 @@ public class StreamingContainerManager implements PlanContext
       scc.attributes.put(ContainerContext.IDENTIFIER, container.getExternalId());
       scc.attributes.put(ContainerContext.BUFFER_SERVER_MB, bufferServerMemory);
       scc.attributes.put(ContainerContext.BUFFER_SERVER_TOKEN, container.getBufferServerToken());
+      scc.attributes.put(ContainerContext.VCORES, container.getRequiredVCores());
+      scc.attributes.put(ContainerContext.THREAD_AFFINITY, threadAffinity);
       scc.startWindowMillis = this.vars.windowStartMillis;
+      scc.prefetchCheckpoints = getPrefetchCheckpoints(container);
       return scc;
     } catch (CloneNotSupportedException ex) {
       throw new RuntimeException("Cannot clone DAG attributes", ex);
     }
   }
 
+  /**
+   * Checkpoints the container can start loading before it receives the deploy request: those of the operators
+   * pending deployment that use the storage agent of the application and restore the recovery checkpoint. A standby
+   * container loads the checkpoints of all the operators of the container it takes over.
+   *
+   * @return checkpoint window ids by operator id or null if there are none
+   */
+  private Map<Integer, Long> getPrefetchCheckpoints(PTContainer container)
+  {
+    PTContainer primary = container.getPrimary();
+    Map<Integer, Long> checkpoints = null;
+    for (PTOperator oper : (primary != null ? primary : container).getOperators()) {
+      OperatorMeta om = oper.getOperatorMeta();
+      if ((primary == null && oper.getState() != PTOperator.State.PENDING_DEPLOY) || oper.isUnifier()
+          || om.getAttributes().get(OperatorContext.STORAGE_AGENT) != null
+          || om.getValue(OperatorContext.PROCESSING_MODE) != ProcessingMode.AT_LEAST_ONCE) {
+        continue;
+      }
+      Checkpoint checkpoint = oper.getRecoveryCheckpoint();
+      if (checkpoint == null) {
+        continue;
+      }
+      if (checkpoints == null) {
+        checkpoints = new HashMap<>();
+      }
+      checkpoints.put(oper.getId(), om.getValue(OperatorContext.STATELESS) ? Stateless.WINDOW_ID : checkpoint.windowId);
+    }
+    return checkpoints;
+  }
+
   public StreamingContainerAgent getContainerAgent(String containerId)
   {
     StreamingContainerAgent cs = containers.get(containerId);
@@ -1539,6 +1722,13 @@ public class StreamingContainerManager implements PlanContext
       }
 
       oper.stats.lastHeartbeat = shb;
+      oper.stats.heartbeatCount++;
+      if (shb.latencyHistograms != null) {
+        oper.stats.addLatencies(shb.latencyHistograms, currentTimeMillis);
+      }
+      if (shb.restoreMillis != null) {
+        oper.stats.restoreMillis = shb.restoreMillis;
+      }
       List<ContainerStats.OperatorStats> statsList = shb.getOperatorStatsContainer();
 
       if (!statsList.isEmpty()) {
@@ -1609,6 +1799,7 @@ public class StreamingContainerManager implements PlanContext
               ps.tuplesPMSMA.add(s.tupleCount, portElapsedMillis);
               ps.bufferServerBytesPMSMA.add(s.bufferServerBytes, portElapsedMillis);
               ps.queueSizeMA.add(s.queueSize);
+              ps.addBackpressure(s, portElapsedMillis);
 
               operatorPortLastEndWindowTimestamps.put(operatorPortName, s.endWindowTimestamp);
               if (maxEndWindowTimestamp < s.endWindowTimestamp) {
@@ -1652,6 +1843,7 @@ public class StreamingContainerManager implements PlanContext
               //LOG.debug("=== EMITTED TUPLE COUNT for {}: {}, {}, {}, {}", operatorPortName, s.tupleCount, portElapsedMillis, operatorPortLastEndWindowTimestamps.get(operatorPortName), lastStatsTimestamp);
               ps.tuplesPMSMA.add(s.tupleCount, portElapsedMillis);
               ps.bufferServerBytesPMSMA.add(s.bufferServerBytes, portElapsedMillis);
+              ps.addBackpressure(s, portElapsedMillis);
 
               operatorPortLastEndWindowTimestamps.put(operatorPortName, s.endWindowTimestamp);
               if (maxEndWindowTimestamp < s.endWindowTimestamp) {
@@ -1766,6 +1958,14 @@ public class StreamingContainerManager implements PlanContext
           if (statCount != 0) {
             //LOG.debug("CPU for {}: {} / {} - {}", oper.getId(), totalCpuTimeUsed, maxEndWindowTimestamp, lastMaxEndWindowTimestamp);
             status.cpuNanosPMSMA.add(totalCpuTimeUsed, maxEndWindowTimestamp - lastMaxEndWindowTimestamp);
+            if (shb.decodeNanos != null) {
+              for (Map.Entry<String, Long> e : shb.decodeNanos.entrySet()) {
+                PortStatus ps = status.inputPortStatusList.get(e.getKey());
+                if (ps != null) {
+                  ps.decodeNanosPMSMA.add(e.getValue(), maxEndWindowTimestamp - lastMaxEndWindowTimestamp);
+                }
+              }
+            }
           }
 
           for (PortStatus ps : status.inputPortStatusList.values()) {
@@ -1822,6 +2022,14 @@ public class StreamingContainerManager implements PlanContext
     }
     rsp.nodeRequests = requests;
     rsp.committedWindowId = committedWindowId;
+    if (sca.container.getPrimary() != null) {
+      // keep the standby loading the checkpoints the operators would be restored from
+      Map<Integer, Long> checkpoints = getPrefetchCheckpoints(sca.container);
+      if (checkpoints != null && !checkpoints.equals(sca.prefetchCheckpoints)) {
+        sca.prefetchCheckpoints = checkpoints;
+        rsp.prefetchCheckpoints = checkpoints;
+      }
+    }
     rsp.stackTraceRequired = sca.stackTraceRequested;
     sca.stackTraceRequested = false;
 
@@ -2288,6 +2496,7 @@ public class StreamingContainerManager implements PlanContext
 
       // stop containers that are no longer used
       for (PTContainer c : releaseContainers) {
+        releaseStandby(c);
         if (c.getExternalId() == null) {
           continue;
         }
@@ -2338,6 +2547,18 @@ public class StreamingContainerManager implements PlanContext
     return infoList;
   }
 
+  /**
+   * @return a value that is equal to the value returned before as long as the info of the operator does not change
+   */
+  public Object getOperatorInfoVersion(PTOperator operator)
+  {
+    OperatorStatus os = operator.stats;
+    PTContainer container = operator.getContainer();
+    Checkpoint recoveryCheckpoint = operator.getRecoveryCheckpoint();
+    return Arrays.asList(os.heartbeatCount, os.lastHeartbeat == null, operator.getState(), operator.failureCount,
+        recoveryCheckpoint == null ? null : recoveryCheckpoint.windowId, container.getExternalId(), container.host);
+  }
+
   public LogicalOperatorInfo getLogicalOperatorInfo(String operatorName)
   {
     OperatorMeta operatorMeta = getLogicalPlan().getOperatorMeta(operatorName);
@@ -2366,6 +2587,26 @@ public class StreamingContainerManager implements PlanContext
     return null;
   }
 
+  /**
+   * @return a value that is equal to the value returned before as long as the info of the operator does not change
+   */
+  public Object getLogicalOperatorInfoVersion(OperatorMeta operatorMeta)
+  {
+    Collection<PTOperator> physicalOperators = getPhysicalPlan().getAllOperators(operatorMeta);
+    List<Object> version = new ArrayList<>(physicalOperators.size() + 5);
+    for (PTOperator operator : physicalOperators) {
+      version.add(getOperatorInfoVersion(operator));
+    }
+    LogicalOperatorStatus status = operatorMeta.getStatus();
+    version.add(status.totalTuplesEmitted);
+    version.add(status.totalTuplesProcessed);
+    version.add(status.failureCount);
+    version.add(latestLogicalCounters.get(operatorMeta.getName()));
+    LogicalMetricsStore store = logicalMetrics.get(operatorMeta.getName());
+    version.add(store == null ? null : store.getLatest());
+    return version;
+  }
+
   public List<LogicalOperatorInfo> getLogicalOperatorInfoList()
   {
     List<LogicalOperatorInfo> infoList = new ArrayList<>();
@@ -2413,6 +2654,16 @@ public class StreamingContainerManager implements PlanContext
     oi.tuplesEmittedPSMA = os.tuplesEmittedPSMA.get();
     oi.cpuPercentageMA = os.cpuNanosPMSMA.getAvg() / 10000;
     oi.latencyMA = os.latencyMA.getAvg();
+    Map<Integer, LatencyHistogram> latencies = os.getLatencies();
+    if (!latencies.isEmpty()) {
+      LatencyHistogram total = new LatencyHistogram();
+      oi.sourceLatencies = new TreeMap<>();
+      for (Map.Entry<Integer, LatencyHistogram> e : latencies.entrySet()) {
+        total.merge(e.getValue());
+        oi.sourceLatencies.put(Integer.toString(e.getKey()), LatencyInfo.create(e.getValue()));
+      }
+      oi.latency = LatencyInfo.create(total);
+    }
     oi.failureCount = operator.failureCount;
     oi.recoveryWindowId = toWsWindowId(operator.getRecoveryCheckpoint().windowId);
     oi.currentWindowId = toWsWindowId(os.currentWindowId.get());
@@ -2424,6 +2675,7 @@ public class StreamingContainerManager implements PlanContext
       oi.checkpointStartTime = os.checkpointStats.checkpointStartTime;
     }
     oi.checkpointTimeMA = os.checkpointTimeMA.getAvg();
+    oi.restoreMillis = os.restoreMillis;
     for (PortStatus ps : os.inputPortStatusList.values()) {
       PortInfo pinfo = new PortInfo();
       pinfo.name = ps.portName;
@@ -2432,6 +2684,12 @@ public class StreamingContainerManager implements PlanContext
       pinfo.tuplesPSMA = Math.round(ps.tuplesPMSMA.getAvg() * 1000);
       pinfo.bufferServerBytesPSMA = Math.round(ps.bufferServerBytesPMSMA.getAvg() * 1000);
       pinfo.queueSizeMA = ps.queueSizeMA.getAvg();
+      pinfo.decodeCpuPercentageMA = ps.decodeNanosPMSMA.getAvg() / 10000;
+      pinfo.blockedPercentageMA = ps.getBlockedPercentage();
+      pinfo.idlePercentageMA = ps.idleNanosPMSMA.getAvg() / 10000;
+      pinfo.suspendCount = ps.suspendCount;
+      pinfo.resumeCount = ps.resumeCount;
+      pinfo.queueOccupancy = ps.queueOccupancy == null ? null : ps.queueOccupancy.clone();
       pinfo.recordingId = ps.recordingId;
       oi.addPort(pinfo);
     }
@@ -2442,6 +2700,7 @@ public class StreamingContainerManager implements PlanContext
       pinfo.totalTuples = ps.totalTuples;
       pinfo.tuplesPSMA = Math.round(ps.tuplesPMSMA.getAvg() * 1000);
       pinfo.bufferServerBytesPSMA = Math.round(ps.bufferServerBytesPMSMA.getAvg() * 1000);
+      pinfo.blockedPercentageMA = ps.getBlockedPercentage();
       pinfo.recordingId = ps.recordingId;
       oi.addPort(pinfo);
     }
@@ -2468,6 +2727,8 @@ public class StreamingContainerManager implements PlanContext
     loi.hosts = new TreeSet<>();
     Collection<PTOperator> physicalOperators = getPhysicalPlan().getAllOperators(operator);
     NumberAggregate.LongAggregate checkpointTimeAggregate = new NumberAggregate.LongAggregate();
+    LatencyHistogram totalLatency = new LatencyHistogram();
+    Map<String, LatencyHistogram> sourceLatencies = new TreeMap<>();
     for (PTOperator physicalOperator : physicalOperators) {
       OperatorStatus os = physicalOperator.stats;
       if (physicalOperator.isUnifier()) {
@@ -2485,6 +2746,7 @@ public class StreamingContainerManager implements PlanContext
           loi.latencyMA = latency;
         }
         checkpointTimeAggregate.addNumber(os.checkpointTimeMA.getAvg());
+        addSourceLatencies(os.getLatencies(), totalLatency, sourceLatencies);
       }
       loi.cpuPercentageMA += os.cpuNanosPMSMA.getAvg() / 10000;
       if (os.lastHeartbeat != null && (loi.lastHeartbeat == 0 || loi.lastHeartbeat > os.lastHeartbeat.getGeneratedTms())) {
@@ -2515,15 +2777,43 @@ public class StreamingContainerManager implements PlanContext
         }
       }
     }
+    if (totalLatency.getCount() > 0) {
+      loi.latency = LatencyInfo.create(totalLatency);
+      loi.sourceLatencies = new TreeMap<>();
+      for (Map.Entry<String, LatencyHistogram> e : sourceLatencies.entrySet()) {
+        loi.sourceLatencies.put(e.getKey(), LatencyInfo.create(e.getValue()));
+      }
+    }
     if (physicalOperators.size() > 0 && checkpointTimeAggregate.getAvg() != null) {
       loi.checkpointTimeMA = checkpointTimeAggregate.getAvg().longValue();
       loi.counters = latestLogicalCounters.get(operator.getName());
-      loi.autoMetrics = latestLogicalMetrics.get(operator.getName());
+      LogicalMetricsStore store = logicalMetrics.get(operator.getName());
+      loi.autoMetrics = store == null ? null : store.getLatest();
     }
 
     return loi;
   }
 
+  /**
+   * Merge the latencies of a partition into the latencies of the logical operator by source logical operator.
+   */
+  private void addSourceLatencies(Map<Integer, LatencyHistogram> latencies, LatencyHistogram total,
+      Map<String, LatencyHistogram> bySourceName)
+  {
+    for (Map.Entry<Integer, LatencyHistogram> e : latencies.entrySet()) {
+      total.merge(e.getValue());
+      PTOperator source = plan.getAllOperators().get(e.getKey());
+      // the source may have been removed through repartitioning
+      String sourceName = source == null ? Integer.toString(e.getKey()) : source.getOperatorMeta().getName();
+      LatencyHistogram histogram = bySourceName.get(sourceName);
+      if (histogram == null) {
+        bySourceName.put(sourceName, e.getValue());
+      } else {
+        histogram.merge(e.getValue());
+      }
+    }
+  }
+
   private OperatorAggregationInfo fillOperatorAggregationInfo(OperatorMeta operator)
   {
     OperatorAggregationInfo oai = new OperatorAggregationInfo();
@@ -2581,17 +2871,19 @@ public class StreamingContainerManager implements PlanContext
           si.logicalName = output.logicalStream.getName();
           si.source.operatorId = String.valueOf(operator.getId());
           si.source.portName = output.portName;
-          si.locality = output.logicalStream.getLocality();
+          PortStatus sourceStatus = operator.stats.outputPortStatusList.get(output.portName);
+          if (sourceStatus != null) {
+            si.source.blockedPercentageMA = sourceStatus.getBlockedPercentage();
+          }
+          si.locality = plan.getLocality(output.logicalStream);
           for (PTInput input : output.sinks) {
             StreamInfo.Port p = new StreamInfo.Port();
             p.operatorId = String.valueOf(input.target.getId());
-            if (input.target.isUnifier()) {
-              p.portName = StreamingContainer.getUnifierInputPortName(input.portName, operator.getId(), output.portName);
-            } else {
-              p.portName = input.portName;
-            }
+            p.portName = getSinkPortName(output, input);
+            p.blockedPercentageMA = getBlockedPercentage(output, input);
             si.sinks.add(p);
           }
+          si.backpressureSource = getBackpressureSource(output, new HashSet<PTOperator>());
           infoList.add(si);
         }
       }
@@ -2599,6 +2891,56 @@ public class StreamingContainerManager implements PlanContext
     return infoList;
   }
 
+  private static String getSinkPortName(PTOutput output, PTInput input)
+  {
+    if (input.target.isUnifier()) {
+      return StreamingContainer.getUnifierInputPortName(input.portName, output.source.getId(), output.portName);
+    }
+    return input.portName;
+  }
+
+  /**
+   * @return the percentage of the time the sink port held back the operator emitting the stream
+   */
+  private static double getBlockedPercentage(PTOutput output, PTInput input)
+  {
+    PortStatus ps = input.target.stats.inputPortStatusList.get(getSinkPortName(output, input));
+    return ps == null ? 0 : ps.getBlockedPercentage();
+  }
+
+  /**
+   * Follow the sinks which hold back their producer most, from the stream down to the operator that is slow on its
+   * own: its input port blocks the upstream operator while none of its output streams is backpressured.
+   *
+   * @param output the stream
+   * @param visited the operators already followed, the loops of the delay operators end there
+   * @return the id of the operator, null if no sink holds back the producer of the stream
+   */
+  private static String getBackpressureSource(PTOutput output, Set<PTOperator> visited)
+  {
+    PTOperator sink = null;
+    double maxBlockedPercentage = BACKPRESSURE_THRESHOLD_PERCENT;
+    for (PTInput input : output.sinks) {
+      double blockedPercentage = getBlockedPercentage(output, input);
+      if (blockedPercentage >= maxBlockedPercentage && !visited.contains(input.target)) {
+        sink = input.target;
+        maxBlockedPercentage = blockedPercentage;
+      }
+    }
+    if (sink == null) {
+      return null;
+    }
+
+    visited.add(sink);
+    for (PTOutput downstream : sink.getOutputs()) {
+      String source = getBackpressureSource(downstream, visited);
+      if (source != null) {
+        return source;
+      }
+    }
+    return String.valueOf(sink.getId());
+  }
+
   private static class RecordingRequestFilter implements Predicate<StramToNodeRequest>
   {
     static final Set<StramToNodeRequest.RequestType> MATCH_TYPES = Sets.newHashSet(StramToNodeRequest.RequestType.START_RECORDING, StramToNodeRequest.RequestType.STOP_RECORDING, StramToNodeRequest.RequestType.SYNC_RECORDING);
@@ -2931,7 +3273,8 @@ public class StreamingContainerManager implements PlanContext
         request.execute(pm);
       }
 
-      lp.validate();
+      // the configuration of the operators that did not change was validated with the plan
+      lp.validate(pm.getChangedOperators());
 
       // perform changes on live plan
       pm = new PlanModifier(plan);
@@ -3030,6 +3373,17 @@ public class StreamingContainerManager implements PlanContext
             LOG.debug("Requesting new resource for {}", c.toIdStateString());
             scm.requestContainer(c);
           }
+          PTContainer standby = c.getStandby();
+          if (standby != null) {
+            if (standby.getExternalId() != null) {
+              LOG.debug("Restore standby container agent {} for {}", standby.getExternalId(), c);
+              StreamingContainerAgent sca = new StreamingContainerAgent(standby, scm.newStreamingContainerContext(standby), scm);
+              scm.containers.put(standby.getExternalId(), sca);
+            } else {
+              // requested again by the heartbeat monitor
+              c.setStandby(null);
+            }
+          }
         }
       }
       scm.recoveryHandler = rh;
@@ -3202,10 +3556,7 @@ public class StreamingContainerManager implements PlanContext
   @VisibleForTesting
   protected Collection<Pair<Long, Map<String, Object>>> getLogicalMetrics(String operatorName)
   {
-    if (logicalMetrics.get(operatorName) != null) {
-      return Collections.unmodifiableCollection(logicalMetrics.get(operatorName));
-    }
-    return null;
+    return getWindowMetrics(operatorName, -1);
   }
 
   @VisibleForTesting
@@ -33,6 +33,8 @@ public interface ContainerContext extends Context
   public static final Attribute<Integer> BUFFER_SERVER_MB = new Attribute<>(8 * 64);
   public static final Attribute<byte[]> BUFFER_SERVER_TOKEN = new Attribute<>(null, null);
   public static final Attribute<RequestFactory> REQUEST_FACTORY = new Attribute<>(null, null);
+  public static final Attribute<Integer> VCORES = new Attribute<>(0);
+  public static final Attribute<Boolean> THREAD_AFFINITY = new Attribute<>(false);
   @SuppressWarnings("FieldNameHidesFieldInSuperclass")
   long serialVersionUID = AttributeInitializer.initialize(ContainerContext.class);
 }
@@ -140,6 +140,10 @@ public class OperatorDeployInfo implements Serializable, OperatorContext
     public String bufferServerHost;
     public int bufferServerPort;
     public byte[] bufferServerToken;
+    /**
+     * Whether the stream from the buffer server host is carried by a shared memory ring instead of the buffer server.
+     */
+    public boolean sharedMemory;
     /**
      * Class name of tuple SerDe (buffer server stream only).
      */
@@ -233,6 +237,10 @@ public class OperatorDeployInfo implements Serializable, OperatorContext
     public String bufferServerHost;
     public int bufferServerPort;
     public byte[] bufferServerToken;
+    /**
+     * Whether the sinks in other containers read the stream from a shared memory ring instead of the buffer server.
+     */
+    public boolean sharedMemory;
     public Map<Integer, StreamCodec<?>> streamCodecs = new HashMap<>();
     /**
      * Context attributes for output port
@@ -495,4 +495,43 @@ public abstract class StramEvent
 
   }
 
+  public static class ChangeUnifierLimitEvent extends StramEvent
+  {
+    private String streamName;
+    private int unifierLimit;
+
+    public ChangeUnifierLimitEvent(String streamName, int unifierLimit)
+    {
+      this.streamName = streamName;
+      this.unifierLimit = unifierLimit;
+    }
+
+    @Override
+    public String getType()
+    {
+      return "ChangeUnifierLimit";
+    }
+
+    public String getStreamName()
+    {
+      return streamName;
+    }
+
+    public void setStreamName(String streamName)
+    {
+      this.streamName = streamName;
+    }
+
+    public int getUnifierLimit()
+    {
+      return unifierLimit;
+    }
+
+    public void setUnifierLimit(int unifierLimit)
+    {
+      this.unifierLimit = unifierLimit;
+    }
+
+  }
+
 }
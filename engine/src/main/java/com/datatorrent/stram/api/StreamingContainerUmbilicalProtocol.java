@@ -22,6 +22,7 @@ import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.lang.builder.ToStringBuilder;
 import org.apache.commons.lang.builder.ToStringStyle;
@@ -35,6 +36,7 @@ import com.datatorrent.api.Stats;
 import com.datatorrent.api.StatsListener;
 import com.datatorrent.api.StatsListener.OperatorRequest;
 import com.datatorrent.stram.util.AbstractWritableAdapter;
+import com.datatorrent.stram.util.LatencyHistogram;
 
 /**
  * Protocol that streaming node child process uses to contact its parent
@@ -70,6 +72,12 @@ public interface StreamingContainerUmbilicalProtocol extends VersionedProtocol
 
     public boolean deployBufferServer = true;
 
+    /**
+     * Checkpoint window ids of the operators the container is about to deploy by operator id, which the container
+     * starts to load while it waits for the deploy request. Null when there is nothing to prefetch.
+     */
+    public Map<Integer, Long> prefetchCheckpoints;
+
     /**
      * Constructor to enable deserialization using Hadoop's Writable interface.
      */
@@ -184,6 +192,24 @@ public interface StreamingContainerUmbilicalProtocol extends VersionedProtocol
      * Return the response of the request
      */
     public ArrayList<StatsListener.OperatorResponse> requestResponse;
+
+    /**
+     * Latencies of the latency markers received during the heartbeat interval by source operator id, null when no
+     * markers were received.
+     */
+    public Map<Integer, LatencyHistogram> latencyHistograms;
+
+    /**
+     * Time in nanoseconds spent deserializing the tuples ahead of the operator by input port name, null when no input
+     * port decodes ahead.
+     */
+    public Map<String, Long> decodeNanos;
+
+    /**
+     * Time in milliseconds spent loading the checkpointed state when the operator was deployed, sent with the first
+     * heartbeat after the deployment and null otherwise.
+     */
+    public Long restoreMillis;
   }
 
   class ContainerStats implements Stats
@@ -383,6 +409,12 @@ public interface StreamingContainerUmbilicalProtocol extends VersionedProtocol
     public long committedWindowId = -1;
 
     public boolean stackTraceRequired = false;
+
+    /**
+     * Set when the checkpoints that a warm standby container is to load change, see
+     * {@link StreamingContainerContext#prefetchCheckpoints}.
+     */
+    public Map<Integer, Long> prefetchCheckpoints;
   }
 
   /**
@@ -22,15 +22,20 @@ import java.beans.BeanInfo;
 import java.beans.IntrospectionException;
 import java.beans.Introspector;
 import java.beans.PropertyDescriptor;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Queue;
+import java.util.Objects;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
 
 import org.codehaus.jettison.json.JSONArray;
 import org.codehaus.jettison.json.JSONException;
@@ -42,6 +47,8 @@ import org.apache.commons.lang3.ClassUtils;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.service.AbstractService;
 
+import com.google.common.base.Charsets;
+
 import com.datatorrent.api.AutoMetric;
 import com.datatorrent.api.Context.DAGContext;
 import com.datatorrent.common.metric.AutoMetricBuiltInTransport;
@@ -56,6 +63,12 @@ import com.datatorrent.stram.webapp.LogicalOperatorInfo;
 /**
  * <p>AppDataPushAgent class.</p>
  *
+ * Pushes the application and logical operator stats and the aggregated metrics to the metrics transport. With
+ * {@link LogicalPlan#APP_DATA_PUSH_DELTA}, a push contains only the stats that changed since the previous push and the
+ * new metrics, is marked with "delta" and is skipped when there are no changes. The stats of all operators are still
+ * pushed every {@link LogicalPlan#APP_DATA_FULL_PUSH_INTERVAL_MILLIS}. The metrics schema of an operator is pushed when
+ * the metric names or types change and when the transport requires it to be resent.
+ *
  * @since 3.0.0
  */
 public class AppDataPushAgent extends AbstractService
@@ -68,11 +81,21 @@ public class AppDataPushAgent extends AbstractService
   private final StramAppContext appContext;
   private final AppDataPushThread appDataPushThread = new AppDataPushThread();
   private AutoMetric.Transport metricsTransport;
-  private final Map<Class<?>, List<Field>> cacheFields = new HashMap<>();
-  private final Map<Class<?>, Map<String, Method>> cacheGetMethods = new HashMap<>();
+  private final Map<Class<?>, List<ValueGetter>> cacheGetters = new HashMap<>();
 
   private final Map<String, Long> operatorsSchemaLastSentTime = new HashMap<>();
   private final Map<String, JSONObject> operatorSchemas = new HashMap<>();
+  // logical operator name to the metric types the schema was created for
+  private final Map<String, Map<String, Class<?>>> operatorSchemaTypes = new HashMap<>();
+  // logical operator name to the stats last pushed
+  private final Map<String, Map<String, Object>> operatorsLastPushedValues = new HashMap<>();
+  private Map<String, Object> lastPushedStats;
+  private long lastFullPushTime;
+  private boolean deltaPush;
+  private long pushIntervalMillis;
+  private long fullPushIntervalMillis;
+  // logical operator name to the last window id pushed
+  private final Map<String, Long> operatorsLastPushedWindowId = new HashMap<>();
 
   public AppDataPushAgent(StreamingContainerManager dnmgr, StramAppContext appContext)
   {
@@ -113,7 +136,11 @@ public class AppDataPushAgent extends AbstractService
 
   public void init()
   {
-    metricsTransport = dnmgr.getLogicalPlan().getValue(DAGContext.METRICS_TRANSPORT);
+    LogicalPlan dag = dnmgr.getLogicalPlan();
+    deltaPush = dag.getValue(LogicalPlan.APP_DATA_PUSH_DELTA);
+    pushIntervalMillis = dag.getValue(LogicalPlan.APP_DATA_PUSH_INTERVAL_MILLIS);
+    fullPushIntervalMillis = dag.getValue(LogicalPlan.APP_DATA_FULL_PUSH_INTERVAL_MILLIS);
+    metricsTransport = dag.getValue(DAGContext.METRICS_TRANSPORT);
     if (metricsTransport instanceof AutoMetricBuiltInTransport) {
       AutoMetricBuiltInTransport transport = (AutoMetricBuiltInTransport)metricsTransport;
       metricsTransport = new PubSubWebSocketMetricTransport(dnmgr.getWsClient(), transport.getTopic(), transport.getSchemaResendInterval());
@@ -121,120 +148,188 @@ public class AppDataPushAgent extends AbstractService
     LOG.info("Metrics Transport set up for {}", metricsTransport);
   }
 
+  /**
+   * @return the data to push, or null when pushing changes only and nothing changed
+   */
   private JSONObject getPushData()
   {
+    long now = System.currentTimeMillis();
+    boolean delta = deltaPush && now - lastFullPushTime < fullPushIntervalMillis;
+    if (!delta) {
+      lastFullPushTime = now;
+    }
+    boolean changed = !delta;
+
     // assemble the json that contains the app stats and logical operator stats and counters
     JSONObject json = new JSONObject();
     try {
       json.put("type", DATA);
+      if (delta) {
+        json.put("delta", true);
+      }
       json.put("appId", dnmgr.getLogicalPlan().getValue(DAGContext.APPLICATION_ID));
       json.put("appName", dnmgr.getLogicalPlan().getValue(DAGContext.APPLICATION_NAME));
       json.put("appUser", appContext.getUser());
       List<LogicalOperatorInfo> logicalOperatorInfoList = dnmgr.getLogicalOperatorInfoList();
       JSONObject logicalOperators = new JSONObject();
+      Set<String> removedOperators = new HashSet<>(operatorsLastPushedValues.keySet());
       for (LogicalOperatorInfo logicalOperator : logicalOperatorInfoList) {
-        JSONObject logicalOperatorJson = extractFields(logicalOperator);
-        JSONArray metricsList = new JSONArray();
-        Queue<Pair<Long, Map<String, Object>>> windowMetrics = dnmgr.getWindowMetrics(logicalOperator.name);
-        if (windowMetrics != null) {
-          while (!windowMetrics.isEmpty()) {
-            Pair<Long, Map<String, Object>> metrics = windowMetrics.remove();
-            long windowId = metrics.first;
-            // metric name, aggregated value
-            Map<String, Object> aggregates = metrics.second;
-            long now = System.currentTimeMillis();
-            if (!operatorsSchemaLastSentTime.containsKey(logicalOperator.name) ||
-                (metricsTransport.getSchemaResendInterval() > 0 && operatorsSchemaLastSentTime.get(logicalOperator.name) < now - metricsTransport.getSchemaResendInterval())) {
-              try {
-                pushMetricsSchema(dnmgr.getLogicalPlan().getOperatorMeta(logicalOperator.name), aggregates);
-                operatorsSchemaLastSentTime.put(logicalOperator.name, now);
-              } catch (IOException ex) {
-                LOG.error("Cannot push metrics schema", ex);
-              }
-            }
-            JSONObject metricsItem = new JSONObject();
-            metricsItem.put("_windowId", windowId);
-            long windowToMillis = dnmgr.windowIdToMillis(windowId);
-            LOG.debug("metric window {} time {}", windowId, windowToMillis);
-            metricsItem.put("_time", windowToMillis);
-            for (Map.Entry<String, Object> entry : aggregates.entrySet()) {
-              String metricName = entry.getKey();
-              Object aggregateValue = entry.getValue();
-              metricsItem.put(metricName, aggregateValue);
-            }
-            metricsList.put(metricsItem);
-          }
+        removedOperators.remove(logicalOperator.name);
+        Map<String, Object> values = extractValues(logicalOperator);
+        Map<String, Object> lastValues = operatorsLastPushedValues.put(logicalOperator.name, values);
+        JSONObject logicalOperatorJson = toJSONObject(values, delta ? lastValues : null);
+        JSONArray metricsList = getMetrics(logicalOperator.name, now);
+        if (delta && logicalOperatorJson.length() == 0 && metricsList.length() == 0) {
+          continue;
         }
+        changed = true;
         logicalOperatorJson.put("metrics", metricsList);
         logicalOperators.put(logicalOperator.name, logicalOperatorJson);
       }
-      json.put("time", System.currentTimeMillis());
+      for (String name : removedOperators) {
+        operatorsLastPushedValues.remove(name);
+      }
+      if (delta && !removedOperators.isEmpty()) {
+        json.put("removedOperators", removedOperators);
+        changed = true;
+      }
+      Map<String, Object> stats = extractValues(appContext.getStats());
+      JSONObject statsJson = toJSONObject(stats, delta ? lastPushedStats : null);
+      lastPushedStats = stats;
+      changed |= statsJson.length() > 0;
+      json.put("time", now);
       json.put("logicalOperators", logicalOperators);
-      json.put("stats", extractFields(appContext.getStats()));
+      json.put("stats", statsJson);
     } catch (JSONException ex) {
       throw new RuntimeException(ex);
     }
-    return json;
+    return changed ? json : null;
   }
 
-  private JSONObject extractFields(Object o)
+  /**
+   * Get the aggregated metrics of the windows completed since the last push, pushing the metrics schema first if needed.
+   */
+  private JSONArray getMetrics(String operatorName, long now) throws JSONException
   {
-    List<Field> fields;
-    Map<String, Method> methods;
+    JSONArray metricsList = new JSONArray();
+    Long lastPushedWindowId = operatorsLastPushedWindowId.get(operatorName);
+    List<Pair<Long, Map<String, Object>>> windowMetrics = dnmgr.getWindowMetrics(operatorName,
+        lastPushedWindowId == null ? -1 : lastPushedWindowId);
+    if (windowMetrics != null) {
+      for (Pair<Long, Map<String, Object>> metrics : windowMetrics) {
+        long windowId = metrics.first;
+        operatorsLastPushedWindowId.put(operatorName, windowId);
+        // metric name, aggregated value
+        Map<String, Object> aggregates = metrics.second;
+        Map<String, Class<?>> types = new HashMap<>();
+        for (Map.Entry<String, Object> entry : aggregates.entrySet()) {
+          types.put(entry.getKey(), entry.getValue() == null ? null : entry.getValue().getClass());
+        }
+        boolean schemaChanged = !types.equals(operatorSchemaTypes.get(operatorName));
+        Long schemaLastSentTime = operatorsSchemaLastSentTime.get(operatorName);
+        if (schemaChanged || schemaLastSentTime == null ||
+            (metricsTransport.getSchemaResendInterval() > 0 && schemaLastSentTime < now - metricsTransport.getSchemaResendInterval())) {
+          try {
+            if (schemaChanged) {
+              operatorSchemas.remove(operatorName);
+              operatorSchemaTypes.put(operatorName, types);
+            }
+            pushMetricsSchema(dnmgr.getLogicalPlan().getOperatorMeta(operatorName), aggregates);
+            operatorsSchemaLastSentTime.put(operatorName, now);
+          } catch (IOException ex) {
+            LOG.error("Cannot push metrics schema", ex);
+          }
+        }
+        JSONObject metricsItem = new JSONObject();
+        metricsItem.put("_windowId", windowId);
+        long windowToMillis = dnmgr.windowIdToMillis(windowId);
+        LOG.debug("metric window {} time {}", windowId, windowToMillis);
+        metricsItem.put("_time", windowToMillis);
+        for (Map.Entry<String, Object> entry : aggregates.entrySet()) {
+          String metricName = entry.getKey();
+          Object aggregateValue = entry.getValue();
+          metricsItem.put(metricName, aggregateValue);
+        }
+        metricsList.put(metricsItem);
+      }
+    }
+    return metricsList;
+  }
 
-    if (cacheFields.containsKey(o.getClass())) {
-      fields = cacheFields.get(o.getClass());
-    } else {
-      fields = new ArrayList<>();
+  /**
+   * @param values values by name
+   * @param lastValues previously pushed values to leave out the unchanged values, or null for all values
+   */
+  private static JSONObject toJSONObject(Map<String, Object> values, Map<String, Object> lastValues) throws JSONException
+  {
+    JSONObject result = new JSONObject();
+    for (Map.Entry<String, Object> entry : values.entrySet()) {
+      if (lastValues == null || !lastValues.containsKey(entry.getKey())
+          || !Objects.equals(lastValues.get(entry.getKey()), entry.getValue())) {
+        result.put(entry.getKey(), entry.getValue());
+      }
+    }
+    return result;
+  }
 
+  /**
+   * Reads a field or bean property annotated with {@link AutoMetric}.
+   */
+  private static class ValueGetter
+  {
+    final String name;
+    final Field field;
+    final Method method;
+
+    ValueGetter(String name, Field field, Method method)
+    {
+      this.name = name;
+      this.field = field;
+      this.method = method;
+    }
+
+    Object get(Object o) throws Exception
+    {
+      return field != null ? field.get(o) : method.invoke(o);
+    }
+  }
+
+  private Map<String, Object> extractValues(Object o)
+  {
+    List<ValueGetter> getters = cacheGetters.get(o.getClass());
+    if (getters == null) {
+      getters = new ArrayList<>();
       for (Class<?> c = o.getClass(); c != Object.class; c = c.getSuperclass()) {
         Field[] declaredFields = c.getDeclaredFields();
         for (Field field : declaredFields) {
-          field.setAccessible(true);
           AutoMetric rfa = field.getAnnotation(AutoMetric.class);
           if (rfa != null) {
-            field.setAccessible(true);
             try {
-              fields.add(field);
+              field.setAccessible(true);
+              getters.add(new ValueGetter(field.getName(), field, null));
             } catch (Exception ex) {
               LOG.debug("Error extracting fields for app data: {}. Ignoring.", ex.getMessage());
             }
           }
         }
       }
-      cacheFields.put(o.getClass(), fields);
-    }
-    JSONObject result = new JSONObject();
-    for (Field field : fields) {
-      try {
-        result.put(field.getName(), field.get(o));
-      } catch (Exception ex) {
-        // ignore
-      }
-    }
-    if (cacheGetMethods.containsKey(o.getClass())) {
-      methods = cacheGetMethods.get(o.getClass());
-    } else {
-      methods = new HashMap<>();
       try {
         BeanInfo info = Introspector.getBeanInfo(o.getClass());
         for (PropertyDescriptor pd : info.getPropertyDescriptors()) {
           Method method = pd.getReadMethod();
-          if (pd.getReadMethod() != null) {
-            AutoMetric rfa = method.getAnnotation(AutoMetric.class);
-            if (rfa != null) {
-              methods.put(pd.getName(), method);
-            }
+          if (method != null && method.getAnnotation(AutoMetric.class) != null) {
+            getters.add(new ValueGetter(pd.getName(), null, method));
           }
         }
       } catch (IntrospectionException ex) {
         // ignore
       }
-      cacheGetMethods.put(o.getClass(), methods);
+      cacheGetters.put(o.getClass(), getters);
     }
-    for (Map.Entry<String, Method> entry : methods.entrySet()) {
+    Map<String, Object> result = new LinkedHashMap<>();
+    for (ValueGetter getter : getters) {
       try {
-        result.put(entry.getKey(), entry.getValue().invoke(o));
+        result.put(getter.name, getter.get(o));
       } catch (Exception ex) {
         // ignore
       }
@@ -286,12 +381,28 @@ public class AppDataPushAgent extends AbstractService
       schema = getMetricsSchemaData(operatorMeta, aggregates);
       operatorSchemas.put(operatorMeta.getName(), schema);
     }
-    metricsTransport.push(schema.toString());
+    push(schema);
   }
 
   public void pushData() throws IOException
   {
-    metricsTransport.push(getPushData().toString());
+    JSONObject data = getPushData();
+    if (data != null) {
+      push(data);
+    }
+  }
+
+  private void push(JSONObject json) throws IOException
+  {
+    if (metricsTransport instanceof BinaryMetricsTransport) {
+      ByteArrayOutputStream bos = new ByteArrayOutputStream();
+      try (GZIPOutputStream os = new GZIPOutputStream(bos)) {
+        os.write(json.toString().getBytes(Charsets.UTF_8));
+      }
+      ((BinaryMetricsTransport)metricsTransport).push(bos.toByteArray());
+    } else {
+      metricsTransport.push(json.toString());
+    }
   }
 
   public class AppDataPushThread extends Thread
@@ -307,7 +418,7 @@ public class AppDataPushAgent extends AbstractService
           LOG.warn("Error during pushing app data", ex);
         }
         try {
-          Thread.sleep(1000);
+          Thread.sleep(pushIntervalMillis);
         } catch (InterruptedException ex) {
           LOG.warn("Received interrupt, exiting app data push thread!");
           return;
@@ -0,0 +1,39 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.appdata;
+
+import java.io.IOException;
+
+import com.datatorrent.api.AutoMetric;
+
+/**
+ * Metrics transport that accepts the pushed data in compact binary form. The {@link AppDataPushAgent} pushes the GZIP
+ * compressed UTF-8 encoded JSON to transports implementing this interface instead of the JSON string.
+ *
+ * @since 3.5.0
+ */
+public interface BinaryMetricsTransport extends AutoMetric.Transport
+{
+  /**
+   * Pushes the metrics data to the transport.
+   *
+   * @param gzippedJsonData the GZIP compressed metric data in JSON
+   */
+  void push(byte[] gzippedJsonData) throws IOException;
+}
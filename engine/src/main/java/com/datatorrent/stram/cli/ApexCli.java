@@ -99,9 +99,11 @@ import com.datatorrent.api.StreamingApplication;
 import com.datatorrent.stram.StramClient;
 import com.datatorrent.stram.client.AppPackage;
 import com.datatorrent.stram.client.AppPackage.AppInfo;
+import com.datatorrent.stram.client.AppPackageCache;
 import com.datatorrent.stram.client.ConfigPackage;
 import com.datatorrent.stram.client.DTConfiguration;
 import com.datatorrent.stram.client.DTConfiguration.Scope;
+import com.datatorrent.stram.client.JarCache;
 import com.datatorrent.stram.client.RecordingsAgent;
 import com.datatorrent.stram.client.RecordingsAgent.RecordingInfo;
 import com.datatorrent.stram.client.StramAgent;
@@ -453,7 +455,7 @@ public class ApexCli
   {
     PrintStream outputStream = suppressOutput();
     try {
-      return new AppPackage(f, true);
+      return new AppPackage(f, AppPackageCache.getDefault(), true);
     } finally {
       restoreOutput(outputStream);
     }
@@ -683,7 +685,7 @@ public class ApexCli
     globalCommands.put("clean-app-directories", new CommandSpec(new CleanAppDirectoriesCommand(),
         new Arg[]{new Arg("duration-in-millis")},
         null,
-        "Clean up data directories of applications that terminated the given milliseconds ago"));
+        "Clean up data directories of applications that terminated the given milliseconds ago and the jar cache entries no longer referenced"));
 
     //
     // Connected command specification starts here
@@ -728,6 +730,10 @@ public class ApexCli
         new Arg[]{new Arg("operator-name")},
         new Arg[]{new Arg("attribute-name")},
         "Get attributes of an operator"));
+    connectedCommands.put("get-operator-latencies", new CommandSpec(new GetOperatorLatenciesCommand(),
+        null,
+        new Arg[]{new Arg("operator-name")},
+        "Get the p50/p99/p999 latencies of the logical operators in microseconds measured with latency markers"));
     connectedCommands.put("get-operator-properties", new CommandSpec(new GetOperatorPropertiesCommand(),
         new Arg[]{new Arg("operator-name")},
         new Arg[]{new Arg("property-name")},
@@ -2642,6 +2648,44 @@ public class ApexCli
 
   }
 
+  private class GetOperatorLatenciesCommand implements Command
+  {
+    @Override
+    public void execute(String[] args, ConsoleReader reader) throws Exception
+    {
+      if (currentApp == null) {
+        throw new CliException("No application selected");
+      }
+      StramAgent.StramUriSpec uriSpec = new StramAgent.StramUriSpec();
+      uriSpec = uriSpec.path(StramWebServices.PATH_LOGICAL_PLAN_OPERATORS);
+      if (args.length > 1) {
+        uriSpec = uriSpec.path(URLEncoder.encode(args[1], "UTF-8"));
+      }
+      JSONArray operators;
+      try {
+        JSONObject response = getResource(uriSpec, currentApp);
+        if (args.length > 1) {
+          operators = new JSONArray().put(response);
+        } else {
+          operators = response.optJSONArray("operators");
+        }
+      } catch (Exception e) {
+        throw new CliException("Failed web service request for appid " + currentApp.getApplicationId().toString(), e);
+      }
+      JSONArray latencies = new JSONArray();
+      for (int i = 0; operators != null && i < operators.length(); i++) {
+        JSONObject operator = operators.getJSONObject(i);
+        JSONObject latency = new JSONObject();
+        latency.put("name", operator.getString("name"));
+        latency.put("latency", operator.opt("latency"));
+        latency.put("sourceLatencies", operator.opt("sourceLatencies"));
+        latencies.put(latency);
+      }
+      printJson(new JSONObject().put("operators", latencies));
+    }
+
+  }
+
   private class GetPhysicalOperatorPropertiesCommand implements Command
   {
     @Override
@@ -2878,8 +2922,8 @@ public class ApexCli
             if (args[2].equals(appInfo.name)) {
               Map<String, Object> map = new HashMap<>();
               map.put("applicationName", appInfo.name);
-              if (appInfo.dag != null) {
-                map.put("logicalPlan", LogicalPlanSerializer.convertToMap(appInfo.dag, false));
+              if (appInfo.getLogicalPlanMap() != null) {
+                map.put("logicalPlan", appInfo.getLogicalPlanMap());
               }
               if (appInfo.error != null) {
                 map.put("error", appInfo.error);
@@ -3606,7 +3650,9 @@ public class ApexCli
       launchArgs.add(libjarsVal.toString());
     }
 
-    File launchPropertiesFile = new File(ap.tempDirectory(), "launch.xml");
+    // the package content may be shared through the app package cache
+    File launchPropertiesFile = File.createTempFile("launch-", ".xml");
+    launchPropertiesFile.deleteOnExit();
     launchProperties.writeToFile(launchPropertiesFile, "");
     launchArgs.add("-conf");
     launchArgs.add(launchPropertiesFile.getCanonicalPath());
@@ -3727,12 +3773,17 @@ public class ApexCli
     }
 
     File src = new File(cp.tempDirectory(), "app");
-    File dest = new File(ap.tempDirectory(), "app");
-
     if (!src.exists()) {
       return ap.getApplications();
     }
 
+    try {
+      ap.makeContentPrivate();
+    } catch (IOException e) {
+      throw new CliException("Failed to copy the app package content", e);
+    }
+    File dest = new File(ap.tempDirectory(), "app");
+
     if (configApps.equals(CONFIG_EXCLUSIVE)) {
 
       for (File file : dest.listFiles()) {
@@ -3865,6 +3916,12 @@ public class ApexCli
         appArray.put(app.getApplicationId().toString());
       }
       result.put("applications", appArray);
+      JSONArray jarArray = new JSONArray();
+      Path appsBasePath = new Path(StramClientUtils.getDTDFSRootDir(fs, conf), StramClientUtils.SUBDIR_APPS);
+      for (Path entry : new JarCache(fs, conf).gc(appsBasePath, JarCache.getGcMinAge(conf))) {
+        jarArray.put(entry.getName());
+      }
+      result.put("jarCacheEntries", jarArray);
       printJson(result);
     }
   }
@@ -20,20 +20,25 @@ package com.datatorrent.stram.client;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
 import java.util.jar.Manifest;
 
+import org.codehaus.jackson.annotate.JsonIgnore;
+import org.codehaus.jackson.annotate.JsonProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -43,6 +48,7 @@ import org.apache.commons.lang3.StringUtils;
 import org.apache.hadoop.conf.Configuration;
 
 import com.datatorrent.stram.client.StramAppLauncher.AppFactory;
+import com.datatorrent.stram.codec.LogicalPlanSerializer;
 import com.datatorrent.stram.plan.logical.LogicalPlan;
 
 import net.lingala.zip4j.core.ZipFile;
@@ -73,7 +79,10 @@ public class AppPackage extends JarFile
   private final String appPackageDescription;
   private final String appPackageDisplayName;
   private final ArrayList<String> classPath = new ArrayList<>();
-  private final File directory;
+  private final File file;
+  private final AppPackageCache cache;
+  private File directory;
+  private boolean cleanOnClose;
 
   private final List<AppInfo> applications = new ArrayList<>();
   private final List<String> appJars = new ArrayList<>();
@@ -84,16 +93,15 @@ public class AppPackage extends JarFile
   private final Map<String, String> defaultProperties = new TreeMap<>();
   private final Set<String> configs = new TreeSet<>();
 
-  private final File resourcesDirectory;
-  private final boolean cleanOnClose;
-
   public static class AppInfo
   {
     public final String name;
     public final String file;
     public final String type;
     public String displayName;
+    @JsonIgnore
     public LogicalPlan dag;
+    private Map<String, Object> cachedLogicalPlan;
     public String error;
     public String errorStackTrace;
 
@@ -107,6 +115,16 @@ public class AppPackage extends JarFile
       this.type = type;
     }
 
+    /**
+     * @return the logical plan in the JSON representation of {@link LogicalPlanSerializer}, also available when the
+     * application information was read from the {@link AppPackageCache} and the plan is not instantiated
+     */
+    @JsonProperty("dag")
+    public Map<String, Object> getLogicalPlanMap()
+    {
+      return dag != null ? LogicalPlanSerializer.convertToMap(dag, false) : cachedLogicalPlan;
+    }
+
   }
 
   public AppPackage(File file) throws IOException, ZipException
@@ -131,16 +149,30 @@ public class AppPackage extends JarFile
    */
   public AppPackage(File file, File contentFolder, boolean processAppDirectory) throws IOException, ZipException
   {
-    super(file);
+    this(file, contentFolder, null, processAppDirectory);
+  }
 
-    if (contentFolder != null) {
-      FileUtils.forceMkdir(contentFolder);
-      cleanOnClose = false;
-    } else {
-      cleanOnClose = true;
-      contentFolder = Files.createTempDirectory("dt-appPackage-").toFile();
-    }
-    directory = contentFolder;
+  /**
+   * Creates an App Package object that uses the given cache for the extracted content and the application information.
+   * The content is extracted only when the app directory needs to be processed or when {@link #tempDirectory()} is
+   * called, and it is shared with other users of the cache until {@link #makeContentPrivate()} is called.
+   *
+   * @param file
+   * @param cache the app package cache, may be null
+   * @param processAppDirectory
+   * @throws java.io.IOException
+   * @throws net.lingala.zip4j.exception.ZipException
+   */
+  public AppPackage(File file, AppPackageCache cache, boolean processAppDirectory) throws IOException, ZipException
+  {
+    this(file, null, cache, processAppDirectory);
+  }
+
+  private AppPackage(File file, File contentFolder, AppPackageCache cache, boolean processAppDirectory) throws IOException, ZipException
+  {
+    super(file);
+    this.file = file;
+    this.cache = cache;
 
     Manifest manifest = getManifest();
     if (manifest == null) {
@@ -158,29 +190,31 @@ public class AppPackage extends JarFile
       throw new IOException("Not a valid app package.  App Package Name or Version or Class-Path is missing from MANIFEST.MF");
     }
     classPath.addAll(Arrays.asList(StringUtils.split(classPathString, " ")));
-    extractToDirectory(directory, file);
-    if (processAppDirectory) {
-      processAppDirectory(false);
-    }
-    File confDirectory = new File(directory, "conf");
-    if (confDirectory.exists()) {
-      processConfDirectory(confDirectory);
+
+    if (contentFolder != null) {
+      FileUtils.forceMkdir(contentFolder);
+      directory = contentFolder;
+      extractToDirectory(directory, file);
     }
-    resourcesDirectory = new File(directory, "resources");
 
-    File propertiesXml = new File(directory, "META-INF/properties.xml");
-    if (propertiesXml.exists()) {
-      processPropertiesXml(propertiesXml, null);
+    // the configuration files are read from the package, which does not require to extract it
+    for (JarEntry entry : Collections.list(entries())) {
+      String name = entry.getName();
+      if (!entry.isDirectory() && name.startsWith("conf/") && name.endsWith(".xml") && name.indexOf('/', 5) < 0) {
+        configs.add(name.substring(5));
+      }
     }
+    processPropertiesXml("META-INF/properties.xml", null);
 
     if (processAppDirectory) {
-      for (AppInfo app : applications) {
-        app.requiredProperties.addAll(requiredProperties);
-        app.defaultProperties.putAll(defaultProperties);
-        File appPropertiesXml = new File(directory, "META-INF/properties-" + app.name + ".xml");
-        if (appPropertiesXml.exists()) {
-          processPropertiesXml(appPropertiesXml, app);
+      if (!readCachedApplications()) {
+        processAppDirectory(false);
+        for (AppInfo app : applications) {
+          app.requiredProperties.addAll(requiredProperties);
+          app.defaultProperties.putAll(defaultProperties);
+          processPropertiesXml("META-INF/properties-" + app.name + ".xml", app);
         }
+        writeCachedApplications();
       }
     }
   }
@@ -201,7 +235,7 @@ public class AppPackage extends JarFile
    */
   public AppPackage(File file, boolean processAppDirectory) throws IOException, ZipException
   {
-    this(file, null, processAppDirectory);
+    this(file, (File)null, processAppDirectory);
   }
 
   public static void extractToDirectory(File directory, File appPackageFile) throws ZipException
@@ -224,11 +258,47 @@ public class AppPackage extends JarFile
     zipFile.addFolder(directory, params);
   }
 
-  public File tempDirectory()
+  /**
+   * Get the directory with the extracted content of the app package, extracting the package on first use. The content
+   * is shared with other users of the cache when the package was created with an {@link AppPackageCache}, and must not
+   * be modified unless {@link #makeContentPrivate()} was called.
+   *
+   * @return the content directory
+   */
+  public synchronized File tempDirectory()
   {
+    if (directory == null) {
+      try {
+        if (cache != null) {
+          directory = cache.getContentDirectory(file);
+        } else {
+          directory = Files.createTempDirectory("dt-appPackage-").toFile();
+          cleanOnClose = true;
+          extractToDirectory(directory, file);
+        }
+      } catch (IOException | ZipException ex) {
+        throw new RuntimeException("Cannot extract app package " + file, ex);
+      }
+    }
     return directory;
   }
 
+  /**
+   * Copy the content shared through the cache to a temporary directory that is owned by this object and removed on
+   * close, so that it can be modified.
+   *
+   * @throws IOException
+   */
+  public synchronized void makeContentPrivate() throws IOException
+  {
+    if (!cleanOnClose && cache != null) {
+      File shared = tempDirectory();
+      directory = Files.createTempDirectory("dt-appPackage-").toFile();
+      cleanOnClose = true;
+      FileUtils.copyDirectory(shared, directory);
+    }
+  }
+
   @Override
   public void close() throws IOException
   {
@@ -238,8 +308,11 @@ public class AppPackage extends JarFile
     }
   }
 
-  public void cleanContent() throws IOException
+  public synchronized void cleanContent() throws IOException
   {
+    if (directory == null || (cache != null && !cleanOnClose)) {
+      return;
+    }
     FileUtils.deleteDirectory(directory);
     LOG.debug("App Package {}-{} folder {} is removed", appPackageName, appPackageVersion, directory.getAbsolutePath());
   }
@@ -286,7 +359,7 @@ public class AppPackage extends JarFile
 
   public File resourcesDirectory()
   {
-    return resourcesDirectory;
+    return new File(tempDirectory(), "resources");
   }
 
   public List<AppInfo> getApplications()
@@ -321,7 +394,8 @@ public class AppPackage extends JarFile
 
   public void processAppDirectory(boolean skipJars)
   {
-    File dir = new File(directory, "app");
+    File contentDir = tempDirectory();
+    File dir = new File(contentDir, "app");
     applications.clear();
 
     Configuration config = new Configuration();
@@ -330,7 +404,7 @@ public class AppPackage extends JarFile
     for (int i = 0; i < absClassPath.size(); i++) {
       String path = absClassPath.get(i);
       if (!path.startsWith("/")) {
-        absClassPath.set(i, directory + "/" + path);
+        absClassPath.set(i, contentDir + "/" + path);
       }
     }
     config.set(StramAppLauncher.LIBJARS_CONF_KEY_NAME, StringUtils.join(absClassPath, ','));
@@ -406,21 +480,66 @@ public class AppPackage extends JarFile
     }
   }
 
-  private void processConfDirectory(File dir)
+  @SuppressWarnings("unchecked")
+  private boolean readCachedApplications()
   {
-    File[] files = dir.listFiles();
-    for (File entry : files) {
-      if (entry.getName().endsWith(".xml")) {
-        configs.add(entry.getName());
-      }
+    Map<String, Object> metadata = cache == null ? null : cache.readMetadata(file);
+    if (metadata == null) {
+      return false;
+    }
+    appJars.addAll((List<String>)metadata.get("appJars"));
+    appJsonFiles.addAll((List<String>)metadata.get("appJsonFiles"));
+    appPropertiesFiles.addAll((List<String>)metadata.get("appPropertiesFiles"));
+    for (Map<String, Object> m : (List<Map<String, Object>>)metadata.get("applications")) {
+      AppInfo app = new AppInfo((String)m.get("name"), (String)m.get("file"), (String)m.get("type"));
+      app.displayName = (String)m.get("displayName");
+      app.error = (String)m.get("error");
+      app.errorStackTrace = (String)m.get("errorStackTrace");
+      app.requiredProperties.addAll((List<String>)m.get("requiredProperties"));
+      app.defaultProperties.putAll((Map<String, String>)m.get("defaultProperties"));
+      app.cachedLogicalPlan = (Map<String, Object>)m.get("dag");
+      applications.add(app);
     }
+    LOG.debug("Read {} applications of {} from cache", applications.size(), file);
+    return true;
   }
 
-  private void processPropertiesXml(File file, AppInfo app)
+  private void writeCachedApplications()
   {
+    if (cache == null) {
+      return;
+    }
+    Map<String, Object> metadata = new HashMap<>();
+    metadata.put("appJars", appJars);
+    metadata.put("appJsonFiles", appJsonFiles);
+    metadata.put("appPropertiesFiles", appPropertiesFiles);
+    List<Map<String, Object>> apps = new ArrayList<>();
+    for (AppInfo app : applications) {
+      Map<String, Object> m = new HashMap<>();
+      m.put("name", app.name);
+      m.put("file", app.file);
+      m.put("type", app.type);
+      m.put("displayName", app.displayName);
+      m.put("error", app.error);
+      m.put("errorStackTrace", app.errorStackTrace);
+      m.put("requiredProperties", app.requiredProperties);
+      m.put("defaultProperties", app.defaultProperties);
+      m.put("dag", app.getLogicalPlanMap());
+      apps.add(m);
+    }
+    metadata.put("applications", apps);
+    cache.writeMetadata(file, metadata);
+  }
+
+  private void processPropertiesXml(String entryName, AppInfo app)
+  {
+    JarEntry jarEntry = getJarEntry(entryName);
+    if (jarEntry == null) {
+      return;
+    }
     DTConfiguration config = new DTConfiguration();
-    try {
-      config.loadFile(file);
+    try (InputStream is = getInputStream(jarEntry)) {
+      config.loadStream(is);
       for (Map.Entry<String, String> entry : config) {
         String key = entry.getKey();
         String value = entry.getValue();
@@ -440,7 +559,7 @@ public class AppPackage extends JarFile
         }
       }
     } catch (Exception ex) {
-      LOG.warn("Ignoring META_INF/properties.xml because of error", ex);
+      LOG.warn("Ignoring {} because of error", entryName, ex);
     }
   }
 
@@ -0,0 +1,260 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.client;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.UUID;
+
+import org.codehaus.jackson.map.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.io.FileUtils;
+
+import com.datatorrent.stram.util.JSONSerializationProvider;
+import com.datatorrent.stram.util.VersionInfo;
+
+import net.lingala.zip4j.exception.ZipException;
+
+/**
+ * Persistent cache of extracted app packages and of the application metadata found in them. Entries are keyed by the
+ * SHA-256 digest of the package, which is itself remembered per package path, size and modification time so that
+ * packages seen before are not read again. The extracted content of an entry is shared by all users of the package and
+ * must not be modified. Least recently used entries beyond the configured number of entries are removed once they were
+ * not used for the configured minimum age, as other launchers may still use them.
+ *
+ * @since 3.5.0
+ */
+public class AppPackageCache
+{
+  private static final Logger LOG = LoggerFactory.getLogger(AppPackageCache.class);
+
+  /**
+   * System property to override the cache directory, an empty value disables the cache.
+   */
+  public static final String CACHE_DIR_PROPERTY = "apex.appPackage.cache.dir";
+  /**
+   * System property for the maximum number of cached app packages.
+   */
+  public static final String MAX_ENTRIES_PROPERTY = "apex.appPackage.cache.maxEntries";
+  /**
+   * System property for the minimum time in milliseconds since the last use of the removed app packages.
+   */
+  public static final String MIN_AGE_PROPERTY = "apex.appPackage.cache.minAgeMillis";
+  public static final long DEFAULT_MIN_AGE = 60 * 60 * 1000L;
+  private static final String CONTENT_DIR = "content";
+  private static final String METADATA_FILE_PREFIX = "appinfo-";
+  private static final String KEY_FILE_SUFFIX = ".key";
+
+  private final File cacheDir;
+  private final int maxEntries;
+  private final long minAgeMillis;
+
+  public AppPackageCache(File cacheDir, int maxEntries, long minAgeMillis)
+  {
+    this.cacheDir = cacheDir;
+    this.maxEntries = Math.max(1, maxEntries);
+    this.minAgeMillis = minAgeMillis;
+  }
+
+  /**
+   * @return the cache configured through {@link #CACHE_DIR_PROPERTY}, appPackages under the user DT directory by default
+   * and null when disabled
+   */
+  public static AppPackageCache getDefault()
+  {
+    String dir = System.getProperty(CACHE_DIR_PROPERTY);
+    if (dir != null && dir.isEmpty()) {
+      return null;
+    }
+    File cacheDir = dir == null ? new File(StramClientUtils.getUserDTDirectory(), "appPackages") : new File(dir);
+    return new AppPackageCache(cacheDir, Integer.getInteger(MAX_ENTRIES_PROPERTY, 8),
+        Long.getLong(MIN_AGE_PROPERTY, DEFAULT_MIN_AGE));
+  }
+
+  /**
+   * Get the directory with the extracted content of the app package, extracting the package when it is not cached.
+   *
+   * @param appPackageFile app package
+   * @return the content directory
+   * @throws IOException
+   * @throws ZipException
+   */
+  public File getContentDirectory(File appPackageFile) throws IOException, ZipException
+  {
+    File entryDir = getEntryDirectory(appPackageFile);
+    File contentDir = new File(entryDir, CONTENT_DIR);
+    if (!contentDir.isDirectory()) {
+      long start = System.currentTimeMillis();
+      File tmpDir = new File(entryDir, CONTENT_DIR + "." + UUID.randomUUID() + ".tmp");
+      try {
+        AppPackage.extractToDirectory(tmpDir, appPackageFile);
+        if (!tmpDir.renameTo(contentDir) && !contentDir.isDirectory()) {
+          throw new IOException("Cannot rename " + tmpDir + " to " + contentDir);
+        }
+      } finally {
+        FileUtils.deleteQuietly(tmpDir);
+      }
+      LOG.debug("Extracted {} to {} in {} ms", appPackageFile, contentDir, System.currentTimeMillis() - start);
+    }
+    return contentDir;
+  }
+
+  /**
+   * @param appPackageFile app package
+   * @return the cached metadata of the app package for this engine version, or null when not cached
+   */
+  @SuppressWarnings("unchecked")
+  public Map<String, Object> readMetadata(File appPackageFile)
+  {
+    try {
+      File metadataFile = getMetadataFile(appPackageFile);
+      if (metadataFile.exists()) {
+        return new ObjectMapper().readValue(metadataFile, Map.class);
+      }
+    } catch (IOException ex) {
+      LOG.warn("Cannot read cached metadata of {}", appPackageFile, ex);
+    }
+    return null;
+  }
+
+  /**
+   * @param appPackageFile app package
+   * @param metadata metadata of the app package, serialized as JSON
+   */
+  public void writeMetadata(File appPackageFile, Map<String, Object> metadata)
+  {
+    File tmpFile = null;
+    try {
+      File metadataFile = getMetadataFile(appPackageFile);
+      tmpFile = new File(metadataFile.getParentFile(), metadataFile.getName() + "." + UUID.randomUUID() + ".tmp");
+      new JSONSerializationProvider().getContext(null).writeValue(tmpFile, metadata);
+      if (!tmpFile.renameTo(metadataFile)) {
+        throw new IOException("Cannot rename " + tmpFile + " to " + metadataFile);
+      }
+    } catch (IOException | RuntimeException ex) {
+      LOG.warn("Cannot cache metadata of {}", appPackageFile, ex);
+    } finally {
+      FileUtils.deleteQuietly(tmpFile);
+    }
+  }
+
+  private File getMetadataFile(File appPackageFile) throws IOException
+  {
+    return new File(getEntryDirectory(appPackageFile), METADATA_FILE_PREFIX + VersionInfo.APEX_VERSION.getVersion() + ".json");
+  }
+
+  /**
+   * Get the entry directory of the app package, creating it when needed and marking it as recently used.
+   */
+  private synchronized File getEntryDirectory(File appPackageFile) throws IOException
+  {
+    String digest = getDigest(appPackageFile);
+    File entryDir = new File(cacheDir, digest);
+    if (!entryDir.isDirectory()) {
+      FileUtils.forceMkdir(entryDir);
+      evict(entryDir);
+    }
+    entryDir.setLastModified(System.currentTimeMillis());
+    return entryDir;
+  }
+
+  /**
+   * Get the digest of the package content, reading the package only when its path, size or modification time is not
+   * known from before.
+   */
+  private String getDigest(File appPackageFile) throws IOException
+  {
+    String path = appPackageFile.getAbsolutePath();
+    String fileKey = path + "\n" + appPackageFile.length() + "\n" + appPackageFile.lastModified() + "\n";
+    File keyFile = new File(cacheDir, appPackageFile.getName() + "-" + Integer.toHexString(path.hashCode()) + KEY_FILE_SUFFIX);
+    if (keyFile.exists()) {
+      String content = FileUtils.readFileToString(keyFile);
+      if (content.startsWith(fileKey)) {
+        return content.substring(fileKey.length()).trim();
+      }
+    }
+
+    MessageDigest md;
+    try {
+      md = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException ex) {
+      throw new IOException(ex);
+    }
+    byte[] buffer = new byte[64 * 1024];
+    try (InputStream is = new FileInputStream(appPackageFile)) {
+      int len;
+      while ((len = is.read(buffer)) != -1) {
+        md.update(buffer, 0, len);
+      }
+    }
+    String digest = new String(Hex.encodeHex(md.digest()));
+    FileUtils.forceMkdir(cacheDir);
+    FileUtils.writeStringToFile(keyFile, fileKey + digest);
+    return digest;
+  }
+
+  private void evict(File keep)
+  {
+    File[] entries = cacheDir.listFiles();
+    if (entries == null) {
+      return;
+    }
+    Arrays.sort(entries, new Comparator<File>()
+    {
+      @Override
+      public int compare(File f1, File f2)
+      {
+        return Long.compare(f2.lastModified(), f1.lastModified());
+      }
+    });
+    long removeBefore = System.currentTimeMillis() - minAgeMillis;
+    int count = 0;
+    for (File entry : entries) {
+      if (entry.isDirectory() && !entry.equals(keep) && ++count >= maxEntries && entry.lastModified() < removeBefore) {
+        LOG.debug("Removing cached app package {}", entry);
+        FileUtils.deleteQuietly(entry);
+      }
+    }
+
+    // remove the keys of the packages that are no longer cached
+    for (File entry : entries) {
+      if (entry.isFile() && entry.getName().endsWith(KEY_FILE_SUFFIX)) {
+        try {
+          String content = FileUtils.readFileToString(entry);
+          String digest = content.substring(content.lastIndexOf('\n') + 1).trim();
+          if (!new File(cacheDir, digest).isDirectory()) {
+            FileUtils.deleteQuietly(entry);
+          }
+        } catch (IOException ex) {
+          LOG.debug("Cannot read {}", entry, ex);
+        }
+      }
+    }
+  }
+}
@@ -20,6 +20,7 @@ package com.datatorrent.stram.client;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.HashMap;
@@ -161,7 +162,16 @@ public class DTConfiguration implements Iterable<Map.Entry<String, String>>
 
   public void loadFile(File file, Scope defaultScope) throws IOException, ParserConfigurationException, SAXException, ConfigException
   {
-    Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(file);
+    load(DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(file), defaultScope);
+  }
+
+  public void loadStream(InputStream is) throws IOException, ParserConfigurationException, SAXException, ConfigException
+  {
+    load(DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(is), Scope.TRANSIENT);
+  }
+
+  private void load(Document doc, Scope defaultScope) throws ConfigException
+  {
     Element documentElement = doc.getDocumentElement();
     if (!documentElement.getNodeName().equals("configuration")) {
       throw new ConfigException("Root element needs to be \"configuration\"");
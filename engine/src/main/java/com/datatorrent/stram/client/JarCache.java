@@ -0,0 +1,362 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.client;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.io.IOUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.permission.FsAction;
+import org.apache.hadoop.fs.permission.FsPermission;
+import org.apache.hadoop.yarn.api.records.LocalResourceVisibility;
+
+import com.google.common.base.Charsets;
+
+import com.datatorrent.api.StreamingApplication;
+import com.datatorrent.stram.StramClient;
+
+/**
+ * Content addressed cache of application dependency jars on the cluster file system. Each jar is stored under the
+ * SHA-256 digest of its content and uploaded only when no launch stored it before, so applications with the same
+ * libraries share a single copy. Since the cached files never change, containers can localize them with
+ * {@link LocalResourceVisibility#PRIVATE} or {@link LocalResourceVisibility#PUBLIC} visibility and the node managers
+ * reuse the localized copies across applications.
+ * <p>
+ * The launcher records the cache entries used by an application in the application directory. Entries not referenced
+ * by any application directory and not used within {@link #DT_JAR_CACHE_GC_MIN_AGE} are removed by
+ * {@link #gc(Path, long)}, typically after the directories of terminated applications were cleaned up. The directory
+ * of an entry is touched when a launch reuses it; the jar itself keeps its modification time, since the node managers
+ * reject resources whose timestamp differs from the one the launch recorded.
+ *
+ * @since 3.5.0
+ */
+public class JarCache
+{
+  private static final Logger LOG = LoggerFactory.getLogger(JarCache.class);
+
+  public static final String DT_JAR_CACHE_ENABLED = StreamingApplication.DT_PREFIX + "jarCache.enabled";
+  public static final String DT_JAR_CACHE_VISIBILITY = StreamingApplication.DT_PREFIX + "jarCache.visibility";
+  public static final String DT_JAR_CACHE_GC_MIN_AGE = StreamingApplication.DT_PREFIX + "jarCache.gc.minAgeMillis";
+  public static final long DEFAULT_GC_MIN_AGE = 24 * 60 * 60 * 1000L;
+  public static final String SUBDIR_JAR_CACHE = "jarcache";
+  public static final String REFERENCES_FILE_NAME = "jarcache.refs";
+
+  private static final FsPermission PUBLIC_DIR_PERMISSION = new FsPermission((short)0755);
+  private static final FsPermission PUBLIC_FILE_PERMISSION = new FsPermission((short)0644);
+
+  private final FileSystem fs;
+  private final Path cacheDir;
+  private final Configuration conf;
+  private final LocalResourceVisibility requestedVisibility;
+  private LocalResourceVisibility visibility;
+  private int uploads;
+
+  public JarCache(FileSystem fs, Configuration conf)
+  {
+    this(fs, new Path(StramClientUtils.getDTDFSRootDir(fs, conf), SUBDIR_JAR_CACHE), conf, getVisibility(conf));
+  }
+
+  public JarCache(FileSystem fs, Path cacheDir, Configuration conf, LocalResourceVisibility visibility)
+  {
+    this.fs = fs;
+    this.cacheDir = fs.makeQualified(cacheDir);
+    this.conf = conf;
+    this.requestedVisibility = visibility;
+    this.visibility = visibility;
+  }
+
+  public static boolean isEnabled(Configuration conf)
+  {
+    return conf.getBoolean(DT_JAR_CACHE_ENABLED, false);
+  }
+
+  /**
+   * @return the configured visibility of the cached jars, {@link LocalResourceVisibility#PRIVATE} by default
+   */
+  public static LocalResourceVisibility getVisibility(Configuration conf)
+  {
+    return LocalResourceVisibility.valueOf(conf.get(DT_JAR_CACHE_VISIBILITY, LocalResourceVisibility.PRIVATE.name()).toUpperCase());
+  }
+
+  /**
+   * @return the configured minimum time since the last use of the entries removed by {@link #gc(Path, long)}
+   */
+  public static long getGcMinAge(Configuration conf)
+  {
+    return conf.getLong(DT_JAR_CACHE_GC_MIN_AGE, DEFAULT_GC_MIN_AGE);
+  }
+
+  /**
+   * Add the given files to the cache, uploading only the files whose content is not cached yet. Files that already are
+   * cache entries are used as they are.
+   *
+   * @param files local or file system paths
+   * @return comma separated paths of the cache entries, in the order of the given files
+   * @throws IOException
+   */
+  public String add(String[] files) throws IOException
+  {
+    StringBuilder csv = new StringBuilder(files.length * (cacheDir.toString().length() + 96));
+    for (String file : files) {
+      if (csv.length() > 0) {
+        csv.append(StramClient.LIB_JARS_SEP);
+      }
+      csv.append(add(file).toString());
+    }
+    return csv.toString();
+  }
+
+  /**
+   * Add a file to the cache.
+   *
+   * @param file local or file system path
+   * @return the path of the cache entry
+   * @throws IOException
+   */
+  public Path add(String file) throws IOException
+  {
+    Path src = new Path(file);
+    FileSystem srcFs;
+    try {
+      URI uri = new URI(file);
+      srcFs = uri.getScheme() == null || uri.getScheme().startsWith("file") ? FileSystem.getLocal(conf) : fs;
+    } catch (URISyntaxException e) {
+      throw new IOException(e);
+    }
+    Path qualifiedSrc = srcFs.makeQualified(src);
+    if (srcFs.getUri().equals(fs.getUri()) && isEntry(qualifiedSrc)) {
+      touch(qualifiedSrc);
+      checkVisibility(qualifiedSrc);
+      return qualifiedSrc;
+    }
+
+    FileStatus srcStatus = srcFs.getFileStatus(src);
+    String digest;
+    try (InputStream is = srcFs.open(src)) {
+      digest = digest(is);
+    }
+    Path entryDir = new Path(cacheDir, digest);
+    Path dst = new Path(entryDir, src.getName());
+    if (fs.exists(dst) && fs.getFileStatus(dst).getLen() == srcStatus.getLen()) {
+      LOG.debug("Using cached {} for {}", dst, file);
+      touch(dst);
+    } else {
+      Path tmp = new Path(entryDir, "." + src.getName() + "." + UUID.randomUUID() + ".tmp");
+      LOG.info("Copy {} to jar cache {}", file, dst);
+      mkdirs(cacheDir);
+      mkdirs(entryDir);
+      try (InputStream is = srcFs.open(src); FSDataOutputStream os = fs.create(tmp, true)) {
+        IOUtils.copyLarge(is, os);
+      }
+      if (requestedVisibility == LocalResourceVisibility.PUBLIC) {
+        fs.setPermission(tmp, PUBLIC_FILE_PERMISSION);
+      }
+      if (!fs.rename(tmp, dst)) {
+        // a concurrent launch stored the same content
+        fs.delete(tmp, false);
+        if (!fs.exists(dst)) {
+          throw new IOException("Cannot rename " + tmp + " to " + dst);
+        }
+      }
+      uploads++;
+    }
+    checkVisibility(dst);
+    return dst;
+  }
+
+  /**
+   * @return the visibility for localizing the entries returned by this instance, the configured visibility or
+   * {@link LocalResourceVisibility#PRIVATE} when the configured public visibility is not possible because an entry
+   * or its parent directories cannot be accessed by everyone
+   */
+  public LocalResourceVisibility getVisibility()
+  {
+    return visibility;
+  }
+
+  /**
+   * @return number of files uploaded by this instance
+   */
+  public int getUploads()
+  {
+    return uploads;
+  }
+
+  public Path getCacheDir()
+  {
+    return cacheDir;
+  }
+
+  /**
+   * Record the cache entries used by an application in its application directory.
+   *
+   * @param appPath application directory
+   * @param entriesCsv comma separated paths of the cache entries
+   * @throws IOException
+   */
+  public void writeReferences(Path appPath, String entriesCsv) throws IOException
+  {
+    try (FSDataOutputStream os = fs.create(new Path(appPath, REFERENCES_FILE_NAME), true)) {
+      for (String entry : entriesCsv.split(StramClient.LIB_JARS_SEP)) {
+        os.write((entry + "\n").getBytes(Charsets.UTF_8));
+      }
+    }
+  }
+
+  /**
+   * Remove the cache entries that are not referenced by any of the application directories under the given path.
+   * Entries created or reused within the given age are kept, as a launch may not have recorded its references yet.
+   *
+   * @param appsBasePath the directory containing the application directories
+   * @param minAgeMillis minimum age of the entries to remove
+   * @return the removed entries
+   * @throws IOException
+   */
+  public List<Path> gc(Path appsBasePath, long minAgeMillis) throws IOException
+  {
+    List<Path> removed = new ArrayList<>();
+    if (!fs.isDirectory(cacheDir)) {
+      return removed;
+    }
+    Set<String> referenced = new HashSet<>();
+    if (fs.isDirectory(appsBasePath)) {
+      for (FileStatus appDir : fs.listStatus(appsBasePath)) {
+        Path refs = new Path(appDir.getPath(), REFERENCES_FILE_NAME);
+        if (!appDir.isDirectory() || !fs.exists(refs)) {
+          continue;
+        }
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(fs.open(refs), Charsets.UTF_8))) {
+          String line;
+          while ((line = br.readLine()) != null) {
+            if (!line.isEmpty()) {
+              referenced.add(fs.makeQualified(new Path(line)).getParent().getName());
+            }
+          }
+        }
+      }
+    }
+
+    long removeBefore = System.currentTimeMillis() - minAgeMillis;
+    for (FileStatus entryDir : fs.listStatus(cacheDir)) {
+      if (!entryDir.isDirectory() || referenced.contains(entryDir.getPath().getName())) {
+        continue;
+      }
+      long modificationTime = entryDir.getModificationTime();
+      for (FileStatus f : fs.listStatus(entryDir.getPath())) {
+        modificationTime = Math.max(modificationTime, f.getModificationTime());
+      }
+      if (modificationTime < removeBefore) {
+        LOG.debug("Removing unreferenced jar cache entry {}", entryDir.getPath());
+        fs.delete(entryDir.getPath(), true);
+        removed.add(entryDir.getPath());
+      }
+    }
+    return removed;
+  }
+
+  /**
+   * Mark the entry as used, so that it is not removed before the launch recorded its references. Only the directory of
+   * the entry is updated, containers of running applications may still localize the jar with its current timestamp.
+   */
+  private void touch(Path entry)
+  {
+    Path entryDir = entry.getParent();
+    try {
+      fs.setTimes(entryDir, System.currentTimeMillis(), -1);
+    } catch (IOException ex) {
+      // entries stored by other users
+      LOG.debug("Cannot update modification time of {}", entryDir, ex);
+    }
+  }
+
+  private boolean isEntry(Path path)
+  {
+    Path entryDir = path.getParent();
+    return entryDir != null && cacheDir.equals(entryDir.getParent());
+  }
+
+  private void mkdirs(Path dir) throws IOException
+  {
+    if (!fs.isDirectory(dir)) {
+      if (!fs.mkdirs(dir) && !fs.isDirectory(dir)) {
+        throw new IOException("Cannot create " + dir);
+      }
+      if (requestedVisibility == LocalResourceVisibility.PUBLIC) {
+        fs.setPermission(dir, PUBLIC_DIR_PERMISSION);
+      }
+    }
+  }
+
+  private void checkVisibility(Path entry) throws IOException
+  {
+    if (visibility == LocalResourceVisibility.PUBLIC && !isPublic(entry)) {
+      LOG.warn("{} is not accessible by everyone, using {} visibility", entry, LocalResourceVisibility.PRIVATE);
+      visibility = LocalResourceVisibility.PRIVATE;
+    }
+  }
+
+  private boolean isPublic(Path entry) throws IOException
+  {
+    if (!fs.getFileStatus(entry).getPermission().getOtherAction().implies(FsAction.READ)) {
+      return false;
+    }
+    for (Path dir = entry.getParent(); dir != null; dir = dir.getParent()) {
+      if (!fs.getFileStatus(dir).getPermission().getOtherAction().implies(FsAction.EXECUTE)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static String digest(InputStream is) throws IOException
+  {
+    MessageDigest md;
+    try {
+      md = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException ex) {
+      throw new IOException(ex);
+    }
+    byte[] buffer = new byte[64 * 1024];
+    int len;
+    while ((len = is.read(buffer)) != -1) {
+      md.update(buffer, 0, len);
+    }
+    return new String(Hex.encodeHex(md.digest()));
+  }
+}
@@ -82,6 +82,9 @@ import com.datatorrent.stram.security.StramUserLogin;
  * Dependency resolution is based on the bundled pom.xml (if any) and the application is launched with a modified client
  * classpath that includes application dependencies so that classes defined in the DAG can be loaded and
  * <br>
+ * The launcher only deals with jars. App packages are opened through the {@link AppPackageCache} by the callers, which
+ * pass the jars of the cached content directory, so repeated launches of a package load the same extracted jars.
+ * <br>
  *
  * @since 0.3.2
  */
@@ -0,0 +1,182 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.codec;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+import com.datatorrent.api.StreamCodec;
+import com.datatorrent.netlet.util.Slice;
+import com.datatorrent.stram.codec.TupleSerializer.ValueSerializer;
+
+/**
+ * Stream codec of the ports with a tuple class and the
+ * {@link com.datatorrent.api.Context.PortContext#GENERATED_STREAM_CODEC} attribute, serializing the tuples with a
+ * {@link TupleSerializer} generated for the class.<p>
+ * <br>
+ * Unlike the Kryo based default codec, the codec writes the fields of the tuples without class names or references,
+ * and partitions the tuples by the hash of the key fields instead of the hash code of the tuples. The serializer is
+ * generated when the codec is first used in the container, the codec itself travels with the plan. The tuples of
+ * other classes than the tuple class, like the instances of its subclasses, are written with Kryo. Each serialized
+ * tuple carries the fingerprint of the layout, a tuple written with a different version of the class fails the
+ * stream rather than being read into the wrong fields. Since there is no reference tracking, the classes which can
+ * reach themselves through their fields are not supported.
+ *
+ * @param <T> the tuple class
+ * @since 3.5.0
+ */
+public class GeneratedStreamCodec<T> implements StreamCodec<T>, Serializable
+{
+  private static final byte LAYOUT = 1;
+  private static final byte KRYO = 2;
+  private final Class<T> tupleClass;
+  private final String[] keyFields;
+  private transient volatile TupleSerializer serializer;
+  private transient ValueSerializer kryoSerializer;
+  private transient int fingerprint;
+
+  /**
+   * @param tupleClass the tuple class
+   * @param keyFields names of the fields which the partition of a tuple depends on, none to use its hash code
+   * @throws IllegalArgumentException if no serializer can be generated for the class
+   */
+  public GeneratedStreamCodec(Class<T> tupleClass, String... keyFields)
+  {
+    TupleSerializerGenerator.checkSupported(tupleClass, keyFields);
+    this.tupleClass = tupleClass;
+    this.keyFields = keyFields.clone();
+  }
+
+  /**
+   * @param tupleClass the tuple class
+   * @param keyFields names of the fields to partition by
+   * @return true if a serializer can be generated for the class
+   */
+  public static boolean isSupported(Class<?> tupleClass, String... keyFields)
+  {
+    try {
+      TupleSerializerGenerator.checkSupported(tupleClass, keyFields);
+      return true;
+    } catch (IllegalArgumentException ex) {
+      return false;
+    }
+  }
+
+  private TupleSerializer getSerializer()
+  {
+    TupleSerializer result = serializer;
+    if (result == null) {
+      synchronized (this) {
+        result = serializer;
+        if (result == null) {
+          TupleSerializerGenerator generator = new TupleSerializerGenerator(tupleClass.getClassLoader());
+          result = generator.generate(tupleClass, keyFields);
+          kryoSerializer = generator.getKryoSerializer();
+          fingerprint = generator.getFingerprint();
+          serializer = result;
+        }
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public Object fromByteArray(Slice fragment)
+  {
+    TupleSerializer tupleSerializer = getSerializer();
+    Input input = new Input(fragment.buffer, fragment.offset, fragment.length);
+    if (input.readByte() == KRYO) {
+      return kryoSerializer.read(input);
+    }
+
+    int tupleFingerprint = input.readInt();
+    if (tupleFingerprint != fingerprint) {
+      throw new IllegalStateException("Tuple of " + tupleClass.getName() + " with layout " + tupleFingerprint
+          + " does not match the layout " + fingerprint + " of the class");
+    }
+    return tupleSerializer.read(input);
+  }
+
+  @Override
+  public Slice toByteArray(T o)
+  {
+    TupleSerializer tupleSerializer = getSerializer();
+    Output output = new Output(256, -1);
+    if (o != null && o.getClass() == tupleClass) {
+      output.writeByte(LAYOUT);
+      output.writeInt(fingerprint);
+      tupleSerializer.write(o, output);
+    } else {
+      output.writeByte(KRYO);
+      kryoSerializer.write(o, output);
+    }
+    return new Slice(output.getBuffer(), 0, output.position());
+  }
+
+  @Override
+  public int getPartition(T o)
+  {
+    if (keyFields.length > 0 && tupleClass.isInstance(o)) {
+      return getSerializer().hash(o);
+    }
+    return o.hashCode();
+  }
+
+  public Class<T> getTupleClass()
+  {
+    return tupleClass;
+  }
+
+  public String[] getKeyFields()
+  {
+    return keyFields.clone();
+  }
+
+  @Override
+  public boolean equals(Object o)
+  {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+
+    GeneratedStreamCodec<?> that = (GeneratedStreamCodec<?>)o;
+    return tupleClass.equals(that.tupleClass) && Arrays.equals(keyFields, that.keyFields);
+  }
+
+  @Override
+  public int hashCode()
+  {
+    return 31 * tupleClass.hashCode() + Arrays.hashCode(keyFields);
+  }
+
+  @Override
+  public String toString()
+  {
+    return "GeneratedStreamCodec{tupleClass=" + tupleClass.getName() + ", keyFields=" + Arrays.toString(keyFields)
+        + '}';
+  }
+
+  private static final long serialVersionUID = 201610190000L;
+}
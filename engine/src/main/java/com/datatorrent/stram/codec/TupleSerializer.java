@@ -0,0 +1,120 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.codec;
+
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+/**
+ * Base class of the serializers that {@link TupleSerializerGenerator} generates for the tuple classes.<p>
+ * <br>
+ * A generated serializer writes and reads the fields of the class in a fixed order, the primitive and the string
+ * fields directly and the other fields through the {@link ValueSerializer}s of the {@link #values} array, which has
+ * an entry per field. It also hashes the key fields of the class for the partitioning.
+ *
+ * @since 3.5.0
+ */
+public abstract class TupleSerializer
+{
+  protected final ValueSerializer[] values;
+
+  protected TupleSerializer(ValueSerializer[] values)
+  {
+    this.values = values;
+  }
+
+  /**
+   * Write the fields of the tuple.
+   *
+   * @param tuple instance of the class the serializer was generated for
+   * @param output the output
+   */
+  public abstract void write(Object tuple, Output output);
+
+  /**
+   * Create a tuple and read its fields.
+   *
+   * @param input the input
+   * @return the tuple
+   */
+  public abstract Object read(Input input);
+
+  /**
+   * @param tuple instance of the class the serializer was generated for or of a subclass
+   * @return the hash of the key fields, or the hash code of the tuple if there are no key fields
+   */
+  public abstract int hash(Object tuple);
+
+  protected static int hashValue(boolean value)
+  {
+    return value ? 1231 : 1237;
+  }
+
+  protected static int hashValue(byte value)
+  {
+    return value;
+  }
+
+  protected static int hashValue(char value)
+  {
+    return value;
+  }
+
+  protected static int hashValue(short value)
+  {
+    return value;
+  }
+
+  protected static int hashValue(int value)
+  {
+    return value;
+  }
+
+  protected static int hashValue(long value)
+  {
+    return (int)(value ^ (value >>> 32));
+  }
+
+  protected static int hashValue(float value)
+  {
+    return Float.floatToIntBits(value);
+  }
+
+  protected static int hashValue(double value)
+  {
+    return hashValue(Double.doubleToLongBits(value));
+  }
+
+  protected static int hashValue(Object value)
+  {
+    return value == null ? 0 : value.hashCode();
+  }
+
+  /**
+   * Serializer of the values of a field type which the generated code does not handle inline.
+   */
+  public abstract static class ValueSerializer
+  {
+    public abstract void write(Object value, Output output);
+
+    public abstract Object read(Input input);
+
+  }
+
+}
@@ -0,0 +1,1003 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.codec;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.xbean.asm5.ClassWriter;
+import org.apache.xbean.asm5.MethodVisitor;
+import org.apache.xbean.asm5.Opcodes;
+import org.apache.xbean.asm5.Type;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+import com.datatorrent.stram.codec.TupleSerializer.ValueSerializer;
+
+/**
+ * Generates the {@link TupleSerializer} of a tuple class with ASM.<p>
+ * <br>
+ * The fields of the class and of its superclasses which are not static or transient make the layout, ordered by
+ * name. Every field has to be either public or accessible through a public getter and setter, and the class needs a
+ * public no argument constructor. The primitive and the string fields are written inline, the boxed primitives,
+ * enums, arrays, nested tuple classes and the collections and maps of these are written by dedicated
+ * {@link ValueSerializer}s, and the values of the other types, like the JDK classes or the types that the generic
+ * signature leaves open, are written with Kryo. The collections and the maps are read back into the declared class,
+ * or into {@link ArrayList}, {@link HashSet}, {@link ArrayDeque} and {@link HashMap} for the interfaces; the sorted
+ * ones are left to Kryo to keep their comparator.<br>
+ * The fingerprint of the generated layouts lets the codec detect the tuples written with a different class version.
+ *
+ * @since 3.5.0
+ */
+public class TupleSerializerGenerator
+{
+  private static final String SERIALIZER = Type.getInternalName(TupleSerializer.class);
+  private static final String VALUE_SERIALIZER = Type.getInternalName(ValueSerializer.class);
+  private static final String VALUES_DESCRIPTOR = "[L" + VALUE_SERIALIZER + ";";
+  private static final String OUTPUT = Type.getInternalName(Output.class);
+  private static final String INPUT = Type.getInternalName(Input.class);
+  private static final String OBJECT_DESCRIPTOR = Type.getDescriptor(Object.class);
+  private static final String PACKAGE = TupleSerializerGenerator.class.getPackage().getName() + ".generated.";
+  private static final Map<Class<?>, InlineType> INLINE_TYPES = new HashMap<>();
+  private static final AtomicInteger sequence = new AtomicInteger();
+
+  static {
+    INLINE_TYPES.put(boolean.class, new InlineType("writeBoolean", "(Z)V", "readBoolean", "()Z", false));
+    INLINE_TYPES.put(byte.class, new InlineType("writeByte", "(B)V", "readByte", "()B", false));
+    INLINE_TYPES.put(char.class, new InlineType("writeChar", "(C)V", "readChar", "()C", false));
+    INLINE_TYPES.put(short.class, new InlineType("writeShort", "(I)V", "readShort", "()S", false));
+    INLINE_TYPES.put(int.class, new InlineType("writeInt", "(IZ)I", "readInt", "(Z)I", true));
+    INLINE_TYPES.put(long.class, new InlineType("writeLong", "(JZ)I", "readLong", "(Z)J", true));
+    INLINE_TYPES.put(float.class, new InlineType("writeFloat", "(F)V", "readFloat", "()F", false));
+    INLINE_TYPES.put(double.class, new InlineType("writeDouble", "(D)V", "readDouble", "()D", false));
+    INLINE_TYPES.put(String.class, new InlineType("writeString", "(Ljava/lang/String;)V", "readString",
+        "()Ljava/lang/String;", false));
+  }
+
+  private final GeneratedClassLoader classLoader;
+  private final KryoSerializer kryoSerializer;
+  private final Map<Class<?>, PojoSerializer> pojoSerializers = new HashMap<>();
+  private final StringBuilder layout = new StringBuilder();
+
+  /**
+   * @param classLoader the class loader of the tuple class
+   */
+  public TupleSerializerGenerator(ClassLoader classLoader)
+  {
+    this.classLoader = new GeneratedClassLoader(classLoader);
+    kryoSerializer = new KryoSerializer(classLoader);
+  }
+
+  /**
+   * Generate the serializer of the class, and of the tuple classes of its fields.
+   *
+   * @param type the tuple class
+   * @param keyFields names of the fields to hash, in order
+   * @return the serializer
+   * @throws IllegalArgumentException if the class is not supported
+   */
+  public TupleSerializer generate(Class<?> type, String... keyFields)
+  {
+    List<Property> properties = getProperties(type);
+    List<Property> keys = getKeys(type, properties, keyFields);
+    checkAcyclic(type, properties, new LinkedHashSet<Class<?>>());
+    return generate(type, properties, keys);
+  }
+
+  private TupleSerializer generate(Class<?> type, List<Property> properties, List<Property> keys)
+  {
+
+    layout.append(type.getName()).append('{');
+    ValueSerializer[] values = new ValueSerializer[properties.size()];
+    for (int i = 0; i < values.length; i++) {
+      Property property = properties.get(i);
+      layout.append(property.name).append(':').append(property.genericType).append(';');
+      if (!INLINE_TYPES.containsKey(property.type)) {
+        values[i] = getValueSerializer(property.genericType);
+      }
+    }
+    layout.append('}');
+
+    String name = PACKAGE + type.getSimpleName() + "Serializer" + sequence.incrementAndGet();
+    Class<?> serializerClass = classLoader.define(name, generateClass(name, type, properties, keys));
+    try {
+      return (TupleSerializer)serializerClass.getConstructor(ValueSerializer[].class).newInstance((Object)values);
+    } catch (ReflectiveOperationException ex) {
+      throw new RuntimeException("Cannot create the serializer of " + type, ex);
+    }
+  }
+
+  /**
+   * @return fingerprint of the layouts of all the classes generated so far
+   */
+  public int getFingerprint()
+  {
+    return layout.toString().hashCode();
+  }
+
+  /**
+   * @return the serializer writing values of any class with Kryo
+   */
+  public ValueSerializer getKryoSerializer()
+  {
+    return kryoSerializer;
+  }
+
+  /**
+   * Check whether a serializer can be generated for the class.
+   *
+   * @param type the tuple class
+   * @param keyFields names of the fields to hash
+   * @throws IllegalArgumentException with the reason if the class is not supported
+   */
+  public static void checkSupported(Class<?> type, String... keyFields)
+  {
+    List<Property> properties = getProperties(type);
+    getKeys(type, properties, keyFields);
+    checkAcyclic(type, properties, new LinkedHashSet<Class<?>>());
+  }
+
+  /**
+   * Reject the classes which can reach themselves through the types of their fields. The generated serializers do not
+   * track references, so they would not end on a cyclic object graph.
+   *
+   * @param path the classes which lead to the type
+   */
+  private static void checkAcyclic(Class<?> type, List<Property> properties, Set<Class<?>> path)
+  {
+    path.add(type);
+    for (Property property : properties) {
+      checkAcyclic(property.genericType, path);
+    }
+    path.remove(type);
+  }
+
+  private static void checkAcyclic(java.lang.reflect.Type genericType, Set<Class<?>> path)
+  {
+    if (genericType instanceof ParameterizedType) {
+      for (java.lang.reflect.Type argument : ((ParameterizedType)genericType).getActualTypeArguments()) {
+        checkAcyclic(argument, path);
+      }
+    }
+    Class<?> type = getRawType(genericType);
+    while (type != null && type.isArray()) {
+      type = type.getComponentType();
+    }
+    if (type == null || type.isPrimitive() || type.isEnum() || type.getName().startsWith("java.")
+        || type.getName().startsWith("javax.")) {
+      return;
+    }
+    if (path.contains(type)) {
+      throw new IllegalArgumentException(path.iterator().next().getName() + " refers to itself through " + path);
+    }
+
+    List<Property> properties;
+    try {
+      properties = getProperties(type);
+    } catch (IllegalArgumentException ex) {
+      /* written with Kryo */
+      return;
+    }
+    checkAcyclic(type, properties, path);
+  }
+
+  private static List<Property> getKeys(Class<?> type, List<Property> properties, String... keyFields)
+  {
+    List<Property> keys = new ArrayList<>(keyFields.length);
+    for (String keyField : keyFields) {
+      Property key = null;
+      for (Property property : properties) {
+        if (property.name.equals(keyField)) {
+          key = property;
+        }
+      }
+      if (key == null) {
+        throw new IllegalArgumentException("Key field " + keyField + " is not a field of " + type.getName());
+      }
+      keys.add(key);
+    }
+    return keys;
+  }
+
+  private static List<Property> getProperties(Class<?> type)
+  {
+    int modifiers = type.getModifiers();
+    if (!Modifier.isPublic(modifiers) || Modifier.isAbstract(modifiers) || type.isArray() || type.isPrimitive()
+        || type.isEnum() || (type.getEnclosingClass() != null && !Modifier.isStatic(modifiers))
+        || type.getName().startsWith("java.")) {
+      throw new IllegalArgumentException(type + " is not a public concrete class");
+    }
+    try {
+      type.getConstructor();
+    } catch (NoSuchMethodException ex) {
+      throw new IllegalArgumentException(type + " does not have a public no argument constructor", ex);
+    }
+
+    Map<String, Property> properties = new TreeMap<>();
+    for (Class<?> c = type; c != Object.class; c = c.getSuperclass()) {
+      for (Field field : c.getDeclaredFields()) {
+        int fieldModifiers = field.getModifiers();
+        if (Modifier.isStatic(fieldModifiers) || Modifier.isTransient(fieldModifiers) || field.isSynthetic()) {
+          continue;
+        }
+        if (properties.containsKey(field.getName())) {
+          throw new IllegalArgumentException("Field " + field + " shadows a field of " + type.getName());
+        }
+        if (Modifier.isFinal(fieldModifiers)) {
+          throw new IllegalArgumentException("Field " + field + " is final");
+        }
+        properties.put(field.getName(), new Property(type, field));
+      }
+    }
+    return new ArrayList<>(properties.values());
+  }
+
+  private ValueSerializer getValueSerializer(java.lang.reflect.Type genericType)
+  {
+    Class<?> type = getRawType(genericType);
+    if (type == null) {
+      return kryoSerializer;
+    }
+    if (type == String.class) {
+      return StringSerializer.INSTANCE;
+    }
+    if (BoxedSerializer.KINDS.containsKey(type)) {
+      return new BoxedSerializer(type);
+    }
+    if (type.isEnum()) {
+      return new EnumSerializer(type);
+    }
+    if (type == byte[].class) {
+      return BytesSerializer.INSTANCE;
+    }
+    if (type.isArray()) {
+      Class<?> componentType = type.getComponentType();
+      return new ArraySerializer(componentType, componentType.isPrimitive()
+          ? new BoxedSerializer(Array.get(Array.newInstance(componentType, 1), 0).getClass())
+          : getValueSerializer(componentType));
+    }
+    if (Collection.class.isAssignableFrom(type)) {
+      Constructor<?> constructor = getCollectionConstructor(type);
+      return constructor == null ? kryoSerializer
+          : new CollectionSerializer(constructor, getValueSerializer(getTypeArgument(genericType, 0, 1)));
+    }
+    if (Map.class.isAssignableFrom(type)) {
+      Constructor<?> constructor = getCollectionConstructor(type);
+      return constructor == null ? kryoSerializer : new MapSerializer(constructor,
+          getValueSerializer(getTypeArgument(genericType, 0, 2)),
+          getValueSerializer(getTypeArgument(genericType, 1, 2)));
+    }
+    if (type.getName().startsWith("java.") || type.getName().startsWith("javax.")) {
+      return kryoSerializer;
+    }
+
+    PojoSerializer serializer = pojoSerializers.get(type);
+    if (serializer == null) {
+      List<Property> properties;
+      try {
+        properties = getProperties(type);
+      } catch (IllegalArgumentException ex) {
+        return kryoSerializer;
+      }
+      serializer = new PojoSerializer(type, kryoSerializer);
+      pojoSerializers.put(type, serializer);
+      serializer.serializer = generate(type, properties, Collections.<Property>emptyList());
+    }
+    return serializer;
+  }
+
+  private static Class<?> getRawType(java.lang.reflect.Type type)
+  {
+    if (type instanceof Class) {
+      return (Class<?>)type;
+    }
+    if (type instanceof ParameterizedType) {
+      return (Class<?>)((ParameterizedType)type).getRawType();
+    }
+    return null;
+  }
+
+  /**
+   * @return the type argument, or null if the type is not parameterized with the expected number of arguments
+   */
+  private static java.lang.reflect.Type getTypeArgument(java.lang.reflect.Type type, int index, int count)
+  {
+    if (type instanceof ParameterizedType) {
+      java.lang.reflect.Type[] arguments = ((ParameterizedType)type).getActualTypeArguments();
+      if (arguments.length == count) {
+        return arguments[index];
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @return the constructor of the collection or map class to read the values into, null to leave them to Kryo
+   */
+  private static Constructor<?> getCollectionConstructor(Class<?> type)
+  {
+    if (SortedSet.class.isAssignableFrom(type) || SortedMap.class.isAssignableFrom(type)) {
+      return null;
+    }
+
+    Class<?> implementation = type;
+    if (type.isInterface() || Modifier.isAbstract(type.getModifiers())) {
+      if (type.isAssignableFrom(ArrayList.class)) {
+        implementation = ArrayList.class;
+      } else if (type.isAssignableFrom(HashSet.class)) {
+        implementation = HashSet.class;
+      } else if (type.isAssignableFrom(ArrayDeque.class)) {
+        implementation = ArrayDeque.class;
+      } else if (type.isAssignableFrom(HashMap.class)) {
+        implementation = HashMap.class;
+      } else {
+        return null;
+      }
+    }
+    try {
+      return implementation.getConstructor();
+    } catch (NoSuchMethodException ex) {
+      return null;
+    }
+  }
+
+  private static byte[] generateClass(String name, Class<?> type, List<Property> properties, List<Property> keys)
+  {
+    String internalName = name.replace('.', '/');
+    String typeName = Type.getInternalName(type);
+    ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+    cw.visit(Opcodes.V1_6, Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL | Opcodes.ACC_SUPER, internalName, null, SERIALIZER,
+        null);
+
+    MethodVisitor mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "(" + VALUES_DESCRIPTOR + ")V", null, null);
+    mv.visitCode();
+    mv.visitVarInsn(Opcodes.ALOAD, 0);
+    mv.visitVarInsn(Opcodes.ALOAD, 1);
+    mv.visitMethodInsn(Opcodes.INVOKESPECIAL, SERIALIZER, "<init>", "(" + VALUES_DESCRIPTOR + ")V", false);
+    mv.visitInsn(Opcodes.RETURN);
+    mv.visitMaxs(0, 0);
+    mv.visitEnd();
+
+    /* void write(Object tuple, Output output) */
+    mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "write", "(" + OBJECT_DESCRIPTOR + "L" + OUTPUT + ";)V", null, null);
+    mv.visitCode();
+    mv.visitVarInsn(Opcodes.ALOAD, 1);
+    mv.visitTypeInsn(Opcodes.CHECKCAST, typeName);
+    mv.visitVarInsn(Opcodes.ASTORE, 3);
+    for (int i = 0; i < properties.size(); i++) {
+      Property property = properties.get(i);
+      InlineType inlineType = INLINE_TYPES.get(property.type);
+      if (inlineType == null) {
+        loadValueSerializer(mv, internalName, i);
+        property.load(mv, typeName, 3);
+        mv.visitVarInsn(Opcodes.ALOAD, 2);
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, VALUE_SERIALIZER, "write",
+            "(" + OBJECT_DESCRIPTOR + "L" + OUTPUT + ";)V", false);
+      } else {
+        mv.visitVarInsn(Opcodes.ALOAD, 2);
+        property.load(mv, typeName, 3);
+        if (inlineType.varint) {
+          mv.visitInsn(Opcodes.ICONST_0);
+        }
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, OUTPUT, inlineType.writeMethod, inlineType.writeDescriptor, false);
+        if (!inlineType.writeDescriptor.endsWith("V")) {
+          mv.visitInsn(Opcodes.POP);
+        }
+      }
+    }
+    mv.visitInsn(Opcodes.RETURN);
+    mv.visitMaxs(0, 0);
+    mv.visitEnd();
+
+    /* Object read(Input input) */
+    mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "read", "(L" + INPUT + ";)" + OBJECT_DESCRIPTOR, null, null);
+    mv.visitCode();
+    mv.visitTypeInsn(Opcodes.NEW, typeName);
+    mv.visitInsn(Opcodes.DUP);
+    mv.visitMethodInsn(Opcodes.INVOKESPECIAL, typeName, "<init>", "()V", false);
+    mv.visitVarInsn(Opcodes.ASTORE, 2);
+    for (int i = 0; i < properties.size(); i++) {
+      Property property = properties.get(i);
+      InlineType inlineType = INLINE_TYPES.get(property.type);
+      mv.visitVarInsn(Opcodes.ALOAD, 2);
+      if (inlineType == null) {
+        loadValueSerializer(mv, internalName, i);
+        mv.visitVarInsn(Opcodes.ALOAD, 1);
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, VALUE_SERIALIZER, "read", "(L" + INPUT + ";)" + OBJECT_DESCRIPTOR,
+            false);
+        mv.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(property.type));
+      } else {
+        mv.visitVarInsn(Opcodes.ALOAD, 1);
+        if (inlineType.varint) {
+          mv.visitInsn(Opcodes.ICONST_0);
+        }
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, INPUT, inlineType.readMethod, inlineType.readDescriptor, false);
+      }
+      property.store(mv, typeName);
+    }
+    mv.visitVarInsn(Opcodes.ALOAD, 2);
+    mv.visitInsn(Opcodes.ARETURN);
+    mv.visitMaxs(0, 0);
+    mv.visitEnd();
+
+    /* int hash(Object tuple) */
+    mv = cw.visitMethod(Opcodes.ACC_PUBLIC, "hash", "(" + OBJECT_DESCRIPTOR + ")I", null, null);
+    mv.visitCode();
+    if (keys.isEmpty()) {
+      mv.visitVarInsn(Opcodes.ALOAD, 1);
+      mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/lang/Object", "hashCode", "()I", false);
+    } else {
+      mv.visitVarInsn(Opcodes.ALOAD, 1);
+      mv.visitTypeInsn(Opcodes.CHECKCAST, typeName);
+      mv.visitVarInsn(Opcodes.ASTORE, 2);
+      mv.visitInsn(Opcodes.ICONST_0);
+      for (Property key : keys) {
+        mv.visitIntInsn(Opcodes.BIPUSH, 31);
+        mv.visitInsn(Opcodes.IMUL);
+        key.load(mv, typeName, 2);
+        String descriptor = key.type.isPrimitive() ? Type.getDescriptor(key.type) : OBJECT_DESCRIPTOR;
+        mv.visitMethodInsn(Opcodes.INVOKESTATIC, SERIALIZER, "hashValue", "(" + descriptor + ")I", false);
+        mv.visitInsn(Opcodes.IADD);
+      }
+    }
+    mv.visitInsn(Opcodes.IRETURN);
+    mv.visitMaxs(0, 0);
+    mv.visitEnd();
+
+    cw.visitEnd();
+    return cw.toByteArray();
+  }
+
+  private static void loadValueSerializer(MethodVisitor mv, String internalName, int index)
+  {
+    mv.visitVarInsn(Opcodes.ALOAD, 0);
+    mv.visitFieldInsn(Opcodes.GETFIELD, internalName, "values", VALUES_DESCRIPTOR);
+    if (index <= 5) {
+      mv.visitInsn(Opcodes.ICONST_0 + index);
+    } else if (index <= Byte.MAX_VALUE) {
+      mv.visitIntInsn(Opcodes.BIPUSH, index);
+    } else {
+      mv.visitIntInsn(Opcodes.SIPUSH, index);
+    }
+    mv.visitInsn(Opcodes.AALOAD);
+  }
+
+  /**
+   * Field of the layout with the way to access it.
+   */
+  private static class Property
+  {
+    final String name;
+    final Class<?> type;
+    final java.lang.reflect.Type genericType;
+    final Method getter;
+    final Method setter;
+
+    Property(Class<?> owner, Field field)
+    {
+      name = field.getName();
+      type = field.getType();
+      genericType = field.getGenericType();
+      if (Modifier.isPublic(field.getModifiers())) {
+        getter = null;
+        setter = null;
+      } else {
+        String suffix = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        Method get = getMethod(owner, "get" + suffix);
+        if (get == null && type == boolean.class) {
+          get = getMethod(owner, "is" + suffix);
+        }
+        getter = get;
+        setter = getMethod(owner, "set" + suffix, type);
+        if (getter == null || getter.getReturnType() != type || setter == null) {
+          throw new IllegalArgumentException("Field " + field
+              + " is neither public nor has a public getter and setter");
+        }
+      }
+    }
+
+    private static Method getMethod(Class<?> owner, String name, Class<?>... parameterTypes)
+    {
+      try {
+        Method method = owner.getMethod(name, parameterTypes);
+        return Modifier.isStatic(method.getModifiers()) ? null : method;
+      } catch (NoSuchMethodException ex) {
+        return null;
+      }
+    }
+
+    /**
+     * Push the value of the field of the tuple in the local variable.
+     */
+    void load(MethodVisitor mv, String owner, int tupleVariable)
+    {
+      mv.visitVarInsn(Opcodes.ALOAD, tupleVariable);
+      if (getter == null) {
+        mv.visitFieldInsn(Opcodes.GETFIELD, owner, name, Type.getDescriptor(type));
+      } else {
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, owner, getter.getName(), Type.getMethodDescriptor(getter), false);
+      }
+    }
+
+    /**
+     * Set the field of the tuple, with the tuple and the value on the stack.
+     */
+    void store(MethodVisitor mv, String owner)
+    {
+      if (setter == null) {
+        mv.visitFieldInsn(Opcodes.PUTFIELD, owner, name, Type.getDescriptor(type));
+      } else {
+        mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, owner, setter.getName(), Type.getMethodDescriptor(setter), false);
+        Class<?> returnType = setter.getReturnType();
+        if (returnType != void.class) {
+          mv.visitInsn(returnType == long.class || returnType == double.class ? Opcodes.POP2 : Opcodes.POP);
+        }
+      }
+    }
+
+  }
+
+  private static class InlineType
+  {
+    final String writeMethod;
+    final String writeDescriptor;
+    final String readMethod;
+    final String readDescriptor;
+    /**
+     * whether the methods take the optimize positive argument of the variable length encoding.
+     */
+    final boolean varint;
+
+    InlineType(String writeMethod, String writeDescriptor, String readMethod, String readDescriptor, boolean varint)
+    {
+      this.writeMethod = writeMethod;
+      this.writeDescriptor = writeDescriptor;
+      this.readMethod = readMethod;
+      this.readDescriptor = readDescriptor;
+      this.varint = varint;
+    }
+  }
+
+  /**
+   * Loads the generated classes, which see the classes of the engine and of the tuple class loader.
+   */
+  private static class GeneratedClassLoader extends ClassLoader
+  {
+    GeneratedClassLoader(ClassLoader parent)
+    {
+      super(parent);
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException
+    {
+      if (name.startsWith(SERIALIZER.replace('/', '.')) || name.startsWith("com.esotericsoftware.kryo.")) {
+        return TupleSerializer.class.getClassLoader().loadClass(name);
+      }
+      return super.loadClass(name, resolve);
+    }
+
+    Class<?> define(String name, byte[] code)
+    {
+      return defineClass(name, code, 0, code.length);
+    }
+  }
+
+  private static class StringSerializer extends ValueSerializer
+  {
+    static final StringSerializer INSTANCE = new StringSerializer();
+
+    @Override
+    public void write(Object value, Output output)
+    {
+      output.writeString((String)value);
+    }
+
+    @Override
+    public Object read(Input input)
+    {
+      return input.readString();
+    }
+  }
+
+  private static class BoxedSerializer extends ValueSerializer
+  {
+    static final Map<Class<?>, Integer> KINDS = new HashMap<>();
+
+    static {
+      Class<?>[] types = {Boolean.class, Byte.class, Character.class, Short.class, Integer.class, Long.class,
+          Float.class, Double.class};
+      for (int i = 0; i < types.length; i++) {
+        KINDS.put(types[i], i);
+      }
+    }
+
+    private final int kind;
+
+    BoxedSerializer(Class<?> type)
+    {
+      kind = KINDS.get(type);
+    }
+
+    @Override
+    public void write(Object value, Output output)
+    {
+      if (value == null) {
+        output.writeBoolean(false);
+        return;
+      }
+
+      output.writeBoolean(true);
+      switch (kind) {
+        case 0:
+          output.writeBoolean((Boolean)value);
+          break;
+        case 1:
+          output.writeByte((Byte)value);
+          break;
+        case 2:
+          output.writeChar((Character)value);
+          break;
+        case 3:
+          output.writeShort((Short)value);
+          break;
+        case 4:
+          output.writeInt((Integer)value, false);
+          break;
+        case 5:
+          output.writeLong((Long)value, false);
+          break;
+        case 6:
+          output.writeFloat((Float)value);
+          break;
+        default:
+          output.writeDouble((Double)value);
+          break;
+      }
+    }
+
+    @Override
+    public Object read(Input input)
+    {
+      if (!input.readBoolean()) {
+        return null;
+      }
+
+      switch (kind) {
+        case 0:
+          return input.readBoolean();
+        case 1:
+          return input.readByte();
+        case 2:
+          return input.readChar();
+        case 3:
+          return input.readShort();
+        case 4:
+          return input.readInt(false);
+        case 5:
+          return input.readLong(false);
+        case 6:
+          return input.readFloat();
+        default:
+          return input.readDouble();
+      }
+    }
+  }
+
+  private static class EnumSerializer extends ValueSerializer
+  {
+    private final Object[] constants;
+
+    EnumSerializer(Class<?> type)
+    {
+      constants = type.getEnumConstants();
+    }
+
+    @Override
+    public void write(Object value, Output output)
+    {
+      output.writeVarInt(value == null ? 0 : ((Enum<?>)value).ordinal() + 1, true);
+    }
+
+    @Override
+    public Object read(Input input)
+    {
+      int ordinal = input.readVarInt(true);
+      return ordinal == 0 ? null : constants[ordinal - 1];
+    }
+  }
+
+  private static class BytesSerializer extends ValueSerializer
+  {
+    static final BytesSerializer INSTANCE = new BytesSerializer();
+
+    @Override
+    public void write(Object value, Output output)
+    {
+      if (value == null) {
+        output.writeVarInt(0, true);
+      } else {
+        byte[] bytes = (byte[])value;
+        output.writeVarInt(bytes.length + 1, true);
+        output.writeBytes(bytes);
+      }
+    }
+
+    @Override
+    public Object read(Input input)
+    {
+      int length = input.readVarInt(true);
+      return length == 0 ? null : input.readBytes(length - 1);
+    }
+  }
+
+  private static class ArraySerializer extends ValueSerializer
+  {
+    private final Class<?> componentType;
+    private final ValueSerializer component;
+
+    ArraySerializer(Class<?> componentType, ValueSerializer component)
+    {
+      this.componentType = componentType;
+      this.component = component;
+    }
+
+    @Override
+    public void write(Object value, Output output)
+    {
+      if (value == null) {
+        output.writeVarInt(0, true);
+        return;
+      }
+
+      int length = Array.getLength(value);
+      output.writeVarInt(length + 1, true);
+      for (int i = 0; i < length; i++) {
+        component.write(Array.get(value, i), output);
+      }
+    }
+
+    @Override
+    public Object read(Input input)
+    {
+      int length = input.readVarInt(true) - 1;
+      if (length < 0) {
+        return null;
+      }
+
+      Object array = Array.newInstance(componentType, length);
+      for (int i = 0; i < length; i++) {
+        Array.set(array, i, component.read(input));
+      }
+      return array;
+    }
+  }
+
+  private static class CollectionSerializer extends ValueSerializer
+  {
+    private final Constructor<?> constructor;
+    private final ValueSerializer element;
+
+    CollectionSerializer(Constructor<?> constructor, ValueSerializer element)
+    {
+      this.constructor = constructor;
+      this.element = element;
+    }
+
+    @Override
+    public void write(Object value, Output output)
+    {
+      if (value == null) {
+        output.writeVarInt(0, true);
+        return;
+      }
+
+      Collection<?> collection = (Collection<?>)value;
+      output.writeVarInt(collection.size() + 1, true);
+      for (Object o : collection) {
+        element.write(o, output);
+      }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object read(Input input)
+    {
+      int size = input.readVarInt(true) - 1;
+      if (size < 0) {
+        return null;
+      }
+
+      Collection<Object> collection = (Collection<Object>)newInstance(constructor, size);
+      for (int i = 0; i < size; i++) {
+        collection.add(element.read(input));
+      }
+      return collection;
+    }
+  }
+
+  private static class MapSerializer extends ValueSerializer
+  {
+    private final Constructor<?> constructor;
+    private final ValueSerializer key;
+    private final ValueSerializer value;
+
+    MapSerializer(Constructor<?> constructor, ValueSerializer key, ValueSerializer value)
+    {
+      this.constructor = constructor;
+      this.key = key;
+      this.value = value;
+    }
+
+    @Override
+    public void write(Object o, Output output)
+    {
+      if (o == null) {
+        output.writeVarInt(0, true);
+        return;
+      }
+
+      Map<?, ?> map = (Map<?, ?>)o;
+      output.writeVarInt(map.size() + 1, true);
+      for (Map.Entry<?, ?> entry : map.entrySet()) {
+        key.write(entry.getKey(), output);
+        value.write(entry.getValue(), output);
+      }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object read(Input input)
+    {
+      int size = input.readVarInt(true) - 1;
+      if (size < 0) {
+        return null;
+      }
+
+      Map<Object, Object> map = (Map<Object, Object>)newInstance(constructor, size);
+      for (int i = 0; i < size; i++) {
+        map.put(key.read(input), value.read(input));
+      }
+      return map;
+    }
+  }
+
+  /**
+   * Create the collection or the map, presized for the default implementations.
+   */
+  private static Object newInstance(Constructor<?> constructor, int size)
+  {
+    Class<?> type = constructor.getDeclaringClass();
+    if (type == ArrayList.class) {
+      return new ArrayList<>(size);
+    } else if (type == HashMap.class) {
+      return new HashMap<>(size * 4 / 3 + 1);
+    } else if (type == HashSet.class) {
+      return new HashSet<>(size * 4 / 3 + 1);
+    }
+
+    try {
+      return constructor.newInstance();
+    } catch (ReflectiveOperationException ex) {
+      throw new RuntimeException("Cannot create " + type, ex);
+    }
+  }
+
+  /**
+   * Serializer of the fields which are instances of a tuple class, the instances of the subclasses are written with
+   * Kryo.
+   */
+  private static class PojoSerializer extends ValueSerializer
+  {
+    private static final byte NULL = 0;
+    private static final byte LAYOUT = 1;
+    private static final byte KRYO = 2;
+    private final Class<?> type;
+    private final KryoSerializer kryoSerializer;
+    TupleSerializer serializer;
+
+    PojoSerializer(Class<?> type, KryoSerializer kryoSerializer)
+    {
+      this.type = type;
+      this.kryoSerializer = kryoSerializer;
+    }
+
+    @Override
+    public void write(Object value, Output output)
+    {
+      if (value == null) {
+        output.writeByte(NULL);
+      } else if (value.getClass() == type) {
+        output.writeByte(LAYOUT);
+        serializer.write(value, output);
+      } else {
+        output.writeByte(KRYO);
+        kryoSerializer.write(value, output);
+      }
+    }
+
+    @Override
+    public Object read(Input input)
+    {
+      switch (input.readByte()) {
+        case NULL:
+          return null;
+        case LAYOUT:
+          return serializer.read(input);
+        default:
+          return kryoSerializer.read(input);
+      }
+    }
+  }
+
+  /**
+   * Serializer of the values of any class, with a Kryo instance per thread.
+   */
+  private static class KryoSerializer extends ValueSerializer
+  {
+    private final ThreadLocal<Kryo> kryo;
+
+    KryoSerializer(final ClassLoader classLoader)
+    {
+      kryo = new ThreadLocal<Kryo>()
+      {
+        @Override
+        protected Kryo initialValue()
+        {
+          Kryo instance = new Kryo();
+          instance.setClassLoader(classLoader);
+          return instance;
+        }
+      };
+    }
+
+    @Override
+    public void write(Object value, Output output)
+    {
+      kryo.get().writeClassAndObject(output, value);
+    }
+
+    @Override
+    public Object read(Input input)
+    {
+      return kryo.get().readClassAndObject(input);
+    }
+  }
+
+}
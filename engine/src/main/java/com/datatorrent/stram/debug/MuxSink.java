@@ -20,18 +20,21 @@ package com.datatorrent.stram.debug;
 
 import java.lang.reflect.Array;
 import java.util.Arrays;
+import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.datatorrent.api.BatchSink;
 import com.datatorrent.api.Sink;
+import com.datatorrent.stram.engine.Batch;
 
 /**
  * <p>MuxSink class.</p>
  *
  * @since 0.3.2
  */
-public class MuxSink implements Sink<Object>
+public class MuxSink implements BatchSink<Object>
 {
   Sink<Object>[] sinks;
   private int count;
@@ -56,6 +59,15 @@ public class MuxSink implements Sink<Object>
     }
   }
 
+  @Override
+  public void putBatch(List<Object> tuples)
+  {
+    count += tuples.size();
+    for (int i = sinks.length; i-- > 0;) {
+      Batch.put(sinks[i], tuples);
+    }
+  }
+
   public void add(Sink<Object>... s)
   {
     int i = sinks.length;
@@ -18,7 +18,10 @@
  */
 package com.datatorrent.stram.debug;
 
+import java.util.List;
+
 import com.datatorrent.api.Sink;
+import com.datatorrent.stram.engine.Batch;
 import com.datatorrent.stram.engine.SweepableReservoir;
 import com.datatorrent.stram.tuple.Tuple;
 
@@ -81,6 +84,13 @@ public class TappedReservoir extends MuxSink implements SweepableReservoir
     sink.put(tuple);
   }
 
+  @Override
+  public void putBatch(List<Object> tuples)
+  {
+    super.putBatch(tuples);
+    Batch.put(sink, tuples);
+  }
+
   @Override
   public Object remove()
   {
@@ -493,6 +493,9 @@ public class TupleRecorder
       if (payload instanceof Tuple) {
         Tuple tuple = (Tuple)payload;
         MessageType messageType = tuple.getType();
+        if (messageType == MessageType.LATENCY_MARKER) {
+          return;
+        }
         if (messageType == MessageType.BEGIN_WINDOW) {
           beginWindow(tuple.getWindowId());
         }
@@ -24,6 +24,7 @@ import java.util.Iterator;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -91,6 +92,7 @@ public abstract class AbstractReservoir implements SweepableReservoir, BlockingQ
   private Sink<Object> sink;
   private String id;
   protected int count;
+  private final AtomicLong blockedNanos = new AtomicLong();
 
   protected AbstractReservoir(final String id)
   {
@@ -125,6 +127,30 @@ public abstract class AbstractReservoir implements SweepableReservoir, BlockingQ
     }
   }
 
+  /**
+   * Time the producer was blocked in {@link #put(Object)} because the reservoir was full. Only the slow path, after
+   * the first attempt to add the element failed, is timed.
+   *
+   * @param reset whether to reset the time
+   * @return the time in nanoseconds
+   */
+  public long getBlockedNanos(boolean reset)
+  {
+    if (reset) {
+      return blockedNanos.getAndSet(0);
+    }
+
+    return blockedNanos.get();
+  }
+
+  /**
+   * @param startNanos the {@link System#nanoTime()} when the producer started to wait
+   */
+  protected final void blocked(long startNanos)
+  {
+    blockedNanos.addAndGet(System.nanoTime() - startNanos);
+  }
+
   /**
    * @return allocated reservoir capacity
    */
@@ -151,6 +177,24 @@ public abstract class AbstractReservoir implements SweepableReservoir, BlockingQ
     return sink;
   }
 
+  /**
+   * Hand a data element of the queue to the sink and count its tuples, a {@link Batch} is passed on as a batch.
+   *
+   * @param sink the sink
+   * @param o the data tuple or the batch of data tuples
+   */
+  protected final void deliver(final Sink<Object> sink, final Object o)
+  {
+    if (o instanceof Batch) {
+      Batch batch = (Batch)o;
+      count += batch.size();
+      Batch.put(sink, batch.getTuples());
+    } else {
+      count++;
+      sink.put(o);
+    }
+  }
+
   @Override
   public String toString()
   {
@@ -184,8 +228,7 @@ public abstract class AbstractReservoir implements SweepableReservoir, BlockingQ
         if (o instanceof Tuple) {
           return (Tuple)o;
         }
-        count++;
-        sink.put(queue.poll());
+        deliver(sink, queue.poll());
       }
       return null;
     }
@@ -242,11 +285,18 @@ public abstract class AbstractReservoir implements SweepableReservoir, BlockingQ
     @Override
     public void put(Object o) throws InterruptedException
     {
-      long spinMillis = 0;
       final SpscArrayQueue<Object> queue = this.queue;
-      while (!queue.offer(o)) {
-        sleep(spinMillis);
-        spinMillis = Math.min(maxSpinMillis, spinMillis + 1);
+      if (!queue.offer(o)) {
+        final long start = System.nanoTime();
+        try {
+          long spinMillis = 0;
+          do {
+            sleep(spinMillis);
+            spinMillis = Math.min(maxSpinMillis, spinMillis + 1);
+          } while (!queue.offer(o));
+        } finally {
+          blocked(start);
+        }
       }
     }
 
@@ -409,8 +459,7 @@ public abstract class AbstractReservoir implements SweepableReservoir, BlockingQ
           if (o instanceof Tuple) {
             return (Tuple)o;
           }
-          count++;
-          sink.put(queue.poll());
+          deliver(sink, queue.poll());
           notFull.signal();
           if (lock.hasQueuedThreads()) {
             return null;
@@ -427,6 +476,7 @@ public abstract class AbstractReservoir implements SweepableReservoir, BlockingQ
     {
       final SpscArrayQueue<Object> queue = getQueue();
       if (!queue.offer(o)) {
+        final long start = System.nanoTime();
         final ReentrantLock lock = this.lock;
         lock.lockInterruptibly();
         try {
@@ -435,6 +485,7 @@ public abstract class AbstractReservoir implements SweepableReservoir, BlockingQ
           }
         } finally {
           lock.unlock();
+          blocked(start);
         }
       }
     }
@@ -484,8 +535,7 @@ public abstract class AbstractReservoir implements SweepableReservoir, BlockingQ
         if (o instanceof Tuple) {
           return (Tuple)o;
         }
-        count++;
-        sink.put(queue.poll());
+        deliver(sink, queue.poll());
       }
       return null;
     }
@@ -505,7 +555,14 @@ public abstract class AbstractReservoir implements SweepableReservoir, BlockingQ
     @Override
     public void put(Object o) throws InterruptedException
     {
-      queue.put(o);
+      if (!queue.offer(o)) {
+        final long start = System.nanoTime();
+        try {
+          queue.put(o);
+        } finally {
+          blocked(start);
+        }
+      }
     }
 
     @Override
@@ -684,13 +741,11 @@ public abstract class AbstractReservoir implements SweepableReservoir, BlockingQ
       final int size = circularBuffer.size();
       for (int i = 0; i < size; i++) {
         if (circularBuffer.peekUnsafe() instanceof Tuple) {
-          count += i;
           return (Tuple)peekUnsafe();
         }
-        sink.put(pollUnsafe());
+        deliver(sink, pollUnsafe());
       }
 
-      count += size;
       return null;
     }
 
@@ -748,7 +803,14 @@ public abstract class AbstractReservoir implements SweepableReservoir, BlockingQ
     @Override
     public void put(Object o) throws InterruptedException
     {
-      circularBuffer.put(o);
+      if (!circularBuffer.offer(o)) {
+        final long start = System.nanoTime();
+        try {
+          circularBuffer.put(o);
+        } finally {
+          blocked(start);
+        }
+      }
     }
 
     @Override
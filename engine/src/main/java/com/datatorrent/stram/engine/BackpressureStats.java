@@ -0,0 +1,87 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.engine;
+
+import java.util.Arrays;
+
+import com.datatorrent.api.Stats.OperatorStats.PortStats;
+
+/**
+ * Time an input port waited for tuples and the time its queue spent at each size, collected by the operator thread
+ * between two reports.<p>
+ * <br>
+ * The size of the queue is sampled periodically and each sample is weighted by the time since the previous one, so
+ * that the passes of a spinning operator thread do not outweigh the time it spends processing tuples. The sizes are
+ * counted in power of two buckets, which does not need the capacity of the queue, which the wrapping reservoirs do
+ * not expose.
+ *
+ * @since 3.5.0
+ */
+public class BackpressureStats
+{
+  /**
+   * Buckets for the empty queue, the sizes 1, 2-3, 4-7 up to 32768-65535 and the larger sizes.
+   */
+  public static final int OCCUPANCY_BUCKETS = 18;
+
+  private long idleNanos;
+  private final long[] occupancy = new long[OCCUPANCY_BUCKETS];
+  private boolean sampled;
+
+  /**
+   * @param size the size of the queue
+   * @return the index of the bucket counting the size
+   */
+  public static int getOccupancyBucket(int size)
+  {
+    return Math.min(32 - Integer.numberOfLeadingZeros(size), OCCUPANCY_BUCKETS - 1);
+  }
+
+  public void addIdleNanos(long nanos)
+  {
+    idleNanos += nanos;
+  }
+
+  /**
+   * @param size the size of the queue
+   * @param nanos the time since the previous sample
+   */
+  public void sampleOccupancy(int size, long nanos)
+  {
+    occupancy[getOccupancyBucket(size)] += nanos;
+    sampled = true;
+  }
+
+  /**
+   * Copy the times to the port stats and start over.
+   *
+   * @param stats the stats of the port
+   */
+  public void report(PortStats stats)
+  {
+    stats.idleNanos = idleNanos;
+    idleNanos = 0;
+    if (sampled) {
+      stats.queueOccupancy = occupancy.clone();
+      Arrays.fill(occupancy, 0);
+      sampled = false;
+    }
+  }
+
+}
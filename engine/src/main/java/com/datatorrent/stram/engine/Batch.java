@@ -0,0 +1,75 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.engine;
+
+import java.util.List;
+
+import com.datatorrent.api.BatchSink;
+import com.datatorrent.api.Sink;
+
+/**
+ * Batch of data tuples emitted with {@link com.datatorrent.api.DefaultOutputPort#emitBatch(List)}, queued in a
+ * reservoir as a single element so that the batch reaches the downstream operator without being unpacked.
+ *
+ * @since 3.5.0
+ */
+public final class Batch
+{
+  private final List<Object> tuples;
+
+  public Batch(List<Object> tuples)
+  {
+    this.tuples = tuples;
+  }
+
+  public List<Object> getTuples()
+  {
+    return tuples;
+  }
+
+  public int size()
+  {
+    return tuples.size();
+  }
+
+  /**
+   * Put the tuples into the sink, as a batch if the sink supports batches and one by one otherwise.
+   *
+   * @param sink the sink
+   * @param tuples the data tuples
+   */
+  @SuppressWarnings("unchecked")
+  public static void put(Sink<Object> sink, List<Object> tuples)
+  {
+    if (sink instanceof BatchSink) {
+      ((BatchSink<Object>)sink).putBatch(tuples);
+    } else {
+      for (Object tuple : tuples) {
+        sink.put(tuple);
+      }
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    return "Batch{size=" + tuples.size() + '}';
+  }
+
+}
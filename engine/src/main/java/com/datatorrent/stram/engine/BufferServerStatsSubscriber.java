@@ -22,6 +22,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 
+import com.datatorrent.api.Component;
 import com.datatorrent.api.Stats.OperatorStats;
 import com.datatorrent.api.Stats.OperatorStats.PortStats;
 
@@ -31,6 +32,8 @@ import com.datatorrent.stram.api.ContainerEvent.StreamActivationEvent;
 import com.datatorrent.stram.api.ContainerEvent.StreamDeactivationEvent;
 import com.datatorrent.stram.api.StreamingContainerUmbilicalProtocol.ContainerStats;
 import com.datatorrent.stram.api.StreamingContainerUmbilicalProtocol.OperatorHeartbeat;
+import com.datatorrent.stram.stream.BufferServerPublisher;
+import com.datatorrent.stram.stream.BufferServerSubscriber;
 
 import net.engio.mbassy.listener.Handler;
 
@@ -44,6 +47,8 @@ public class BufferServerStatsSubscriber
   // key: streamId, value: byte counter stream
   private HashMap<String, ByteCounterStream> inputStreams = new HashMap<>();
   private HashMap<String, List<ByteCounterStream>> outputStreams = new HashMap<>();
+  // key: sinkId, value: subscriber decoding ahead of the operator
+  private HashMap<String, BufferServerSubscriber> decodeAheadStreams = new HashMap<>();
 
   @Handler
   public void handleStreamActivation(StreamActivationEvent sae)
@@ -52,7 +57,7 @@ public class BufferServerStatsSubscriber
     String portId = stream.context.getPortId();
     String sinkId = stream.context.getSinkId();
     if (stream.component instanceof ByteCounterStream) {
-      if (sinkId.startsWith("tcp:")) {
+      if (sinkId.startsWith("tcp:") || sinkId.startsWith("file:")) {
         List<ByteCounterStream> portStreams = outputStreams.get(portId);
         if (portStreams == null) {
           portStreams = new ArrayList<>();
@@ -61,6 +66,10 @@ public class BufferServerStatsSubscriber
         portStreams.add((ByteCounterStream)stream.component);
       } else {
         inputStreams.put(portId, (ByteCounterStream)stream.component);
+        if (stream.component instanceof BufferServerSubscriber
+            && ((BufferServerSubscriber)stream.component).isDecodeAhead()) {
+          decodeAheadStreams.put(sinkId, (BufferServerSubscriber)stream.component);
+        }
       }
     }
   }
@@ -72,7 +81,7 @@ public class BufferServerStatsSubscriber
     String portId = stream.context.getPortId();
     String sinkId = stream.context.getSinkId();
     if (stream.component instanceof ByteCounterStream) {
-      if (sinkId.startsWith("tcp:")) {
+      if (sinkId.startsWith("tcp:") || sinkId.startsWith("file:")) {
         List<ByteCounterStream> portStreams = outputStreams.get(portId);
         if (portStreams != null) {
           portStreams.remove(stream);
@@ -82,6 +91,7 @@ public class BufferServerStatsSubscriber
         }
       } else {
         inputStreams.remove(portId);
+        decodeAheadStreams.remove(sinkId);
       }
     }
   }
@@ -98,6 +108,19 @@ public class BufferServerStatsSubscriber
             ByteCounterStream stream = inputStreams.get(ps.id);
             if (stream != null) {
               ps.bufferServerBytes = stream.getByteCount(true);
+              if (stream instanceof BufferServerSubscriber) {
+                ((BufferServerSubscriber)stream).reportBackpressure(ps);
+              }
+            }
+            BufferServerSubscriber subscriber =
+                decodeAheadStreams.get(node.getNodeId() + Component.CONCAT_SEPARATOR + ps.id);
+            if (subscriber != null) {
+              if (node.decodeNanos == null) {
+                node.decodeNanos = new HashMap<>();
+              }
+              if (!node.decodeNanos.containsKey(ps.id)) {
+                node.decodeNanos.put(ps.id, subscriber.getDecodeNanos(true));
+              }
             }
           }
         }
@@ -105,10 +128,13 @@ public class BufferServerStatsSubscriber
         if (os.outputPorts != null) {
           for (PortStats ps : os.outputPorts) {
             List<ByteCounterStream> portStreams = outputStreams.get(ps.id);
-            if (outputStreams != null) {
+            if (portStreams != null) {
               ps.bufferServerBytes = 0;
               for (ByteCounterStream stream : portStreams) {
-                ps.bufferServerBytes = stream.getByteCount(true);
+                ps.bufferServerBytes += stream.getByteCount(true);
+                if (stream instanceof BufferServerPublisher) {
+                  ps.blockedNanos += ((BufferServerPublisher)stream).getBlockedNanos(true);
+                }
               }
             }
           }
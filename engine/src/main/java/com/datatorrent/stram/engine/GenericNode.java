@@ -18,7 +18,6 @@
  */
 package com.datatorrent.stram.engine;
 
-import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -26,6 +25,7 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -47,6 +47,7 @@ import com.datatorrent.stram.api.StreamingContainerUmbilicalProtocol.ContainerSt
 import com.datatorrent.stram.debug.TappedReservoir;
 import com.datatorrent.stram.plan.logical.LogicalPlan;
 import com.datatorrent.stram.plan.logical.Operators;
+import com.datatorrent.stram.tuple.LatencyMarkerTuple;
 import com.datatorrent.stram.tuple.ResetWindowTuple;
 import com.datatorrent.stram.tuple.Tuple;
 
@@ -65,8 +66,16 @@ import com.datatorrent.stram.tuple.Tuple;
  */
 public class GenericNode extends Node<Operator>
 {
+  /**
+   * Interval at which the run loop samples the size of the input queues.
+   */
+  private static final long OCCUPANCY_SAMPLE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
   protected final HashMap<String, SweepableReservoir> inputs = new HashMap<>();
   protected ArrayList<DeferredInputConnection> deferredInputConnections = new ArrayList<>();
+  /**
+   * key: input port, value: idle time and queue samples, accessed by the operator thread only
+   */
+  private final HashMap<String, BackpressureStats> backpressureStats = new HashMap<>();
 
   @Override
   @SuppressWarnings("unchecked")
@@ -238,8 +247,8 @@ public class GenericNode extends Node<Operator>
       }
     }
 
-    ArrayList<Map.Entry<String, SweepableReservoir>> activeQueues = new ArrayList<>();
-    activeQueues.addAll(inputs.entrySet());
+    ArrayList<ActiveQueue> activeQueues = new ArrayList<>();
+    addActiveQueues(activeQueues);
 
     int expectingBeginWindow = activeQueues.size();
     int receivedEndWindow = 0;
@@ -249,13 +258,23 @@ public class GenericNode extends Node<Operator>
 
     TupleTracker tracker;
     LinkedList<TupleTracker> resetTupleTracker = new LinkedList<>();
+    long sampleNanos = System.nanoTime();
     try {
       do {
-        Iterator<Map.Entry<String, SweepableReservoir>> buffers = activeQueues.iterator();
+        long nanos = System.nanoTime();
+        if (nanos - sampleNanos >= OCCUPANCY_SAMPLE_NANOS) {
+          /* each sample stands for the time since the previous one, however many passes the loop made */
+          for (ActiveQueue queue : activeQueues) {
+            queue.stats.sampleOccupancy(queue.reservoir.size(false), nanos - sampleNanos);
+          }
+          sampleNanos = nanos;
+        }
+
+        Iterator<ActiveQueue> buffers = activeQueues.iterator();
       activequeue:
         while (buffers.hasNext()) {
-          Map.Entry<String, SweepableReservoir> activePortEntry = buffers.next();
-          SweepableReservoir activePort = activePortEntry.getValue();
+          ActiveQueue activeQueue = buffers.next();
+          SweepableReservoir activePort = activeQueue.reservoir;
           Tuple t = activePort.sweep();
           if (t != null) {
             spinMillis = 0;
@@ -268,7 +287,7 @@ public class GenericNode extends Node<Operator>
               case BEGIN_WINDOW:
                 if (expectingBeginWindow == totalQueues) {
                   // This is the first begin window tuple among all ports
-                  if (isInputPortConnectedToDelayOperator(activePortEntry.getKey())) {
+                  if (isInputPortConnectedToDelayOperator(activeQueue.port)) {
                     // We need to wait for the first BEGIN_WINDOW from a port not connected to DelayOperator before
                     // we can do anything with it, because otherwise if a CHECKPOINT tuple arrives from
                     // upstream after the BEGIN_WINDOW tuple for the next window from the delay operator, it would end
@@ -310,7 +329,7 @@ public class GenericNode extends Node<Operator>
                   expectingBeginWindow--;
                 } else {
                   buffers.remove();
-                  String port = activePortEntry.getKey();
+                  String port = activeQueue.port;
                   if (PROCESSING_MODE == ProcessingMode.AT_MOST_ONCE) {
                     if (t.getWindowId() < currentWindowId) {
                       /*
@@ -326,13 +345,13 @@ public class GenericNode extends Node<Operator>
                       WindowIdActivatedReservoir wiar = new WindowIdActivatedReservoir(port, activePort, currentWindowId);
                       wiar.setSink(sink);
                       inputs.put(port, wiar);
-                      activeQueues.add(new AbstractMap.SimpleEntry<String, SweepableReservoir>(port, wiar));
+                      activeQueues.add(newActiveQueue(port, wiar));
                       break activequeue;
                     } else {
                       expectingBeginWindow--;
                       if (++receivedEndWindow == totalQueues) {
                         processEndWindow(null);
-                        activeQueues.addAll(inputs.entrySet());
+                        addActiveQueues(activeQueues);
                         expectingBeginWindow = activeQueues.size();
                         break activequeue;
                       }
@@ -355,7 +374,7 @@ public class GenericNode extends Node<Operator>
                       t.setWindowId(windowAhead);
                     }
                     processEndWindow(t);
-                    activeQueues.addAll(inputs.entrySet());
+                    addActiveQueues(activeQueues);
                     expectingBeginWindow = activeQueues.size();
                     break activequeue;
                   }
@@ -386,12 +405,23 @@ public class GenericNode extends Node<Operator>
                 }
                 break;
 
+              case LATENCY_MARKER:
+                activePort.remove();
+                recordLatency((LatencyMarkerTuple)t);
+                if (!delay) {
+                  for (int s = sinks.length; s-- > 0; ) {
+                    sinks[s].put(t);
+                  }
+                  controlTupleCount++;
+                }
+                break;
+
               case RESET_WINDOW:
                 /**
                  * we will receive tuples which are equal to the number of input streams.
                  */
                 activePort.remove();
-                if (isInputPortConnectedToDelayOperator(activePortEntry.getKey())) {
+                if (isInputPortConnectedToDelayOperator(activeQueue.port)) {
                   break; // breaking out of the switch/case
                 }
 
@@ -436,14 +466,14 @@ public class GenericNode extends Node<Operator>
                   }
                   if (!activeQueues.isEmpty()) {
                     // make sure they are all queues from DelayOperator
-                    for (Map.Entry<String, SweepableReservoir> entry : activeQueues) {
-                      if (!isInputPortConnectedToDelayOperator(entry.getKey())) {
+                    for (ActiveQueue entry : activeQueues) {
+                      if (!isInputPortConnectedToDelayOperator(entry.port)) {
                         assert (false);
                       }
                     }
                     activeQueues.clear();
                   }
-                  activeQueues.addAll(inputs.entrySet());
+                  addActiveQueues(activeQueues);
                   expectingBeginWindow = activeQueues.size();
 
                   if (firstWindowId == -1) {
@@ -489,7 +519,7 @@ public class GenericNode extends Node<Operator>
                       if (e.getKey().equals(dic.portname)) {
                         connectInputPort(dic.portname, dic.reservoir);
                         dici.remove();
-                        activeQueues.add(new AbstractMap.SimpleEntry<>(dic.portname, dic.reservoir));
+                        activeQueues.add(newActiveQueue(dic.portname, dic.reservoir));
                         break activequeue;
                       }
                     }
@@ -517,7 +547,7 @@ public class GenericNode extends Node<Operator>
                 } else if (activeQueues.isEmpty()) {
                   assert (!inputs.isEmpty());
                   processEndWindow(null);
-                  activeQueues.addAll(inputs.entrySet());
+                  addActiveQueues(activeQueues);
                   expectingBeginWindow = activeQueues.size();
                   break_activequeue = true;
                 }
@@ -586,8 +616,8 @@ public class GenericNode extends Node<Operator>
           System.exit(2);
         } else {
           boolean need2sleep = true;
-          for (Map.Entry<String, SweepableReservoir> cb : activeQueues) {
-            need2sleep = cb.getValue().isEmpty();
+          for (ActiveQueue cb : activeQueues) {
+            need2sleep = cb.reservoir.isEmpty();
             if (!need2sleep) {
               spinMillis = 0;
               break;
@@ -598,7 +628,12 @@ public class GenericNode extends Node<Operator>
             if (handleIdleTime && insideWindow) {
               ((IdleTimeHandler)operator).handleIdleTime();
             } else {
+              long sleepStart = System.nanoTime();
               Thread.sleep(spinMillis);
+              long idleNanos = System.nanoTime() - sleepStart;
+              for (ActiveQueue cb : activeQueues) {
+                cb.stats.addIdleNanos(idleNanos);
+              }
               spinMillis = Math.min(maxSpinMillis, spinMillis + 1);
             }
           }
@@ -695,12 +730,66 @@ public class GenericNode extends Node<Operator>
       portStats.queueSize = ar.size(DATA_TUPLE_AWARE);
       portStats.tupleCount = ar.getCount(true);
       portStats.endWindowTimestamp = endWindowDequeueTimes.get(e.getValue());
+      portStats.blockedNanos = getBlockedNanos(ar);
+      getBackpressureStats(e.getKey()).report(portStats);
       ipstats.add(portStats);
     }
     stats.inputPorts = ipstats;
     super.reportStats(stats, windowId);
   }
 
+  private BackpressureStats getBackpressureStats(String port)
+  {
+    BackpressureStats stats = backpressureStats.get(port);
+    if (stats == null) {
+      stats = new BackpressureStats();
+      backpressureStats.put(port, stats);
+    }
+    return stats;
+  }
+
+  private ActiveQueue newActiveQueue(String port, SweepableReservoir reservoir)
+  {
+    return new ActiveQueue(port, reservoir, getBackpressureStats(port));
+  }
+
+  private void addActiveQueues(ArrayList<ActiveQueue> activeQueues)
+  {
+    for (Entry<String, SweepableReservoir> e : inputs.entrySet()) {
+      activeQueues.add(newActiveQueue(e.getKey(), e.getValue()));
+    }
+  }
+
+  /**
+   * Input queue of the run loop with the backpressure stats of its port, so that the loop does not look them up.
+   */
+  private static class ActiveQueue
+  {
+    final String port;
+    final SweepableReservoir reservoir;
+    final BackpressureStats stats;
+
+    ActiveQueue(String port, SweepableReservoir reservoir, BackpressureStats stats)
+    {
+      this.port = port;
+      this.reservoir = reservoir;
+      this.stats = stats;
+    }
+
+  }
+
+  /**
+   * @return the time the upstream operator was blocked on the full queue of a container local stream since the last
+   * call
+   */
+  private static long getBlockedNanos(SweepableReservoir reservoir)
+  {
+    if (reservoir instanceof TappedReservoir) {
+      reservoir = ((TappedReservoir)reservoir).reservoir;
+    }
+    return reservoir instanceof AbstractReservoir ? ((AbstractReservoir)reservoir).getBlockedNanos(true) : 0;
+  }
+
   protected class DeferredInputConnection
   {
     String portname;
@@ -94,6 +94,10 @@ public class InputNode extends Node<InputOperator>
               generatedTuples += cs.getCount(false);
             }
 
+            if (latencyMarkerIntervalMillis > 0) {
+              emitLatencyMarker();
+            }
+
             if (generatedTuples == 0) {
               if (handleIdleTime) {
                 ((IdleTimeHandler)operator).handleIdleTime();
@@ -75,11 +75,14 @@ import com.datatorrent.stram.api.Checkpoint;
 import com.datatorrent.stram.api.OperatorDeployInfo;
 import com.datatorrent.stram.api.StreamingContainerUmbilicalProtocol.ContainerStats;
 import com.datatorrent.stram.debug.MuxSink;
+import com.datatorrent.stram.plan.logical.LogicalPlan;
 import com.datatorrent.stram.plan.logical.Operators;
 import com.datatorrent.stram.plan.logical.Operators.PortContextPair;
 import com.datatorrent.stram.plan.logical.Operators.PortMappingDescriptor;
 import com.datatorrent.stram.tuple.EndStreamTuple;
 import com.datatorrent.stram.tuple.EndWindowTuple;
+import com.datatorrent.stram.tuple.LatencyMarkerTuple;
+import com.datatorrent.stram.util.LatencyHistogram;
 
 /**
  * <p>
@@ -133,6 +136,10 @@ public abstract class Node<OPERATOR extends Operator> implements Component<Opera
   protected Stats.CheckpointStats checkpointStats;
   public long firstWindowMillis;
   public long windowWidthMillis;
+  protected int latencyMarkerIntervalMillis;
+  private long nextLatencyMarkerMillis;
+  private long activationTimeMicros;
+  private Map<Integer, LatencyHistogram> latencyHistograms = new HashMap<>();
 
   public Node(OPERATOR operator, OperatorContext context)
   {
@@ -419,6 +426,42 @@ public abstract class Node<OPERATOR extends Operator> implements Component<Opera
     }
   }
 
+  /**
+   * Emit a latency marker to all sinks when the marker interval elapsed since the last marker.
+   */
+  protected void emitLatencyMarker()
+  {
+    long now = System.currentTimeMillis();
+    if (now >= nextLatencyMarkerMillis) {
+      nextLatencyMarkerMillis = now + latencyMarkerIntervalMillis;
+      LatencyMarkerTuple marker = new LatencyMarkerTuple(currentWindowId, id, LatencyMarkerTuple.currentTimeMicros());
+      for (int s = sinks.length; s-- > 0;) {
+        sinks[s].put(marker);
+      }
+      controlTupleCount++;
+    }
+  }
+
+  /**
+   * Record the time elapsed since the emission of the marker as latency from the source operator of the marker.
+   * Markers emitted before the operator was activated are replayed from the buffer server after a recovery and would
+   * report the time of the recovery as latency, they are not recorded.
+   *
+   * @param marker received latency marker
+   */
+  protected void recordLatency(LatencyMarkerTuple marker)
+  {
+    if (marker.getEmitTimeMicros() < activationTimeMicros) {
+      return;
+    }
+    LatencyHistogram histogram = latencyHistograms.get(marker.getSourceOperatorId());
+    if (histogram == null) {
+      histogram = new LatencyHistogram();
+      latencyHistograms.put(marker.getSourceOperatorId(), histogram);
+    }
+    histogram.record(LatencyMarkerTuple.currentTimeMicros() - marker.getEmitTimeMicros());
+  }
+
   protected void reportStats(ContainerStats.OperatorStats stats, long windowId)
   {
     stats.outputPorts = new ArrayList<>();
@@ -434,6 +477,11 @@ public abstract class Node<OPERATOR extends Operator> implements Component<Opera
     stats.cpuTimeUsed = currentCpuTime - lastSampleCpuTime;
     lastSampleCpuTime = currentCpuTime;
 
+    if (!latencyHistograms.isEmpty()) {
+      context.reportLatencies(latencyHistograms);
+      latencyHistograms = new HashMap<>();
+    }
+
     if (checkpoint != null) {
       stats.checkpoint = checkpoint;
       stats.checkpointStats = checkpointStats;
@@ -599,6 +647,8 @@ public abstract class Node<OPERATOR extends Operator> implements Component<Opera
     }
     DAG_CHECKPOINT_WINDOW_COUNT = context.getValue(Context.DAGContext.CHECKPOINT_WINDOW_COUNT);
     CHECKPOINT_WINDOW_COUNT = context.getValue(OperatorContext.CHECKPOINT_WINDOW_COUNT);
+    latencyMarkerIntervalMillis = context.getValue(LogicalPlan.LATENCY_MARKER_INTERVAL_MILLIS);
+    activationTimeMicros = LatencyMarkerTuple.currentTimeMicros();
     Collection<StatsListener> statsListeners = context.getValue(OperatorContext.STATS_LISTENERS);
 
     if (CHECKPOINT_WINDOW_COUNT % APPLICATION_WINDOW_COUNT != 0) {
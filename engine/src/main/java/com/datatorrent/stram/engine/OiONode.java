@@ -29,6 +29,7 @@ import com.datatorrent.api.Operator;
 import com.datatorrent.api.Operator.InputPort;
 import com.datatorrent.api.Sink;
 import com.datatorrent.stram.plan.logical.Operators.PortContextPair;
+import com.datatorrent.stram.tuple.LatencyMarkerTuple;
 import com.datatorrent.stram.tuple.Tuple;
 
 /**
@@ -103,6 +104,14 @@ public class OiONode extends GenericNode
           }
           break;
 
+        case LATENCY_MARKER:
+          recordLatency((LatencyMarkerTuple)t);
+          for (int s = sinks.length; s-- > 0;) {
+            sinks[s].put(t);
+          }
+          controlTupleCount++;
+          break;
+
         case RESET_WINDOW:
           if (t.getWindowId() != lastResetWindowId) {
             lastResetWindowId = t.getWindowId();
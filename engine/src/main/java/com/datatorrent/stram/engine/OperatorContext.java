@@ -19,6 +19,7 @@
 package com.datatorrent.stram.engine;
 
 import java.util.Collection;
+import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 
 import javax.validation.constraints.NotNull;
@@ -36,6 +37,7 @@ import com.datatorrent.api.annotation.Stateless;
 import com.datatorrent.netlet.util.CircularBuffer;
 import com.datatorrent.stram.api.BaseContext;
 import com.datatorrent.stram.api.StreamingContainerUmbilicalProtocol.ContainerStats;
+import com.datatorrent.stram.util.LatencyHistogram;
 
 /**
  * The for context for all of the operators<p>
@@ -54,6 +56,8 @@ public class OperatorContext extends BaseContext implements Context.OperatorCont
   private final CircularBuffer<OperatorRequest> requests = new CircularBuffer<OperatorRequest>(1024);
   public final boolean stateless;
   private int windowsFromCheckpoint;
+  private Map<Integer, LatencyHistogram> latencyHistograms;
+  private Long restoreMillis;
 
   /**
    * The operator to which this context is passed, will timeout after the following milliseconds if no new tuple has been received by it.
@@ -134,6 +138,59 @@ public class OperatorContext extends BaseContext implements Context.OperatorCont
     return statsBuffer.drainTo(stats);
   }
 
+  /**
+   * Add the latencies recorded by the operator thread to the latencies not yet sent with the heartbeat.
+   *
+   * @param histograms latency histograms by source operator id, owned by the context after the call
+   */
+  public final synchronized void reportLatencies(Map<Integer, LatencyHistogram> histograms)
+  {
+    if (latencyHistograms == null) {
+      latencyHistograms = histograms;
+    } else {
+      for (Map.Entry<Integer, LatencyHistogram> e : histograms.entrySet()) {
+        LatencyHistogram histogram = latencyHistograms.get(e.getKey());
+        if (histogram == null) {
+          latencyHistograms.put(e.getKey(), e.getValue());
+        } else {
+          histogram.merge(e.getValue());
+        }
+      }
+    }
+  }
+
+  /**
+   * Return the latencies reported since the last heartbeat. This is called as part of the heartbeat processing.
+   *
+   * @return latency histograms by source operator id or null when no latency markers were received
+   */
+  public final synchronized Map<Integer, LatencyHistogram> drainLatencies()
+  {
+    Map<Integer, LatencyHistogram> histograms = latencyHistograms;
+    latencyHistograms = null;
+    return histograms;
+  }
+
+  /**
+   * @param restoreMillis time in milliseconds spent loading the checkpointed state of the operator
+   */
+  public final synchronized void setRestoreMillis(long restoreMillis)
+  {
+    this.restoreMillis = restoreMillis;
+  }
+
+  /**
+   * Return the restore time once. This is called as part of the heartbeat processing.
+   *
+   * @return the restore time in milliseconds or null when it was already sent
+   */
+  public final synchronized Long drainRestoreMillis()
+  {
+    Long millis = restoreMillis;
+    restoreMillis = null;
+    return millis;
+  }
+
   public final synchronized long getLastProcessedWindowId()
   {
     return lastProcessedWindowId;
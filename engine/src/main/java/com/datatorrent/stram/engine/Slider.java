@@ -26,12 +26,17 @@ import java.util.List;
 import com.datatorrent.api.Context.OperatorContext;
 import com.datatorrent.api.DefaultOutputPort;
 import com.datatorrent.api.Operator;
+import com.datatorrent.api.Operator.RetractableSlidingUnifier;
+import com.datatorrent.api.Operator.SlidingUnifier;
 import com.datatorrent.api.Operator.Unifier;
 import com.datatorrent.api.Sink;
 import com.datatorrent.api.StatsListener;
 
 /**
  * <p>Slider class.</p>
+ * Unifies sliding windows. When the wrapped unifier is a {@link SlidingUnifier}, the slider keeps one partial
+ * aggregate per window and combines them for each slide, otherwise the tuples of the previous windows are cached and
+ * replayed into the unifier.
  *
  * @since 3.2.0
  */
@@ -39,6 +44,9 @@ public class Slider implements Unifier<Object>, Operator.IdleTimeHandler, Operat
 {
   private List<List<Object>> cache;
   private transient List<Object> currentList;
+  private LinkedList<Object> panes;
+  private transient Object currentPane;
+  private transient Object aggregate;
   private final Unifier<Object> unifier;
   private final int numberOfBuckets;
   private final int numberOfSlideBuckets;
@@ -61,7 +69,11 @@ public class Slider implements Unifier<Object>, Operator.IdleTimeHandler, Operat
   public Slider(Unifier<Object> uniOperator, int buckets, int numberOfSlideBuckets)
   {
     unifier = uniOperator;
-    cache = new LinkedList<>();
+    if (uniOperator instanceof SlidingUnifier) {
+      panes = new LinkedList<>();
+    } else {
+      cache = new LinkedList<>();
+    }
     this.numberOfBuckets = buckets;
     this.numberOfSlideBuckets = numberOfSlideBuckets;
   }
@@ -85,9 +97,39 @@ public class Slider implements Unifier<Object>, Operator.IdleTimeHandler, Operat
     throw new RuntimeException("Unifier should have exactly one output port");
   }
 
+  @SuppressWarnings("unchecked")
+  private SlidingUnifier<Object, Object> getSlidingUnifier()
+  {
+    return panes == null ? null : (SlidingUnifier<Object, Object>)unifier;
+  }
+
+  /**
+   * Returns the aggregate of the panes of the previous windows. A retractable unifier maintains it across slides,
+   * otherwise it is computed by combining the panes.
+   */
+  private Object getPreviousAggregate(SlidingUnifier<Object, Object> slidingUnifier)
+  {
+    if (aggregate != null) {
+      return aggregate;
+    }
+    Object result = slidingUnifier.newPane();
+    for (Object pane : panes) {
+      result = slidingUnifier.combine(result, pane);
+    }
+    if (slidingUnifier instanceof RetractableSlidingUnifier) {
+      aggregate = result;
+    }
+    return result;
+  }
+
   @Override
   public void process(Object tuple)
   {
+    SlidingUnifier<Object, Object> slidingUnifier = getSlidingUnifier();
+    if (slidingUnifier != null) {
+      currentPane = slidingUnifier.accumulate(currentPane, tuple);
+      return;
+    }
     if (cacheSize == numberOfBuckets - 1) {
       unifier.process(tuple);
     }
@@ -97,6 +139,13 @@ public class Slider implements Unifier<Object>, Operator.IdleTimeHandler, Operat
   @Override
   public void beginWindow(long windowId)
   {
+    SlidingUnifier<Object, Object> slidingUnifier = getSlidingUnifier();
+    if (slidingUnifier != null) {
+      cacheSize = panes.size();
+      unifier.beginWindow(windowId);
+      currentPane = slidingUnifier.newPane();
+      return;
+    }
     cacheSize = cache.size();
     unifier.beginWindow(windowId);
     if (cacheSize == numberOfBuckets - 1) {
@@ -112,6 +161,11 @@ public class Slider implements Unifier<Object>, Operator.IdleTimeHandler, Operat
   @Override
   public void endWindow()
   {
+    SlidingUnifier<Object, Object> slidingUnifier = getSlidingUnifier();
+    if (slidingUnifier != null) {
+      endPaneWindow(slidingUnifier);
+      return;
+    }
     cache.add(currentList);
     if (cacheSize == numberOfBuckets - 1) {
       for (int i = 0; i < numberOfSlideBuckets; i++) {
@@ -121,6 +175,28 @@ public class Slider implements Unifier<Object>, Operator.IdleTimeHandler, Operat
     unifier.endWindow();
   }
 
+  private void endPaneWindow(SlidingUnifier<Object, Object> slidingUnifier)
+  {
+    boolean complete = cacheSize == numberOfBuckets - 1;
+    if (complete) {
+      slidingUnifier.emitAggregate(slidingUnifier.combine(getPreviousAggregate(slidingUnifier), currentPane));
+    }
+    panes.add(currentPane);
+    if (aggregate != null) {
+      aggregate = slidingUnifier.combine(aggregate, currentPane);
+    }
+    if (complete) {
+      for (int i = 0; i < numberOfSlideBuckets; i++) {
+        Object pane = panes.removeFirst();
+        if (aggregate != null) {
+          aggregate = ((RetractableSlidingUnifier<Object, Object>)slidingUnifier).retract(aggregate, pane);
+        }
+      }
+    }
+    currentPane = null;
+    unifier.endWindow();
+  }
+
   @Override
   public void setup(OperatorContext context)
   {
@@ -22,6 +22,7 @@ import java.net.InetSocketAddress;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -49,6 +50,26 @@ public class StreamContext extends DefaultAttributeMap implements Context
   public static final Attribute<InetSocketAddress> BUFFER_SERVER_ADDRESS = new Attribute<>(null, null);
   public static final Attribute<byte[]> BUFFER_SERVER_TOKEN = new Attribute<>(null, null);
   public static final Attribute<EventLoop> EVENT_LOOP = new Attribute<>(null, null);
+  /**
+   * Executor deserializing the tuples of a buffer server subscriber ahead of the operator, null to deserialize them
+   * on the operator thread.
+   */
+  public static final Attribute<ExecutorService> DECODER = new Attribute<>(null, null);
+  /**
+   * Path of the file of the shared memory ring carrying the stream, for the streams deployed as
+   * {@link com.datatorrent.stram.stream.SharedMemoryPublisher} and
+   * {@link com.datatorrent.stram.stream.SharedMemorySubscriber}.
+   */
+  public static final Attribute<String> SHARED_MEMORY_FILE = new Attribute<>(null, null);
+  /**
+   * Size in bytes of the data region of the shared memory ring created by the publisher.
+   */
+  public static final Attribute<Integer> SHARED_MEMORY_CAPACITY = new Attribute<>(64 * 1024 * 1024, null);
+  /**
+   * Path of the segment files of the data moved out of the full shared memory ring, without the position suffix. The
+   * segments are next to the ring file when it is not set.
+   */
+  public static final Attribute<String> SHARED_MEMORY_SPILL_FILE = new Attribute<>(null, null);
   public static final Attribute<StreamCodec<?>> CODEC = new Attribute<StreamCodec<?>>(new DefaultStatefulStreamCodec<>(), null);
 
   @Override
@@ -18,6 +18,7 @@
  */
 package com.datatorrent.stram.engine;
 
+import java.io.File;
 import java.io.IOException;
 import java.lang.Thread.State;
 import java.lang.management.GarbageCollectorMXBean;
@@ -38,8 +39,13 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -56,6 +62,8 @@ import org.apache.hadoop.yarn.conf.YarnConfiguration;
 import org.apache.log4j.DTLoggerFactory;
 import org.apache.log4j.LogManager;
 
+import com.google.common.base.Throwables;
+
 import com.datatorrent.api.Attribute;
 import com.datatorrent.api.Component;
 import com.datatorrent.api.Context;
@@ -74,6 +82,7 @@ import com.datatorrent.api.annotation.Stateless;
 import com.datatorrent.bufferserver.server.Server;
 import com.datatorrent.bufferserver.storage.DiskStorage;
 import com.datatorrent.bufferserver.util.Codec;
+import com.datatorrent.common.util.NameableThreadFactory;
 import com.datatorrent.common.util.ScheduledThreadPoolExecutor;
 import com.datatorrent.netlet.DefaultEventLoop;
 import com.datatorrent.netlet.util.Slice;
@@ -118,6 +127,9 @@ import com.datatorrent.stram.stream.MuxStream;
 import com.datatorrent.stram.stream.OiOStream;
 import com.datatorrent.stram.stream.PartitionAwareSink;
 import com.datatorrent.stram.stream.PartitionAwareSinkForPersistence;
+import com.datatorrent.stram.stream.SharedMemoryPublisher;
+import com.datatorrent.stram.stream.SharedMemorySubscriber;
+import com.datatorrent.stram.util.ThreadAffinity;
 
 import net.engio.mbassy.bus.MBassador;
 import net.engio.mbassy.bus.config.BusConfiguration;
@@ -159,6 +171,13 @@ public class StreamingContainer extends YarnContainerMain
   private com.datatorrent.bufferserver.server.Server bufferServer;
   private int checkpointWindowCount;
   private boolean fastPublisherSubscriber;
+  private ExecutorService decoder;
+  private ExecutorService restorer;
+  private ThreadPlacement threadPlacement;
+  /**
+   * loads of the checkpoints that the application master expects the container to deploy by operator id.
+   */
+  private final Map<Integer, Restore> prefetches = new HashMap<>();
   private StreamingContainerContext containerContext;
   private List<StramToNodeRequest> nodeRequests;
   private final HashMap<String, Object> singletons;
@@ -206,6 +225,20 @@ public class StreamingContainer extends YarnContainerMain
     Map<Class<?>, Class<? extends StringCodec<?>>> codecs = ctx.getValue(Context.DAGContext.STRING_CODECS);
     StringCodecs.loadConverters(codecs);
 
+    if (ctx.getValue(ContainerContext.THREAD_AFFINITY)) {
+      ThreadAffinity affinity = ThreadAffinity.getInstance();
+      if (affinity.isSupported()) {
+        /* the threads started by this thread, like those of the buffer server, inherit the affinity */
+        threadPlacement = new ThreadPlacement(affinity,
+            ThreadPlacement.getLockDirectory(ctx.getValue(LogicalPlan.THREAD_AFFINITY_LOCK_DIR)),
+            ctx.getValue(ContainerContext.VCORES));
+        threadPlacement.pinContainerThread();
+        eventloop.submit(threadPlacement.getPinContainerThreadTask());
+      } else {
+        logger.warn("Thread affinity is not supported on this platform");
+      }
+    }
+
     try {
       if (ctx.deployBufferServer) {
         eventloop.start();
@@ -227,6 +260,7 @@ public class StreamingContainer extends YarnContainerMain
         // start buffer server, if it was not set externally
         bufferServer = new Server(0, blocksize * 1024 * 1024, blockCount);
         bufferServer.setAuthToken(ctx.getValue(StreamingContainerContext.BUFFER_SERVER_TOKEN));
+        bufferServer.setNumberOfEventLoops(ctx.getValue(LogicalPlan.BUFFER_SERVER_EVENT_LOOPS));
         if (ctx.getValue(Context.DAGContext.BUFFER_SPOOLING)) {
           bufferServer.setSpoolStorage(new DiskStorage());
         }
@@ -256,6 +290,10 @@ public class StreamingContainer extends YarnContainerMain
       }
     }
 
+    if (ctx.prefetchCheckpoints != null) {
+      prefetch(ctx.prefetchCheckpoints);
+    }
+
     operateListeners(ctx, true);
   }
 
@@ -592,9 +630,106 @@ public class StreamingContainer extends YarnContainerMain
       eventloop.stop();
     }
 
+    if (decoder != null) {
+      decoder.shutdownNow();
+      decoder = null;
+    }
+
+    prefetches.clear();
+    if (restorer != null) {
+      restorer.shutdownNow();
+      restorer = null;
+    }
+
+    if (threadPlacement != null) {
+      threadPlacement.release();
+      threadPlacement = null;
+    }
+
     gens.clear();
   }
 
+  /**
+   * @return the executor shared by the buffer server subscribers of the container which decode ahead
+   */
+  private ExecutorService getDecoder()
+  {
+    if (decoder == null) {
+      decoder = Executors.newFixedThreadPool(containerContext.getValue(LogicalPlan.DECODE_AHEAD_THREADS),
+          new NameableThreadFactory("Decoder"));
+    }
+    return decoder;
+  }
+
+  /**
+   * Start loading the checkpoints that the application master expects the container to deploy with the storage agent
+   * of the application, in place of the loads of other checkpoints.
+   *
+   * @param checkpoints checkpoint window ids by operator id
+   */
+  private void prefetch(Map<Integer, Long> checkpoints)
+  {
+    StorageAgent agent = containerContext.getValue(OperatorContext.STORAGE_AGENT);
+    if (agent == null) {
+      return;
+    }
+
+    for (Iterator<Restore> iterator = prefetches.values().iterator(); iterator.hasNext();) {
+      Restore restore = iterator.next();
+      Long windowId = checkpoints.get(restore.operatorId);
+      if (windowId == null || windowId != restore.windowId) {
+        restore.future.cancel(true);
+        iterator.remove();
+      }
+    }
+
+    for (Map.Entry<Integer, Long> e : checkpoints.entrySet()) {
+      if (!prefetches.containsKey(e.getKey())) {
+        logger.debug("Prefetching checkpoint {} of operator {}.", Codec.getStringWindowId(e.getValue()), e.getKey());
+        prefetches.put(e.getKey(), restore(agent, e.getKey(), e.getValue()));
+      }
+    }
+  }
+
+  /**
+   * Start loading the checkpoint of an operator on the restore pool.
+   */
+  private Restore restore(StorageAgent agent, int operatorId, long windowId)
+  {
+    if (restorer == null) {
+      restorer = Executors.newFixedThreadPool(containerContext.getValue(LogicalPlan.RESTORE_THREADS),
+          new NameableThreadFactory("Restore"));
+    }
+    Restore restore = new Restore(agent, operatorId, windowId);
+    restore.future = restorer.submit(restore);
+    return restore;
+  }
+
+  /**
+   * @param connIdentifier identifier of the publisher
+   * @return the path of the file of the shared memory ring carrying the stream of the publisher
+   */
+  private String getSharedMemoryFile(String connIdentifier)
+  {
+    File dir = new File(containerContext.getValue(LogicalPlan.SHARED_MEMORY_DIR),
+        String.valueOf(containerContext.getValue(LogicalPlan.APPLICATION_ID)));
+    return new File(dir, connIdentifier).getPath();
+  }
+
+  /**
+   * @param connIdentifier identifier of the publisher
+   * @return the path of the segment files of the data which does not fit the shared memory ring of the publisher
+   */
+  private String getSharedMemorySpillFile(String connIdentifier)
+  {
+    String spillDir = containerContext.getValue(LogicalPlan.SHARED_MEMORY_SPILL_DIR);
+    if (spillDir == null) {
+      return getSharedMemoryFile(connIdentifier);
+    }
+    File dir = new File(spillDir, String.valueOf(containerContext.getValue(LogicalPlan.APPLICATION_ID)));
+    return new File(dir, connIdentifier).getPath();
+  }
+
   public void triggerHeartbeat()
   {
     synchronized (heartbeatTrigger) {
@@ -669,6 +804,8 @@ public class StreamingContainer extends YarnContainerMain
           }
           OperatorContext context = e.getValue().context;
           context.drainStats(hb.getOperatorStatsContainer());
+          hb.latencyHistograms = context.drainLatencies();
+          hb.restoreMillis = context.drainRestoreMillis();
 
           if (context.getThread() == null || context.getThread().getState() != Thread.State.TERMINATED) {
             hb.setState(DeployState.ACTIVE);
@@ -777,6 +914,11 @@ public class StreamingContainer extends YarnContainerMain
         // Jira for that issue is APEXCORE-479
         bufferServer.purge(lastCommittedWindowId - 1);
       }
+      for (ComponentContextPair<Stream, StreamContext> pair : streams.values()) {
+        if (pair.component instanceof SharedMemoryPublisher) {
+          ((SharedMemoryPublisher)pair.component).purge(lastCommittedWindowId - 1);
+        }
+      }
 
       OperatorRequest nr = null;
       for (Entry<Integer, Node<?>> e : nodes.entrySet()) {
@@ -816,6 +958,10 @@ public class StreamingContainer extends YarnContainerMain
       return;
     }
 
+    if (rsp.prefetchCheckpoints != null) {
+      prefetch(rsp.prefetchCheckpoints);
+    }
+
     if (rsp.deployRequest != null) {
       logger.info("Deploy request: {}", rsp.deployRequest);
       try {
@@ -894,9 +1040,16 @@ public class StreamingContainer extends YarnContainerMain
     }
   }
 
+  /**
+   * Restore the operators from their checkpoints, loading the checkpoints in parallel on the restore pool unless the
+   * container already started loading them in {@link #setup(StreamingContainerContext)}.
+   */
   private void deployNodes(List<OperatorDeployInfo> nodeList) throws IOException
   {
-    for (OperatorDeployInfo ndi : nodeList) {
+    OperatorContext[] contexts = new OperatorContext[nodeList.size()];
+    Restore[] restores = new Restore[nodeList.size()];
+    for (int i = 0; i < contexts.length; i++) {
+      OperatorDeployInfo ndi = nodeList.get(i);
       StorageAgent backupAgent = getValue(OperatorContext.STORAGE_AGENT, ndi);
       assert (backupAgent != null);
 
@@ -913,15 +1066,46 @@ public class StreamingContainer extends YarnContainerMain
       OperatorContext ctx = new OperatorContext(ndi.id, ndi.name, ndi.contextAttributes, parentContext);
       ctx.attributes.put(OperatorContext.ACTIVATION_WINDOW_ID, ndi.checkpoint.windowId);
       logger.debug("Restoring operator {} to checkpoint {} stateless={}.", ndi.id, Codec.getStringWindowId(ndi.checkpoint.windowId), ctx.stateless);
-      Node<?> node = Node.retrieveNode(backupAgent.load(ndi.id, ctx.stateless ? Stateless.WINDOW_ID : ndi.checkpoint.windowId), ctx, ndi.type);
-      node.currentWindowId = ndi.checkpoint.windowId;
-      node.applicationWindowCount = ndi.checkpoint.applicationWindowCount;
-      node.firstWindowMillis = firstWindowMillis;
-      node.windowWidthMillis = windowWidthMillis;
+      long windowId = ctx.stateless ? Stateless.WINDOW_ID : ndi.checkpoint.windowId;
+      Restore restore = prefetches.remove(ndi.id);
+      if (restore == null || restore.agent != backupAgent || restore.windowId != windowId) {
+        if (restore != null) {
+          restore.future.cancel(true);
+        }
+        restore = restore(backupAgent, ndi.id, windowId);
+      }
+      contexts[i] = ctx;
+      restores[i] = restore;
+    }
+
+    for (Restore restore : prefetches.values()) {
+      logger.debug("Discarding prefetched checkpoint {} of operator {}.", Codec.getStringWindowId(restore.windowId),
+          restore.operatorId);
+      restore.future.cancel(true);
+    }
+    prefetches.clear();
 
-      node.setId(ndi.id);
-      nodes.put(ndi.id, node);
-      logger.debug("Marking operator {} as deployed.", node);
+    try {
+      for (int i = 0; i < contexts.length; i++) {
+        OperatorDeployInfo ndi = nodeList.get(i);
+        Node<?> node = Node.retrieveNode(restores[i].get(), contexts[i], ndi.type);
+        contexts[i].setRestoreMillis(restores[i].millis);
+        restores[i] = null;
+        node.currentWindowId = ndi.checkpoint.windowId;
+        node.applicationWindowCount = ndi.checkpoint.applicationWindowCount;
+        node.firstWindowMillis = firstWindowMillis;
+        node.windowWidthMillis = windowWidthMillis;
+
+        node.setId(ndi.id);
+        nodes.put(ndi.id, node);
+        logger.debug("Marking operator {} as deployed.", node);
+      }
+    } finally {
+      for (Restore restore : restores) {
+        if (restore != null) {
+          restore.future.cancel(true);
+        }
+      }
     }
   }
 
@@ -930,6 +1114,21 @@ public class StreamingContainer extends YarnContainerMain
       OperatorDeployInfo.OutputDeployInfo nodi)
       throws UnknownHostException
   {
+    if (nodi.sharedMemory) {
+      String file = getSharedMemoryFile(connIdentifier);
+      StreamContext smsc = new StreamContext(nodi.declaredStreamId);
+      smsc.setPortId(nodi.portName);
+      smsc.setSourceId(connIdentifier);
+      smsc.setSinkId("file://".concat(file));
+      smsc.setFinishedWindowId(finishedWindowId);
+      smsc.put(StreamContext.CODEC, streamCodec);
+      smsc.put(StreamContext.SHARED_MEMORY_FILE, file);
+      smsc.put(StreamContext.SHARED_MEMORY_CAPACITY, containerContext.getValue(LogicalPlan.SHARED_MEMORY_RING_SIZE));
+      smsc.put(StreamContext.SHARED_MEMORY_SPILL_FILE, getSharedMemorySpillFile(connIdentifier));
+      Stream publisher = new SharedMemoryPublisher(connIdentifier);
+      return new HashMap.SimpleEntry<>(smsc.getSinkId(), new ComponentContextPair<>(publisher, smsc));
+    }
+
     String sinkIdentifier = "tcp://".concat(nodi.bufferServerHost).concat(":").concat(String.valueOf(nodi.bufferServerPort)).concat("/").concat(connIdentifier);
 
     StreamContext bssc = new StreamContext(nodi.declaredStreamId);
@@ -1144,8 +1343,18 @@ public class StreamingContainer extends YarnContainerMain
             context.setSourceId(connIdentifier);
             context.setSinkId(sinkIdentifier);
             context.setFinishedWindowId(checkpoint.windowId);
+            if (getValue(PortContext.DECODE_AHEAD, nidi, ndi) && !(streamCodec instanceof StreamCodecWrapperForPersistance)) {
+              context.put(StreamContext.DECODER, getDecoder());
+            }
 
-            BufferServerSubscriber subscriber = fastPublisherSubscriber
+            if (nidi.sharedMemory) {
+              context.put(StreamContext.SHARED_MEMORY_FILE, getSharedMemoryFile(connIdentifier));
+              context.put(StreamContext.SHARED_MEMORY_SPILL_FILE, getSharedMemorySpillFile(connIdentifier));
+            }
+
+            BufferServerSubscriber subscriber = nidi.sharedMemory
+                ? new SharedMemorySubscriber(context.get(StreamContext.SHARED_MEMORY_FILE), queueCapacity)
+                : fastPublisherSubscriber
                 ? new FastSubscriber("tcp://".concat(nidi.bufferServerHost).concat(":").concat(String.valueOf(nidi.bufferServerPort)).concat("/").concat(connIdentifier), queueCapacity)
                 : new BufferServerSubscriber("tcp://".concat(nidi.bufferServerHost).concat(":").concat(String.valueOf(nidi.bufferServerPort)).concat("/").concat(connIdentifier), queueCapacity);
             if (streamCodec instanceof StreamCodecWrapperForPersistance) {
@@ -1295,7 +1504,11 @@ public class StreamingContainer extends YarnContainerMain
    */
   protected WindowGenerator setupWindowGenerator(long finishedWindowId)
   {
-    WindowGenerator windowGenerator = new WindowGenerator(new ScheduledThreadPoolExecutor(1, "WindowGenerator"), 1024);
+    ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, "WindowGenerator");
+    if (threadPlacement != null) {
+      executor.submit(threadPlacement.getPinContainerThreadTask());
+    }
+    WindowGenerator windowGenerator = new WindowGenerator(executor, 1024);
     /**
      * let's make sure that we send the same window Ids with the same reset windows.
      */
@@ -1392,6 +1605,9 @@ public class StreamingContainer extends YarnContainerMain
         {
           HashSet<OperatorDeployInfo> setOperators = new HashSet<>();
           OperatorDeployInfo currentdi = ndi;
+          if (threadPlacement != null && node.context.getValue(Context.OperatorContext.THREAD_AFFINITY)) {
+            threadPlacement.pinOperatorThread();
+          }
           try {
             /* primary operator initialization */
             setupNode(currentdi);
@@ -1647,5 +1863,55 @@ public class StreamingContainer extends YarnContainerMain
     }
   };
 
+  /**
+   * Load of the checkpoint of an operator on the restore pool. The context class loader of the container is set on the
+   * pool thread for the storage agent to resolve the operator classes.
+   */
+  private static class Restore implements Callable<Object>
+  {
+    final StorageAgent agent;
+    final int operatorId;
+    final long windowId;
+    final ClassLoader classLoader;
+    Future<Object> future;
+    volatile long millis;
+
+    Restore(StorageAgent agent, int operatorId, long windowId)
+    {
+      this.agent = agent;
+      this.operatorId = operatorId;
+      this.windowId = windowId;
+      this.classLoader = Thread.currentThread().getContextClassLoader();
+    }
+
+    @Override
+    public Object call() throws Exception
+    {
+      Thread thread = Thread.currentThread();
+      ClassLoader previous = thread.getContextClassLoader();
+      thread.setContextClassLoader(classLoader);
+      long start = System.currentTimeMillis();
+      try {
+        return agent.load(operatorId, windowId);
+      } finally {
+        millis = System.currentTimeMillis() - start;
+        thread.setContextClassLoader(previous);
+      }
+    }
+
+    Object get() throws IOException
+    {
+      try {
+        return future.get();
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while restoring operator " + operatorId, ex);
+      } catch (ExecutionException ex) {
+        Throwables.propagateIfPossible(ex.getCause(), IOException.class);
+        throw new IOException("Failed to restore operator " + operatorId, ex.getCause());
+      }
+    }
+  }
+
   private static final Logger logger = LoggerFactory.getLogger(StreamingContainer.class);
 }
@@ -0,0 +1,248 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.engine;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.hadoop.yarn.api.ApplicationConstants;
+
+import com.datatorrent.stram.plan.logical.LogicalPlan;
+import com.datatorrent.stram.util.ThreadAffinity;
+
+/**
+ * Places the threads of a container on the CPU cores of the host.<p>
+ * <br>
+ * The container claims as many cores as it has vcores, with a lock file per core in a directory shared by the
+ * containers on the host, so that the containers pinning their threads do not share cores as long as there are free
+ * ones. The cores are taken from a single NUMA node when a node has enough free cores, so that the threads exchanging
+ * tuples through the reservoirs share the caches and the memory of the node. When there are not enough free cores,
+ * the container shares cores with the other containers. The locks are held till the container releases them or its
+ * process exits.<br>
+ * Each pinned operator thread gets one of the claimed cores in turn, the other threads of the container may run on
+ * any of them.
+ *
+ * @since 3.5.0
+ */
+public class ThreadPlacement
+{
+  private static final String LOCK_DIRECTORY = "apex-cpu-affinity";
+  private final ThreadAffinity affinity;
+  private final List<FileLock> locks = new ArrayList<>();
+  private final BitSet cpus;
+  private int nextCpu;
+
+  /**
+   * Claim the cores of the container.
+   *
+   * @param affinity the affinity implementation
+   * @param lockDirectory directory of the core lock files
+   * @param vCores number of cores to claim, at least one core is claimed
+   */
+  public ThreadPlacement(ThreadAffinity affinity, File lockDirectory, int vCores)
+  {
+    this.affinity = affinity;
+    BitSet available = affinity.getAvailableCpus();
+    int count = Math.max(1, Math.min(vCores, available.cardinality()));
+    cpus = claim(affinity.getNumaNodes(), available, lockDirectory, count);
+    nextCpu = cpus.nextSetBit(0);
+    logger.info("Claimed cores {} for {} vcores", ThreadAffinity.toCpuList(cpus), vCores);
+  }
+
+  /**
+   * Directory of the core lock files of the container, see {@link LogicalPlan#THREAD_AFFINITY_LOCK_DIR}.
+   *
+   * @param directory the configured directory, null for the default
+   * @return the directory
+   */
+  public static File getLockDirectory(String directory)
+  {
+    return getLockDirectory(directory, System.getenv(ApplicationConstants.Environment.LOCAL_DIRS.toString()));
+  }
+
+  /**
+   * @param localDirs the local directories of the YARN application, null outside of YARN
+   */
+  static File getLockDirectory(String directory, String localDirs)
+  {
+    if (directory != null) {
+      return new File(directory);
+    }
+    if (localDirs != null && !localDirs.isEmpty()) {
+      /* <local dir>/usercache/<user>/appcache/<application>, the user directory is shared by the applications */
+      File userDirectory = new File(localDirs.split(",")[0]).getParentFile();
+      if (userDirectory != null && userDirectory.getParentFile() != null) {
+        return new File(userDirectory.getParentFile(), LOCK_DIRECTORY);
+      }
+    }
+    return new File(System.getProperty("java.io.tmpdir"), LOCK_DIRECTORY + "-" + System.getProperty("user.name"));
+  }
+
+  private BitSet claim(List<BitSet> nodes, BitSet available, File lockDirectory, int count)
+  {
+    if (!lockDirectory.isDirectory() && !lockDirectory.mkdirs() && !lockDirectory.isDirectory()) {
+      logger.warn("Cannot create {}, the cores are not claimed", lockDirectory);
+    } else {
+      for (BitSet node : nodes) {
+        if (node.cardinality() >= count) {
+          BitSet claimed = lock(node, lockDirectory, count);
+          if (claimed.cardinality() == count) {
+            return claimed;
+          }
+          release();
+        }
+      }
+
+      BitSet claimed = lock(available, lockDirectory, count);
+      if (claimed.cardinality() == count) {
+        return claimed;
+      }
+      logger.info("Only cores {} are free, sharing cores with other containers", ThreadAffinity.toCpuList(claimed));
+      release();
+    }
+
+    BitSet shared = nodes.get(0).cardinality() >= count ? nodes.get(0) : available;
+    BitSet result = new BitSet();
+    for (int cpu = shared.nextSetBit(0); result.cardinality() < count; cpu = shared.nextSetBit(cpu + 1)) {
+      result.set(cpu);
+    }
+    return result;
+  }
+
+  /**
+   * @return the cores that could be locked, up to the count
+   */
+  private BitSet lock(BitSet candidates, File lockDirectory, int count)
+  {
+    BitSet claimed = new BitSet();
+    for (int cpu = candidates.nextSetBit(0); cpu >= 0 && claimed.cardinality() < count;
+        cpu = candidates.nextSetBit(cpu + 1)) {
+      RandomAccessFile file = null;
+      try {
+        file = new RandomAccessFile(new File(lockDirectory, "cpu" + cpu), "rw");
+        FileLock lock = file.getChannel().tryLock();
+        if (lock != null) {
+          locks.add(lock);
+          claimed.set(cpu);
+          file = null;
+        }
+      } catch (IOException | OverlappingFileLockException ex) {
+        logger.debug("Core {} is not free", cpu, ex);
+      } finally {
+        if (file != null) {
+          close(file);
+        }
+      }
+    }
+    return claimed;
+  }
+
+  private static void close(RandomAccessFile file)
+  {
+    try {
+      file.close();
+    } catch (IOException ex) {
+      logger.debug("Cannot close {}", file, ex);
+    }
+  }
+
+  /**
+   * Release the claimed cores.
+   */
+  public final synchronized void release()
+  {
+    for (FileLock lock : locks) {
+      try {
+        lock.channel().close();
+      } catch (IOException ex) {
+        logger.debug("Cannot release {}", lock, ex);
+      }
+    }
+    locks.clear();
+  }
+
+  /**
+   * @return the cores of the container
+   */
+  public BitSet getCpus()
+  {
+    return (BitSet)cpus.clone();
+  }
+
+  /**
+   * Pin the calling thread to the next core of the container.
+   *
+   * @return the core
+   */
+  public int pinOperatorThread()
+  {
+    int cpu;
+    synchronized (this) {
+      cpu = nextCpu;
+      nextCpu = cpus.nextSetBit(cpu + 1);
+      if (nextCpu < 0) {
+        nextCpu = cpus.nextSetBit(0);
+      }
+    }
+
+    BitSet core = new BitSet();
+    core.set(cpu);
+    if (affinity.setAffinity(core)) {
+      logger.debug("Pinned {} to core {}", Thread.currentThread().getName(), cpu);
+    }
+    return cpu;
+  }
+
+  /**
+   * Restrict the calling thread to the cores of the container.
+   */
+  public void pinContainerThread()
+  {
+    if (affinity.setAffinity(cpus)) {
+      logger.debug("Pinned {} to cores {}", Thread.currentThread().getName(), ThreadAffinity.toCpuList(cpus));
+    }
+  }
+
+  /**
+   * @return the task restricting the thread running it to the cores of the container
+   */
+  public Runnable getPinContainerThreadTask()
+  {
+    return new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        pinContainerThread();
+      }
+
+    };
+  }
+
+  private static final Logger logger = LoggerFactory.getLogger(ThreadPlacement.class);
+}
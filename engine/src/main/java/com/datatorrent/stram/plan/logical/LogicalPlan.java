@@ -34,12 +34,16 @@ import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
 import java.lang.reflect.WildcardType;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
@@ -56,7 +60,6 @@ import javax.validation.ConstraintViolationException;
 import javax.validation.Validation;
 import javax.validation.ValidationException;
 import javax.validation.Validator;
-import javax.validation.ValidatorFactory;
 import javax.validation.constraints.NotNull;
 
 import org.slf4j.Logger;
@@ -68,6 +71,7 @@ import org.apache.commons.lang.builder.ToStringBuilder;
 import org.apache.commons.lang.builder.ToStringStyle;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.util.ReflectionUtils;
+import org.apache.hadoop.yarn.api.records.LocalResourceVisibility;
 import org.apache.hadoop.yarn.conf.YarnConfiguration;
 
 import com.google.common.collect.Sets;
@@ -172,6 +176,12 @@ public class LogicalPlan implements Serializable, DAG
    * containers.
    */
   public static Attribute<String> FILES = new Attribute<>(new StringCodec.String2String());
+  /**
+   * Visibility with which the containers localize the library jars. The launcher sets it to the visibility of the jar
+   * cache when the jars are deployed through {@link com.datatorrent.stram.client.JarCache}, as the node managers can
+   * then reuse the localized jars across applications.
+   */
+  public static Attribute<LocalResourceVisibility> LIBRARY_JARS_VISIBILITY = new Attribute<>(LocalResourceVisibility.APPLICATION);
   /**
    * The maximum number of containers (excluding the application master) that the application is allowed to request.
    * If the DAG plan requires less containers, remaining count won't be allocated from the resource manager.
@@ -185,6 +195,76 @@ public class LogicalPlan implements Serializable, DAG
    */
   public static Attribute<Integer> APPLICATION_ATTEMPT_ID = new Attribute<>(1);
 
+  /**
+   * Whether the application master pushes only the operator stats that changed since the last push and the new
+   * metrics to the metrics transport, instead of the stats of all operators. The push is skipped when nothing changed.
+   */
+  public static Attribute<Boolean> APP_DATA_PUSH_DELTA = new Attribute<>(false);
+  /**
+   * Interval between pushes to the metrics transport, the metrics of all windows completed in the interval are pushed
+   * together.
+   */
+  public static Attribute<Long> APP_DATA_PUSH_INTERVAL_MILLIS = new Attribute<>(1000L);
+  /**
+   * Interval between pushes of the stats of all operators when {@link #APP_DATA_PUSH_DELTA} is set, so that the
+   * receivers of the data can recover from lost pushes.
+   */
+  public static Attribute<Long> APP_DATA_FULL_PUSH_INTERVAL_MILLIS = new Attribute<>(60000L);
+  /**
+   * Whether linear chains of operators connected by streams without locality are deployed into a single thread, as if
+   * the streams were {@link Locality#THREAD_LOCAL}. See {@link com.datatorrent.stram.plan.physical.OperatorChaining}.
+   */
+  public static Attribute<Boolean> OPERATOR_CHAINING = new Attribute<>(false);
+  /**
+   * The CPU time in nanoseconds that a tuple takes through a whole chain above which the operators of the chain are
+   * redeployed into separate threads.
+   */
+  public static Attribute<Long> OPERATOR_CHAINING_MAX_TUPLE_COST_NANOS = new Attribute<>(20000L);
+  /**
+   * Interval at which input operators emit latency markers, which the downstream operators forward along with the data
+   * tuples and record in latency histograms per source operator. Markers are not emitted when the value is 0.
+   */
+  public static Attribute<Integer> LATENCY_MARKER_INTERVAL_MILLIS = new Attribute<>(0);
+  /**
+   * Number of event loops of the buffer server in each container. The publishers and the subscribers to them are
+   * distributed over the event loops, each event loop with its own thread for flushing the data to the subscribers.
+   */
+  public static Attribute<Integer> BUFFER_SERVER_EVENT_LOOPS = new Attribute<>(1);
+  /**
+   * Number of threads in each container deserializing the tuples of the input ports with
+   * {@link com.datatorrent.api.Context.PortContext#DECODE_AHEAD} set.
+   */
+  public static Attribute<Integer> DECODE_AHEAD_THREADS = new Attribute<>(2);
+  /**
+   * Number of threads in each container loading the checkpointed state of the operators being deployed. The
+   * container starts loading the checkpoints of the operators it is launched for before it receives the deploy
+   * request.
+   */
+  public static Attribute<Integer> RESTORE_THREADS = new Attribute<>(4);
+  /**
+   * Directory of the memory mapped files carrying the NODE_LOCAL streams between containers, preferably on a memory
+   * backed file system such as /dev/shm. The NODE_LOCAL streams go through the buffer server when it is not set.
+   */
+  public static Attribute<String> SHARED_MEMORY_DIR = new Attribute<>(new StringCodec.String2String());
+  /**
+   * Size in bytes of the ring buffer of each NODE_LOCAL stream carried by a memory mapped file. When the windows which
+   * are not committed yet fill the ring, the publisher moves the older ones to files in the
+   * {@link #SHARED_MEMORY_SPILL_DIR}.
+   */
+  public static Attribute<Integer> SHARED_MEMORY_RING_SIZE = new Attribute<>(64 * 1024 * 1024);
+  /**
+   * Directory of the files holding the windows of the NODE_LOCAL streams which did not fit their shared memory ring,
+   * preferably on disk. Defaults to the {@link #SHARED_MEMORY_DIR}.
+   */
+  public static Attribute<String> SHARED_MEMORY_SPILL_DIR = new Attribute<>(new StringCodec.String2String());
+  /**
+   * Directory of the lock files with which the containers pinning their threads claim the CPU cores of the host, see
+   * {@link OperatorContext#THREAD_AFFINITY}. Only the containers sharing the directory avoid each other's
+   * cores. By default it is a directory of the user under the YARN local directory, shared by the applications of the
+   * user on the host; a directory writable by all the users coordinates the applications of different users.
+   */
+  public static Attribute<String> THREAD_AFFINITY_LOCK_DIR = new Attribute<>(new StringCodec.String2String());
+
   static {
     Attribute.AttributeMap.AttributeInitializer.initialize(LogicalPlan.class);
   }
@@ -1635,6 +1715,20 @@ public class LogicalPlan implements Serializable, DAG
     public List<Set<OperatorMeta>> stronglyConnected = new ArrayList<>();
     public OperatorMeta invalidLoopAt;
     public List<Set<OperatorMeta>> invalidCycles = new ArrayList<>();
+    private final Set<OperatorMeta> onStack = Sets.newIdentityHashSet();
+
+    private void push(OperatorMeta om)
+    {
+      stack.push(om);
+      onStack.add(om);
+    }
+
+    private OperatorMeta pop()
+    {
+      OperatorMeta om = stack.pop();
+      onStack.remove(om);
+      return om;
+    }
   }
 
   public void resetNIndex()
@@ -1653,8 +1747,20 @@ public class LogicalPlan implements Serializable, DAG
    */
   public void validate() throws ConstraintViolationException
   {
-    ValidatorFactory factory = Validation.buildDefaultValidatorFactory();
-    Validator validator = factory.getValidator();
+    validate(null);
+  }
+
+  /**
+   * Validate the plan after changes to a previously validated plan. The configuration of the operators that did not
+   * change is not validated again, the graph structure is always validated completely.
+   *
+   * @param changedOperators operators that were added, reconfigured or connected to added or removed streams,
+   *                         null to validate the configuration of all operators
+   * @throws ConstraintViolationException
+   */
+  public void validate(Set<OperatorMeta> changedOperators) throws ConstraintViolationException
+  {
+    Validator validator = null;
 
     checkAttributeValueSerializable(this.getAttributes(), DAG.class.getName());
 
@@ -1667,9 +1773,14 @@ public class LogicalPlan implements Serializable, DAG
     for (OperatorMeta n : operators.values()) {
       n.nindex = null;
       n.lowlink = null;
+      boolean changed = changedOperators == null || changedOperators.contains(n);
 
       // validate configuration
-      Set<ConstraintViolation<Operator>> constraintViolations = validator.validate(n.getOperator());
+      if (changed && validator == null) {
+        validator = Validation.buildDefaultValidatorFactory().getValidator();
+      }
+      Set<ConstraintViolation<Operator>> constraintViolations = changed ? validator.validate(n.getOperator())
+          : Collections.<ConstraintViolation<Operator>>emptySet();
       if (!constraintViolations.isEmpty()) {
         Set<ConstraintViolation<?>> copySet = new HashSet<>(constraintViolations.size());
         // workaround bug in ConstraintViolationException constructor
@@ -1682,10 +1793,12 @@ public class LogicalPlan implements Serializable, DAG
 
       OperatorMeta.PortMapping portMapping = n.getPortMapping();
 
-      checkAttributeValueSerializable(n.getAttributes(), n.getName());
+      if (changed) {
+        checkAttributeValueSerializable(n.getAttributes(), n.getName());
+      }
 
       // Check operator annotation
-      if (n.operatorAnnotation != null) {
+      if (changed && n.operatorAnnotation != null) {
         // Check if partition property of the operator is being honored
         if (!n.operatorAnnotation.partitionable()) {
           // Check if any of the input ports have partition attributes set
@@ -1716,7 +1829,9 @@ public class LogicalPlan implements Serializable, DAG
 
       // check that non-optional ports are connected
       for (InputPortMeta pm: portMapping.inPortMap.values()) {
-        checkAttributeValueSerializable(pm.getAttributes(), n.getName() + "." + pm.getPortName());
+        if (changed) {
+          checkAttributeValueSerializable(pm.getAttributes(), n.getName() + "." + pm.getPortName());
+        }
         StreamMeta sm = n.inputStreams.get(pm);
         if (sm == null) {
           if ((pm.portAnnotation == null || !pm.portAnnotation.optional()) && pm.classDeclaringHiddenPort == null) {
@@ -1746,7 +1861,9 @@ public class LogicalPlan implements Serializable, DAG
 
       boolean allPortsOptional = true;
       for (OutputPortMeta pm: portMapping.outPortMap.values()) {
-        checkAttributeValueSerializable(pm.getAttributes(), n.getName() + "." + pm.getPortName());
+        if (changed) {
+          checkAttributeValueSerializable(pm.getAttributes(), n.getName() + "." + pm.getPortName());
+        }
         if (!n.outputStreams.containsKey(pm)) {
           if ((pm.portAnnotation != null && !pm.portAnnotation.optional()) && pm.classDeclaringHiddenPort == null) {
             throw new ValidationException("Output port connection required: " + n.name + "." + pm.getPortName());
@@ -1782,9 +1899,7 @@ public class LogicalPlan implements Serializable, DAG
     }
 
     List<List<String>> invalidDelays = new ArrayList<>();
-    for (OperatorMeta n : rootOperators) {
-      findInvalidDelays(n, invalidDelays, new Stack<OperatorMeta>());
-    }
+    findInvalidDelays(rootOperators, invalidDelays, validatonContext.stronglyConnected);
     if (!invalidDelays.isEmpty()) {
       throw new ValidationException("Invalid delays in graph: " + invalidDelays);
     }
@@ -1808,10 +1923,7 @@ public class LogicalPlan implements Serializable, DAG
     }
 
     // processing mode
-    Set<OperatorMeta> visited = Sets.newHashSet();
-    for (OperatorMeta om : this.rootOperators) {
-      validateProcessingMode(om, visited);
-    }
+    validateProcessingMode();
 
     validateAffinityRules();
   }
@@ -2174,7 +2286,9 @@ public class LogicalPlan implements Serializable, DAG
 
   /**
    * Check for cycles in the graph reachable from start node n. This is done by
-   * attempting to find strongly connected components.
+   * attempting to find strongly connected components. Components with a cycle
+   * that does not pass through a delay operator are invalid. The graph is traversed
+   * iteratively, so that the depth of the graph is not limited by the stack size.
    *
    * @see <a href="http://en.wikipedia.org/wiki/Tarjan%E2%80%99s_strongly_connected_components_algorithm">http://en.wikipedia.org/wiki/Tarjan%E2%80%99s_strongly_connected_components_algorithm</a>
    *
@@ -2183,51 +2297,58 @@ public class LogicalPlan implements Serializable, DAG
    */
   public void findStronglyConnected(OperatorMeta om, ValidationContext ctx)
   {
-    om.nindex = ctx.nodeIndex;
-    om.lowlink = ctx.nodeIndex;
-    ctx.nodeIndex++;
-    ctx.stack.push(om);
-    ctx.path.push(om);
+    Deque<OperatorMeta> dfsPath = new ArrayDeque<>();
+    Deque<Iterator<OperatorMeta>> dfsSuccessors = new ArrayDeque<>();
+    visitStronglyConnected(om, ctx);
+    dfsPath.push(om);
+    dfsSuccessors.push(getSuccessors(om).iterator());
 
     // depth first successors traversal
-    for (StreamMeta downStream: om.outputStreams.values()) {
-      for (InputPortMeta sink: downStream.sinks) {
-        OperatorMeta successor = sink.getOperatorWrapper();
-        if (successor == null) {
-          continue;
-        }
+    while (!dfsPath.isEmpty()) {
+      OperatorMeta n = dfsPath.peek();
+      Iterator<OperatorMeta> successors = dfsSuccessors.peek();
+      if (successors.hasNext()) {
+        OperatorMeta successor = successors.next();
         // check for self referencing node
-        if (om == successor) {
-          ctx.invalidCycles.add(Collections.singleton(om));
+        if (n == successor) {
+          ctx.invalidCycles.add(Collections.singleton(n));
         }
         if (successor.nindex == null) {
-          // not visited yet
-          findStronglyConnected(successor, ctx);
-          om.lowlink = Math.min(om.lowlink, successor.lowlink);
-        } else if (ctx.stack.contains(successor)) {
-          om.lowlink = Math.min(om.lowlink, successor.nindex);
-          boolean isDelayLoop = false;
-          for (int i = ctx.stack.size(); i > 0; i--) {
-            OperatorMeta om2 = ctx.stack.get(i - 1);
-            if (om2.getOperator() instanceof Operator.DelayOperator) {
-              isDelayLoop = true;
-            }
-            if (om2 == successor) {
-              break;
-            }
-          }
-          if (!isDelayLoop) {
-            ctx.invalidLoopAt = successor;
-          }
+          // not visited yet, the lowlink is updated when the successor is done
+          visitStronglyConnected(successor, ctx);
+          dfsPath.push(successor);
+          dfsSuccessors.push(getSuccessors(successor).iterator());
+        } else if (ctx.onStack.contains(successor)) {
+          n.lowlink = Math.min(n.lowlink, successor.nindex);
+        }
+      } else {
+        dfsPath.pop();
+        dfsSuccessors.pop();
+        finishStronglyConnected(n, ctx);
+        OperatorMeta predecessor = dfsPath.peek();
+        if (predecessor != null) {
+          predecessor.lowlink = Math.min(predecessor.lowlink, n.lowlink);
         }
       }
     }
+  }
+
+  private void visitStronglyConnected(OperatorMeta om, ValidationContext ctx)
+  {
+    om.nindex = ctx.nodeIndex;
+    om.lowlink = ctx.nodeIndex;
+    ctx.nodeIndex++;
+    ctx.push(om);
+    ctx.path.push(om);
+  }
 
+  private void finishStronglyConnected(OperatorMeta om, ValidationContext ctx)
+  {
     // pop stack for all root operators
     if (om.lowlink.equals(om.nindex)) {
-      Set<OperatorMeta> connectedSet = new LinkedHashSet<>(ctx.stack.size());
+      Set<OperatorMeta> connectedSet = new LinkedHashSet<>();
       while (!ctx.stack.isEmpty()) {
-        OperatorMeta n2 = ctx.stack.pop();
+        OperatorMeta n2 = ctx.pop();
         connectedSet.add(n2);
         if (n2 == om) {
           break; // collected all connected operators
@@ -2236,60 +2357,288 @@ public class LogicalPlan implements Serializable, DAG
       // strongly connected (cycle) if more than one node in stack
       if (connectedSet.size() > 1) {
         ctx.stronglyConnected.add(connectedSet);
-        if (connectedSet.contains(ctx.invalidLoopAt)) {
+        OperatorMeta invalidLoopAt = findLoopWithoutDelay(connectedSet);
+        if (invalidLoopAt != null) {
+          ctx.invalidLoopAt = invalidLoopAt;
           ctx.invalidCycles.add(connectedSet);
         }
       }
     }
     ctx.path.pop();
+  }
+
+  /**
+   * Find a cycle that does not pass through a delay operator within the strongly connected operators, by removing
+   * the operators without upstream operators in the set until none are left.
+   *
+   * @return an operator on such a cycle, or null when all cycles pass through a delay operator
+   */
+  private static OperatorMeta findLoopWithoutDelay(Set<OperatorMeta> connectedSet)
+  {
+    Map<OperatorMeta, Integer> pendingInputs = new IdentityHashMap<>();
+    for (OperatorMeta om : connectedSet) {
+      if (!(om.getOperator() instanceof Operator.DelayOperator)) {
+        pendingInputs.put(om, 0);
+      }
+    }
+    for (OperatorMeta om : pendingInputs.keySet()) {
+      for (OperatorMeta successor : getSuccessors(om)) {
+        Integer pending = pendingInputs.get(successor);
+        if (pending != null) {
+          pendingInputs.put(successor, pending + 1);
+        }
+      }
+    }
+    Deque<OperatorMeta> ready = new ArrayDeque<>();
+    for (Map.Entry<OperatorMeta, Integer> e : pendingInputs.entrySet()) {
+      if (e.getValue() == 0) {
+        ready.push(e.getKey());
+      }
+    }
+    int removed = 0;
+    while (!ready.isEmpty()) {
+      OperatorMeta om = ready.pop();
+      removed++;
+      for (OperatorMeta successor : getSuccessors(om)) {
+        Integer pending = pendingInputs.get(successor);
+        if (pending != null) {
+          pendingInputs.put(successor, pending - 1);
+          if (pending == 1) {
+            ready.push(successor);
+          }
+        }
+      }
+    }
+    if (removed == pendingInputs.size()) {
+      return null;
+    }
+    for (Map.Entry<OperatorMeta, Integer> e : pendingInputs.entrySet()) {
+      if (e.getValue() > 0) {
+        return e.getKey();
+      }
+    }
+    return null;
+  }
 
+  /**
+   * @return the downstream operators of the operator, once for every connected input port
+   */
+  private static List<OperatorMeta> getSuccessors(OperatorMeta om)
+  {
+    List<OperatorMeta> successors = new ArrayList<>();
+    for (StreamMeta downStream : om.outputStreams.values()) {
+      for (InputPortMeta sink : downStream.sinks) {
+        OperatorMeta successor = sink.getOperatorWrapper();
+        if (successor != null) {
+          successors.add(successor);
+        }
+      }
+    }
+    return successors;
   }
 
+  /**
+   * @deprecated use {@link #findInvalidDelays(Collection, List)}, the stack is not used
+   */
+  @Deprecated
   public void findInvalidDelays(OperatorMeta om, List<List<String>> invalidDelays, Stack<OperatorMeta> stack)
   {
-    stack.push(om);
+    findInvalidDelays(Collections.singletonList(om), invalidDelays);
+  }
 
-    // depth first successors traversal
-    boolean isDelayOperator = om.getOperator() instanceof Operator.DelayOperator;
-    if (isDelayOperator) {
+  /**
+   * Find the delay operators reachable from the given operators that do not have an application window count of 1 or
+   * whose output is connected to an operator that is not on every path to the delay operator. Paths are not followed
+   * through delay operators. Each invalid delay is reported once.
+   *
+   * @param roots operators to start from
+   * @param invalidDelays list the invalid delays are added to
+   */
+  public void findInvalidDelays(Collection<OperatorMeta> roots, List<List<String>> invalidDelays)
+  {
+    resetNIndex();
+    ValidationContext ctx = new ValidationContext();
+    for (OperatorMeta om : operators.values()) {
+      if (om.nindex == null) {
+        findStronglyConnected(om, ctx);
+      }
+    }
+    findInvalidDelays(roots, invalidDelays, ctx.stronglyConnected);
+  }
+
+  /**
+   * An operator downstream of a delay operator can only be on every path to the delay operator when it is in the same
+   * strongly connected component. The paths are then checked within the component, from the operators through which
+   * the paths from the given operators enter the component.
+   */
+  private void findInvalidDelays(Collection<OperatorMeta> roots, List<List<String>> invalidDelays,
+      List<Set<OperatorMeta>> stronglyConnected)
+  {
+    List<OperatorMeta> delayOperators = new ArrayList<>();
+    Set<OperatorMeta> reachable = getReachableOperators(roots, delayOperators);
+    Map<OperatorMeta, Set<OperatorMeta>> components = new IdentityHashMap<>();
+    for (Set<OperatorMeta> component : stronglyConnected) {
+      for (OperatorMeta om : component) {
+        components.put(om, component);
+      }
+    }
+    Set<OperatorMeta> rootSet = Sets.newIdentityHashSet();
+    rootSet.addAll(roots);
+
+    for (OperatorMeta om : delayOperators) {
       if (om.getValue(OperatorContext.APPLICATION_WINDOW_COUNT) != 1) {
         LOG.debug("detected DelayOperator having APPLICATION_WINDOW_COUNT not equal to 1");
-        invalidDelays.add(Collections.singletonList(om.getName()));
+        addInvalidDelay(invalidDelays, Collections.singletonList(om.getName()));
       }
-    }
 
-    for (StreamMeta downStream: om.outputStreams.values()) {
-      for (InputPortMeta sink : downStream.sinks) {
-        OperatorMeta successor = sink.getOperatorWrapper();
-        if (isDelayOperator) {
+      Set<OperatorMeta> component = components.get(om);
+      List<OperatorMeta> entries = null;
+      for (StreamMeta downStream : om.outputStreams.values()) {
+        for (InputPortMeta sink : downStream.sinks) {
           sink.attributes.put(IS_CONNECTED_TO_DELAY_OPERATOR, true);
-          // Check whether all downstream operators are already visited in the path
-          if (successor != null && !stack.contains(successor)) {
+          OperatorMeta successor = sink.getOperatorWrapper();
+          if (successor == null || successor == om) {
+            continue;
+          }
+          boolean onEveryPath = component != null && component.contains(successor);
+          if (onEveryPath) {
+            if (entries == null) {
+              entries = getEntryOperators(component, rootSet, reachable);
+            }
+            onEveryPath = !isReachable(entries, component, successor, om);
+          }
+          if (!onEveryPath) {
             LOG.debug("detected DelayOperator does not immediately output to a visited operator {}.{}->{}.{}",
                 om.getName(), downStream.getSource().getPortName(), successor.getName(), sink.getPortName());
-            invalidDelays.add(Arrays.asList(om.getName(), successor.getName()));
+            addInvalidDelay(invalidDelays, Arrays.asList(om.getName(), successor.getName()));
           }
-        } else {
-          findInvalidDelays(successor, invalidDelays, stack);
         }
       }
     }
-    stack.pop();
   }
 
-  private void validateProcessingMode(OperatorMeta om, Set<OperatorMeta> visited)
+  /**
+   * @return the operators of the component that are roots or are connected to reachable upstream operators outside
+   * of the component, other than delay operators
+   */
+  private static List<OperatorMeta> getEntryOperators(Set<OperatorMeta> component, Set<OperatorMeta> roots,
+      Set<OperatorMeta> reachable)
   {
-    for (StreamMeta is : om.getInputStreams().values()) {
-      if (!visited.contains(is.getSource().getOperatorMeta())) {
-        // process all inputs first
-        return;
+    List<OperatorMeta> entries = new ArrayList<>();
+    for (OperatorMeta om : component) {
+      boolean entry = roots.contains(om);
+      for (Iterator<StreamMeta> it = om.inputStreams.values().iterator(); !entry && it.hasNext(); ) {
+        OperatorMeta upstream = it.next().getSource().getOperatorMeta();
+        entry = !component.contains(upstream) && reachable.contains(upstream)
+            && !(upstream.getOperator() instanceof Operator.DelayOperator);
+      }
+      if (entry) {
+        entries.add(om);
+      }
+    }
+    return entries;
+  }
+
+  /**
+   * @return whether the target is reachable from the entry operators within the component without passing through the
+   * excluded operator or delay operators
+   */
+  private static boolean isReachable(List<OperatorMeta> entries, Set<OperatorMeta> component, OperatorMeta excluded,
+      OperatorMeta target)
+  {
+    Set<OperatorMeta> visited = Sets.newIdentityHashSet();
+    Deque<OperatorMeta> pending = new ArrayDeque<>();
+    for (OperatorMeta entry : entries) {
+      if (entry != excluded && visited.add(entry)) {
+        pending.push(entry);
+      }
+    }
+    while (!pending.isEmpty()) {
+      OperatorMeta om = pending.pop();
+      if (om == target) {
+        return true;
+      }
+      if (om.getOperator() instanceof Operator.DelayOperator) {
+        continue;
+      }
+      for (OperatorMeta successor : getSuccessors(om)) {
+        if (successor != excluded && component.contains(successor) && visited.add(successor)) {
+          pending.push(successor);
+        }
+      }
+    }
+    return false;
+  }
+
+  private static void addInvalidDelay(List<List<String>> invalidDelays, List<String> invalidDelay)
+  {
+    if (!invalidDelays.contains(invalidDelay)) {
+      invalidDelays.add(invalidDelay);
+    }
+  }
+
+  /**
+   * Get the operators reachable from the given operators without following paths through delay operators.
+   *
+   * @param roots operators to start from
+   * @param delayOperators list the reached delay operators are added to
+   * @return the reached operators
+   */
+  private static Set<OperatorMeta> getReachableOperators(Collection<OperatorMeta> roots,
+      List<OperatorMeta> delayOperators)
+  {
+    Set<OperatorMeta> visited = Sets.newIdentityHashSet();
+    Deque<OperatorMeta> pending = new ArrayDeque<>();
+    for (OperatorMeta root : roots) {
+      if (visited.add(root)) {
+        pending.push(root);
+      }
+      while (!pending.isEmpty()) {
+        OperatorMeta om = pending.pop();
+        if (om.getOperator() instanceof Operator.DelayOperator) {
+          delayOperators.add(om);
+          continue;
+        }
+        for (OperatorMeta successor : getSuccessors(om)) {
+          if (visited.add(successor)) {
+            pending.push(successor);
+          }
+        }
       }
     }
-    visited.add(om);
-    Operator.ProcessingMode pm = om.getValue(OperatorContext.PROCESSING_MODE);
-    for (StreamMeta os : om.outputStreams.values()) {
-      for (InputPortMeta sink: os.sinks) {
-        OperatorMeta sinkOm = sink.getOperatorWrapper();
+    return visited;
+  }
+
+  /**
+   * Validates the processing mode of all operators downstream of the root operators, visiting each operator once
+   * after all its upstream operators were visited.
+   */
+  private void validateProcessingMode()
+  {
+    Map<OperatorMeta, Integer> pendingInputs = new IdentityHashMap<>();
+    for (OperatorMeta om : operators.values()) {
+      pendingInputs.put(om, om.inputStreams.size());
+    }
+
+    Deque<OperatorMeta> dfsPath = new ArrayDeque<>();
+    Deque<Operator.ProcessingMode> dfsModes = new ArrayDeque<>();
+    Deque<Iterator<OperatorMeta>> dfsSuccessors = new ArrayDeque<>();
+    for (OperatorMeta root : this.rootOperators) {
+      if (pendingInputs.get(root) != 0) {
+        continue;
+      }
+      visitProcessingMode(root, pendingInputs, dfsPath, dfsModes, dfsSuccessors);
+      while (!dfsPath.isEmpty()) {
+        Iterator<OperatorMeta> successors = dfsSuccessors.peek();
+        if (!successors.hasNext()) {
+          dfsPath.pop();
+          dfsModes.pop();
+          dfsSuccessors.pop();
+          continue;
+        }
+        OperatorMeta om = dfsPath.peek();
+        Operator.ProcessingMode pm = dfsModes.peek();
+        OperatorMeta sinkOm = successors.next();
         Operator.ProcessingMode sinkPm = sinkOm.attributes == null ? null : sinkOm.attributes.get(OperatorContext.PROCESSING_MODE);
         if (sinkPm == null) {
           // If the source processing mode is AT_MOST_ONCE and a processing mode is not specified for the sink then
@@ -2314,11 +2663,28 @@ public class LogicalPlan implements Serializable, DAG
             throw new ValidationException(msg);
           }
         }
-        validateProcessingMode(sinkOm, visited);
+        if (pendingInputs.get(sinkOm) == 0) {
+          // all inputs processed
+          visitProcessingMode(sinkOm, pendingInputs, dfsPath, dfsModes, dfsSuccessors);
+        }
       }
     }
   }
 
+  private static void visitProcessingMode(OperatorMeta om, Map<OperatorMeta, Integer> pendingInputs,
+      Deque<OperatorMeta> dfsPath, Deque<Operator.ProcessingMode> dfsModes, Deque<Iterator<OperatorMeta>> dfsSuccessors)
+  {
+    // mark as visited and count the inputs of the downstream operators as processed
+    pendingInputs.put(om, -1);
+    List<OperatorMeta> successors = getSuccessors(om);
+    for (OperatorMeta successor : successors) {
+      pendingInputs.put(successor, pendingInputs.get(successor) - 1);
+    }
+    dfsPath.push(om);
+    dfsModes.push(om.getValue(OperatorContext.PROCESSING_MODE));
+    dfsSuccessors.push(successors.iterator());
+  }
+
   public static void write(DAG dag, OutputStream os) throws IOException
   {
     ObjectOutputStream oos = new ObjectOutputStream(os);
@@ -38,6 +38,7 @@ import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.regex.Pattern;
 
 import javax.validation.ValidationException;
 
@@ -58,9 +59,14 @@ import org.apache.hadoop.conf.Configuration;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Throwables;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 
 import com.datatorrent.api.Attribute;
 import com.datatorrent.api.Attribute.AttributeMap.AttributeInitializer;
@@ -125,6 +131,16 @@ public class LogicalPlanConfiguration
 
   private static final String WILDCARD = "*";
   private static final String WILDCARD_PATTERN = ".*";
+  private static final String REGEXP_CHARS = "\\^$.|?*+()[]{}";
+  private static final LoadingCache<String, Pattern> patterns = CacheBuilder.newBuilder().maximumSize(4096)
+      .build(new CacheLoader<String, Pattern>()
+      {
+        @Override
+        public Pattern load(String regExp)
+        {
+          return Pattern.compile(regExp);
+        }
+      });
 
   /**
    * This is done to initialize the serial id of these interfaces.
@@ -943,6 +959,11 @@ public class LogicalPlanConfiguration
     protected final PropertiesWithModifiableDefaults properties = new PropertiesWithModifiableDefaults();
 
     protected Map<StramElement, Map<String, ? extends Conf>> children = Maps.newHashMap();
+    /**
+     * Compiled patterns of the child ids that are regular expressions, in the iteration order of the children, built on
+     * first match and dropped when a child is added.
+     */
+    private final Map<StramElement, List<Map.Entry<String, Pattern>>> childPatterns = Maps.newHashMap();
 
     protected String id;
 
@@ -1007,10 +1028,14 @@ public class LogicalPlanConfiguration
         elChildren = Maps.newHashMap();
         children.put(childType, elChildren);
       }
+      int size = elChildren.size();
       T conf = getOrAddConf(elChildren, id, clazz);
       if (conf != null) {
         conf.setParentConf(this);
       }
+      if (elChildren.size() != size) {
+        childPatterns.remove(childType);
+      }
       return conf;
     }
 
@@ -1042,42 +1067,61 @@ public class LogicalPlanConfiguration
     {
       List<T> childConfs = new ArrayList<>();
       Map<String, T> elChildren = getChildren(childType);
-      for (Map.Entry<String, T> entry : elChildren.entrySet()) {
-        String key = entry.getKey();
-        boolean match = false;
-        boolean exact = false;
+      if (elChildren.isEmpty()) {
+        return childConfs;
+      }
+      if (name == null) {
         // Match WILDCARD to null
-        if (name == null) {
+        for (Map.Entry<String, T> entry : elChildren.entrySet()) {
+          String key = entry.getKey();
           if (key == null) {
-            match = true;
-            exact = true;
+            childConfs.add(0, entry.getValue());
           } else if (key.equals(WILDCARD)) {
-            match = true;
-          }
-        } else {
-          // Also treat WILDCARD as match any character string when running regular express match
-          if (key.equals(WILDCARD)) {
-            key = WILDCARD_PATTERN;
-          }
-          if (name.matches(key)) {
-            match = true;
-          }
-          if (name.equals(key)) {
-            exact = true;
-          }
-        }
-        // There will be a better match preference order
-        if (match) {
-          if (!exact) {
             childConfs.add(entry.getValue());
-          } else {
-            childConfs.add(0, entry.getValue());
           }
         }
+        return childConfs;
+      }
+
+      // An id without regular expression characters only matches itself and is found by lookup, only the ids that
+      // are regular expressions have to be matched. WILDCARD is treated as match any character string.
+      T exact = null;
+      if (!name.equals(WILDCARD)) {
+        exact = elChildren.get(name);
+        if (exact != null && !isLiteral(name) && !getPattern(name).matcher(name).matches()) {
+          exact = null;
+        }
+      }
+      for (Map.Entry<String, Pattern> entry : getChildPatterns(childType, elChildren)) {
+        if (exact != null && name.equals(entry.getKey())) {
+          continue;
+        }
+        if (entry.getValue().matcher(name).matches()) {
+          childConfs.add(elChildren.get(entry.getKey()));
+        }
+      }
+      // There will be a better match preference order
+      if (exact != null) {
+        childConfs.add(0, exact);
       }
       return childConfs;
     }
 
+    private List<Map.Entry<String, Pattern>> getChildPatterns(StramElement childType, Map<String, ? extends Conf> elChildren)
+    {
+      List<Map.Entry<String, Pattern>> patterns = childPatterns.get(childType);
+      if (patterns == null) {
+        patterns = new ArrayList<>();
+        for (String key : elChildren.keySet()) {
+          if (key != null && !isLiteral(key)) {
+            patterns.add(Maps.immutableEntry(key, getPattern(key.equals(WILDCARD) ? WILDCARD_PATTERN : key)));
+          }
+        }
+        childPatterns.put(childType, patterns);
+      }
+      return patterns;
+    }
+
     /**
      * Returns the {@link Conf} corresponding to the given id from the given map. If a {@link Conf} with the
      * given id is not present in the given map, then a new {@link Conf} of the given class is created and added
@@ -1300,6 +1344,11 @@ public class LogicalPlanConfiguration
       }
     }
 
+    private static boolean matches(String regExp, String value)
+    {
+      return regExp != null && value != null && getPattern(regExp).matcher(value).matches();
+    }
+
     private String idRegExp;
     private String appNameRegExp;
     private String classNameRegExp;
@@ -1631,6 +1680,27 @@ public class LogicalPlanConfiguration
     return childConfs;
   }
 
+  /**
+   * @return the compiled pattern of the regular expression, patterns are compiled once and shared by all configurations
+   */
+  private static Pattern getPattern(String regExp)
+  {
+    try {
+      return patterns.getUnchecked(regExp);
+    } catch (UncheckedExecutionException e) {
+      Throwables.propagateIfPossible(e.getCause());
+      throw e;
+    }
+  }
+
+  /**
+   * @return whether the id contains no regular expression characters, so that it only matches itself
+   */
+  private static boolean isLiteral(String id)
+  {
+    return StringUtils.containsNone(id, REGEXP_CHARS);
+  }
+
   private final Properties properties = new Properties();
   public final Configuration conf;
 
@@ -2360,13 +2430,11 @@ public class LogicalPlanConfiguration
   {
     TreeMap<Integer, TemplateConf> tm = Maps.newTreeMap();
     for (TemplateConf t : templates.values()) {
-      if ((t.idRegExp != null && pa.name.matches(t.idRegExp))) {
+      if (TemplateConf.matches(t.idRegExp, pa.name)) {
         tm.put(1, t);
-      } else if (appName != null && t.appNameRegExp != null
-          && appName.matches(t.appNameRegExp)) {
+      } else if (TemplateConf.matches(t.appNameRegExp, appName)) {
         tm.put(2, t);
-      } else if (t.classNameRegExp != null
-          && pa.className.matches(t.classNameRegExp)) {
+      } else if (TemplateConf.matches(t.classNameRegExp, pa.className)) {
         tm.put(3, t);
       }
     }
@@ -0,0 +1,127 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.plan.physical;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.datatorrent.api.Context.PortContext;
+import com.datatorrent.api.StatsListener;
+
+/**
+ * Stats listener attached to the final unifier of a stream with {@link PortContext#UNIFIER_ADAPTIVE}. It halves the
+ * unifier fan-in when the final unifier falls behind and doubles it again, up to {@link PortContext#UNIFIER_LIMIT},
+ * when the unifier is lightly loaded. A decision requires {@link #EVALUATIONS} consecutive heartbeats in the same
+ * state and no change is made within {@link #COOLDOWN_MILLIS} of the previous one.
+ *
+ * @since 3.5.0
+ */
+class AdaptiveUnifierListener implements StatsListener, java.io.Serializable
+{
+  private static final long serialVersionUID = 201610190940L;
+  private static final Logger LOG = LoggerFactory.getLogger(AdaptiveUnifierListener.class);
+
+  static final int MIN_UNIFIER_LIMIT = 2;
+  static final int EVALUATIONS = 3;
+  static final long COOLDOWN_MILLIS = 60000;
+
+  private final StreamMapping mapping;
+  private final PhysicalPlan plan;
+  private final AtomicBoolean pendingChange = new AtomicBoolean();
+  private int hotCount;
+  private int coldCount;
+  private long lastChangeMillis;
+  long cooldownMillis = COOLDOWN_MILLIS;
+
+  AdaptiveUnifierListener(StreamMapping mapping, PhysicalPlan plan)
+  {
+    this.mapping = mapping;
+    this.plan = plan;
+  }
+
+  @Override
+  public Response processStats(BatchedOperatorStats stats)
+  {
+    long now = System.currentTimeMillis();
+    if (pendingChange.get() || now - lastChangeMillis < cooldownMillis) {
+      return null;
+    }
+
+    int configuredLimit = mapping.getStreamMeta().getSource().getValue(PortContext.UNIFIER_LIMIT);
+    int targetLatency = mapping.getStreamMeta().getSource().getValue(PortContext.UNIFIER_ADAPTIVE_LATENCY_MILLIS);
+    // the input ports of the unifier have the attributes of the output port of the stream
+    long maxQueueSize = mapping.getStreamMeta().getSource().getValue(PortContext.QUEUE_CAPACITY) / 2;
+    int limit = mapping.getUnifierLimit();
+    int fanIn = Math.min(limit, mapping.getUpstreamCount());
+    long latency = stats.getLatencyMA();
+    long queueSize = getMaxInputQueueSize(stats);
+
+    int newLimit = 0;
+    if (latency > targetLatency || queueSize > maxQueueSize) {
+      coldCount = 0;
+      if (++hotCount >= EVALUATIONS && fanIn > MIN_UNIFIER_LIMIT) {
+        newLimit = Math.max(MIN_UNIFIER_LIMIT, (fanIn + 1) / 2);
+      }
+    } else if (latency < targetLatency / 4 && queueSize <= maxQueueSize / 4 && limit < configuredLimit) {
+      hotCount = 0;
+      if (++coldCount >= EVALUATIONS) {
+        newLimit = (int)Math.min(configuredLimit, 2L * limit);
+      }
+    } else {
+      hotCount = 0;
+      coldCount = 0;
+    }
+
+    if (newLimit > 0 && pendingChange.compareAndSet(false, true)) {
+      hotCount = 0;
+      coldCount = 0;
+      lastChangeMillis = now;
+      LOG.info("Changing unifier limit of {} from {} to {}, latency {} queue {}", mapping.getStreamMeta().getName(),
+          limit, newLimit, latency, queueSize);
+      final int unifierLimit = newLimit >= configuredLimit ? 0 : newLimit;
+      // hand over to monitor thread
+      plan.getContext().dispatch(new Runnable()
+      {
+        @Override
+        public void run()
+        {
+          try {
+            plan.redoUnifiers(mapping, unifierLimit);
+          } finally {
+            pendingChange.set(false);
+          }
+        }
+      });
+    }
+    return null;
+  }
+
+  private static long getMaxInputQueueSize(BatchedOperatorStats stats)
+  {
+    long result = 0;
+    if (stats instanceof OperatorStatus) {
+      for (OperatorStatus.PortStatus ps : ((OperatorStatus)stats).inputPortStatusList.values()) {
+        result = Math.max(result, ps.queueSizeMA.getAvg());
+      }
+    }
+    return result;
+  }
+}
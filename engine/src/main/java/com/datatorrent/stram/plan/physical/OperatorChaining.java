@@ -0,0 +1,173 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.plan.physical;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.datatorrent.api.AffinityRule;
+import com.datatorrent.api.AffinityRulesSet;
+import com.datatorrent.api.Context.DAGContext;
+import com.datatorrent.api.Context.OperatorContext;
+import com.datatorrent.api.Context.PortContext;
+import com.datatorrent.api.DAG.Locality;
+import com.datatorrent.api.Operator;
+import com.datatorrent.api.Partitioner;
+import com.datatorrent.stram.plan.logical.LogicalPlan;
+import com.datatorrent.stram.plan.logical.LogicalPlan.InputPortMeta;
+import com.datatorrent.stram.plan.logical.LogicalPlan.OperatorMeta;
+import com.datatorrent.stram.plan.logical.LogicalPlan.StreamMeta;
+
+/**
+ * Chains linear pipelines of operators into a single thread when {@link LogicalPlan#OPERATOR_CHAINING} is set.
+ * <p>
+ * A stream is chained when it connects the single output stream of an operator to the single input stream of the
+ * downstream operator, has no locality set by the application, has no persist operators, neither end is a delay
+ * operator or part of an affinity rule, both operators have the same application window count and they are either
+ * not partitioned or the downstream operator is partitioned in parallel. The physical plan deploys chained streams as
+ * {@link Locality#THREAD_LOCAL}, the logical plan is not changed.
+ * <p>
+ * Chaining is decided before any stats are known. Once the operators run, the per tuple CPU time of the chain decides
+ * whether it stays: when it exceeds {@link LogicalPlan#OPERATOR_CHAINING_MAX_TUPLE_COST_NANOS} the streams of the
+ * chain become {@link Locality#CONTAINER_LOCAL} and the operators are redeployed into separate threads of the same
+ * container. The CPU time is measured per thread, so every operator of a chain reports the time of the whole chain;
+ * it is therefore taken from the first operator of the chain only and divided by the tuples entering the chain.
+ *
+ * @since 3.5.0
+ */
+public class OperatorChaining
+{
+  private static final Logger LOG = LoggerFactory.getLogger(OperatorChaining.class);
+
+  private OperatorChaining()
+  {
+  }
+
+  /**
+   * Find the chains of the logical plan.
+   *
+   * @param dag the logical plan
+   * @return the chained streams in order of the chain, keyed by the first operator of each chain
+   */
+  public static Map<OperatorMeta, List<StreamMeta>> chain(LogicalPlan dag)
+  {
+    AffinityRulesSet affinityRules = dag.getValue(DAGContext.AFFINITY_RULES_SET);
+    Set<StreamMeta> chainable = new HashSet<>();
+    for (StreamMeta sm : dag.getAllStreams()) {
+      if (isChainable(sm, affinityRules)) {
+        chainable.add(sm);
+      }
+    }
+    Map<OperatorMeta, List<StreamMeta>> chains = new LinkedHashMap<>();
+    for (StreamMeta sm : chainable) {
+      OperatorMeta head = sm.getSource().getOperatorMeta();
+      if (!head.getInputStreams().isEmpty() && chainable.containsAll(head.getInputStreams().values())) {
+        // not the first stream of the chain
+        continue;
+      }
+      List<StreamMeta> chain = new ArrayList<>();
+      StreamMeta next = sm;
+      while (next != null && chainable.contains(next)) {
+        chain.add(next);
+        Collection<StreamMeta> outputs = next.getSinks().get(0).getOperatorWrapper().getOutputStreams().values();
+        next = outputs.isEmpty() ? null : outputs.iterator().next();
+      }
+      chains.put(head, chain);
+    }
+    if (!chains.isEmpty()) {
+      LOG.info("Chained streams {}", chains.values());
+    }
+    return chains;
+  }
+
+  static boolean isChainable(StreamMeta sm, AffinityRulesSet affinityRules)
+  {
+    if (sm.getLocality() != null || sm.getSource() == null || sm.getSinks().size() != 1) {
+      return false;
+    }
+    if (sm.getPersistOperator() != null || !sm.sinkSpecificPersistOperatorMap.isEmpty()) {
+      return false;
+    }
+    OperatorMeta source = sm.getSource().getOperatorMeta();
+    InputPortMeta sinkPort = sm.getSinks().get(0);
+    OperatorMeta sink = sinkPort.getOperatorWrapper();
+    if (source.getOutputStreams().size() != 1 || sink.getInputStreams().size() != 1) {
+      return false;
+    }
+    if (source.getOperator() instanceof Operator.DelayOperator || sink.getOperator() instanceof Operator.DelayOperator
+        || sinkPort.getValue(LogicalPlan.IS_CONNECTED_TO_DELAY_OPERATOR)) {
+      return false;
+    }
+    if (!source.getValue(OperatorContext.APPLICATION_WINDOW_COUNT).equals(sink.getValue(OperatorContext.APPLICATION_WINDOW_COUNT))) {
+      return false;
+    }
+    if (!sinkPort.getValue(PortContext.PARTITION_PARALLEL) && (isPartitionable(source) || isPartitionable(sink))) {
+      return false;
+    }
+    return !hasAffinityRule(source, affinityRules) && !hasAffinityRule(sink, affinityRules);
+  }
+
+  private static boolean isPartitionable(OperatorMeta om)
+  {
+    return om.getAttributes().contains(OperatorContext.PARTITIONER) || om.getOperator() instanceof Partitioner;
+  }
+
+  private static boolean hasAffinityRule(OperatorMeta om, AffinityRulesSet affinityRules)
+  {
+    if (affinityRules != null && affinityRules.getAffinityRules() != null) {
+      for (AffinityRule rule : affinityRules.getAffinityRules()) {
+        if (rule.getOperatorsList() != null && rule.getOperatorsList().contains(om.getName())) {
+          return true;
+        }
+        if (rule.getOperatorRegex() != null && om.getName().matches(rule.getOperatorRegex())) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Average CPU time per tuple of the operator, based on the tuples processed or, for input operators, the tuples
+   * emitted.
+   *
+   * @param status operator status
+   * @return CPU time in nanoseconds, or -1 when no tuples were counted
+   */
+  public static long getTupleCostNanos(OperatorStatus status)
+  {
+    long tuplesPerSecond = status.tuplesProcessedPSMA.get();
+    if (tuplesPerSecond <= 0) {
+      tuplesPerSecond = status.tuplesEmittedPSMA.get();
+    }
+    if (tuplesPerSecond <= 0) {
+      return -1;
+    }
+    // CPU nanoseconds per millisecond to nanoseconds per tuple
+    return Math.round(status.cpuNanosPMSMA.getAvg() * 1000 / tuplesPerSecond);
+  }
+}
@@ -18,7 +18,9 @@
  */
 package com.datatorrent.stram.plan.physical;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -34,6 +36,7 @@ import com.datatorrent.stram.api.StreamingContainerUmbilicalProtocol.OperatorHea
 import com.datatorrent.stram.engine.OperatorContext;
 import com.datatorrent.stram.plan.logical.LogicalPlan;
 import com.datatorrent.stram.plan.physical.StatsRevisions.VersionedLong;
+import com.datatorrent.stram.util.LatencyHistogram;
 import com.datatorrent.stram.util.MovingAverage.MovingAverageLong;
 import com.datatorrent.stram.util.MovingAverage.TimedMovingAverageLong;
 
@@ -54,18 +57,65 @@ public class OperatorStatus implements BatchedOperatorStats, java.io.Serializabl
     public final TimedMovingAverageLong tuplesPMSMA;
     public final TimedMovingAverageLong bufferServerBytesPMSMA;
     public final MovingAverageLong queueSizeMA;
+    public final TimedMovingAverageLong decodeNanosPMSMA;
+    public final TimedMovingAverageLong blockedNanosPMSMA;
+    public final TimedMovingAverageLong idleNanosPMSMA;
+    public long suspendCount;
+    public long resumeCount;
+    /**
+     * Nanoseconds the input queue spent at each size bucket since the operator was deployed, null if the queue was
+     * not sampled.
+     */
+    public long[] queueOccupancy;
 
     public PortStatus()
     {
       tuplesPMSMA = new TimedMovingAverageLong(throughputCalculationMaxSamples, throughputCalculationInterval);
       bufferServerBytesPMSMA = new TimedMovingAverageLong(throughputCalculationMaxSamples, throughputCalculationInterval);
       queueSizeMA = new MovingAverageLong(10);
+      decodeNanosPMSMA = new TimedMovingAverageLong(throughputCalculationMaxSamples, throughputCalculationInterval);
+      blockedNanosPMSMA = new TimedMovingAverageLong(throughputCalculationMaxSamples, throughputCalculationInterval);
+      idleNanosPMSMA = new TimedMovingAverageLong(throughputCalculationMaxSamples, throughputCalculationInterval);
+    }
+
+    /**
+     * Add the backpressure counters of the stats of a window.
+     *
+     * @param s the stats of the port
+     * @param elapsedMillis the time covered by the stats
+     */
+    public void addBackpressure(OperatorStats.PortStats s, long elapsedMillis)
+    {
+      blockedNanosPMSMA.add(s.blockedNanos, elapsedMillis);
+      idleNanosPMSMA.add(s.idleNanos, elapsedMillis);
+      suspendCount += s.suspendCount;
+      resumeCount += s.resumeCount;
+      if (s.queueOccupancy != null) {
+        if (queueOccupancy == null) {
+          queueOccupancy = new long[s.queueOccupancy.length];
+        }
+        for (int i = Math.min(queueOccupancy.length, s.queueOccupancy.length); i-- > 0;) {
+          queueOccupancy[i] += s.queueOccupancy[i];
+        }
+      }
+    }
+
+    /**
+     * @return the percentage of the time the port held back its producer
+     */
+    public double getBlockedPercentage()
+    {
+      return blockedNanosPMSMA.getAvg() / 10000;
     }
   }
 
   private final int operatorId;
   public final StatsRevisions statsRevs = new StatsRevisions();
   public OperatorHeartbeat lastHeartbeat;
+  /**
+   * Number of heartbeats processed, the stats only change when a heartbeat is processed.
+   */
+  public long heartbeatCount;
   public final VersionedLong totalTuplesProcessed = statsRevs.newVersionedLong();
   public final VersionedLong totalTuplesEmitted = statsRevs.newVersionedLong();
   public final VersionedLong currentWindowId = statsRevs.newVersionedLong();
@@ -74,6 +124,10 @@ public class OperatorStatus implements BatchedOperatorStats, java.io.Serializabl
   public String recordingId;
   public Stats.CheckpointStats checkpointStats;
   public final MovingAverageLong checkpointTimeMA;
+  /**
+   * Time in milliseconds spent loading the checkpointed state at the last deployment.
+   */
+  public long restoreMillis;
   public final TimedMovingAverageLong cpuNanosPMSMA;
   public final MovingAverageLong latencyMA;
   public final Map<String, PortStatus> inputPortStatusList = new ConcurrentHashMap<>();
@@ -88,6 +142,9 @@ public class OperatorStatus implements BatchedOperatorStats, java.io.Serializabl
   private final LogicalPlan.OperatorMeta operatorMeta;
   private final int throughputCalculationInterval;
   private final int throughputCalculationMaxSamples;
+  private Map<Integer, LatencyHistogram> latencies = new HashMap<>();
+  private Map<Integer, LatencyHistogram> previousLatencies = Collections.emptyMap();
+  private long latencyIntervalStartMillis;
 
 
   public OperatorStatus(int operatorId, LogicalPlan.OperatorMeta om)
@@ -162,6 +219,49 @@ public class OperatorStatus implements BatchedOperatorStats, java.io.Serializabl
     return operatorResponses;
   }
 
+  /**
+   * Add the latencies received with the heartbeat. The latencies are kept for the last one to two throughput
+   * calculation intervals.
+   *
+   * @param histograms latency histograms by source operator id
+   * @param currentTimeMillis time of the heartbeat
+   */
+  public synchronized void addLatencies(Map<Integer, LatencyHistogram> histograms, long currentTimeMillis)
+  {
+    if (currentTimeMillis - latencyIntervalStartMillis >= throughputCalculationInterval) {
+      previousLatencies = latencies;
+      latencies = new HashMap<>();
+      latencyIntervalStartMillis = currentTimeMillis;
+    }
+    for (Map.Entry<Integer, LatencyHistogram> e : histograms.entrySet()) {
+      LatencyHistogram histogram = latencies.get(e.getKey());
+      if (histogram == null) {
+        latencies.put(e.getKey(), e.getValue());
+      } else {
+        histogram.merge(e.getValue());
+      }
+    }
+  }
+
+  /**
+   * @return copy of the recent latency histograms by source operator id
+   */
+  public synchronized Map<Integer, LatencyHistogram> getLatencies()
+  {
+    Map<Integer, LatencyHistogram> result = new HashMap<>();
+    for (Map<Integer, LatencyHistogram> m : Arrays.asList(previousLatencies, latencies)) {
+      for (Map.Entry<Integer, LatencyHistogram> e : m.entrySet()) {
+        LatencyHistogram histogram = result.get(e.getKey());
+        if (histogram == null) {
+          result.put(e.getKey(), e.getValue().copy());
+        } else {
+          histogram.merge(e.getValue());
+        }
+      }
+    }
+    return result;
+  }
+
   private static class SerializationProxy implements java.io.Serializable
   {
     private static final long serialVersionUID = 201312231635L;
@@ -52,6 +52,7 @@ public class PTContainer implements java.io.Serializable
   private final Set<PTContainer> preferredAntiPrefs = new HashSet<>();
 
   public static final Recoverable SET_CONTAINER_STATE = new SetContainerState();
+  public static final Recoverable SET_STANDBY_STATE = new SetStandbyState();
 
   public enum State
   {
@@ -87,25 +88,54 @@ public class PTContainer implements java.io.Serializable
 
       for (PTContainer c : plan.getContainers()) {
         if (c.getId() == containerId) {
-          int stateOrd = in.readInt();
-          c.state = PTContainer.State.values()[stateOrd];
-          c.containerId = in.readString();
-          c.resourceRequestPriority = in.readInt();
-          c.requiredMemoryMB = in.readInt();
-          c.allocatedMemoryMB = in.readInt();
-          c.requiredVCores = in.readInt();
-          c.allocatedVCores = in.readInt();
-          String bufferServerHost = in.readString();
-          if (bufferServerHost != null) {
-            c.bufferServerAddress = InetSocketAddress.createUnresolved(bufferServerHost, in.readInt());
-          }
-          c.host = in.readString();
-          c.nodeHttpAddress = in.readString();
-          int tokenLength = in.readInt();
-          if (tokenLength != -1) {
-            c.bufferServerToken = in.readBytes(tokenLength);
+          readState(c, in);
+          break;
+        }
+      }
+    }
+
+    @Override
+    public void write(final Output out) throws KryoException
+    {
+      out.writeInt(container.getId());
+      writeState(container, out);
+    }
+  }
+
+  /**
+   * Records the warm standby of a container, or that it has none, so that the link survives a restart of the master.
+   */
+  private static class SetStandbyState implements Recoverable
+  {
+    private final PTContainer container;
+
+    private SetStandbyState()
+    {
+      container = null;
+    }
+
+    private SetStandbyState(PTContainer container)
+    {
+      this.container = container;
+    }
+
+    @Override
+    public void read(final Object object, final Input in) throws KryoException
+    {
+      PhysicalPlan plan = (PhysicalPlan)object;
+
+      int containerId = in.readInt();
+      boolean standby = in.readBoolean();
+
+      for (PTContainer c : plan.getContainers()) {
+        if (c.getId() == containerId) {
+          if (!standby) {
+            c.standby = null;
           } else {
-            c.bufferServerToken = null;
+            if (c.standby == null) {
+              plan.newStandbyContainer(c);
+            }
+            readState(c.standby, in);
           }
           break;
         }
@@ -116,38 +146,71 @@ public class PTContainer implements java.io.Serializable
     public void write(final Output out) throws KryoException
     {
       out.writeInt(container.getId());
-      // state
-      out.writeInt(container.getState().ordinal());
-      // external id
-      out.writeString(container.getExternalId());
-      // resource priority
-      out.writeInt(container.getResourceRequestPriority());
-      // memory required
-      out.writeInt(container.getRequiredMemoryMB());
-      // memory allocated
-      out.writeInt(container.getAllocatedMemoryMB());
-      // vcores required
-      out.writeInt(container.getRequiredVCores());
-      // vcores allocated
-      out.writeInt(container.getAllocatedVCores());
-      // buffer server address
-      InetSocketAddress addr = container.bufferServerAddress;
-      if (addr != null) {
-        out.writeString(addr.getHostName());
-        out.writeInt(addr.getPort());
-      } else {
-        out.writeString(null);
-      }
-      // host
-      out.writeString(container.host);
-      out.writeString(container.nodeHttpAddress);
-      out.writeInt((container.bufferServerToken == null) ? -1 : container.bufferServerToken.length);
-      if (container.bufferServerToken != null) {
-        out.write(container.bufferServerToken);
+      PTContainer standby = container.getStandby();
+      out.writeBoolean(standby != null);
+      if (standby != null) {
+        writeState(standby, out);
       }
     }
   }
 
+  private static void readState(PTContainer c, Input in)
+  {
+    int stateOrd = in.readInt();
+    c.state = PTContainer.State.values()[stateOrd];
+    c.containerId = in.readString();
+    c.resourceRequestPriority = in.readInt();
+    c.requiredMemoryMB = in.readInt();
+    c.allocatedMemoryMB = in.readInt();
+    c.requiredVCores = in.readInt();
+    c.allocatedVCores = in.readInt();
+    String bufferServerHost = in.readString();
+    if (bufferServerHost != null) {
+      c.bufferServerAddress = InetSocketAddress.createUnresolved(bufferServerHost, in.readInt());
+    }
+    c.host = in.readString();
+    c.nodeHttpAddress = in.readString();
+    int tokenLength = in.readInt();
+    if (tokenLength != -1) {
+      c.bufferServerToken = in.readBytes(tokenLength);
+    } else {
+      c.bufferServerToken = null;
+    }
+  }
+
+  private static void writeState(PTContainer container, Output out)
+  {
+    // state
+    out.writeInt(container.getState().ordinal());
+    // external id
+    out.writeString(container.getExternalId());
+    // resource priority
+    out.writeInt(container.getResourceRequestPriority());
+    // memory required
+    out.writeInt(container.getRequiredMemoryMB());
+    // memory allocated
+    out.writeInt(container.getAllocatedMemoryMB());
+    // vcores required
+    out.writeInt(container.getRequiredVCores());
+    // vcores allocated
+    out.writeInt(container.getAllocatedVCores());
+    // buffer server address
+    InetSocketAddress addr = container.bufferServerAddress;
+    if (addr != null) {
+      out.writeString(addr.getHostName());
+      out.writeInt(addr.getPort());
+    } else {
+      out.writeString(null);
+    }
+    // host
+    out.writeString(container.host);
+    out.writeString(container.nodeHttpAddress);
+    out.writeInt((container.bufferServerToken == null) ? -1 : container.bufferServerToken.length);
+    if (container.bufferServerToken != null) {
+      out.write(container.bufferServerToken);
+    }
+  }
+
   private volatile PTContainer.State state = State.NEW;
   private int requiredMemoryMB;
   private int allocatedMemoryMB;
@@ -169,6 +232,14 @@ public class PTContainer implements java.io.Serializable
   private long finishedTime = -1;
 
   private byte[] bufferServerToken;
+  /**
+   * warm standby that takes over the operators of this container when it fails, null when there is none.
+   */
+  private PTContainer standby;
+  /**
+   * container of which this container is the warm standby, null for the containers of the plan.
+   */
+  PTContainer primary;
 
   PTContainer(PhysicalPlan plan)
   {
@@ -181,6 +252,11 @@ public class PTContainer implements java.io.Serializable
     return new SetContainerState(this);
   }
 
+  public Recoverable getSetStandbyState()
+  {
+    return new SetStandbyState(this);
+  }
+
   public PhysicalPlan getPlan()
   {
     return plan;
@@ -296,6 +372,21 @@ public class PTContainer implements java.io.Serializable
     this.bufferServerToken = bufferServerToken;
   }
 
+  public PTContainer getStandby()
+  {
+    return standby;
+  }
+
+  public void setStandby(PTContainer standby)
+  {
+    this.standby = standby;
+  }
+
+  public PTContainer getPrimary()
+  {
+    return primary;
+  }
+
   public String toIdStateString()
   {
     return new ToStringBuilder(this, ToStringStyle.SHORT_PREFIX_STYLE)
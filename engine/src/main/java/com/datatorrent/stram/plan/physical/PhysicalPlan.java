@@ -134,6 +134,10 @@ public class PhysicalPlan implements Serializable
   final Set<PTOperator> undeployOpers = Sets.newHashSet();
   final ConcurrentMap<Integer, PTOperator> allOperators = Maps.newConcurrentMap();
   private final ConcurrentMap<OperatorMeta, OperatorMeta> pendingRepartition = Maps.newConcurrentMap();
+  private final ConcurrentMap<OperatorMeta, OperatorMeta> pendingUnchain = Maps.newConcurrentMap();
+  private final Map<OperatorMeta, List<StreamMeta>> chains = Maps.newConcurrentMap();
+  private final Set<StreamMeta> chainedStreams = Sets.newSetFromMap(Maps.<StreamMeta, Boolean>newConcurrentMap());
+  private final Set<StreamMeta> unchainedStreams = Sets.newSetFromMap(Maps.<StreamMeta, Boolean>newConcurrentMap());
 
   private final AtomicInteger strCodecIdSequence = new AtomicInteger();
   private final Map<StreamCodec<?>, Integer> streamCodecIdentifiers = Maps.newHashMap();
@@ -343,6 +347,13 @@ public class PhysicalPlan implements Serializable
     this.maxContainers = Math.max(dag.getMaxContainerCount(), 1);
     LOG.debug("Max containers: {}", this.maxContainers);
 
+    if (dag.getValue(LogicalPlan.OPERATOR_CHAINING)) {
+      chains.putAll(OperatorChaining.chain(dag));
+      for (List<StreamMeta> chain : chains.values()) {
+        chainedStreams.addAll(chain);
+      }
+    }
+
     Stack<OperatorMeta> pendingNodes = new Stack<>();
 
     // Add logging operators for streams if not added already
@@ -655,6 +666,24 @@ public class PhysicalPlan implements Serializable
     container.setRequiredMemoryMB(container.getRequiredMemoryMB() + memoryMB);
   }
 
+  /**
+   * Create the warm standby of a container. The standby is not part of the plan, when the container fails its operators
+   * move to the process of the standby.
+   *
+   * @param container the container of the plan
+   * @return the standby container
+   */
+  public PTContainer newStandbyContainer(PTContainer container)
+  {
+    PTContainer standby = new PTContainer(this);
+    standby.primary = container;
+    standby.setRequiredMemoryMB(container.getRequiredMemoryMB());
+    standby.setRequiredVCores(container.getRequiredVCores());
+    standby.getPreferredAntiPrefs().add(container);
+    container.setStandby(standby);
+    return standby;
+  }
+
   private void updateContainerMemoryWithBufferServer(PTContainer container)
   {
     int bufferServerMemory = 0;
@@ -771,6 +800,14 @@ public class PhysicalPlan implements Serializable
       m.statsHandlers.addAll(statsListeners);
     }
 
+    if (partitioner instanceof StatsListener && partitioner != operator
+        && (statsListeners == null || !statsListeners.contains(partitioner))) {
+      if (m.statsHandlers == null) {
+        m.statsHandlers = new ArrayList<>(1);
+      }
+      m.statsHandlers.add((StatsListener)partitioner);
+    }
+
     if (m.logicalOperator.getOperator() instanceof StatsListener) {
       if (m.statsHandlers == null) {
         m.statsHandlers = new ArrayList<>(1);
@@ -869,13 +906,15 @@ public class PhysicalPlan implements Serializable
 
     int memoryPerPartition = currentMapping.logicalOperator.getValue(OperatorContext.MEMORY_MB);
     for (Map.Entry<OutputPortMeta, StreamMeta> stream : currentMapping.logicalOperator.getOutputStreams().entrySet()) {
-      if (stream.getValue().getLocality() != Locality.THREAD_LOCAL && stream.getValue().getLocality() != Locality.CONTAINER_LOCAL) {
+      Locality locality = getLocality(stream.getValue());
+      if (locality != Locality.THREAD_LOCAL && locality != Locality.CONTAINER_LOCAL) {
         memoryPerPartition += stream.getKey().getValue(PortContext.BUFFER_MEMORY_MB);
       }
     }
     for (OperatorMeta pp : currentMapping.parallelPartitions) {
       for (Map.Entry<OutputPortMeta, StreamMeta> stream : pp.getOutputStreams().entrySet()) {
-        if (stream.getValue().getLocality() != Locality.THREAD_LOCAL && stream.getValue().getLocality() != Locality.CONTAINER_LOCAL) {
+        Locality locality = getLocality(stream.getValue());
+        if (locality != Locality.THREAD_LOCAL && locality != Locality.CONTAINER_LOCAL) {
           memoryPerPartition += stream.getKey().getValue(PortContext.BUFFER_MEMORY_MB);
         }
       }
@@ -906,6 +945,11 @@ public class PhysicalPlan implements Serializable
       }
     }
 
+    if (addedPartitions.isEmpty() && mainPC.currentPartitionMap.isEmpty()) {
+      LOG.info("Partitions of {} unchanged by the repartitioning{}", currentMapping.logicalOperator.getName(),
+          note == null ? "" : " requested with: " + note);
+    }
+
     // remaining entries represent deprecated partitions
     this.undeployOpers.addAll(mainPC.currentPartitionMap.values());
     // downstream dependencies require redeploy, resolve prior to modifying plan
@@ -1116,6 +1160,29 @@ public class PhysicalPlan implements Serializable
 
   }
 
+  /**
+   * Rebuild the unifiers of a stream with a new unifier limit and deploy the changes. The partitions of the
+   * upstream operator are not redeployed.
+   *
+   * @param mapping stream mapping whose unifiers are rebuilt
+   * @param unifierLimit new unifier limit, 0 to use the configured limit
+   */
+  void redoUnifiers(StreamMapping mapping, int unifierLimit)
+  {
+    OperatorMeta sourceOM = mapping.getStreamMeta().getSource().getOperatorMeta();
+    PMapping sourceMapping = this.logicalToPTOperator.get(sourceOM);
+    if (sourceMapping == null || sourceMapping.outputStreams.get(mapping.getStreamMeta().getSource()) != mapping) {
+      LOG.debug("Stream mapping for {} no longer in the plan", mapping.getStreamMeta());
+      return;
+    }
+    mapping.setUnifierLimit(unifierLimit);
+    mapping.setSources(sourceMapping.partitions);
+    deployChanges();
+
+    StramEvent ev = new StramEvent.ChangeUnifierLimitEvent(mapping.getStreamMeta().getName(), mapping.getUnifierLimit());
+    this.ctx.recordEventAsync(ev);
+  }
+
   public void deployChanges()
   {
     Set<PTContainer> newContainers = Sets.newHashSet();
@@ -1656,9 +1723,10 @@ public class PhysicalPlan implements Serializable
         upstreamPartitioned = m;
       }
 
-      if (Locality.CONTAINER_LOCAL == e.getValue().getLocality() || Locality.THREAD_LOCAL == e.getValue().getLocality()) {
+      Locality locality = getLocality(e.getValue());
+      if (Locality.CONTAINER_LOCAL == locality || Locality.THREAD_LOCAL == locality) {
         inlinePrefs.setLocal(m, pnodes);
-      } else if (Locality.NODE_LOCAL == e.getValue().getLocality()) {
+      } else if (Locality.NODE_LOCAL == locality) {
         localityPrefs.setLocal(m, pnodes);
       }
     }
@@ -1790,6 +1858,143 @@ public class PhysicalPlan implements Serializable
     this.availableMemoryMB = memoryMB;
   }
 
+  /**
+   * The locality with which the stream is deployed, which differs from the logical locality for the streams chained
+   * by {@link OperatorChaining}.
+   *
+   * @param sm logical stream
+   * @return the locality of the physical stream
+   */
+  public Locality getLocality(StreamMeta sm)
+  {
+    if (chainedStreams.contains(sm)) {
+      return Locality.THREAD_LOCAL;
+    } else if (unchainedStreams.contains(sm)) {
+      return Locality.CONTAINER_LOCAL;
+    }
+    return sm.getLocality();
+  }
+
+  /**
+   * Whether the stream of the output is carried by a shared memory ring between the containers instead of the buffer
+   * server. This is decided when the publisher or a subscriber in another container is deployed first, for NODE_LOCAL
+   * streams when {@link LogicalPlan#SHARED_MEMORY_DIR} is set, except with the fast publisher and subscriber which use
+   * their own serialization. Node locality is only a preference of the placement, so the ring is chosen only when the
+   * hosts of all the containers of the stream are known and the same. When a container of the stream was later
+   * placed on another host, the stream switches to the buffer server and the publisher is redeployed with its
+   * downstream operators.
+   *
+   * @param out the output
+   * @return true if the publisher and the subscribers in other containers use the shared memory ring
+   */
+  public boolean isSharedMemoryStream(final PTOutput out)
+  {
+    synchronized (out) {
+      if (out.sharedMemory == null) {
+        out.sharedMemory = getLocality(out.logicalStream) == Locality.NODE_LOCAL
+            && dag.getValue(LogicalPlan.SHARED_MEMORY_DIR) != null && !dag.getValue(LogicalPlan.FAST_PUBLISHER_SUBSCRIBER)
+            && isSameHost(out);
+        return out.sharedMemory;
+      }
+      if (!out.sharedMemory || isSameHost(out)) {
+        return out.sharedMemory;
+      }
+      out.sharedMemory = false;
+    }
+
+    LOG.info("Switching {} to the buffer server as its containers are on different hosts", out);
+    // hand over to monitor thread
+    ctx.dispatch(new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        undeployOpers.add(out.source);
+        deployOpers.add(out.source);
+        deployChanges();
+      }
+    });
+    return false;
+  }
+
+  private static boolean isSameHost(PTOutput out)
+  {
+    String host = out.source.getContainer().host;
+    if (host == null) {
+      return false;
+    }
+    for (PTInput sink : out.sinks) {
+      PTContainer container = sink.target.getContainer();
+      if (container == null || !host.equals(container.host)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Redeploy the operators of a chain into separate threads when the CPU time per tuple of the chain exceeds
+   * {@link LogicalPlan#OPERATOR_CHAINING_MAX_TUPLE_COST_NANOS}. Only the stats of the first operator of the chain are
+   * checked, the other operators return immediately.
+   *
+   * @param oper operator with updated stats
+   */
+  public void checkChaining(PTOperator oper)
+  {
+    if (chains.isEmpty() || oper.isUnifier()) {
+      return;
+    }
+    final OperatorMeta om = oper.getOperatorMeta();
+    final List<StreamMeta> chain = chains.get(om);
+    if (chain == null) {
+      return;
+    }
+    long tupleCostNanos = OperatorChaining.getTupleCostNanos(oper.stats);
+    if (tupleCostNanos <= dag.getValue(LogicalPlan.OPERATOR_CHAINING_MAX_TUPLE_COST_NANOS)) {
+      return;
+    }
+    if (this.pendingUnchain.putIfAbsent(om, om) == null) {
+      LOG.info("Scheduling unchaining of {} for {} tuple cost {} ns", chain, oper, tupleCostNanos);
+      // hand over to monitor thread
+      ctx.dispatch(new Runnable()
+      {
+        @Override
+        public void run()
+        {
+          unchainStreams(chain);
+          pendingUnchain.remove(om);
+        }
+      });
+    }
+  }
+
+  /**
+   * Make the chained streams container local and redeploy their operators into separate threads.
+   *
+   * @param streams chained streams
+   */
+  public void unchainStreams(Collection<StreamMeta> streams)
+  {
+    boolean changed = false;
+    for (StreamMeta sm : streams) {
+      if (!chainedStreams.remove(sm)) {
+        // already unchained
+        continue;
+      }
+      unchainedStreams.add(sm);
+      for (OperatorMeta om : new OperatorMeta[] {sm.getSource().getOperatorMeta(), sm.getSinks().get(0).getOperatorWrapper()}) {
+        chains.remove(om);
+        List<PTOperator> operators = getOperators(om);
+        this.undeployOpers.addAll(operators);
+        this.deployOpers.addAll(operators);
+      }
+      changed = true;
+    }
+    if (changed) {
+      deployChanges();
+    }
+  }
+
   public void onStatusUpdate(PTOperator oper)
   {
     for (StatsListener l : oper.statsListeners) {
@@ -20,9 +20,12 @@ package com.datatorrent.stram.plan.physical;
 
 import java.util.Collections;
 import java.util.Map;
+import java.util.Set;
 
 import javax.validation.ValidationException;
 
+import com.google.common.collect.Sets;
+
 import com.datatorrent.api.Context.DAGContext;
 import com.datatorrent.api.Operator;
 import com.datatorrent.api.Operator.InputPort;
@@ -49,6 +52,7 @@ public class PlanModifier
 
   private final LogicalPlan logicalPlan;
   private final PhysicalPlan physicalPlan;
+  private final Set<OperatorMeta> changedOperators = Sets.newIdentityHashSet();
 
   /**
    * For dry run on logical plan only
@@ -86,6 +90,7 @@ public class PlanModifier
     if (sm == null) {
       throw new AssertionError("Stream " + id + " is not found!");
     }
+    changedOperators.add(sm.getSource().getOperatorMeta());
     for (Operator.InputPort<?> sink : sinks) {
       sm.addSink(sink);
       if (physicalPlan != null) {
@@ -96,6 +101,9 @@ public class PlanModifier
         }
       }
     }
+    for (InputPortMeta ipm : sm.getSinks()) {
+      changedOperators.add(ipm.getOperatorWrapper());
+    }
     return sm;
   }
 
@@ -185,6 +193,12 @@ public class PlanModifier
       return;
     }
 
+    if (sm.getSource() != null) {
+      changedOperators.add(sm.getSource().getOperatorMeta());
+    }
+    for (InputPortMeta ipm : sm.getSinks()) {
+      changedOperators.add(ipm.getOperatorWrapper());
+    }
     if (physicalPlan != null) {
       // associated operators will redeploy
       physicalPlan.removeLogicalStream(sm);
@@ -200,6 +214,7 @@ public class PlanModifier
   public void addOperator(String name, Operator operator)
   {
     logicalPlan.addOperator(name, operator);
+    changedOperators.add(logicalPlan.getMeta(operator));
     // add to physical plan after all changes are done
     if (physicalPlan != null) {
       OperatorMeta om = logicalPlan.getMeta(operator);
@@ -270,6 +285,18 @@ public class PlanModifier
     }
     Map<String, String> props = Collections.singletonMap(propertyName, propertyValue);
     LogicalPlanConfiguration.setOperatorProperties(om.getOperator(), props);
+    changedOperators.add(om);
+  }
+
+  /**
+   * Operators that were added, reconfigured or connected to added or removed streams, for incremental validation of
+   * the modified plan with {@link LogicalPlan#validate(Set)}.
+   *
+   * @return the changed operators
+   */
+  public Set<OperatorMeta> getChangedOperators()
+  {
+    return Collections.unmodifiableSet(changedOperators);
   }
 
   /**
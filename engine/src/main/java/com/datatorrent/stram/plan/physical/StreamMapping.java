@@ -36,6 +36,7 @@ import com.datatorrent.api.Context;
 import com.datatorrent.api.Context.PortContext;
 import com.datatorrent.api.Operator;
 import com.datatorrent.api.Partitioner.PartitionKeys;
+import com.datatorrent.api.StatsListener;
 import com.datatorrent.api.StreamCodec;
 
 import com.datatorrent.common.util.Pair;
@@ -67,6 +68,9 @@ public class StreamMapping implements java.io.Serializable
   final Set<PTOperator> cascadingUnifiers = Sets.newHashSet();
   final Set<PTOperator> slidingUnifiers = Sets.newHashSet();
   private final List<PTOutput> upstream = Lists.newArrayList();
+  // unifier limit set by the adaptive unifier topology, 0 to use the configured limit
+  private int unifierLimit;
+  private AdaptiveUnifierListener adaptiveListener;
 
   public StreamMapping(StreamMeta streamMeta, PhysicalPlan plan)
   {
@@ -74,6 +78,26 @@ public class StreamMapping implements java.io.Serializable
     this.plan = plan;
   }
 
+  StreamMeta getStreamMeta()
+  {
+    return streamMeta;
+  }
+
+  int getUpstreamCount()
+  {
+    return upstream.size();
+  }
+
+  int getUnifierLimit()
+  {
+    return unifierLimit > 0 ? unifierLimit : streamMeta.getSource().getValue(PortContext.UNIFIER_LIMIT);
+  }
+
+  void setUnifierLimit(int unifierLimit)
+  {
+    this.unifierLimit = unifierLimit;
+  }
+
   void addTo(Collection<PTOperator> opers)
   {
     if (finalUnifier != null) {
@@ -231,7 +255,7 @@ public class StreamMapping implements java.io.Serializable
       plan.undeployOpers.addAll(currentUnifiers);
       addSlidingUnifiers();
 
-      int limit = streamMeta.getSource().getValue(PortContext.UNIFIER_LIMIT);
+      int limit = getUnifierLimit();
 
       boolean separateUnifiers = false;
       Integer lastId = null;
@@ -350,6 +374,20 @@ public class StreamMapping implements java.io.Serializable
         finalUnifier = null;
       }
 
+      if (finalUnifier != null && streamMeta.getSource().getValue(PortContext.UNIFIER_ADAPTIVE)) {
+        if (adaptiveListener == null) {
+          adaptiveListener = new AdaptiveUnifierListener(this, plan);
+        }
+        if (finalUnifier.statsListeners == null || !finalUnifier.statsListeners.contains(adaptiveListener)) {
+          List<StatsListener> listeners = Lists.newArrayList();
+          if (finalUnifier.statsListeners != null) {
+            listeners.addAll(finalUnifier.statsListeners);
+          }
+          listeners.add(adaptiveListener);
+          finalUnifier.statsListeners = listeners;
+        }
+      }
+
     }
 
   }
@@ -19,11 +19,13 @@
 package com.datatorrent.stram.stream;
 
 import java.net.InetSocketAddress;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.datatorrent.api.BatchSink;
 import com.datatorrent.api.StreamCodec;
 import com.datatorrent.bufferserver.client.Publisher;
 import com.datatorrent.bufferserver.packet.BeginWindowTuple;
@@ -40,6 +42,7 @@ import com.datatorrent.stram.codec.StatefulStreamCodec;
 import com.datatorrent.stram.codec.StatefulStreamCodec.DataStatePair;
 import com.datatorrent.stram.engine.ByteCounterStream;
 import com.datatorrent.stram.engine.StreamContext;
+import com.datatorrent.stram.tuple.LatencyMarkerTuple;
 import com.datatorrent.stram.tuple.Tuple;
 
 import static java.lang.Thread.sleep;
@@ -54,10 +57,11 @@ import static java.lang.Thread.sleep;
  *
  * @since 0.3.2
  */
-public class BufferServerPublisher extends Publisher implements ByteCounterStream
+public class BufferServerPublisher extends Publisher implements ByteCounterStream, BatchSink<Object>
 {
   private StreamCodec<Object> serde;
   private final AtomicLong publishedByteCount;
+  private final AtomicLong blockedNanos = new AtomicLong();
   private EventLoop eventloop;
   private int count;
   private StatefulStreamCodec<Object> statefulSerde;
@@ -73,7 +77,6 @@ public class BufferServerPublisher extends Publisher implements ByteCounterStrea
    * @param payload
    */
   @Override
-  @SuppressWarnings("SleepWhileInLoop")
   public void put(Object payload)
   {
     count++;
@@ -107,42 +110,73 @@ public class BufferServerPublisher extends Publisher implements ByteCounterStrea
           array = ResetWindowTuple.getSerializedTuple(rwt.getBaseSeconds(), rwt.getIntervalMillis());
           break;
 
+        case LATENCY_MARKER:
+          array = ((LatencyMarkerTuple)t).getSerializedTuple();
+          break;
+
         default:
           throw new UnsupportedOperationException("this data type is not handled in the stream");
       }
     } else {
-      if (statefulSerde == null) {
-        array = PayloadTuple.getSerializedTuple(serde.getPartition(payload), serde.toByteArray(payload));
-      } else {
-        DataStatePair dsp = statefulSerde.toDataStatePair(payload);
-        /*
-         * if there is any state write that for the subscriber before we write the data.
-         */
-        if (dsp.state != null) {
-          array = DataTuple.getSerializedTuple(MessageType.CODEC_STATE_VALUE, dsp.state);
-          try {
-            while (!write(array)) {
-              sleep(5);
-            }
-          } catch (InterruptedException ie) {
-            throw new RuntimeException(ie);
-          }
-        }
-        /*
-         * Now that the state if any has been sent, we can proceed with the actual data we want to send.
-         */
-        array = PayloadTuple.getSerializedTuple(statefulSerde.getPartition(payload), dsp.data);
-      }
+      array = serialize(payload);
     }
 
-    try {
-      while (!write(array)) {
-        sleep(5);
+    publish(array);
+  }
+
+  /**
+   * Serialize and publish the data tuples of the batch one after the other, the buffer server protocol has no
+   * batches.
+   *
+   * @param tuples
+   */
+  @Override
+  public void putBatch(List<Object> tuples)
+  {
+    count += tuples.size();
+    for (Object payload : tuples) {
+      publish(serialize(payload));
+    }
+  }
+
+  /**
+   * Serialize a data tuple, the codec state that the subscriber needs to deserialize it is published first.
+   */
+  private byte[] serialize(Object payload)
+  {
+    if (statefulSerde == null) {
+      return PayloadTuple.getSerializedTuple(serde.getPartition(payload), serde.toByteArray(payload));
+    }
+
+    DataStatePair dsp = statefulSerde.toDataStatePair(payload);
+    /*
+     * if there is any state write that for the subscriber before we write the data.
+     */
+    if (dsp.state != null) {
+      publish(DataTuple.getSerializedTuple(MessageType.CODEC_STATE_VALUE, dsp.state));
+    }
+    /*
+     * Now that the state if any has been sent, we can proceed with the actual data we want to send.
+     */
+    return PayloadTuple.getSerializedTuple(statefulSerde.getPartition(payload), dsp.data);
+  }
+
+  @SuppressWarnings("SleepWhileInLoop")
+  private void publish(byte[] array)
+  {
+    if (!write(array)) {
+      long start = System.nanoTime();
+      try {
+        do {
+          sleep(5);
+        } while (!write(array));
+      } catch (InterruptedException ie) {
+        throw new RuntimeException(ie);
+      } finally {
+        blockedNanos.addAndGet(System.nanoTime() - start);
       }
-      publishedByteCount.addAndGet(array.length);
-    } catch (InterruptedException ie) {
-      throw new RuntimeException(ie);
     }
+    publishedByteCount.addAndGet(array.length);
   }
 
   /**
@@ -204,6 +238,19 @@ public class BufferServerPublisher extends Publisher implements ByteCounterStrea
     return publishedByteCount.get();
   }
 
+  /**
+   * @param reset whether to reset the time
+   * @return the time in nanoseconds the operator was blocked because the send buffer was full
+   */
+  public long getBlockedNanos(boolean reset)
+  {
+    if (reset) {
+      return blockedNanos.getAndSet(0);
+    }
+
+    return blockedNanos.get();
+  }
+
   @Override
   public int getCount(boolean reset)
   {
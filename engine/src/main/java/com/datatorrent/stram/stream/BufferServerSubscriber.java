@@ -22,12 +22,15 @@ import java.net.InetSocketAddress;
 import java.util.ArrayDeque;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.datatorrent.api.Sink;
+import com.datatorrent.api.Stats.OperatorStats.PortStats;
 import com.datatorrent.api.StreamCodec;
 import com.datatorrent.bufferserver.client.Subscriber;
 import com.datatorrent.bufferserver.util.Codec;
@@ -44,6 +47,7 @@ import com.datatorrent.stram.plan.logical.StreamCodecWrapperForPersistance;
 import com.datatorrent.stram.tuple.CheckpointTuple;
 import com.datatorrent.stram.tuple.EndStreamTuple;
 import com.datatorrent.stram.tuple.EndWindowTuple;
+import com.datatorrent.stram.tuple.LatencyMarkerTuple;
 import com.datatorrent.stram.tuple.ResetWindowTuple;
 import com.datatorrent.stram.tuple.Tuple;
 
@@ -52,12 +56,25 @@ import com.datatorrent.stram.tuple.Tuple;
  * <br>
  * Extends SocketInputStream as buffer server and node communicate via a socket<br>
  * This buffer server is a read instance of a stream and takes care of connectivity with upstream buffer server<br>
+ * <br>
+ * By default the fragments received from the buffer server are deserialized on the thread of the operator sweeping
+ * the reservoirs. When a decoder executor is set in the {@link StreamContext#DECODER}, the fragments are deserialized
+ * ahead of the operator by a task on the executor into a queue bounded by the queue capacity, and the reservoirs are
+ * filled from that queue. Only one decode task per subscriber runs at a time, so the tuples keep their order.
  *
  * @since 0.3.2
  */
 public class BufferServerSubscriber extends Subscriber implements ByteCounterStream
 {
+  /**
+   * Returned by decode for the fragments that do not produce a tuple, null is a valid payload.
+   */
+  private static final Object NO_TUPLE = new Object();
   private boolean suspended;
+  private long suspendedNanos;
+  private long suspendStart;
+  private int suspendCount;
+  private int resumeCount;
   private long baseSeconds;
   protected StreamCodec<Object> serde;
   protected StatefulStreamCodec<Object> statefulSerde;
@@ -69,6 +86,19 @@ public class BufferServerSubscriber extends Subscriber implements ByteCounterStr
   private final ArrayDeque<CircularBuffer<Slice>> backlog;
   private int lastWindowId = WindowGenerator.MAX_WINDOW_ID;
   private final AtomicLong readByteCount;
+  private ExecutorService decoder;
+  private CircularBuffer<Object> decodedTuples;
+  private final AtomicBoolean decoding = new AtomicBoolean();
+  private final AtomicLong decodeNanos = new AtomicLong();
+  private volatile RuntimeException failure;
+  private final Runnable decodeTask = new Runnable()
+  {
+    @Override
+    public void run()
+    {
+      decodeAhead();
+    }
+  };
 
   public BufferServerSubscriber(String id, int queueCapacity)
   {
@@ -119,12 +149,18 @@ public class BufferServerSubscriber extends Subscriber implements ByteCounterStr
         if (!suspended) {
           suspendRead();
           suspended = true;
+          suspendCount++;
+          suspendStart = System.nanoTime();
         }
         int newsize = offeredFragments.capacity() == MAX_SENDBUFFER_SIZE ? offeredFragments.capacity() : offeredFragments.capacity() << 1;
         backlog.add(offeredFragments = new CircularBuffer<>(newsize));
         offeredFragments.add(f);
       }
     }
+
+    if (decoder != null && !decoding.get()) {
+      scheduleDecode();
+    }
   }
 
   @Override
@@ -140,6 +176,218 @@ public class BufferServerSubscriber extends Subscriber implements ByteCounterStr
       serde = (StreamCodec<Object>)codec;
     }
     baseSeconds = context.getFinishedWindowId() & 0xffffffff00000000L;
+    decoder = context.get(StreamContext.DECODER);
+    if (decoder != null) {
+      decodedTuples = new CircularBuffer<>(freeFragments.capacity());
+    }
+  }
+
+  public boolean isDecodeAhead()
+  {
+    return decoder != null;
+  }
+
+  /**
+   * @param reset whether to reset the time
+   * @return the time in nanoseconds the decode ahead stage spent deserializing the fragments
+   */
+  public long getDecodeNanos(boolean reset)
+  {
+    if (reset) {
+      return decodeNanos.getAndSet(0);
+    }
+
+    return decodeNanos.get();
+  }
+
+  /**
+   * Resume the read suspended when the fragment queue overflowed, called with the lock on the backlog.
+   */
+  private void resume()
+  {
+    resumeRead();
+    suspended = false;
+    resumeCount++;
+    suspendedNanos += System.nanoTime() - suspendStart;
+  }
+
+  /**
+   * Add the time the read was suspended, including an ongoing suspension, and the number of suspensions and
+   * resumptions since the last report to the stats of the input port.
+   *
+   * @param stats the stats of the input port
+   */
+  public void reportBackpressure(PortStats stats)
+  {
+    synchronized (backlog) {
+      if (suspended) {
+        long now = System.nanoTime();
+        suspendedNanos += now - suspendStart;
+        suspendStart = now;
+      }
+      stats.blockedNanos += suspendedNanos;
+      stats.suspendCount += suspendCount;
+      stats.resumeCount += resumeCount;
+      suspendedNanos = 0;
+      suspendCount = 0;
+      resumeCount = 0;
+    }
+  }
+
+  private void scheduleDecode()
+  {
+    if (decoding.compareAndSet(false, true)) {
+      decoder.execute(decodeTask);
+    }
+  }
+
+  /**
+   * Decode the fragments till there are no more fragments or the queue of the decoded tuples is full. The task is
+   * scheduled again when new fragments arrive or the operator makes room in the queue. A failure is rethrown to the
+   * operator on the next sweep and no more fragments are decoded.
+   */
+  private void decodeAhead()
+  {
+    do {
+      long start = System.nanoTime();
+      try {
+        decodeFragments();
+      } catch (RuntimeException ex) {
+        failure = ex;
+        return;
+      }
+      decodeNanos.addAndGet(System.nanoTime() - start);
+      decoding.set(false);
+      // fragments received and room made while the task was running did not schedule it
+    } while (decodedTuples.remainingCapacity() > 0 && hasUndecodedFragments() && decoding.compareAndSet(false, true));
+  }
+
+  /**
+   * Fail the stream, the exception is rethrown to the operator once it consumed the fragments received before.
+   *
+   * @param ex the cause of the failure
+   */
+  protected void fail(RuntimeException ex)
+  {
+    failure = ex;
+  }
+
+  /**
+   * Decode the fragments into the decoded tuples while there is room for them.
+   */
+  private void decodeFragments()
+  {
+    synchronized (backlog) {
+      while (decodedTuples.remainingCapacity() > 0) {
+        if (polledFragments.isEmpty()) {
+          if (offeredFragments == polledFragments) {
+            if (failure != null) {
+              throw failure;
+            }
+            if (suspended) {
+              resume();
+            }
+            return;
+          }
+          polledFragments = backlog.remove();
+          continue;
+        }
+
+        Object o = decode(polledFragments.pollUnsafe(), null);
+        if (o != NO_TUPLE) {
+          decodedTuples.add(o);
+        }
+      }
+    }
+  }
+
+  /**
+   * Whether there are received fragments which were not decoded yet. Outside of the decode task the result is only
+   * reliable after {@link #decoding} was seen false, which publishes the queues as the decode task left them.
+   *
+   * @return true if there are fragments left to decode
+   */
+  private boolean hasUndecodedFragments()
+  {
+    return !polledFragments.isEmpty() || offeredFragments != polledFragments;
+  }
+
+  /**
+   * Deserialize the fragment and return it to the free fragments.
+   *
+   * @param fm the fragment
+   * @param reservoir the reservoir deserializing the payload or null for the stream codec of the subscriber
+   * @return the tuple, which may be a null payload, or {@link #NO_TUPLE} when the fragment does not produce a tuple
+   */
+  private Object decode(Slice fm, BufferReservoir reservoir)
+  {
+    com.datatorrent.bufferserver.packet.Tuple data = com.datatorrent.bufferserver.packet.Tuple.getTuple(fm.buffer, fm.offset, fm.length);
+    Object o;
+    switch (data.getType()) {
+      case NO_MESSAGE:
+        o = NO_TUPLE;
+        break;
+
+      case CODEC_STATE:
+        dsp.state = data.getData();
+        o = NO_TUPLE;
+        break;
+
+      case RESET_WINDOW:
+        baseSeconds = (long)data.getBaseSeconds() << 32;
+        if (lastWindowId < WindowGenerator.MAX_WINDOW_ID) {
+          o = NO_TUPLE;
+          break;
+        }
+        o = new ResetWindowTuple(baseSeconds | data.getWindowWidth());
+        break;
+
+      case PAYLOAD:
+        o = reservoir == null ? decodePayload(data) : reservoir.processPayload(data);
+        break;
+
+      case CHECKPOINT:
+        if (statefulSerde != null) {
+          statefulSerde.resetState();
+        }
+        o = new CheckpointTuple(baseSeconds | data.getWindowId());
+        break;
+
+      case END_WINDOW:
+        //logger.debug("received {}", data);
+        o = new EndWindowTuple(baseSeconds | (lastWindowId = data.getWindowId()));
+        break;
+
+      case END_STREAM:
+        o = new EndStreamTuple(baseSeconds | data.getWindowId());
+        break;
+
+      case LATENCY_MARKER:
+        o = LatencyMarkerTuple.fromSerializedData(baseSeconds, data.getData());
+        break;
+
+      case BEGIN_WINDOW:
+        o = new Tuple(data.getType(), baseSeconds | data.getWindowId());
+        break;
+
+      default:
+        throw new IllegalArgumentException("Unhandled Message Type " + data.getType());
+    }
+
+    freeFragments.offer(fm);
+    return o;
+  }
+
+  private Object decodePayload(com.datatorrent.bufferserver.packet.Tuple data)
+  {
+    Object o;
+    if (statefulSerde == null) {
+      o = serde.fromByteArray(data.getData());
+    } else {
+      dsp.data = data.getData();
+      o = statefulSerde.fromDataStatePair(dsp);
+    }
+    return o;
   }
 
   @Override
@@ -283,14 +531,43 @@ public class BufferServerSubscriber extends Subscriber implements ByteCounterStr
         count += size;
       }
 
+      if (decodedTuples != null) {
+        if (failure != null && decodedTuples.isEmpty()) {
+          throw failure;
+        }
+        synchronized (decodedTuples) {
+          int min = decodedTuples.size();
+          for (int i = reservoirs.length; i-- > 0;) {
+            if (reservoirs[i].remainingCapacity() < min) {
+              min = reservoirs[i].remainingCapacity();
+            }
+          }
+
+          while (min-- > 0) {
+            Object o = decodedTuples.pollUnsafe();
+            for (int i = reservoirs.length; i-- > 0;) {
+              reservoirs[i].add(o);
+            }
+          }
+        }
+
+        // the decode task stops when the decoded tuples fill up, resume it once there is room for them
+        if (!decoding.get() && hasUndecodedFragments()) {
+          scheduleDecode();
+        }
+        return null;
+      }
+
       synchronized (backlog) {
         /* find out the minimum remaining capacity in all the other buffers and consume those many tuples from bufferserver */
         int min = polledFragments.size();
         if (min == 0) {
           if (offeredFragments == polledFragments) {
+            if (failure != null) {
+              throw failure;
+            }
             if (suspended) {
-              resumeRead();
-              suspended = false;
+              resume();
             }
             return null;
           }
@@ -305,57 +582,11 @@ public class BufferServerSubscriber extends Subscriber implements ByteCounterStr
         }
 
         while (min-- > 0) {
-          Slice fm = polledFragments.pollUnsafe();
-          com.datatorrent.bufferserver.packet.Tuple data = com.datatorrent.bufferserver.packet.Tuple.getTuple(fm.buffer, fm.offset, fm.length);
-          Object o;
-          switch (data.getType()) {
-            case NO_MESSAGE:
-              freeFragments.offer(fm);
-              continue;
-
-            case CODEC_STATE:
-              dsp.state = data.getData();
-              freeFragments.offer(fm);
-              continue;
-
-            case RESET_WINDOW:
-              baseSeconds = (long)data.getBaseSeconds() << 32;
-              if (lastWindowId < WindowGenerator.MAX_WINDOW_ID) {
-                freeFragments.offer(fm);
-                continue;
-              }
-              o = new ResetWindowTuple(baseSeconds | data.getWindowWidth());
-              break;
-
-            case PAYLOAD:
-              o = processPayload(data);
-              break;
-
-            case CHECKPOINT:
-              if (statefulSerde != null) {
-                statefulSerde.resetState();
-              }
-              o = new CheckpointTuple(baseSeconds | data.getWindowId());
-              break;
-
-            case END_WINDOW:
-              //logger.debug("received {}", data);
-              o = new EndWindowTuple(baseSeconds | (lastWindowId = data.getWindowId()));
-              break;
-
-            case END_STREAM:
-              o = new EndStreamTuple(baseSeconds | data.getWindowId());
-              break;
-
-            case BEGIN_WINDOW:
-              o = new Tuple(data.getType(), baseSeconds | data.getWindowId());
-              break;
-
-            default:
-              throw new IllegalArgumentException("Unhandled Message Type " + data.getType());
+          Object o = decode(polledFragments.pollUnsafe(), this);
+          if (o == NO_TUPLE) {
+            continue;
           }
 
-          freeFragments.offer(fm);
           if (skipObject) {
             skipObject = false;
           } else {
@@ -371,14 +602,7 @@ public class BufferServerSubscriber extends Subscriber implements ByteCounterStr
 
     protected Object processPayload(com.datatorrent.bufferserver.packet.Tuple data)
     {
-      Object o;
-      if (statefulSerde == null) {
-        o = serde.fromByteArray(data.getData());
-      } else {
-        dsp.data = data.getData();
-        o = statefulSerde.fromDataStatePair(dsp);
-      }
-      return o;
+      return decodePayload(data);
     }
 
     @Override
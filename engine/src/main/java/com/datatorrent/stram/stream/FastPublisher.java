@@ -44,6 +44,7 @@ import com.datatorrent.netlet.Listener;
 import com.datatorrent.netlet.Listener.ClientListener;
 import com.datatorrent.stram.engine.Stream;
 import com.datatorrent.stram.engine.StreamContext;
+import com.datatorrent.stram.tuple.LatencyMarkerTuple;
 import com.datatorrent.stram.tuple.Tuple;
 
 import static java.lang.Thread.sleep;
@@ -237,6 +238,10 @@ public class FastPublisher extends Kryo implements ClientListener, Stream
           array = ResetWindowTuple.getSerializedTuple(rwt.getBaseSeconds(), rwt.getIntervalMillis());
           break;
 
+        case LATENCY_MARKER:
+          array = ((LatencyMarkerTuple)t).getSerializedTuple();
+          break;
+
         default:
           throw new UnsupportedOperationException("this data type is not handled in the stream");
       }
@@ -18,10 +18,14 @@
  */
 package com.datatorrent.stram.stream;
 
+import java.util.List;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.datatorrent.api.BatchSink;
 import com.datatorrent.stram.engine.AbstractReservoir;
+import com.datatorrent.stram.engine.Batch;
 import com.datatorrent.stram.engine.Stream;
 import com.datatorrent.stram.engine.StreamContext;
 import com.datatorrent.stram.engine.SweepableReservoir;
@@ -34,7 +38,7 @@ import com.datatorrent.stram.tuple.Tuple;
  *
  * @since 0.3.2
  */
-public class InlineStream implements Stream
+public class InlineStream implements Stream, BatchSink<Object>
 {
   private int count;
   private AbstractReservoir reservoir;
@@ -98,6 +102,23 @@ public class InlineStream implements Stream
     }
   }
 
+  /**
+   * Queue the batch as a single element of the reservoir.
+   *
+   * @param tuples the data tuples
+   */
+  @Override
+  public void putBatch(List<Object> tuples)
+  {
+    try {
+      reservoir.put(new Batch(tuples));
+      count += tuples.size();
+    } catch (InterruptedException ie) {
+      logger.debug("Interrupted", ie);
+      throw new RuntimeException(ie);
+    }
+  }
+
   @Override
   public int getCount(boolean reset)
   {
@@ -20,12 +20,15 @@ package com.datatorrent.stram.stream;
 
 import java.lang.reflect.Array;
 import java.util.HashMap;
+import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.datatorrent.api.BatchSink;
 import com.datatorrent.api.Sink;
 
+import com.datatorrent.stram.engine.Batch;
 import com.datatorrent.stram.engine.Stream;
 import com.datatorrent.stram.engine.StreamContext;
 
@@ -34,7 +37,7 @@ import com.datatorrent.stram.engine.StreamContext;
  *
  * @since 0.3.2
  */
-public class MuxStream implements Stream.MultiSinkCapableStream
+public class MuxStream implements Stream.MultiSinkCapableStream, BatchSink<Object>
 {
   public static final String MULTI_SINK_ID_CONCAT_SEPARATOR = ", ";
   private HashMap<String, Sink<Object>> outputs = new HashMap<>();
@@ -120,6 +123,19 @@ public class MuxStream implements Stream.MultiSinkCapableStream
     }
   }
 
+  /**
+   *
+   * @param tuples
+   */
+  @Override
+  public void putBatch(List<Object> tuples)
+  {
+    count += tuples.size();
+    for (int i = sinks.length; i-- > 0;) {
+      Batch.put(sinks[i], tuples);
+    }
+  }
+
   @Override
   public int getCount(boolean reset)
   {
@@ -18,7 +18,11 @@
  */
 package com.datatorrent.stram.stream;
 
+import java.util.List;
+
+import com.datatorrent.api.BatchSink;
 import com.datatorrent.api.Sink;
+import com.datatorrent.stram.engine.Batch;
 import com.datatorrent.stram.engine.Stream;
 import com.datatorrent.stram.engine.StreamContext;
 import com.datatorrent.stram.engine.SweepableReservoir;
@@ -37,7 +41,7 @@ import com.datatorrent.stram.tuple.Tuple;
  *
  * @since 0.3.5
  */
-public class OiOStream implements Stream
+public class OiOStream implements Stream, BatchSink<Object>
 {
   private Sink<Object> sink;
   private Sink<Tuple> control;
@@ -76,6 +80,14 @@ public class OiOStream implements Stream
     }
   }
 
+  @Override
+  public void putBatch(List<Object> tuples)
+  {
+    count += tuples.size();
+    reservoir.count += tuples.size();
+    Batch.put(sink, tuples);
+  }
+
   @Override
   public int getCount(boolean reset)
   {
@@ -18,10 +18,14 @@
  */
 package com.datatorrent.stram.stream;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 
+import com.datatorrent.api.BatchSink;
 import com.datatorrent.api.Sink;
 import com.datatorrent.api.StreamCodec;
+import com.datatorrent.stram.engine.Batch;
 import com.datatorrent.stram.tuple.Tuple;
 
 /**
@@ -30,10 +34,15 @@ import com.datatorrent.stram.tuple.Tuple;
  * @param <T>
  * @since 0.3.2
  */
-public class PartitionAwareSink<T> implements Sink<T>
+public class PartitionAwareSink<T> implements BatchSink<T>
 {
+  /**
+   * Masks up to this size are resolved through a lookup table instead of the partition set.
+   */
+  static final int MAX_TABLE_MASK = (1 << 16) - 1;
   private final StreamCodec<T> serde;
   private final Set<Integer> partitions;
+  private final boolean[] partitionTable;
   private final int mask;
   private volatile Sink<T> output;
   private int count;
@@ -51,6 +60,14 @@ public class PartitionAwareSink<T> implements Sink<T>
     this.partitions = partitions;
     this.output = output;
     this.mask = mask;
+    if (mask >= 0 && mask <= MAX_TABLE_MASK) {
+      partitionTable = new boolean[mask + 1];
+      for (int i = 0; i <= mask; i++) {
+        partitionTable[i] = partitions.contains(i);
+      }
+    } else {
+      partitionTable = null;
+    }
   }
 
   /**
@@ -69,8 +86,39 @@ public class PartitionAwareSink<T> implements Sink<T>
     }
   }
 
+  /**
+   * Pass the batch on as is when all its tuples belong to the partitions, and the selected tuples otherwise.
+   *
+   * @param tuples
+   */
+  @Override
+  @SuppressWarnings("unchecked")
+  public void putBatch(List<T> tuples)
+  {
+    List<T> selected = tuples;
+    int index = 0;
+    for (T tuple : tuples) {
+      if (selected == tuples) {
+        if (!canSendToOutput(tuple)) {
+          selected = new ArrayList<>(tuples.subList(0, index));
+        }
+      } else if (canSendToOutput(tuple)) {
+        selected.add(tuple);
+      }
+      index++;
+    }
+
+    if (!selected.isEmpty()) {
+      count += selected.size();
+      Batch.put((Sink<Object>)output, (List<Object>)selected);
+    }
+  }
+
   protected boolean canSendToOutput(T payload)
   {
+    if (partitionTable != null) {
+      return partitionTable[serde.getPartition(payload) & mask];
+    }
     return partitions.contains(serde.getPartition(payload) & mask);
   }
 
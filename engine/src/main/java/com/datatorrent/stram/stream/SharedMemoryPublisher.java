@@ -0,0 +1,386 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.stream;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.TreeSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.datatorrent.bufferserver.packet.MessageType;
+import com.datatorrent.bufferserver.packet.ResetWindowTuple;
+import com.datatorrent.bufferserver.packet.Tuple;
+import com.datatorrent.bufferserver.util.Codec;
+import com.datatorrent.stram.engine.StreamContext;
+
+/**
+ * Publisher of a NODE_LOCAL stream writing the tuples into a {@link SharedMemoryRing} instead of sending them to the
+ * buffer server.<p>
+ * <br>
+ * The tuples are serialized as by the buffer server publisher. The publisher keeps the positions of the begin and
+ * reset window tuples in the ring, which it uses to purge the committed windows and, when it is activated again
+ * after a failure, to truncate the ring after the checkpoint window like the buffer server does for a republish.
+ * When the windows which are not committed yet fill the ring, the publisher moves the older half of the ring to a
+ * {@link SharedMemorySpill} segment on disk instead of waiting for the commit, which may depend on the windows it
+ * cannot write. The files of the ring and of the segments are deleted when the publisher is torn down.
+ *
+ * @since 3.5.0
+ */
+public class SharedMemoryPublisher extends BufferServerPublisher
+{
+  private final ArrayDeque<WindowEntry> windows = new ArrayDeque<>();
+  /**
+   * start positions of the segments of the spill.
+   */
+  private final TreeSet<Long> segments = new TreeSet<>();
+  private File file;
+  private int capacity;
+  private SharedMemoryRing ring;
+  private SharedMemorySpill spill;
+  private long baseSeconds;
+  /**
+   * reset window in effect at the first window entry, null if there is none.
+   */
+  private WindowEntry purgedReset;
+
+  public SharedMemoryPublisher(String sourceId)
+  {
+    super(sourceId, 1024);
+  }
+
+  @Override
+  public void setup(StreamContext context)
+  {
+    super.setup(context);
+    file = new File(context.get(StreamContext.SHARED_MEMORY_FILE));
+    capacity = context.getValue(StreamContext.SHARED_MEMORY_CAPACITY);
+    String spillFile = context.get(StreamContext.SHARED_MEMORY_SPILL_FILE);
+    spill = new SharedMemorySpill(spillFile == null ? file : new File(spillFile));
+  }
+
+  @Override
+  public void activate(StreamContext context)
+  {
+    try {
+      ring = SharedMemoryRing.create(file, capacity);
+    } catch (IOException ex) {
+      throw new RuntimeException("Cannot create shared memory ring " + file, ex);
+    }
+    try {
+      rewind(context.getFinishedWindowId());
+    } catch (IOException ex) {
+      throw new RuntimeException("Cannot rewind " + ring, ex);
+    }
+    logger.debug("Registering shared memory publisher: {} {} windowId={} file={}", context.getSourceId(),
+        context.getId(), Codec.getStringWindowId(context.getFinishedWindowId()), file);
+  }
+
+  /**
+   * Rebuild the window index from the retained data and drop the data from the first begin window after the window
+   * id, or from the first reset window with greater base seconds, on.
+   */
+  private synchronized void rewind(long windowId) throws IOException
+  {
+    windows.clear();
+    segments.clear();
+    purgedReset = null;
+    baseSeconds = 0;
+    long head = ring.getHead();
+    for (long start : spill.list()) {
+      if (start < head) {
+        segments.add(start);
+      } else {
+        /* left behind by an earlier ring */
+        spill.delete(start);
+      }
+    }
+
+    long truncate = -1;
+    byte[] header = new byte[16];
+    for (Iterator<Long> iterator = segments.iterator(); iterator.hasNext() && truncate == -1;) {
+      long start = iterator.next();
+      try (SharedMemorySpill.Reader reader = spill.open(start)) {
+        if (start == segments.first() && reader.getReset() != null) {
+          byte[] reset = reader.getReset();
+          purgedReset = newWindowEntry(start, reset, 0, reset.length);
+        }
+        for (long position = reader.next(); position != -1; position = reader.next()) {
+          int headerLength = Math.min(reader.getLength(), header.length);
+          reader.read(header, 0, headerLength);
+          WindowEntry entry = newWindowEntry(position, header, 0, headerLength);
+          if (entry != null) {
+            if (entry.windowId > windowId) {
+              truncate = position;
+              break;
+            }
+            windows.add(entry);
+          }
+        }
+      }
+      if (truncate != -1) {
+        spill.truncate(start, truncate);
+        while (iterator.hasNext()) {
+          spill.delete(iterator.next());
+          iterator.remove();
+        }
+      }
+    }
+    if (segments.isEmpty() && ring.isResetValid()) {
+      baseSeconds = (long)ring.getResetBaseSeconds() << 32;
+      purgedReset = new WindowEntry(head, baseSeconds, ring.getResetIntervalMillis(), true);
+    }
+
+    if (truncate == -1) {
+      long tail = ring.getTail();
+      truncate = tail;
+      for (long position = head; position < tail;) {
+        position = ring.skipPadding(position);
+        int length = ring.getLength(position);
+        int headerLength = Math.min(length, header.length);
+        ring.get(position, header, 0, headerLength);
+        WindowEntry entry = newWindowEntry(position, header, 0, headerLength);
+        if (entry != null) {
+          if (entry.windowId > windowId) {
+            truncate = position;
+            break;
+          }
+          windows.add(entry);
+        }
+        position += 4 + length;
+      }
+      ring.truncate(truncate);
+    } else {
+      WindowEntry reset = getReset(truncate);
+      if (reset == null) {
+        ring.rewind(truncate, 0, 0, false);
+      } else {
+        ring.rewind(truncate, (int)(reset.windowId >>> 32), reset.intervalMillis, true);
+      }
+    }
+    logger.debug("Rewound {} to {} windows {} segments {}", ring, truncate, windows.size(), segments.size());
+  }
+
+  /**
+   * @return the index entry for a begin or reset window tuple, null for the other tuples
+   */
+  private WindowEntry newWindowEntry(long position, byte[] array, int offset, int length)
+  {
+    switch (array[offset]) {
+      case MessageType.BEGIN_WINDOW_VALUE:
+        return new WindowEntry(position, baseSeconds | Tuple.getTuple(array, offset, length).getWindowId(), 0, false);
+
+      case MessageType.RESET_WINDOW_VALUE:
+        Tuple tuple = Tuple.getTuple(array, offset, length);
+        baseSeconds = (long)tuple.getBaseSeconds() << 32;
+        return new WindowEntry(position, baseSeconds, tuple.getWindowWidth(), true);
+
+      default:
+        return null;
+    }
+  }
+
+  @Override
+  public boolean write(byte[] array)
+  {
+    return write(array, 0, array.length);
+  }
+
+  @Override
+  public synchronized boolean write(byte[] array, int offset, int length)
+  {
+    long position = ring.append(array, offset, length);
+    if (position == -1) {
+      spill(false);
+      position = ring.append(array, offset, length);
+      if (position == -1) {
+        spill(true);
+        position = ring.append(array, offset, length);
+        if (position == -1) {
+          return false;
+        }
+      }
+    }
+
+    WindowEntry entry = newWindowEntry(position, array, offset, length);
+    if (entry != null) {
+      windows.add(entry);
+    }
+    return true;
+  }
+
+  /**
+   * Move the records at the head of the ring to a new segment of the spill, up to the first window past half of the
+   * ring or all of them.
+   */
+  private void spill(boolean all)
+  {
+    long head = ring.getHead();
+    long end = ring.getTail();
+    if (!all) {
+      for (WindowEntry entry : windows) {
+        if (entry.position >= head + capacity / 2) {
+          end = entry.position;
+          break;
+        }
+      }
+    }
+    if (end == head) {
+      return;
+    }
+
+    WindowEntry reset = getReset(head);
+    try {
+      spill.write(ring, head, end, reset == null ? null
+          : ResetWindowTuple.getSerializedTuple((int)(reset.windowId >>> 32), reset.intervalMillis));
+    } catch (IOException ex) {
+      throw new RuntimeException("Cannot spill " + ring + " to " + spill, ex);
+    }
+    segments.add(head);
+    moveHead(end);
+    logger.debug("Spilled {} bytes of {} to {}", end - head, ring, spill);
+  }
+
+  /**
+   * @return the reset window in effect at the position, null if there is none
+   */
+  private WindowEntry getReset(long position)
+  {
+    WindowEntry reset = purgedReset;
+    for (WindowEntry entry : windows) {
+      if (entry.position >= position) {
+        break;
+      }
+      if (entry.reset) {
+        reset = entry;
+      }
+    }
+    return reset;
+  }
+
+  /**
+   * Release the space of the ring before the position, with the reset window in effect there.
+   */
+  private void moveHead(long position)
+  {
+    WindowEntry reset = getReset(position);
+    if (reset == null) {
+      ring.purge(position, 0, 0, false);
+    } else {
+      ring.purge(position, (int)(reset.windowId >>> 32), reset.intervalMillis, true);
+    }
+  }
+
+  /**
+   * Release the space of the windows up to and including the window id, in the ring and in the spill.
+   *
+   * @param windowId the last window id to purge
+   */
+  public synchronized void purge(long windowId)
+  {
+    if (ring == null) {
+      return;
+    }
+
+    long position = ring.getTail();
+    for (WindowEntry entry : windows) {
+      if (!entry.reset && entry.windowId > windowId) {
+        position = entry.position;
+        break;
+      }
+    }
+
+    if (position > ring.getHead()) {
+      moveHead(position);
+    }
+
+    for (Iterator<WindowEntry> iterator = windows.iterator(); iterator.hasNext();) {
+      WindowEntry entry = iterator.next();
+      if (entry.position >= position) {
+        break;
+      }
+      if (entry.reset) {
+        purgedReset = entry;
+      }
+      iterator.remove();
+    }
+
+    for (Iterator<Long> iterator = segments.iterator(); iterator.hasNext();) {
+      long start = iterator.next();
+      Long next = segments.higher(start);
+      if ((next == null ? ring.getHead() : next) > position) {
+        break;
+      }
+      spill.delete(start);
+      iterator.remove();
+    }
+  }
+
+  @Override
+  public void deactivate()
+  {
+    synchronized (this) {
+      try {
+        ring.close();
+      } catch (IOException ex) {
+        logger.warn("Cannot close {}", ring, ex);
+      }
+      ring = null;
+    }
+  }
+
+  @Override
+  public void teardown()
+  {
+    if (file != null && file.exists() && !file.delete()) {
+      logger.warn("Cannot delete {}", file);
+    }
+    if (spill != null) {
+      try {
+        spill.deleteAll();
+      } catch (RuntimeException ex) {
+        logger.warn("Cannot delete the segments of {}", spill, ex);
+      }
+    }
+  }
+
+  private static class WindowEntry
+  {
+    final long position;
+    /**
+     * full window id of the begin window or the base seconds of the reset window.
+     */
+    final long windowId;
+    final int intervalMillis;
+    final boolean reset;
+
+    WindowEntry(long position, long windowId, int intervalMillis, boolean reset)
+    {
+      this.position = position;
+      this.windowId = windowId;
+      this.intervalMillis = intervalMillis;
+      this.reset = reset;
+    }
+  }
+
+  private static final Logger logger = LoggerFactory.getLogger(SharedMemoryPublisher.class);
+}
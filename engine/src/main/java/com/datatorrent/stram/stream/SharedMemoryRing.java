@@ -0,0 +1,346 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.stream;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import sun.misc.Unsafe;
+
+/**
+ * Ring buffer in a memory mapped file shared by one writing process and any number of reading processes on the
+ * same host.<p>
+ * <br>
+ * The file starts with a header followed by the data region. The data is a sequence of records, each an int length
+ * followed by that many bytes, which do not wrap around the end of the data region: a record that does not fit is
+ * preceded by a wrap marker, or by nothing when less than 4 bytes are left, and written at the start of the region.
+ * Positions are absolute byte counts which only grow, the offset in the data region is the position modulo the
+ * capacity. The bytes between the head and the tail are retained, the writer only reuses the bytes before the head,
+ * which it moves forward when the data is purged or moved to a {@link SharedMemorySpill}. A purge can drop the reset window tuple that the retained windows
+ * need, so the header keeps the last purged reset window for the readers starting at the head.
+ * <br>
+ * The generation changes every time the writer opens the ring, readers of an older generation must stop as the
+ * writer may have truncated the data they are reading. The writer publishes the data by updating the tail after
+ * writing the records. The head, tail and magic number are written with ordered stores and read with volatile loads
+ * of the mapped memory, so the readers see the records and the header fields written before them. The header uses
+ * the native byte order for that.
+ *
+ * @since 3.5.0
+ */
+public class SharedMemoryRing implements Closeable
+{
+  static final int MAGIC = 0x52696e67;
+  static final int WRAP = -1;
+  static final int MAGIC_OFFSET = 0;
+  static final int CAPACITY_OFFSET = 4;
+  static final int GENERATION_OFFSET = 8;
+  static final int HEAD_OFFSET = 16;
+  static final int TAIL_OFFSET = 24;
+  static final int RESET_VALID_OFFSET = 32;
+  static final int RESET_BASE_SECONDS_OFFSET = 36;
+  static final int RESET_INTERVAL_OFFSET = 40;
+  static final int HEADER_SIZE = 64;
+
+  private static final Unsafe UNSAFE;
+  private static final long ADDRESS_OFFSET;
+
+  static {
+    try {
+      Field field = Unsafe.class.getDeclaredField("theUnsafe");
+      field.setAccessible(true);
+      UNSAFE = (Unsafe)field.get(null);
+      ADDRESS_OFFSET = UNSAFE.objectFieldOffset(Buffer.class.getDeclaredField("address"));
+    } catch (NoSuchFieldException | IllegalAccessException ex) {
+      throw new ExceptionInInitializerError(ex);
+    }
+  }
+
+  private final File file;
+  private final RandomAccessFile randomAccessFile;
+  private final MappedByteBuffer buffer;
+  /**
+   * view of the mapped buffer used for the bulk transfers of the thread owning this instance.
+   */
+  private final ByteBuffer data;
+  private final int capacity;
+  /**
+   * address of the mapped memory, valid as long as the mapped buffer is reachable.
+   */
+  private final long address;
+
+  private SharedMemoryRing(File file, RandomAccessFile randomAccessFile, MappedByteBuffer buffer, int capacity)
+  {
+    this.file = file;
+    this.randomAccessFile = randomAccessFile;
+    this.buffer = buffer;
+    this.data = buffer.duplicate();
+    this.capacity = capacity;
+    this.address = UNSAFE.getLong(buffer, ADDRESS_OFFSET);
+  }
+
+  /**
+   * Open the ring for writing, the existing data is kept when the file is a ring with the same capacity and a new
+   * generation starts.
+   *
+   * @param file the file, created with its parent directories if it does not exist
+   * @param capacity the size of the data region in bytes
+   * @return the ring
+   * @throws IOException
+   */
+  public static SharedMemoryRing create(File file, int capacity) throws IOException
+  {
+    File parent = file.getParentFile();
+    if (parent != null && !parent.isDirectory() && !parent.mkdirs() && !parent.isDirectory()) {
+      throw new IOException("Cannot create directory " + parent);
+    }
+
+    RandomAccessFile raf = new RandomAccessFile(file, "rw");
+    try {
+      boolean existing = raf.length() == HEADER_SIZE + capacity;
+      if (!existing) {
+        raf.setLength(0);
+        raf.setLength(HEADER_SIZE + capacity);
+      }
+      MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + capacity);
+      buffer.order(ByteOrder.nativeOrder());
+      SharedMemoryRing ring = new SharedMemoryRing(file, raf, buffer, capacity);
+      if (existing && buffer.getInt(MAGIC_OFFSET) == MAGIC && buffer.getInt(CAPACITY_OFFSET) == capacity) {
+        buffer.putLong(GENERATION_OFFSET, buffer.getLong(GENERATION_OFFSET) + 1);
+      } else {
+        buffer.putInt(MAGIC_OFFSET, 0);
+        buffer.putInt(CAPACITY_OFFSET, capacity);
+        buffer.putLong(GENERATION_OFFSET, 1);
+        buffer.putLong(HEAD_OFFSET, 0);
+        buffer.putLong(TAIL_OFFSET, 0);
+        buffer.putInt(RESET_VALID_OFFSET, 0);
+        UNSAFE.putOrderedInt(null, ring.address + MAGIC_OFFSET, MAGIC);
+      }
+      return ring;
+    } catch (IOException | RuntimeException ex) {
+      raf.close();
+      throw ex;
+    }
+  }
+
+  /**
+   * Open the ring for reading.
+   *
+   * @param file the file
+   * @return the ring or null if the writer did not create it yet
+   * @throws IOException
+   */
+  public static SharedMemoryRing open(File file) throws IOException
+  {
+    if (!file.exists()) {
+      return null;
+    }
+
+    RandomAccessFile raf = new RandomAccessFile(file, "r");
+    try {
+      if (raf.length() > HEADER_SIZE) {
+        MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+        buffer.order(ByteOrder.nativeOrder());
+        SharedMemoryRing ring = new SharedMemoryRing(file, raf, buffer, (int)(raf.length() - HEADER_SIZE));
+        if (UNSAFE.getIntVolatile(null, ring.address + MAGIC_OFFSET) == MAGIC
+            && buffer.getInt(CAPACITY_OFFSET) == raf.length() - HEADER_SIZE) {
+          return ring;
+        }
+      }
+    } catch (IOException | RuntimeException ex) {
+      raf.close();
+      throw ex;
+    }
+
+    raf.close();
+    return null;
+  }
+
+  /**
+   * Append a record after the tail.
+   *
+   * @param array the array with the record data
+   * @param offset the offset of the record data
+   * @param length the length of the record data
+   * @return the position of the record or -1 if there is not enough space before the head
+   */
+  public long append(byte[] array, int offset, int length)
+  {
+    if (length + 4 > capacity / 2) {
+      throw new IllegalArgumentException("Record of " + length + " bytes does not fit a ring of " + capacity);
+    }
+
+    long tail = buffer.getLong(TAIL_OFFSET);
+    int index = (int)(tail % capacity);
+    long position = index + 4 + length > capacity ? tail + capacity - index : tail;
+    if (position + 4 + length - buffer.getLong(HEAD_OFFSET) > capacity) {
+      return -1;
+    }
+
+    if (position != tail && capacity - index >= 4) {
+      buffer.putInt(HEADER_SIZE + index, WRAP);
+    }
+    index = (int)(position % capacity);
+    buffer.putInt(HEADER_SIZE + index, length);
+    data.position(HEADER_SIZE + index + 4);
+    data.put(array, offset, length);
+    UNSAFE.putOrderedLong(null, address + TAIL_OFFSET, position + 4 + length);
+    return position;
+  }
+
+  /**
+   * Drop the records at and after the position and start a new generation.
+   *
+   * @param position the new tail
+   */
+  public void truncate(long position)
+  {
+    buffer.putLong(GENERATION_OFFSET, buffer.getLong(GENERATION_OFFSET) + 1);
+    UNSAFE.putOrderedLong(null, address + TAIL_OFFSET, position);
+  }
+
+  /**
+   * Drop all the records and start a new generation with the head and the tail at the position, which may be before
+   * the head. The tail is moved first and the head last, so that the readers of the new generation which see a head
+   * after the tail know that the ring is being rewound.
+   *
+   * @param position the new head and tail
+   * @param resetBaseSeconds base seconds of the reset window in effect at the position
+   * @param resetIntervalMillis window width of the reset window in effect at the position
+   * @param reset false if there is no reset window before the position
+   */
+  public void rewind(long position, int resetBaseSeconds, int resetIntervalMillis, boolean reset)
+  {
+    UNSAFE.putOrderedLong(null, address + TAIL_OFFSET, position);
+    UNSAFE.putOrderedLong(null, address + GENERATION_OFFSET, buffer.getLong(GENERATION_OFFSET) + 1);
+    purge(position, resetBaseSeconds, resetIntervalMillis, reset);
+  }
+
+  /**
+   * Release the records before the position to the writer.
+   *
+   * @param position the new head
+   * @param resetBaseSeconds base seconds of the reset window in effect at the position
+   * @param resetIntervalMillis window width of the reset window in effect at the position
+   * @param reset false if there is no reset window before the position
+   */
+  public void purge(long position, int resetBaseSeconds, int resetIntervalMillis, boolean reset)
+  {
+    buffer.putInt(RESET_BASE_SECONDS_OFFSET, resetBaseSeconds);
+    buffer.putInt(RESET_INTERVAL_OFFSET, resetIntervalMillis);
+    buffer.putInt(RESET_VALID_OFFSET, reset ? 1 : 0);
+    UNSAFE.putOrderedLong(null, address + HEAD_OFFSET, position);
+  }
+
+  public long getGeneration()
+  {
+    return UNSAFE.getLongVolatile(null, address + GENERATION_OFFSET);
+  }
+
+  public long getHead()
+  {
+    return UNSAFE.getLongVolatile(null, address + HEAD_OFFSET);
+  }
+
+  public long getTail()
+  {
+    return UNSAFE.getLongVolatile(null, address + TAIL_OFFSET);
+  }
+
+  public boolean isResetValid()
+  {
+    return buffer.getInt(RESET_VALID_OFFSET) != 0;
+  }
+
+  public int getResetBaseSeconds()
+  {
+    return buffer.getInt(RESET_BASE_SECONDS_OFFSET);
+  }
+
+  public int getResetIntervalMillis()
+  {
+    return buffer.getInt(RESET_INTERVAL_OFFSET);
+  }
+
+  public int getCapacity()
+  {
+    return capacity;
+  }
+
+  /**
+   * @param position the position of a record or of the padding before it, less than the tail
+   * @return the position of the record
+   */
+  public long skipPadding(long position)
+  {
+    int index = (int)(position % capacity);
+    if (capacity - index < 4 || buffer.getInt(HEADER_SIZE + index) == WRAP) {
+      return position + capacity - index;
+    }
+    return position;
+  }
+
+  /**
+   * @param position the position of a record
+   * @return the length of the record data
+   */
+  public int getLength(long position)
+  {
+    return buffer.getInt(HEADER_SIZE + (int)(position % capacity));
+  }
+
+  /**
+   * Copy the data of a record.
+   *
+   * @param position the position of the record
+   * @param array the destination
+   * @param offset the offset in the destination
+   * @param length the length of the record data
+   */
+  public void get(long position, byte[] array, int offset, int length)
+  {
+    data.position(HEADER_SIZE + (int)(position % capacity) + 4);
+    data.get(array, offset, length);
+  }
+
+  public File getFile()
+  {
+    return file;
+  }
+
+  @Override
+  public void close() throws IOException
+  {
+    randomAccessFile.close();
+  }
+
+  @Override
+  public String toString()
+  {
+    return "SharedMemoryRing{file=" + file + ", capacity=" + capacity + '}';
+  }
+
+}
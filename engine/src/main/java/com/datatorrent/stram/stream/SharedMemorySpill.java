@@ -0,0 +1,293 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.stream;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.TreeSet;
+
+/**
+ * Segments of the data of a {@link SharedMemoryRing} which the writer moved to disk to make room in the ring.<p>
+ * <br>
+ * When the windows which are not committed yet fill the ring, the writer copies the records at the head of the ring
+ * to a segment file and moves the head past them, like the buffer server spools its blocks to the storage. The
+ * segments are named after the ring position of their first record and keep the positions of their records, so the
+ * readers which fall behind the head continue in the segments and return to the ring at the head. A segment starts
+ * with the reset window in effect at its first record and is renamed to its final name once complete, so the readers
+ * only see complete segments. The segments are deleted when their windows are committed.
+ *
+ * @since 3.5.0
+ */
+class SharedMemorySpill
+{
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final String SEGMENT_SUFFIX = ".spill.";
+  private static final String TEMPORARY_SUFFIX = ".tmp";
+  private final File prefix;
+
+  /**
+   * @param prefix the path of the segment files without the position suffix
+   */
+  SharedMemorySpill(File prefix)
+  {
+    this.prefix = prefix;
+  }
+
+  private File getFile(long start)
+  {
+    return new File(prefix.getPath() + SEGMENT_SUFFIX + start);
+  }
+
+  /**
+   * @return the start positions of the complete segments
+   */
+  TreeSet<Long> list()
+  {
+    TreeSet<Long> starts = new TreeSet<>();
+    File directory = prefix.getAbsoluteFile().getParentFile();
+    String[] names = directory == null ? null : directory.list();
+    if (names != null) {
+      String name = prefix.getName() + SEGMENT_SUFFIX;
+      for (String file : names) {
+        if (file.startsWith(name)) {
+          try {
+            starts.add(Long.parseLong(file.substring(name.length())));
+          } catch (NumberFormatException ex) {
+            /* not a segment */
+          }
+        }
+      }
+    }
+    return starts;
+  }
+
+  /**
+   * Copy the records of the ring between the positions to a new segment.
+   *
+   * @param ring the ring
+   * @param start the position of the first record, or of the padding before it
+   * @param end the position after the last record
+   * @param reset the reset window tuple in effect at the start, null if there is none
+   * @throws IOException
+   */
+  void write(SharedMemoryRing ring, long start, long end, byte[] reset) throws IOException
+  {
+    File file = new File(getFile(start).getPath() + TEMPORARY_SUFFIX);
+    File parent = file.getParentFile();
+    if (parent != null && !parent.isDirectory() && !parent.mkdirs() && !parent.isDirectory()) {
+      throw new IOException("Cannot create directory " + parent);
+    }
+
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file),
+        BUFFER_SIZE))) {
+      writeReset(out, reset);
+      byte[] record = new byte[BUFFER_SIZE];
+      for (long position = start; position < end;) {
+        position = ring.skipPadding(position);
+        if (position >= end) {
+          break;
+        }
+        int length = ring.getLength(position);
+        if (record.length < length) {
+          record = new byte[length];
+        }
+        ring.get(position, record, 0, length);
+        out.writeLong(position);
+        out.writeInt(length);
+        out.write(record, 0, length);
+        position += 4 + length;
+      }
+    }
+    rename(file, getFile(start));
+  }
+
+  /**
+   * Drop the records of the segment at and after the position.
+   *
+   * @param start the start of the segment
+   * @param position the position of the first record to drop
+   * @throws IOException
+   */
+  void truncate(long start, long position) throws IOException
+  {
+    File file = new File(getFile(start).getPath() + TEMPORARY_SUFFIX);
+    try (Reader reader = open(start);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file),
+        BUFFER_SIZE))) {
+      writeReset(out, reader.getReset());
+      byte[] record = new byte[BUFFER_SIZE];
+      for (long next = reader.next(); next != -1 && next < position; next = reader.next()) {
+        int length = reader.getLength();
+        if (record.length < length) {
+          record = new byte[length];
+        }
+        reader.read(record, 0, length);
+        out.writeLong(next);
+        out.writeInt(length);
+        out.write(record, 0, length);
+      }
+    }
+    rename(file, getFile(start));
+  }
+
+  private static void writeReset(DataOutputStream out, byte[] reset) throws IOException
+  {
+    if (reset == null) {
+      out.writeInt(0);
+    } else {
+      out.writeInt(reset.length);
+      out.write(reset);
+    }
+  }
+
+  private static void rename(File from, File to) throws IOException
+  {
+    if (!from.renameTo(to)) {
+      throw new IOException("Cannot rename " + from + " to " + to);
+    }
+  }
+
+  /**
+   * @param start the start of the segment
+   * @return the reader of the segment
+   * @throws java.io.FileNotFoundException if the segment was deleted
+   * @throws IOException
+   */
+  Reader open(long start) throws IOException
+  {
+    return new Reader(getFile(start));
+  }
+
+  void delete(long start)
+  {
+    File file = getFile(start);
+    if (file.exists() && !file.delete()) {
+      throw new RuntimeException("Cannot delete " + file);
+    }
+  }
+
+  void deleteAll()
+  {
+    for (long start : list()) {
+      delete(start);
+    }
+  }
+
+  @Override
+  public String toString()
+  {
+    return "SharedMemorySpill{prefix=" + prefix + '}';
+  }
+
+  /**
+   * Sequential reader of the records of a segment.
+   */
+  static class Reader implements Closeable
+  {
+    private final DataInputStream in;
+    private final byte[] reset;
+    private int length;
+    private int unread;
+
+    Reader(File file) throws IOException
+    {
+      in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE));
+      try {
+        int resetLength = in.readInt();
+        if (resetLength == 0) {
+          reset = null;
+        } else {
+          reset = new byte[resetLength];
+          in.readFully(reset);
+        }
+      } catch (IOException ex) {
+        in.close();
+        throw ex;
+      }
+    }
+
+    /**
+     * @return the reset window tuple in effect at the start of the segment, null if there is none
+     */
+    byte[] getReset()
+    {
+      return reset;
+    }
+
+    /**
+     * Move to the next record, skipping the data of the current one if it was not read.
+     *
+     * @return the position of the record, -1 at the end of the segment
+     * @throws IOException
+     */
+    long next() throws IOException
+    {
+      while (unread > 0) {
+        int skipped = in.skipBytes(unread);
+        if (skipped <= 0) {
+          throw new EOFException();
+        }
+        unread -= skipped;
+      }
+
+      long position;
+      try {
+        position = in.readLong();
+      } catch (EOFException ex) {
+        return -1;
+      }
+      length = in.readInt();
+      unread = length;
+      return position;
+    }
+
+    /**
+     * @return the length of the data of the current record
+     */
+    int getLength()
+    {
+      return length;
+    }
+
+    /**
+     * Read the data of the current record, or the beginning of it.
+     */
+    void read(byte[] array, int offset, int count) throws IOException
+    {
+      in.readFully(array, offset, count);
+      unread -= count;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+      in.close();
+    }
+
+  }
+
+}
@@ -0,0 +1,415 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.stream;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.datatorrent.bufferserver.packet.MessageType;
+import com.datatorrent.bufferserver.packet.ResetWindowTuple;
+import com.datatorrent.bufferserver.packet.Tuple;
+import com.datatorrent.bufferserver.util.Codec;
+import com.datatorrent.stram.engine.StreamContext;
+
+/**
+ * Subscriber of a NODE_LOCAL stream reading the tuples from the {@link SharedMemoryRing} written by a
+ * {@link SharedMemoryPublisher} in another container on the same host.<p>
+ * <br>
+ * A thread per subscriber follows the tail of the ring and hands the tuples to the fragment queues of the buffer
+ * server subscriber, so that the reservoirs, the codecs and the decode ahead work as for a buffer server stream. Like
+ * the buffer server, the thread skips the windows up to the finished window id and the payload tuples of the other
+ * partitions. The thread spins for a while when it reaches the tail and then polls the ring, it stops when the queues
+ * are full till the operator consumed the fragments. When the thread falls behind the head of the ring, it reads the
+ * data the publisher moved to the {@link SharedMemorySpill} and returns to the ring at the head. When the publisher
+ * truncates the ring after the thread delivered a window, or the thread falls behind the purged data, the stream
+ * fails.
+ *
+ * @since 3.5.0
+ */
+public class SharedMemorySubscriber extends BufferServerSubscriber
+{
+  private static final int CHUNK_SIZE = 64 * 1024;
+  private static final int SPIN_COUNT = 1000;
+  private static final long POLL_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+  private static final long OPEN_RETRY_MILLIS = 10;
+  private final AtomicLong readByteCount = new AtomicLong();
+  private File file;
+  private SharedMemorySpill spill;
+  private String sinkId;
+  private long skipWindowId;
+  private int mask;
+  private Collection<Integer> partitions;
+  private volatile boolean running;
+  private volatile boolean readSuspended;
+  private Thread reader;
+  /*
+   * state of the reader thread
+   */
+  private long generation;
+  private long baseSeconds;
+  private boolean caughtUp;
+  private boolean delivered;
+  private byte[] chunk;
+  private int chunkOffset;
+
+  public SharedMemorySubscriber(String id, int queueCapacity)
+  {
+    super(id, queueCapacity);
+  }
+
+  @Override
+  public void activate(StreamContext context)
+  {
+    file = new File(context.get(StreamContext.SHARED_MEMORY_FILE));
+    String spillFile = context.get(StreamContext.SHARED_MEMORY_SPILL_FILE);
+    spill = new SharedMemorySpill(spillFile == null ? file : new File(spillFile));
+    sinkId = context.getSinkId();
+    skipWindowId = context.getFinishedWindowId();
+    mask = context.getPartitionMask();
+    partitions = context.getPartitions();
+    logger.debug("Registering shared memory subscriber: id={} upstreamId={} windowId={} mask={} partitions={} file={}",
+        sinkId, context.getSourceId(), Codec.getStringWindowId(skipWindowId), mask, partitions, file);
+
+    running = true;
+    reader = new Thread(new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        readRing();
+      }
+
+    }, "SharedMemory-" + sinkId);
+    reader.setDaemon(true);
+    reader.start();
+  }
+
+  private void readRing()
+  {
+    try {
+      boolean reopen = true;
+      while (reopen) {
+        SharedMemoryRing ring = openRing();
+        if (ring == null) {
+          return;
+        }
+        try {
+          reopen = consume(ring);
+        } finally {
+          ring.close();
+        }
+      }
+    } catch (IOException | RuntimeException ex) {
+      if (running) {
+        logger.error("Shared memory subscriber {} failed", sinkId, ex);
+        fail(ex instanceof RuntimeException ? (RuntimeException)ex : new RuntimeException(ex));
+      }
+    }
+  }
+
+  /**
+   * @return the ring once the publisher created it, or null if the subscriber was deactivated before
+   */
+  @SuppressWarnings("SleepWhileInLoop")
+  private SharedMemoryRing openRing() throws IOException
+  {
+    while (running) {
+      SharedMemoryRing ring = SharedMemoryRing.open(file);
+      if (ring != null) {
+        return ring;
+      }
+      try {
+        Thread.sleep(OPEN_RETRY_MILLIS);
+      } catch (InterruptedException ex) {
+        return null;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * @return true if the file was replaced before the first window was delivered and the ring needs to be opened again
+   */
+  private boolean consume(SharedMemoryRing ring) throws IOException
+  {
+    long position = start(ring);
+    chunk = new byte[CHUNK_SIZE];
+    chunkOffset = 0;
+    int idle = 0;
+
+    while (running) {
+      if (readSuspended) {
+        LockSupport.parkNanos(this, POLL_NANOS);
+        continue;
+      }
+
+      if (ring.getGeneration() != generation) {
+        restart(ring);
+        position = start(ring);
+        continue;
+      }
+      if (position < ring.getHead()) {
+        position = readSpill(ring, position);
+        if (position == -1) {
+          restart(ring);
+          position = start(ring);
+        }
+        continue;
+      }
+
+      long tail = ring.getTail();
+      if (position >= tail) {
+        if (++idle < SPIN_COUNT) {
+          Thread.yield();
+        } else {
+          if (!delivered && idle % SPIN_COUNT == 0 && !file.exists()) {
+            logger.debug("Reopening {} for {}", file, sinkId);
+            return true;
+          }
+          LockSupport.parkNanos(this, POLL_NANOS);
+        }
+        continue;
+      }
+      idle = 0;
+
+      position = ring.skipPadding(position);
+      int length = ring.getLength(position);
+      ensureChunk(length);
+      ring.get(position, chunk, chunkOffset, length);
+      if (ring.getGeneration() != generation || ring.getHead() > position) {
+        /* truncated, or moved to the spill while being read */
+        continue;
+      }
+
+      position += 4 + length;
+      deliver(length);
+    }
+    return false;
+  }
+
+  private void ensureChunk(int length)
+  {
+    if (chunk.length - chunkOffset < length) {
+      chunk = new byte[Math.max(CHUNK_SIZE, length)];
+      chunkOffset = 0;
+    }
+  }
+
+  /**
+   * Deliver the record read at the chunk offset.
+   */
+  private void deliver(int length)
+  {
+    readByteCount.addAndGet(4 + length);
+    if (accept(chunk, chunkOffset, length)) {
+      onMessage(chunk, chunkOffset, length);
+      chunkOffset += length;
+    }
+  }
+
+  /**
+   * Read the records at and after the position from the segment of the spill which contains it.
+   *
+   * @return the end of the segment, which is the start of the next segment or the head of the ring, -1 if the segment
+   * was purged or the ring truncated
+   */
+  private long readSpill(SharedMemoryRing ring, long position) throws IOException
+  {
+    TreeSet<Long> segments = spill.list();
+    Long start = segments.floor(position);
+    if (start == null) {
+      return -1;
+    }
+
+    try (SharedMemorySpill.Reader reader = spill.open(start)) {
+      for (long next = reader.next(); next != -1 && running; next = reader.next()) {
+        if (next < position) {
+          continue;
+        }
+        while (readSuspended && running) {
+          LockSupport.parkNanos(this, POLL_NANOS);
+        }
+        if (ring.getGeneration() != generation) {
+          return -1;
+        }
+
+        int length = reader.getLength();
+        ensureChunk(length);
+        reader.read(chunk, chunkOffset, length);
+        position = next + 4 + length;
+        deliver(length);
+      }
+    } catch (FileNotFoundException ex) {
+      return -1;
+    }
+
+    if (!running) {
+      return position;
+    }
+    /* the segment ends where the next one starts, or at the head when it is the last one */
+    long head = ring.getHead();
+    Long next = spill.list().higher(start);
+    return Math.max(position, next == null ? head : next);
+  }
+
+  /**
+   * Start reading at the oldest retained data, in the spill or at the head of the ring, beginning with the reset
+   * window in effect there.
+   *
+   * @return the position to read from
+   */
+  private long start(SharedMemoryRing ring) throws IOException
+  {
+    long head;
+    boolean reset;
+    int resetBaseSeconds;
+    int resetIntervalMillis;
+    do {
+      generation = ring.getGeneration();
+      head = ring.getHead();
+      reset = ring.isResetValid();
+      resetBaseSeconds = ring.getResetBaseSeconds();
+      resetIntervalMillis = ring.getResetIntervalMillis();
+    } while (head != ring.getHead() || head > ring.getTail() || generation != ring.getGeneration());
+
+    baseSeconds = 0;
+    caughtUp = false;
+    byte[] tuple = reset ? ResetWindowTuple.getSerializedTuple(resetBaseSeconds, resetIntervalMillis) : null;
+    long position = head;
+    for (long start : spill.list()) {
+      if (start < head) {
+        try (SharedMemorySpill.Reader reader = spill.open(start)) {
+          tuple = reader.getReset();
+          position = start;
+          break;
+        } catch (FileNotFoundException ex) {
+          /* purged meanwhile, try the next one */
+        }
+      }
+    }
+
+    if (tuple != null) {
+      accept(tuple, 0, tuple.length);
+      onMessage(tuple, 0, tuple.length);
+    }
+    return position;
+  }
+
+  /**
+   * Start over when the data being read was truncated or purged, which is expected only before the first window was
+   * delivered: the subscriber of a redeployed publisher may open the ring before the publisher rewinds it.
+   */
+  private void restart(SharedMemoryRing ring)
+  {
+    if (delivered) {
+      throw new IllegalStateException("Data of " + ring + " was truncated or purged while being read by " + sinkId);
+    }
+    logger.debug("Restarting {} on {}", sinkId, ring);
+  }
+
+  /**
+   * @return true if the tuple is to be delivered to the reservoirs
+   */
+  private boolean accept(byte[] array, int offset, int length)
+  {
+    switch (array[offset]) {
+      case MessageType.PAYLOAD_VALUE:
+        if (!caughtUp) {
+          return false;
+        }
+        return partitions == null || mask == 0
+            || partitions.contains(Tuple.getTuple(array, offset, length).getPartition() & mask);
+
+      case MessageType.RESET_WINDOW_VALUE:
+        baseSeconds = (long)Tuple.getTuple(array, offset, length).getBaseSeconds() << 32;
+        return true;
+
+      case MessageType.BEGIN_WINDOW_VALUE:
+        if (!caughtUp) {
+          if ((baseSeconds | Tuple.getTuple(array, offset, length).getWindowId()) <= skipWindowId) {
+            return false;
+          }
+          caughtUp = true;
+        }
+        delivered = true;
+        return true;
+
+      case MessageType.CHECKPOINT_VALUE:
+      case MessageType.CODEC_STATE_VALUE:
+      case MessageType.END_STREAM_VALUE:
+        return true;
+
+      case MessageType.NO_MESSAGE_VALUE:
+      case MessageType.NO_MESSAGE_ODD_VALUE:
+        return false;
+
+      default:
+        return caughtUp;
+    }
+  }
+
+  @Override
+  public void suspendRead()
+  {
+    readSuspended = true;
+  }
+
+  @Override
+  public void resumeRead()
+  {
+    readSuspended = false;
+    LockSupport.unpark(reader);
+  }
+
+  @Override
+  public void deactivate()
+  {
+    running = false;
+    if (reader != null) {
+      reader.interrupt();
+      try {
+        reader.join(TimeUnit.SECONDS.toMillis(1));
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+      reader = null;
+    }
+  }
+
+  @Override
+  public long getByteCount(boolean reset)
+  {
+    if (reset) {
+      return readByteCount.getAndSet(0);
+    }
+
+    return readByteCount.get();
+  }
+
+  private static final Logger logger = LoggerFactory.getLogger(SharedMemorySubscriber.class);
+}
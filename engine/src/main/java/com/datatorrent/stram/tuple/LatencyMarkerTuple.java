@@ -0,0 +1,99 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.tuple;
+
+import java.nio.ByteBuffer;
+
+import com.datatorrent.bufferserver.packet.MessageType;
+import com.datatorrent.bufferserver.util.Codec;
+import com.datatorrent.netlet.util.Slice;
+
+/**
+ * Control tuple emitted by input operators at the configured interval and forwarded by all downstream operators in
+ * order with the data tuples. The operators record the time elapsed since the emission of the marker as the latency
+ * from the source operator.
+ *
+ * @since 3.5.0
+ */
+public class LatencyMarkerTuple extends Tuple
+{
+  private static final int SERIALIZED_SIZE = 1 + 4 + 4 + 8;
+  private static final long BASE_MICROS = System.currentTimeMillis() * 1000 - System.nanoTime() / 1000;
+
+  private final int sourceOperatorId;
+  private final long emitTimeMicros;
+
+  public LatencyMarkerTuple(long windowId, int sourceOperatorId, long emitTimeMicros)
+  {
+    super(MessageType.LATENCY_MARKER, windowId);
+    this.sourceOperatorId = sourceOperatorId;
+    this.emitTimeMicros = emitTimeMicros;
+  }
+
+  public int getSourceOperatorId()
+  {
+    return sourceOperatorId;
+  }
+
+  public long getEmitTimeMicros()
+  {
+    return emitTimeMicros;
+  }
+
+  /**
+   * Wall clock time with the resolution of {@link System#nanoTime()}, so that latencies within a container are not
+   * rounded to milliseconds.
+   *
+   * @return current time in microseconds since the epoch
+   */
+  public static long currentTimeMicros()
+  {
+    return BASE_MICROS + System.nanoTime() / 1000;
+  }
+
+  /**
+   * @return the marker serialized for the buffer server
+   */
+  public byte[] getSerializedTuple()
+  {
+    byte[] array = new byte[SERIALIZED_SIZE];
+    ByteBuffer.wrap(array).put(MessageType.LATENCY_MARKER_VALUE).putInt((int)windowId).putInt(sourceOperatorId)
+        .putLong(emitTimeMicros);
+    return array;
+  }
+
+  /**
+   * @param baseSeconds base seconds of the window id from the last reset window
+   * @param data data of the buffer server tuple
+   * @return the marker
+   */
+  public static LatencyMarkerTuple fromSerializedData(long baseSeconds, Slice data)
+  {
+    ByteBuffer buffer = ByteBuffer.wrap(data.buffer, data.offset, data.length);
+    long windowId = baseSeconds | (buffer.getInt() & 0xffffffffL);
+    return new LatencyMarkerTuple(windowId, buffer.getInt(), buffer.getLong());
+  }
+
+  @Override
+  public String toString()
+  {
+    return "type = " + getType() + " " + Codec.getStringWindowId(windowId) + " source = " + sourceOperatorId
+        + " emitTimeMicros = " + emitTimeMicros;
+  }
+}
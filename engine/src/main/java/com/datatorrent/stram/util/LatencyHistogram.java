@@ -0,0 +1,138 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.util;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * Histogram of latencies in microseconds with log-linear buckets. Every power of two is divided into
+ * {@value #SUB_BUCKETS} buckets, so the value reported for a percentile is within about 6% of the recorded value.
+ * Histograms can be merged, which allows to record them per window in the operator and combine them in the
+ * application master.
+ *
+ * @since 3.5.0
+ */
+public class LatencyHistogram implements Serializable
+{
+  private static final long serialVersionUID = 201610190000L;
+  private static final int SUB_BUCKET_BITS = 4;
+  static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  private long[] counts = new long[SUB_BUCKETS];
+  private long totalCount;
+  private long max;
+
+  /**
+   * Record a latency, negative values caused by clock differences are recorded as 0.
+   *
+   * @param micros latency in microseconds
+   */
+  public void record(long micros)
+  {
+    long value = Math.max(0, micros);
+    int index = getIndex(value);
+    if (index >= counts.length) {
+      counts = Arrays.copyOf(counts, index + 1);
+    }
+    counts[index]++;
+    totalCount++;
+    max = Math.max(max, value);
+  }
+
+  /**
+   * Add the counts of the other histogram to this histogram.
+   *
+   * @param other histogram to merge
+   */
+  public void merge(LatencyHistogram other)
+  {
+    if (other.counts.length > counts.length) {
+      counts = Arrays.copyOf(counts, other.counts.length);
+    }
+    for (int i = other.counts.length; i-- > 0;) {
+      counts[i] += other.counts[i];
+    }
+    totalCount += other.totalCount;
+    max = Math.max(max, other.max);
+  }
+
+  public LatencyHistogram copy()
+  {
+    LatencyHistogram copy = new LatencyHistogram();
+    copy.merge(this);
+    return copy;
+  }
+
+  public long getCount()
+  {
+    return totalCount;
+  }
+
+  public long getMax()
+  {
+    return max;
+  }
+
+  /**
+   * @param percentile percentile between 0 and 100
+   * @return the upper bound of the bucket containing the percentile, in microseconds, or 0 when nothing was recorded
+   */
+  public long getPercentile(double percentile)
+  {
+    if (totalCount == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long)Math.ceil(totalCount * percentile / 100));
+    long count = 0;
+    for (int i = 0; i < counts.length; i++) {
+      count += counts[i];
+      if (count >= rank) {
+        return Math.min(getUpperBound(i), max);
+      }
+    }
+    return max;
+  }
+
+  static int getIndex(long value)
+  {
+    if (value < SUB_BUCKETS) {
+      return (int)value;
+    }
+    int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    return ((shift + 1) << SUB_BUCKET_BITS) + (int)((value >>> shift) & (SUB_BUCKETS - 1));
+  }
+
+  static long getUpperBound(int index)
+  {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int shift = (index >>> SUB_BUCKET_BITS) - 1;
+    long bucket = SUB_BUCKETS + (index & (SUB_BUCKETS - 1));
+    return ((bucket + 1) << shift) - 1;
+  }
+
+  @Override
+  public String toString()
+  {
+    return "LatencyHistogram{count=" + totalCount + ", p50=" + getPercentile(50) + ", p99=" + getPercentile(99)
+        + ", max=" + max + '}';
+  }
+}
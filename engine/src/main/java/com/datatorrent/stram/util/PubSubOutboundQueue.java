@@ -0,0 +1,185 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bounded queue of the formatted messages waiting to be sent to a pub sub connection. Messages are offered without
+ * blocking, a full queue applies the {@link OverflowPolicy}. The sending thread takes all queued messages at once.
+ *
+ * @since 3.5.0
+ */
+public class PubSubOutboundQueue
+{
+  /**
+   * What to do with a message offered to a full queue.
+   */
+  public enum OverflowPolicy
+  {
+    /**
+     * Discard the offered message.
+     */
+    DROP_NEWEST,
+    /**
+     * Discard the oldest queued message.
+     */
+    DROP_OLDEST,
+    /**
+     * Replace the queued message of the same topic, which is superseded by the offered message. The oldest queued
+     * message is discarded when there is no queued message of the topic. Messages without topic are never replaced.
+     */
+    CONFLATE,
+    /**
+     * Reject the offered message, the connection is closed.
+     */
+    DISCONNECT
+  }
+
+  private static class Message
+  {
+    final String topic;
+    String text;
+
+    Message(String topic, String text)
+    {
+      this.topic = topic;
+      this.text = text;
+    }
+  }
+
+  private final int capacity;
+  private final OverflowPolicy overflowPolicy;
+  private final ArrayDeque<Message> queue = new ArrayDeque<>();
+  private final Map<String, Message> lastMessageByTopic = new HashMap<>();
+  private long droppedCount;
+  private long conflatedCount;
+  private int maxDepth;
+
+  public PubSubOutboundQueue(int capacity, OverflowPolicy overflowPolicy)
+  {
+    this.capacity = Math.max(1, capacity);
+    this.overflowPolicy = overflowPolicy;
+  }
+
+  /**
+   * Add a message to the queue.
+   *
+   * @param topic topic of the message, null for messages that must not be conflated
+   * @param text formatted message
+   * @return false when the queue is full and the policy is {@link OverflowPolicy#DISCONNECT}
+   */
+  public synchronized boolean offer(String topic, String text)
+  {
+    if (queue.size() >= capacity) {
+      switch (overflowPolicy) {
+        case DISCONNECT:
+          return false;
+        case DROP_NEWEST:
+          droppedCount++;
+          return true;
+        case CONFLATE:
+          Message last = topic == null ? null : lastMessageByTopic.get(topic);
+          if (last != null) {
+            last.text = text;
+            conflatedCount++;
+            return true;
+          }
+          removeFirst();
+          break;
+        default:
+          removeFirst();
+          break;
+      }
+    }
+    Message message = new Message(topic, text);
+    queue.addLast(message);
+    if (topic != null) {
+      lastMessageByTopic.put(topic, message);
+    }
+    maxDepth = Math.max(maxDepth, queue.size());
+    notifyAll();
+    return true;
+  }
+
+  private void removeFirst()
+  {
+    Message first = queue.removeFirst();
+    if (first.topic != null && lastMessageByTopic.get(first.topic) == first) {
+      lastMessageByTopic.remove(first.topic);
+    }
+    droppedCount++;
+  }
+
+  /**
+   * Wait for messages and take all queued messages.
+   *
+   * @return the messages in the order they were queued
+   * @throws InterruptedException
+   */
+  public synchronized List<String> take() throws InterruptedException
+  {
+    while (queue.isEmpty()) {
+      wait();
+    }
+    List<String> messages = new ArrayList<>(queue.size());
+    for (Message message : queue) {
+      messages.add(message.text);
+    }
+    queue.clear();
+    lastMessageByTopic.clear();
+    return messages;
+  }
+
+  /**
+   * @return number of queued messages
+   */
+  public synchronized int getDepth()
+  {
+    return queue.size();
+  }
+
+  /**
+   * @return highest number of queued messages
+   */
+  public synchronized int getMaxDepth()
+  {
+    return maxDepth;
+  }
+
+  /**
+   * @return number of messages discarded because the queue was full
+   */
+  public synchronized long getDroppedCount()
+  {
+    return droppedCount;
+  }
+
+  /**
+   * @return number of messages replaced by newer messages of the same topic
+   */
+  public synchronized long getConflatedCount()
+  {
+    return conflatedCount;
+  }
+}
@@ -19,12 +19,15 @@
 package com.datatorrent.stram.util;
 
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Iterator;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
-
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 
 import org.codehaus.jackson.map.ObjectMapper;
@@ -36,11 +39,19 @@ import org.slf4j.LoggerFactory;
 import com.datatorrent.common.util.PubSubMessage;
 import com.datatorrent.common.util.PubSubMessage.PubSubMessageType;
 import com.datatorrent.common.util.PubSubMessageCodec;
+import com.datatorrent.stram.util.PubSubOutboundQueue.OverflowPolicy;
 
 
 /**
  * <p>PubSubWebSocketServlet class.</p>
  *
+ * Subscriptions are kept in concurrent maps, so that publishing does not lock the servlet. A published message is
+ * formatted once for all subscribers that receive the same data and handed to a bounded queue per connection, from
+ * which a messenger thread per connection sends all pending messages at once. A full queue applies the configured
+ * {@link OverflowPolicy}, so that slow connections do not hold up publishers. The queue size and the policy are set
+ * with the {@link #MAX_QUEUE_SIZE_PARAM} and {@link #OVERFLOW_POLICY_PARAM} init parameters, clients request the queue
+ * statistics with {@link PubSubMessageType#GET_QUEUE_STATS}.
+ *
  * @author David Yan <david@datatorrent.com>
  * @since 0.3.2
  */
@@ -48,8 +59,18 @@ public class PubSubWebSocketServlet<SECURITY_CONTEXT, PRINCIPAL> extends WebSock
 {
   private static final Logger LOG = LoggerFactory.getLogger(PubSubWebSocketServlet.class);
   private static final long serialVersionUID = 1L;
-  private HashMap<String, HashSet<PubSubWebSocket>> topicToSocketMap = new HashMap<>();
-  private HashMap<PubSubWebSocket, HashSet<String>> socketToTopicMap = new HashMap<>();
+  public static final int DEFAULT_MAX_QUEUE_SIZE = 1024;
+  /**
+   * Servlet init parameter for the maximum number of messages queued per connection.
+   */
+  public static final String MAX_QUEUE_SIZE_PARAM = "maxQueueSize";
+  /**
+   * Servlet init parameter for the {@link OverflowPolicy} of the connection queues.
+   */
+  public static final String OVERFLOW_POLICY_PARAM = "overflowPolicy";
+  private final ConcurrentMap<String, Set<PubSubWebSocket>> topicToSocketMap = new ConcurrentHashMap<>();
+  private final ConcurrentMap<PubSubWebSocket, Set<String>> socketToTopicMap = new ConcurrentHashMap<>();
+  private final Set<PubSubWebSocket> openSockets = Collections.newSetFromMap(new ConcurrentHashMap<PubSubWebSocket, Boolean>());
   private ObjectMapper mapper = (new JSONSerializationProvider()).getContext(null);
   private PubSubMessageCodec<Object> codec = new PubSubMessageCodec<>(mapper);
   private InternalMessageHandler internalMessageHandler = null;
@@ -58,6 +79,8 @@ public class PubSubWebSocketServlet<SECURITY_CONTEXT, PRINCIPAL> extends WebSock
   private SubscribeFilter subscribeFilter;
   private SendFilter sendFilter;
   private String authAttribute;
+  private int maxQueueSize = DEFAULT_MAX_QUEUE_SIZE;
+  private OverflowPolicy overflowPolicy = OverflowPolicy.CONFLATE;
   private final LRUCache<String, Long> latestTopics = new LRUCache<String, Long>(latestTopicCount, false)
   {
     private static final long serialVersionUID = 20140131L;
@@ -127,11 +150,71 @@ public class PubSubWebSocketServlet<SECURITY_CONTEXT, PRINCIPAL> extends WebSock
     this.internalMessageHandler = internalMessageHandler;
   }
 
+  /**
+   * @param maxQueueSize maximum number of messages queued per connection
+   */
+  public void setMaxQueueSize(int maxQueueSize)
+  {
+    this.maxQueueSize = maxQueueSize;
+  }
+
+  /**
+   * @param overflowPolicy what to do with messages for connections whose queue is full, {@link OverflowPolicy#CONFLATE}
+   * by default
+   */
+  public void setOverflowPolicy(OverflowPolicy overflowPolicy)
+  {
+    this.overflowPolicy = overflowPolicy;
+  }
+
+  @Override
+  public void init() throws ServletException
+  {
+    String maxQueueSize = getInitParameter(MAX_QUEUE_SIZE_PARAM);
+    if (maxQueueSize != null) {
+      setMaxQueueSize(Integer.parseInt(maxQueueSize));
+    }
+    String overflowPolicy = getInitParameter(OVERFLOW_POLICY_PARAM);
+    if (overflowPolicy != null) {
+      setOverflowPolicy(OverflowPolicy.valueOf(overflowPolicy.toUpperCase()));
+    }
+    super.init();
+  }
+
   public class UserHolder
   {
     public String username;
   }
 
+  /**
+   * Queue statistics of the open connections.
+   */
+  public static class QueueStats
+  {
+    public int connections;
+    public long queueDepth;
+    public int maxQueueDepth;
+    public long droppedMessages;
+    public long conflatedMessages;
+  }
+
+  /**
+   * @return the current queue statistics of the open connections
+   */
+  public QueueStats getQueueStats()
+  {
+    QueueStats stats = new QueueStats();
+    for (PubSubWebSocket socket : openSockets) {
+      PubSubOutboundQueue queue = socket.messageQueue;
+      stats.connections++;
+      stats.queueDepth += queue.getDepth();
+      stats.maxQueueDepth = Math.max(stats.maxQueueDepth, queue.getMaxDepth());
+      stats.droppedMessages += queue.getDroppedCount();
+      stats.conflatedMessages += queue.getConflatedCount();
+    }
+    return stats;
+  }
+
   @Override
   public WebSocket doWebSocketConnect(HttpServletRequest request, String protocol)
   {
@@ -140,6 +223,9 @@ public class PubSubWebSocketServlet<SECURITY_CONTEXT, PRINCIPAL> extends WebSock
     return new PubSubWebSocket(principal);
   }
 
+  /*
+   * Subscription changes are serialized with this lock, publishing reads the concurrent maps without it.
+   */
   private synchronized void subscribe(PubSubWebSocket webSocket, String topic)
   {
     if (subscribeFilter != null && !subscribeFilter.filter(securityContext, webSocket.getPrincipal(), topic)) {
@@ -149,21 +235,17 @@ public class PubSubWebSocketServlet<SECURITY_CONTEXT, PRINCIPAL> extends WebSock
       LOG.debug("Subscribe is allowed for topic {}, user {}", topic, webSocket.getPrincipal());
     }
 
-    HashSet<PubSubWebSocket> wsSet;
-    if (!topicToSocketMap.containsKey(topic)) {
-      wsSet = new HashSet<>();
+    Set<PubSubWebSocket> wsSet = topicToSocketMap.get(topic);
+    if (wsSet == null) {
+      wsSet = new CopyOnWriteArraySet<>();
       topicToSocketMap.put(topic, wsSet);
-    } else {
-      wsSet = topicToSocketMap.get(topic);
     }
     wsSet.add(webSocket);
 
-    HashSet<String> topicSet;
-    if (!socketToTopicMap.containsKey(webSocket)) {
-      topicSet = new HashSet<>(0);
+    Set<String> topicSet = socketToTopicMap.get(webSocket);
+    if (topicSet == null) {
+      topicSet = new CopyOnWriteArraySet<>();
       socketToTopicMap.put(webSocket, topicSet);
-    } else {
-      topicSet = socketToTopicMap.get(webSocket);
     }
     topicSet.add(topic);
     publish(topic + "." + PubSubMessage.NUM_SUBSCRIBERS_SUFFIX, getNumSubscribers(topic));
@@ -171,18 +253,18 @@ public class PubSubWebSocketServlet<SECURITY_CONTEXT, PRINCIPAL> extends WebSock
 
   private synchronized void unsubscribe(PubSubWebSocket webSocket, String topic)
   {
-    if (!topicToSocketMap.containsKey(topic)) {
+    Set<PubSubWebSocket> wsSet = topicToSocketMap.get(topic);
+    if (wsSet == null) {
       return;
     }
-    HashSet<PubSubWebSocket> wsSet = topicToSocketMap.get(topic);
     wsSet.remove(webSocket);
     if (wsSet.isEmpty()) {
       topicToSocketMap.remove(topic);
     }
-    if (!socketToTopicMap.containsKey(webSocket)) {
+    Set<String> topicSet = socketToTopicMap.get(webSocket);
+    if (topicSet == null) {
       return;
     }
-    HashSet<String> topicSet = socketToTopicMap.get(webSocket);
     topicSet.remove(topic);
     if (topicSet.isEmpty()) {
       socketToTopicMap.remove(webSocket);
@@ -192,61 +274,73 @@ public class PubSubWebSocketServlet<SECURITY_CONTEXT, PRINCIPAL> extends WebSock
 
   private synchronized void unsubscribeAll(PubSubWebSocket webSocket)
   {
-    HashSet<String> topicSet = socketToTopicMap.get(webSocket);
+    Set<String> topicSet = socketToTopicMap.remove(webSocket);
     if (topicSet != null) {
       for (String topic : topicSet) {
-        HashSet<PubSubWebSocket> wsSet = topicToSocketMap.get(topic);
-        wsSet.remove(webSocket);
-        if (wsSet.isEmpty()) {
-          topicToSocketMap.remove(topic);
+        Set<PubSubWebSocket> wsSet = topicToSocketMap.get(topic);
+        if (wsSet != null) {
+          wsSet.remove(webSocket);
+          if (wsSet.isEmpty()) {
+            topicToSocketMap.remove(topic);
+          }
         }
         publish(topic + "." + PubSubMessage.NUM_SUBSCRIBERS_SUFFIX, getNumSubscribers(topic));
       }
-      socketToTopicMap.remove(webSocket);
     }
   }
 
-  private synchronized void disconnect(PubSubWebSocket webSocket)
+  private void disconnect(PubSubWebSocket webSocket)
   {
     unsubscribeAll(webSocket);
   }
 
-  public synchronized int getNumSubscribers(String topic)
+  public int getNumSubscribers(String topic)
   {
-    HashSet<PubSubWebSocket> wsSet = topicToSocketMap.get(topic);
+    Set<PubSubWebSocket> wsSet = topicToSocketMap.get(topic);
     return wsSet == null ? 0 : wsSet.size();
   }
 
-  private synchronized void sendData(PubSubWebSocket webSocket, String topic, Object data) throws IOException
+  private String formatData(String topic, Object data) throws IOException
   {
     PubSubMessage<Object> pubSubMessage = new PubSubMessage<>();
     pubSubMessage.setType(PubSubMessageType.DATA);
     pubSubMessage.setTopic(topic);
     pubSubMessage.setData(data);
+    return codec.formatMessage(pubSubMessage);
+  }
+
+  private void sendData(PubSubWebSocket webSocket, String topic, Object data) throws IOException
+  {
     LOG.debug("Sending data {} to subscriber...", topic);
-    webSocket.sendMessage(codec.formatMessage(pubSubMessage));
+    webSocket.sendMessage(topic, formatData(topic, data));
   }
 
-  public synchronized void publish(String topic, Object data)
+  public void publish(String topic, Object data)
   {
     if (!topic.endsWith("." + PubSubMessage.NUM_SUBSCRIBERS_SUFFIX) && !topic.startsWith(PubSubMessage.INTERNAL_TOPIC_PREFIX + ".")) {
-      latestTopics.put(topic, System.currentTimeMillis());
+      synchronized (latestTopics) {
+        latestTopics.put(topic, System.currentTimeMillis());
+      }
     }
-    HashSet<PubSubWebSocket> wsSet = topicToSocketMap.get(topic);
+    Set<PubSubWebSocket> wsSet = topicToSocketMap.get(topic);
     if (wsSet != null) {
-      Iterator<PubSubWebSocket> it = wsSet.iterator();
-      while (it.hasNext()) {
-        PubSubWebSocket socket = it.next();
+      // formatted once for all subscribers that are sent the published data
+      String message = null;
+      for (PubSubWebSocket socket : wsSet) {
         try {
           if (sendFilter != null) {
             Object filteredData = sendFilter.filter(securityContext, socket.getPrincipal(), topic, data);
-            sendData(socket, topic, filteredData);
-          } else {
-            sendData(socket, topic, data);
+            if (filteredData != data) {
+              sendData(socket, topic, filteredData);
+              continue;
+            }
           }
+          if (message == null) {
+            message = formatData(topic, data);
+          }
+          socket.sendMessage(topic, message);
         } catch (Exception ex) {
           LOG.error("Cannot send message", ex);
-          it.remove();
           disconnect(socket);
         }
       }
@@ -256,7 +350,7 @@ public class PubSubWebSocketServlet<SECURITY_CONTEXT, PRINCIPAL> extends WebSock
   protected class PubSubWebSocket implements WebSocket.OnTextMessage
   {
     private Connection connection;
-    private final BlockingQueue<String> messageQueue = new ArrayBlockingQueue<>(1024);
+    private final PubSubOutboundQueue messageQueue = new PubSubOutboundQueue(maxQueueSize, overflowPolicy);
     private final Thread messengerThread = new Thread(new Messenger());
     private final PRINCIPAL principal;
 
@@ -311,9 +405,13 @@ public class PubSubWebSocketServlet<SECURITY_CONTEXT, PRINCIPAL> extends WebSock
                 unsubscribe(this, topic + "." + PubSubMessage.NUM_SUBSCRIBERS_SUFFIX);
               }
             } else if (type.equals(PubSubMessageType.GET_LATEST_TOPICS)) {
-              synchronized (this) {
-                sendData(this, "_latestTopics", latestTopics.keySet());
+              List<String> topics;
+              synchronized (latestTopics) {
+                topics = new ArrayList<>(latestTopics.keySet());
               }
+              sendData(this, "_latestTopics", topics);
+            } else if (type.equals(PubSubMessageType.GET_QUEUE_STATS)) {
+              sendData(this, "_queueStats", getQueueStats());
             }
           }
         }
@@ -329,6 +427,7 @@ public class PubSubWebSocketServlet<SECURITY_CONTEXT, PRINCIPAL> extends WebSock
       this.connection = connection;
       this.connection.setMaxIdleTime(5 * 60 * 1000); // idle time set to five minute to clear out idle connections from taking resources
       this.connection.setMaxTextMessageSize(8 * 1024 * 1024); // allow larger text message
+      openSockets.add(this);
       messengerThread.start();
     }
 
@@ -336,13 +435,32 @@ public class PubSubWebSocketServlet<SECURITY_CONTEXT, PRINCIPAL> extends WebSock
     public void onClose(int i, String string)
     {
       LOG.debug("onClose");
+      openSockets.remove(this);
+      if (messageQueue.getDroppedCount() > 0 || messageQueue.getConflatedCount() > 0) {
+        LOG.info("Connection of {} closed, {} messages dropped and {} conflated, max queue depth {}", principal,
+            messageQueue.getDroppedCount(), messageQueue.getConflatedCount(), messageQueue.getMaxDepth());
+      }
       disconnect(this);
       messengerThread.interrupt();
     }
 
     public void sendMessage(String message) throws IllegalStateException
     {
-      messageQueue.add(message);
+      sendMessage(null, message);
+    }
+
+    /**
+     * Queue a message for sending.
+     *
+     * @param topic topic of the message, messages of the same topic may be conflated
+     * @param message formatted message
+     * @throws IllegalStateException when the queue is full and the overflow policy is {@link OverflowPolicy#DISCONNECT}
+     */
+    public void sendMessage(String topic, String message) throws IllegalStateException
+    {
+      if (!messageQueue.offer(topic, message)) {
+        throw new IllegalStateException("Queue full");
+      }
     }
 
     /*
@@ -356,12 +474,13 @@ public class PubSubWebSocketServlet<SECURITY_CONTEXT, PRINCIPAL> extends WebSock
       {
         while (!Thread.interrupted()) {
           try {
-            String message = messageQueue.take();
             // This call sendMessage() is blocking. This is why we have this messenger thread per connection so that
             // one bad connection will not affect another
             // Jetty 9 has async calls but we can't use Jetty 9 because it requires Java 7
             // When we can use Java 7, we need to upgrade to Jetty 9.
-            connection.sendMessage(message);
+            for (String message : messageQueue.take()) {
+              connection.sendMessage(message);
+            }
           } catch (InterruptedException ex) {
             return;
           } catch (Exception ex) {
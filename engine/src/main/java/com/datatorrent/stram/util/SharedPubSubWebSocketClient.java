@@ -21,10 +21,10 @@ package com.datatorrent.stram.util;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeoutException;
 
@@ -44,7 +44,8 @@ public class SharedPubSubWebSocketClient extends PubSubWebSocketClient
 {
   public static final String LAST_INDEX_TOPIC_PREFIX = PubSubMessage.INTERNAL_TOPIC_PREFIX + ".lastIndex";
   private static final Logger LOG = LoggerFactory.getLogger(SharedPubSubWebSocketClient.class);
-  private final Map<String, List<Handler>> topicHandlers = new HashMap<>();
+  // handlers are called without holding a lock, so that slow handlers do not block publishing
+  private final Map<String, List<Handler>> topicHandlers = new ConcurrentHashMap<>();
   private long lastConnectTryTime;
   private final long minWaitConnectionRetry = 5000;
   private final long timeoutMillis;
@@ -84,7 +85,7 @@ public class SharedPubSubWebSocketClient extends PubSubWebSocketClient
     if (topicHandlers.containsKey(topic)) {
       handlers = topicHandlers.get(topic);
     } else {
-      handlers = new ArrayList<>();
+      handlers = new CopyOnWriteArrayList<>();
       topicHandlers.put(topic, handlers);
     }
     handlers.add(handler);
@@ -104,8 +105,8 @@ public class SharedPubSubWebSocketClient extends PubSubWebSocketClient
   @Override
   public void publish(String topic, Object data) throws IOException
   {
-    synchronized (this) {
-      if (!isConnectionOpen()) {
+    if (!isConnectionOpen()) {
+      synchronized (this) {
         try {
           long now = System.currentTimeMillis();
           if (lastConnectTryTime + minWaitConnectionRetry < now) {
@@ -133,7 +134,7 @@ public class SharedPubSubWebSocketClient extends PubSubWebSocketClient
   }
 
   @Override
-  public synchronized void onMessage(String type, String topic, Object data)
+  public void onMessage(String type, String topic, Object data)
   {
     List<Handler> handlers = topicHandlers.get(topic);
     if (handlers != null) {
@@ -0,0 +1,245 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.util;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sets the CPU affinity of the threads of the process.<p>
+ * <br>
+ * The Linux implementation sets the affinity of the calling thread with the sched_setaffinity system call through
+ * the taskset utility, using the thread id that /proc/thread-self resolves to, and reads the CPUs the process may run
+ * on and the NUMA nodes from /proc and /sys. On the other platforms, or when taskset is missing, the affinity is not
+ * supported: the calls to set it do nothing and all the available processors make one node.
+ *
+ * @since 3.5.0
+ */
+public abstract class ThreadAffinity
+{
+  private static final ThreadAffinity NONE = new ThreadAffinity()
+  {
+    @Override
+    public boolean isSupported()
+    {
+      return false;
+    }
+
+    @Override
+    public boolean setAffinity(BitSet cpus)
+    {
+      return false;
+    }
+
+  };
+  private static final ThreadAffinity instance = LinuxThreadAffinity.isAvailable() ? new LinuxThreadAffinity() : NONE;
+
+  /**
+   * @return the implementation for the platform
+   */
+  public static ThreadAffinity getInstance()
+  {
+    return instance;
+  }
+
+  /**
+   * @return the implementation which does not set the affinity
+   */
+  public static ThreadAffinity getNone()
+  {
+    return NONE;
+  }
+
+  /**
+   * @return true if the affinity of the threads can be set
+   */
+  public abstract boolean isSupported();
+
+  /**
+   * Restrict the calling thread to the CPUs.
+   *
+   * @param cpus the CPUs
+   * @return true if the affinity was set
+   */
+  public abstract boolean setAffinity(BitSet cpus);
+
+  /**
+   * @return the CPUs the process may run on
+   */
+  public BitSet getAvailableCpus()
+  {
+    BitSet cpus = new BitSet();
+    cpus.set(0, Runtime.getRuntime().availableProcessors());
+    return cpus;
+  }
+
+  /**
+   * @return the CPUs of each NUMA node
+   */
+  public List<BitSet> getNumaNodes()
+  {
+    return Collections.singletonList(getAvailableCpus());
+  }
+
+  /**
+   * @param list CPU list in the format of the Linux kernel, like 0-3,8,10-11
+   * @return the CPUs
+   */
+  public static BitSet parseCpuList(String list)
+  {
+    BitSet cpus = new BitSet();
+    for (String range : list.trim().split(",")) {
+      if (range.isEmpty()) {
+        continue;
+      }
+      int dash = range.indexOf('-');
+      if (dash == -1) {
+        cpus.set(Integer.parseInt(range));
+      } else {
+        cpus.set(Integer.parseInt(range.substring(0, dash)), Integer.parseInt(range.substring(dash + 1)) + 1);
+      }
+    }
+    return cpus;
+  }
+
+  /**
+   * @param cpus the CPUs
+   * @return the CPU list in the format of the Linux kernel
+   */
+  public static String toCpuList(BitSet cpus)
+  {
+    StringBuilder sb = new StringBuilder();
+    for (int cpu = cpus.nextSetBit(0); cpu >= 0; cpu = cpus.nextSetBit(cpu + 1)) {
+      int end = cpus.nextClearBit(cpu) - 1;
+      if (sb.length() > 0) {
+        sb.append(',');
+      }
+      sb.append(cpu);
+      if (end > cpu) {
+        sb.append('-').append(end);
+        cpu = end;
+      }
+    }
+    return sb.toString();
+  }
+
+  private static class LinuxThreadAffinity extends ThreadAffinity
+  {
+    private static final File THREAD_SELF = new File("/proc/thread-self");
+    private static final File STATUS = new File("/proc/self/status");
+    private static final File NODES = new File("/sys/devices/system/node");
+    private static final String TASKSET = "/usr/bin/taskset";
+    private static final String CPUS_ALLOWED = "Cpus_allowed_list:";
+
+    static boolean isAvailable()
+    {
+      return System.getProperty("os.name").startsWith("Linux") && THREAD_SELF.exists()
+          && new File(TASKSET).canExecute();
+    }
+
+    @Override
+    public boolean isSupported()
+    {
+      return true;
+    }
+
+    @Override
+    public boolean setAffinity(BitSet cpus)
+    {
+      try {
+        String tid = THREAD_SELF.getCanonicalFile().getName();
+        Process process = new ProcessBuilder(TASKSET, "-p", "-c", toCpuList(cpus), tid).redirectErrorStream(true)
+            .start();
+        String output = read(process.getInputStream());
+        if (process.waitFor() == 0) {
+          return true;
+        }
+        logger.warn("Cannot set the affinity of {} to {}: {}", Thread.currentThread(), cpus, output);
+      } catch (IOException ex) {
+        logger.warn("Cannot set the affinity of {} to {}", Thread.currentThread(), cpus, ex);
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+      return false;
+    }
+
+    @Override
+    public BitSet getAvailableCpus()
+    {
+      try (BufferedReader reader = new BufferedReader(new FileReader(STATUS))) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          if (line.startsWith(CPUS_ALLOWED)) {
+            return parseCpuList(line.substring(CPUS_ALLOWED.length()));
+          }
+        }
+      } catch (IOException | RuntimeException ex) {
+        logger.debug("Cannot read {}", STATUS, ex);
+      }
+      return super.getAvailableCpus();
+    }
+
+    @Override
+    public List<BitSet> getNumaNodes()
+    {
+      BitSet available = getAvailableCpus();
+      List<BitSet> nodes = new ArrayList<>();
+      File[] files = NODES.listFiles();
+      if (files != null) {
+        for (File file : files) {
+          if (file.getName().matches("node\\d+")) {
+            try (BufferedReader reader = new BufferedReader(new FileReader(new File(file, "cpulist")))) {
+              BitSet cpus = parseCpuList(reader.readLine());
+              cpus.and(available);
+              if (!cpus.isEmpty()) {
+                nodes.add(cpus);
+              }
+            } catch (IOException | RuntimeException ex) {
+              logger.debug("Cannot read the CPUs of {}", file, ex);
+            }
+          }
+        }
+      }
+      return nodes.isEmpty() ? Collections.singletonList(available) : nodes;
+    }
+
+    private static String read(InputStream is) throws IOException
+    {
+      StringBuilder sb = new StringBuilder();
+      byte[] buffer = new byte[256];
+      int count;
+      while ((count = is.read(buffer)) != -1) {
+        sb.append(new String(buffer, 0, count));
+      }
+      return sb.toString().trim();
+    }
+  }
+
+  private static final Logger logger = LoggerFactory.getLogger(ThreadAffinity.class);
+}
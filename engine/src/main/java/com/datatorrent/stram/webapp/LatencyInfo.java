@@ -0,0 +1,52 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.webapp;
+
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlRootElement;
+
+import com.datatorrent.stram.util.LatencyHistogram;
+
+/**
+ * Percentiles of the latencies measured with latency markers, in microseconds.
+ *
+ * @since 3.5.0
+ */
+@XmlRootElement(name = "latency")
+@XmlAccessorType(XmlAccessType.FIELD)
+public class LatencyInfo
+{
+  public long count;
+  public long p50;
+  public long p99;
+  public long p999;
+  public long max;
+
+  public static LatencyInfo create(LatencyHistogram histogram)
+  {
+    LatencyInfo info = new LatencyInfo();
+    info.count = histogram.getCount();
+    info.p50 = histogram.getPercentile(50);
+    info.p99 = histogram.getPercentile(99);
+    info.p999 = histogram.getPercentile(99.9);
+    info.max = histogram.getMax();
+    return info;
+  }
+}
@@ -52,6 +52,15 @@ public class LogicalOperatorInfo
   public double cpuPercentageMA;
   @AutoMetric
   public long latencyMA;
+  /**
+   * Latency from all source operators to the partitions measured with latency markers, null when no markers were
+   * received.
+   */
+  public LatencyInfo latency;
+  /**
+   * Latency measured with latency markers by source operator name.
+   */
+  public Map<String, LatencyInfo> sourceLatencies;
   public Map<String, MutableInt> status;
   public long lastHeartbeat;
   @AutoMetric
@@ -333,6 +333,17 @@ public class OperatorDiscoverer
     Map<String, File> openClassFiles = new HashMap<>();
     // use global cache to load resource in/out of the same jar as the classes
     Set<String> resourceCacheSet = new HashSet<>();
+    // class hierarchy of the jars from the index, entries are still listed for javadoc and resources
+    List<String> jarPaths = new ArrayList<>();
+    for (String path : pathsToScan) {
+      if (!GENERATED_CLASSES_JAR.equals(new File(path).getName())) {
+        jarPaths.add(path);
+      }
+    }
+    Map<String, TypeGraph> jarGraphs = new TypeGraphIndex(TypeGraphIndex.getDefaultIndexDir()).getJarGraphs(jarPaths, true);
+    for (TypeGraph jarGraph : jarGraphs.values()) {
+      typeGraph.merge(jarGraph);
+    }
     try {
       for (String path : pathsToScan) {
         File f = null;
@@ -365,7 +376,12 @@ public class OperatorDiscoverer
                   LOG.warn("Cannot process javadoc {} : ", entryName, ex);
                 }
               } else if (entryName.endsWith(".class")) {
-                TypeGraph.TypeGraphVertex newNode = typeGraph.addNode(jarEntry, jar);
+                TypeGraph.TypeGraphVertex newNode = jarGraphs.containsKey(path)
+                    ? typeGraph.getNode(entryName.substring(0, entryName.length() - 6).replace('/', '.'))
+                    : typeGraph.addNode(jarEntry, jar);
+                if (newNode == null) {
+                  newNode = typeGraph.addNode(jarEntry, jar);
+                }
                 // check if any visited resources belong to this type
                 for (Iterator<String> iter = resourceCacheSet.iterator(); iter.hasNext(); ) {
                   String entry = iter.next();
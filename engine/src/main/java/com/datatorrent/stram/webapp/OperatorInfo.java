@@ -71,6 +71,16 @@ public class OperatorInfo
   public double cpuPercentageMA;
   @RecordField(type = "stats")
   public long latencyMA;
+  /**
+   * Latency from all source operators measured with latency markers, null when no markers were received.
+   */
+  @RecordField(type = "stats")
+  public LatencyInfo latency;
+  /**
+   * Latency measured with latency markers by source operator id.
+   */
+  @RecordField(type = "stats")
+  public Map<String, LatencyInfo> sourceLatencies;
   public String status;
   public long lastHeartbeat;
   public long failureCount;
@@ -93,6 +103,11 @@ public class OperatorInfo
   public long checkpointTime;
   @RecordField(type = "stats")
   public long checkpointTimeMA;
+  /**
+   * Time in milliseconds spent loading the checkpointed state at the last deployment.
+   */
+  @RecordField(type = "stats")
+  public long restoreMillis;
 
   /**
    * @param info
@@ -38,5 +38,25 @@ public class PortInfo
   public long tuplesPSMA;
   public long bufferServerBytesPSMA;
   public long queueSizeMA;
+  /**
+   * CPU percentage used to deserialize the tuples ahead of the operator, to compare with the CPU percentage of the
+   * operator. 0 unless the port decodes ahead.
+   */
+  public double decodeCpuPercentageMA;
+  /**
+   * Percentage of the time the port held back its producer: the upstream operator blocked on the full queue or the
+   * suspended stream read of an input port, the operator blocked publishing on an output port.
+   */
+  public double blockedPercentageMA;
+  /**
+   * Percentage of the time the operator waited with the queue of the input port empty.
+   */
+  public double idlePercentageMA;
+  public long suspendCount;
+  public long resumeCount;
+  /**
+   * Nanoseconds the input queue spent at each size by power of two bucket: empty, 1, 2-3, 4-7 and so on.
+   */
+  public long[] queueOccupancy;
   public String recordingId;
 }
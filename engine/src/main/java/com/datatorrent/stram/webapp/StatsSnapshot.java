@@ -0,0 +1,400 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.webapp;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.ws.rs.core.EntityTag;
+
+import org.codehaus.jackson.map.ObjectMapper;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Predicate;
+
+import com.datatorrent.stram.StreamingContainerAgent;
+import com.datatorrent.stram.StreamingContainerManager;
+import com.datatorrent.stram.plan.logical.LogicalPlan.OperatorMeta;
+import com.datatorrent.stram.plan.physical.PTContainer;
+import com.datatorrent.stram.plan.physical.PTOperator;
+
+/**
+ * Immutable snapshot of the operator and container information served by {@link StramWebServices}. A snapshot is
+ * built at most once per heartbeat cycle of the {@link StreamingContainerManager} and shared by all requests of the
+ * cycle. The items are rendered to JSON when the snapshot is built and written to the responses as they are.
+ * <p>
+ * Items are only built and rendered again when the version of their source changed, as operators that did not
+ * heartbeat since the previous snapshot keep their info. Every item and table remembers the revision of the snapshot
+ * in which it last changed. The revision serves as entity
+ * tag for conditional requests and allows clients to request only the changes since a revision they have seen.
+ * Removed items are remembered for {@link #MAX_REMOVED_REVISIONS} revisions, clients with an older revision receive
+ * the full table.
+ *
+ * @since 3.5.0
+ */
+public class StatsSnapshot
+{
+  /**
+   * Number of revisions for which the keys of removed items are remembered.
+   */
+  public static final int MAX_REMOVED_REVISIONS = 600;
+
+  private static final byte[] ITEM_SEPARATOR = ",".getBytes(Charsets.UTF_8);
+
+  private final long epoch;
+  private final long revision;
+  private final long heartbeatCycle;
+  private final Table<OperatorInfo> operators;
+  private final Table<LogicalOperatorInfo> logicalOperators;
+  private final Table<ContainerInfo> containers;
+
+  private StatsSnapshot(long epoch, long revision, long heartbeatCycle, Table<OperatorInfo> operators,
+      Table<LogicalOperatorInfo> logicalOperators, Table<ContainerInfo> containers)
+  {
+    this.epoch = epoch;
+    this.revision = revision;
+    this.heartbeatCycle = heartbeatCycle;
+    this.operators = operators;
+    this.logicalOperators = logicalOperators;
+    this.containers = containers;
+  }
+
+  /**
+   * Build the snapshot of the current state, comparing the items with the previous snapshot to find the changes.
+   *
+   * @param dagManager source of the information
+   * @param mapper mapper to render the items
+   * @param previous previous snapshot or null
+   * @return the new snapshot
+   * @throws IOException
+   */
+  public static StatsSnapshot create(final StreamingContainerManager dagManager, ObjectMapper mapper,
+      StatsSnapshot previous) throws IOException
+  {
+    long heartbeatCycle = dagManager.getHeartbeatCycle();
+    long revision = previous == null ? 1 : previous.revision + 1;
+
+    // same order as listed before
+    List<Source<OperatorInfo>> operators = new ArrayList<>();
+    for (PTContainer container : dagManager.getPhysicalPlan().getContainers()) {
+      for (final PTOperator operator : container.getOperators()) {
+        operators.add(new Source<OperatorInfo>(Integer.toString(operator.getId()),
+            dagManager.getOperatorInfoVersion(operator))
+        {
+          @Override
+          OperatorInfo getValue()
+          {
+            return dagManager.getOperatorInfo(operator.getId());
+          }
+        });
+      }
+    }
+    List<Source<LogicalOperatorInfo>> logicalOperators = new ArrayList<>();
+    for (final OperatorMeta operatorMeta : dagManager.getLogicalPlan().getAllOperators()) {
+      logicalOperators.add(new Source<LogicalOperatorInfo>(operatorMeta.getName(),
+          dagManager.getLogicalOperatorInfoVersion(operatorMeta))
+      {
+        @Override
+        LogicalOperatorInfo getValue()
+        {
+          return dagManager.getLogicalOperatorInfo(operatorMeta.getName());
+        }
+      });
+    }
+    // same order as listed before, completed containers first and the app master container next
+    List<Source<ContainerInfo>> containers = new ArrayList<>();
+    for (ContainerInfo ci : dagManager.getCompletedContainerInfo()) {
+      containers.add(Source.of(ci.id, ci));
+    }
+    ContainerInfo appMasterContainerInfo = dagManager.getAppMasterContainerInfo();
+    containers.add(Source.of(appMasterContainerInfo.id, appMasterContainerInfo));
+    for (StreamingContainerAgent sca : dagManager.getContainerAgents()) {
+      ContainerInfo ci = sca.getContainerInfo();
+      containers.add(Source.of(ci.id, ci));
+    }
+
+    return new StatsSnapshot(previous == null ? System.currentTimeMillis() : previous.epoch, revision, heartbeatCycle,
+        Table.create("operators", operators, revision, previous == null ? null : previous.operators, mapper),
+        Table.create("operators", logicalOperators, revision, previous == null ? null : previous.logicalOperators, mapper),
+        Table.create("containers", containers, revision, previous == null ? null : previous.containers, mapper));
+  }
+
+  public long getRevision()
+  {
+    return revision;
+  }
+
+  /**
+   * @return the heartbeat cycle of the {@link StreamingContainerManager} the snapshot was built in
+   */
+  public long getHeartbeatCycle()
+  {
+    return heartbeatCycle;
+  }
+
+  /**
+   * @return the entity tag of the given revision, which differs from the tags of other application master instances
+   */
+  public EntityTag getEntityTag(long revision)
+  {
+    return new EntityTag(Long.toHexString(epoch) + "-" + revision);
+  }
+
+  /**
+   * @return physical operators by id
+   */
+  public Table<OperatorInfo> getOperators()
+  {
+    return operators;
+  }
+
+  /**
+   * @return logical operators by name
+   */
+  public Table<LogicalOperatorInfo> getLogicalOperators()
+  {
+    return logicalOperators;
+  }
+
+  /**
+   * @return containers by id
+   */
+  public Table<ContainerInfo> getContainers()
+  {
+    return containers;
+  }
+
+  /**
+   * Source of an item. The value is only built when the version differs from the version of the item in the previous
+   * snapshot, a null version builds the value every time and compares the rendered JSON.
+   */
+  abstract static class Source<T>
+  {
+    private final String key;
+    private final Object version;
+
+    Source(String key, Object version)
+    {
+      this.key = key;
+      this.version = version;
+    }
+
+    abstract T getValue();
+
+    static <T> Source<T> of(String key, final T value)
+    {
+      return new Source<T>(key, null)
+      {
+        @Override
+        T getValue()
+        {
+          return value;
+        }
+      };
+    }
+  }
+
+  /**
+   * Rendered item with the revision in which it last changed.
+   */
+  public static class Item<T>
+  {
+    private final T value;
+    private final byte[] json;
+    private final long revision;
+    private final Object version;
+
+    Item(T value, byte[] json, long revision, Object version)
+    {
+      this.value = value;
+      this.json = json;
+      this.revision = revision;
+      this.version = version;
+    }
+
+    public T getValue()
+    {
+      return value;
+    }
+
+    public long getRevision()
+    {
+      return revision;
+    }
+
+    public void write(OutputStream os) throws IOException
+    {
+      os.write(json);
+    }
+  }
+
+  /**
+   * Items by key, in the order they were provided, with the keys of the recently removed items.
+   */
+  public static class Table<T>
+  {
+    private final String name;
+    private final Map<String, Item<T>> items;
+    private final Map<String, Long> removed;
+    private final long revision;
+    private final long minDeltaRevision;
+
+    private Table(String name, Map<String, Item<T>> items, Map<String, Long> removed, long revision, long minDeltaRevision)
+    {
+      this.name = name;
+      this.items = Collections.unmodifiableMap(items);
+      this.removed = removed;
+      this.revision = revision;
+      this.minDeltaRevision = minDeltaRevision;
+    }
+
+    static <T> Table<T> create(String name, List<Source<T>> sources, long revision, Table<T> previous,
+        ObjectMapper mapper) throws IOException
+    {
+      Map<String, Item<T>> items = new LinkedHashMap<>(sources.size() * 2);
+      Map<String, Long> removed = new HashMap<>();
+      long tableRevision = revision;
+      long minDeltaRevision = 0;
+      if (previous != null) {
+        tableRevision = previous.revision;
+        minDeltaRevision = previous.minDeltaRevision;
+        for (Map.Entry<String, Long> e : previous.removed.entrySet()) {
+          if (e.getValue() > revision - MAX_REMOVED_REVISIONS) {
+            removed.put(e.getKey(), e.getValue());
+          } else {
+            // the changes before are no longer complete
+            minDeltaRevision = Math.max(minDeltaRevision, e.getValue());
+          }
+        }
+      }
+
+      for (Source<T> source : sources) {
+        Item<T> item = previous == null ? null : previous.items.get(source.key);
+        if (item == null || source.version == null || !source.version.equals(item.version)) {
+          T value = source.getValue();
+          byte[] json = mapper.writeValueAsBytes(value);
+          if (item == null || !Arrays.equals(item.json, json)) {
+            item = new Item<>(value, json, revision, source.version);
+            tableRevision = revision;
+          } else {
+            item = new Item<>(item.value, item.json, item.revision, source.version);
+          }
+        }
+        items.put(source.key, item);
+        removed.remove(source.key);
+      }
+      if (previous != null) {
+        for (String key : previous.items.keySet()) {
+          if (!items.containsKey(key)) {
+            removed.put(key, revision);
+            tableRevision = revision;
+          }
+        }
+      }
+      return new Table<>(name, items, removed, tableRevision, minDeltaRevision);
+    }
+
+    /**
+     * @return the revision in which the table last changed
+     */
+    public long getRevision()
+    {
+      return revision;
+    }
+
+    public Map<String, Item<T>> getItems()
+    {
+      return items;
+    }
+
+    /**
+     * @return the item or null when there is no item for the key
+     */
+    public Item<T> getItem(String key)
+    {
+      return items.get(key);
+    }
+
+    /**
+     * Write the table as JSON object with the items in an array under the table name. With a since revision, the
+     * object also contains the current revision, only the items changed after the since revision are written and the
+     * keys of the items removed after the since revision follow as "removed". When the changes are not known for the
+     * since revision, all items are written and "full" is true.
+     *
+     * @param os output stream
+     * @param filter items to write or null for all items, changed items not accepted count as removed
+     * @param sinceRevision revision known to the client or null to write all items
+     * @param currentRevision revision of the snapshot
+     * @param mapper mapper to render the keys
+     * @throws IOException
+     */
+    public void write(OutputStream os, Predicate<? super T> filter, Long sinceRevision, long currentRevision,
+        ObjectMapper mapper) throws IOException
+    {
+      boolean delta = sinceRevision != null;
+      boolean full = !delta || sinceRevision < minDeltaRevision || sinceRevision > currentRevision;
+      List<String> removedKeys = new ArrayList<>();
+      StringBuilder sb = new StringBuilder("{");
+      if (delta) {
+        sb.append("\"revision\":").append(currentRevision).append(",\"full\":").append(full).append(',');
+      }
+      sb.append(mapper.writeValueAsString(name)).append(":[");
+      os.write(sb.toString().getBytes(Charsets.UTF_8));
+
+      boolean first = true;
+      for (Map.Entry<String, Item<T>> e : items.entrySet()) {
+        Item<T> item = e.getValue();
+        if (!full && item.revision <= sinceRevision) {
+          continue;
+        }
+        if (filter != null && !filter.apply(item.value)) {
+          if (!full) {
+            removedKeys.add(e.getKey());
+          }
+          continue;
+        }
+        if (!first) {
+          os.write(ITEM_SEPARATOR);
+        }
+        item.write(os);
+        first = false;
+      }
+
+      if (delta) {
+        if (!full) {
+          for (Map.Entry<String, Long> e : removed.entrySet()) {
+            if (e.getValue() > sinceRevision) {
+              removedKeys.add(e.getKey());
+            }
+          }
+        }
+        os.write(("],\"removed\":" + mapper.writeValueAsString(removedKeys) + "}").getBytes(Charsets.UTF_8));
+      } else {
+        os.write("]}".getBytes(Charsets.UTF_8));
+      }
+    }
+  }
+}
@@ -19,6 +19,7 @@
 package com.datatorrent.stram.webapp;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -48,7 +49,11 @@ import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 
 import org.codehaus.jackson.JsonGenerator;
 import org.codehaus.jackson.JsonProcessingException;
@@ -72,6 +77,7 @@ import org.apache.hadoop.yarn.api.ApplicationConstants;
 import org.apache.hadoop.yarn.webapp.NotFoundException;
 import org.apache.log4j.DTLoggerFactory;
 
+import com.google.common.base.Predicate;
 import com.google.common.collect.Maps;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
@@ -80,6 +86,7 @@ import com.datatorrent.api.Attribute;
 import com.datatorrent.api.Context.DAGContext;
 import com.datatorrent.api.Operator;
 import com.datatorrent.api.StringCodec;
+import com.datatorrent.common.util.Pair;
 import com.datatorrent.stram.StramAppContext;
 import com.datatorrent.stram.StramUtils;
 import com.datatorrent.stram.StreamingContainerAgent;
@@ -139,6 +146,7 @@ public class StramWebServices
   private StreamingContainerManager dagManager;
   private ObjectMapper objectMapper = new JSONSerializationProvider().getContext(null);
   private boolean initialized = false;
+  private StatsSnapshot statsSnapshot;
 
   private OperatorDiscoverer operatorDiscoverer = new OperatorDiscoverer();
 
@@ -200,6 +208,54 @@ public class StramWebServices
     }
   }
 
+  /**
+   * @return the stats snapshot of the current heartbeat cycle, built by the first request of the cycle
+   */
+  synchronized StatsSnapshot getStatsSnapshot() throws IOException
+  {
+    if (statsSnapshot == null || statsSnapshot.getHeartbeatCycle() != dagManager.getHeartbeatCycle()) {
+      statsSnapshot = StatsSnapshot.create(dagManager, objectMapper, statsSnapshot);
+    }
+    return statsSnapshot;
+  }
+
+  private <T> Response getTableResponse(Request request, final StatsSnapshot snapshot, final StatsSnapshot.Table<T> table,
+      final Predicate<? super T> filter, final Long sinceRevision)
+  {
+    EntityTag tag = snapshot.getEntityTag(table.getRevision());
+    Response.ResponseBuilder rb = request.evaluatePreconditions(tag);
+    if (rb == null) {
+      rb = Response.ok(new StreamingOutput()
+      {
+        @Override
+        public void write(OutputStream os) throws IOException
+        {
+          table.write(os, filter, sinceRevision, snapshot.getRevision(), objectMapper);
+        }
+
+      }).tag(tag);
+    }
+    return rb.build();
+  }
+
+  private Response getItemResponse(Request request, StatsSnapshot snapshot, final StatsSnapshot.Item<?> item)
+  {
+    EntityTag tag = snapshot.getEntityTag(item.getRevision());
+    Response.ResponseBuilder rb = request.evaluatePreconditions(tag);
+    if (rb == null) {
+      rb = Response.ok(new StreamingOutput()
+      {
+        @Override
+        public void write(OutputStream os) throws IOException
+        {
+          item.write(os);
+        }
+
+      }).tag(tag);
+    }
+    return rb.build();
+  }
+
   @GET
   @Produces(MediaType.APPLICATION_JSON)
   public JSONObject get() throws Exception
@@ -231,13 +287,11 @@ public class StramWebServices
   @GET
   @Path(PATH_PHYSICAL_PLAN_OPERATORS)
   @Produces(MediaType.APPLICATION_JSON)
-  public JSONObject getOperatorsInfo() throws Exception
+  public Response getOperatorsInfo(@Context Request request, @QueryParam("sinceRevision") Long sinceRevision) throws Exception
   {
     init();
-    OperatorsInfo nodeList = new OperatorsInfo();
-    nodeList.operators = dagManager.getOperatorInfoList();
-    // To get around the nasty JAXB problem for lists
-    return new JSONObject(objectMapper.writeValueAsString(nodeList));
+    StatsSnapshot snapshot = getStatsSnapshot();
+    return getTableResponse(request, snapshot, snapshot.getOperators(), null, sinceRevision);
   }
 
   @GET
@@ -254,14 +308,20 @@ public class StramWebServices
   @GET
   @Path(PATH_PHYSICAL_PLAN_OPERATORS + "/{operatorId:\\d+}")
   @Produces(MediaType.APPLICATION_JSON)
-  public JSONObject getOperatorInfo(@PathParam("operatorId") int operatorId) throws Exception
+  public Response getOperatorInfo(@Context Request request, @PathParam("operatorId") int operatorId) throws Exception
   {
     init();
+    StatsSnapshot snapshot = getStatsSnapshot();
+    StatsSnapshot.Item<OperatorInfo> item = snapshot.getOperators().getItem(Integer.toString(operatorId));
+    if (item != null) {
+      return getItemResponse(request, snapshot, item);
+    }
+    // deployed after the snapshot was taken
     OperatorInfo oi = dagManager.getOperatorInfo(operatorId);
     if (oi == null) {
       throw new NotFoundException();
     }
-    return new JSONObject(objectMapper.writeValueAsString(oi));
+    return Response.ok(objectMapper.writeValueAsBytes(oi)).build();
   }
 
   @GET
@@ -441,43 +501,40 @@ public class StramWebServices
   @GET
   @Path(PATH_PHYSICAL_PLAN_CONTAINERS)
   @Produces(MediaType.APPLICATION_JSON)
-  public JSONObject listContainers(@QueryParam("states") String states) throws Exception
+  public Response listContainers(@Context Request request, @QueryParam("states") String states,
+      @QueryParam("sinceRevision") Long sinceRevision) throws Exception
   {
     init();
-    Set<String> stateSet = null;
+    Predicate<ContainerInfo> filter = null;
     if (states != null) {
-      stateSet = new HashSet<>();
+      final Set<String> stateSet = new HashSet<>();
       stateSet.addAll(Arrays.asList(StringUtils.split(states, ',')));
-    }
-    ContainersInfo ci = new ContainersInfo();
-    for (ContainerInfo containerInfo : dagManager.getCompletedContainerInfo()) {
-      if (stateSet == null || stateSet.contains(containerInfo.state)) {
-        ci.add(containerInfo);
-      }
-    }
+      filter = new Predicate<ContainerInfo>()
+      {
+        @Override
+        public boolean apply(ContainerInfo containerInfo)
+        {
+          return stateSet.contains(containerInfo.state);
+        }
 
-    Collection<StreamingContainerAgent> containerAgents = dagManager.getContainerAgents();
-    // add itself (app master container)
-    ContainerInfo appMasterContainerInfo = dagManager.getAppMasterContainerInfo();
-    if (stateSet == null || stateSet.contains(appMasterContainerInfo.state)) {
-      ci.add(appMasterContainerInfo);
-    }
-    for (StreamingContainerAgent sca : containerAgents) {
-      ContainerInfo containerInfo = sca.getContainerInfo();
-      if (stateSet == null || stateSet.contains(containerInfo.state)) {
-        ci.add(containerInfo);
-      }
+      };
     }
-    // To get around the nasty JAXB problem for lists
-    return new JSONObject(objectMapper.writeValueAsString(ci));
+    StatsSnapshot snapshot = getStatsSnapshot();
+    return getTableResponse(request, snapshot, snapshot.getContainers(), filter, sinceRevision);
   }
 
   @GET
   @Path(PATH_PHYSICAL_PLAN_CONTAINERS + "/{containerId}")
   @Produces(MediaType.APPLICATION_JSON)
-  public JSONObject getContainer(@PathParam("containerId") String containerId) throws Exception
+  public Response getContainer(@Context Request request, @PathParam("containerId") String containerId) throws Exception
   {
     init();
+    StatsSnapshot snapshot = getStatsSnapshot();
+    StatsSnapshot.Item<ContainerInfo> item = snapshot.getContainers().getItem(containerId);
+    if (item != null) {
+      return getItemResponse(request, snapshot, item);
+    }
+    // allocated after the snapshot was taken
     ContainerInfo ci = null;
     if (containerId.equals(System.getenv(ApplicationConstants.Environment.CONTAINER_ID.toString()))) {
       ci = dagManager.getAppMasterContainerInfo();
@@ -495,7 +552,7 @@ public class StramWebServices
         ci = sca.getContainerInfo();
       }
     }
-    return new JSONObject(objectMapper.writeValueAsString(ci));
+    return Response.ok(objectMapper.writeValueAsBytes(ci)).build();
   }
 
   @GET
@@ -564,18 +621,17 @@ public class StramWebServices
   @GET
   @Path(PATH_LOGICAL_PLAN_OPERATORS)
   @Produces(MediaType.APPLICATION_JSON)
-  public JSONObject getLogicalOperators() throws Exception
+  public Response getLogicalOperators(@Context Request request, @QueryParam("sinceRevision") Long sinceRevision) throws Exception
   {
     init();
-    LogicalOperatorsInfo nodeList = new LogicalOperatorsInfo();
-    nodeList.operators = dagManager.getLogicalOperatorInfoList();
-    return new JSONObject(objectMapper.writeValueAsString(nodeList));
+    StatsSnapshot snapshot = getStatsSnapshot();
+    return getTableResponse(request, snapshot, snapshot.getLogicalOperators(), null, sinceRevision);
   }
 
   @GET
   @Path(PATH_LOGICAL_PLAN_OPERATORS + "/{operatorName}")
   @Produces(MediaType.APPLICATION_JSON)
-  public JSONObject getLogicalOperator(@PathParam("operatorName") String operatorName) throws Exception
+  public Response getLogicalOperator(@Context Request request, @PathParam("operatorName") String operatorName) throws Exception
   {
     init();
     OperatorMeta logicalOperator = dagManager.getLogicalPlan().getOperatorMeta(operatorName);
@@ -583,8 +639,14 @@ public class StramWebServices
       throw new NotFoundException();
     }
 
+    StatsSnapshot snapshot = getStatsSnapshot();
+    StatsSnapshot.Item<LogicalOperatorInfo> item = snapshot.getLogicalOperators().getItem(operatorName);
+    if (item != null) {
+      return getItemResponse(request, snapshot, item);
+    }
+    // added after the snapshot was taken
     LogicalOperatorInfo logicalOperatorInfo = dagManager.getLogicalOperatorInfo(operatorName);
-    return new JSONObject(objectMapper.writeValueAsString(logicalOperatorInfo));
+    return Response.ok(objectMapper.writeValueAsBytes(logicalOperatorInfo)).build();
   }
 
   @GET
@@ -602,6 +664,34 @@ public class StramWebServices
     return new JSONObject(objectMapper.writeValueAsString(operatorAggregationInfo));
   }
 
+  @GET
+  @Path(PATH_LOGICAL_PLAN_OPERATORS + "/{operatorName}/metrics")
+  @Produces(MediaType.APPLICATION_JSON)
+  public JSONObject getOperatorMetrics(@PathParam("operatorName") String operatorName, @QueryParam("sinceWindowId") Long sinceWindowId) throws Exception
+  {
+    init();
+    OperatorMeta logicalOperator = dagManager.getLogicalPlan().getOperatorMeta(operatorName);
+    if (logicalOperator == null) {
+      throw new NotFoundException();
+    }
+
+    Map<String, Object> result = new HashMap<>();
+    List<Map<String, Object>> windows = new ArrayList<>();
+    List<Pair<Long, Map<String, Object>>> windowMetrics = dagManager.getWindowMetrics(operatorName,
+        sinceWindowId == null ? -1 : sinceWindowId);
+    if (windowMetrics != null) {
+      for (Pair<Long, Map<String, Object>> entry : windowMetrics) {
+        Map<String, Object> window = new HashMap<>();
+        window.put("windowId", entry.first);
+        window.put("metrics", entry.second);
+        windows.add(window);
+      }
+    }
+    result.put("windows", windows);
+    result.put("rollups", dagManager.getMetricRollups(operatorName));
+    return new JSONObject(objectMapper.writeValueAsString(result));
+  }
+
   @POST // not supported by WebAppProxyServlet, can only be called directly
   @Path(PATH_LOGICAL_PLAN_OPERATORS + "/{operatorName}/properties")
   @Consumes(MediaType.APPLICATION_JSON)
@@ -39,10 +39,20 @@ public class StreamInfo
   {
     public String operatorId;
     public String portName;
+    /**
+     * Percentage of the time the port held back the source: for a sink the time the source was blocked on the
+     * stream, for the source the time it was blocked publishing.
+     */
+    public double blockedPercentageMA;
   }
 
   public String logicalName;
   public Port source = new Port();
   public List<Port> sinks = new ArrayList<>();
   public Locality locality;
+  /**
+   * Id of the operator which slows down the stream: the sink, or the operator further downstream, that holds back
+   * its upstream operator while it is not held back itself. Null if the stream is not backpressured.
+   */
+  public String backpressureSource;
 }
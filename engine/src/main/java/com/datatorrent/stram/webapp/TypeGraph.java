@@ -268,44 +268,16 @@ public class TypeGraph
     try {
 
       FastClassIndexReader fastClassIndexReader = new FastClassIndexReader(input);
-      String typeName = fastClassIndexReader.getName().replace('/', '.');
-      TypeGraphVertex tgv;
-      TypeGraphVertex ptgv;
-      if (typeGraph.containsKey(typeName)) {
-        tgv = typeGraph.get(typeName);
-        tgv.setIsRealNode(true);
-        tgv.setJarName(resName); // If tgv was already populated for superclass/interface, jar name needs to be updated
-        tgv.setIsInstantiable(fastClassIndexReader.isInstantiable());
-      } else {
-        tgv = new TypeGraphVertex(this, typeName, resName, true, fastClassIndexReader.isInstantiable());
-        typeGraph.put(typeName, tgv);
-      }
-      String immediateP = fastClassIndexReader.getSuperName();
-      if (immediateP != null) {
-        immediateP = immediateP.replace('/', '.');
-        ptgv = typeGraph.get(immediateP);
-        if (ptgv == null) {
-          ptgv = new TypeGraphVertex(this, immediateP, resName);
-          typeGraph.put(immediateP, ptgv);
-        }
-        tgv.ancestors.add(ptgv);
-        ptgv.descendants.add(tgv);
+      List<String> parents = new ArrayList<>();
+      if (fastClassIndexReader.getSuperName() != null) {
+        parents.add(fastClassIndexReader.getSuperName().replace('/', '.'));
       }
       if (fastClassIndexReader.getInterfaces() != null) {
         for (String iface : fastClassIndexReader.getInterfaces()) {
-          iface = iface.replace('/', '.');
-          ptgv = typeGraph.get(iface);
-          if (ptgv == null) {
-            ptgv = new TypeGraphVertex(this, iface, resName);
-            typeGraph.put(iface, ptgv);
-          }
-          tgv.ancestors.add(ptgv);
-          ptgv.descendants.add(tgv);
+          parents.add(iface.replace('/', '.'));
         }
       }
-
-      updateInstantiableDescendants(tgv);
-      return tgv;
+      return addNode(fastClassIndexReader.getName().replace('/', '.'), resName, fastClassIndexReader.isInstantiable(), parents);
     } finally {
       if (input != null) {
         input.close();
@@ -313,6 +285,70 @@ public class TypeGraph
     }
   }
 
+  private TypeGraphVertex addNode(String typeName, String resName, boolean isInstantiable, Collection<String> parents)
+  {
+    TypeGraphVertex tgv;
+    TypeGraphVertex ptgv;
+    if (typeGraph.containsKey(typeName)) {
+      tgv = typeGraph.get(typeName);
+      tgv.setIsRealNode(true);
+      tgv.setJarName(resName); // If tgv was already populated for superclass/interface, jar name needs to be updated
+      tgv.setIsInstantiable(isInstantiable);
+    } else {
+      tgv = new TypeGraphVertex(this, typeName, resName, true, isInstantiable);
+      typeGraph.put(typeName, tgv);
+    }
+    for (String parent : parents) {
+      ptgv = typeGraph.get(parent);
+      if (ptgv == null) {
+        ptgv = new TypeGraphVertex(this, parent, resName);
+        typeGraph.put(parent, ptgv);
+      }
+      tgv.ancestors.add(ptgv);
+      ptgv.descendants.add(tgv);
+    }
+
+    updateInstantiableDescendants(tgv);
+    return tgv;
+  }
+
+  /**
+   * Add the classes of another, untrimmed graph as if they were added to this graph in the same order. Used to
+   * combine graphs that were built per jar.
+   *
+   * @param other the graph to add
+   */
+  public void merge(TypeGraph other)
+  {
+    for (TypeGraphVertex v : other.typeGraph.values()) {
+      if (v.isRealNode()) {
+        List<String> parents = new ArrayList<>(v.ancestors.size());
+        for (TypeGraphVertex p : v.ancestors) {
+          parents.add(p.typeName);
+        }
+        TypeGraphVertex tgv = addNode(v.typeName, v.getJarName(), v.isInstantiable, parents);
+        if (v.hasResource()) {
+          tgv.setHasResource(true);
+        }
+      }
+    }
+  }
+
+  /**
+   * Point the nodes of a jar to another jar with the same content, for graphs that were built for a copy of the jar.
+   *
+   * @param jarName the jar name of the nodes
+   * @param newJarName the jar to point the nodes to
+   */
+  void setJarName(String jarName, String newJarName)
+  {
+    for (TypeGraphVertex v : typeGraph.values()) {
+      if (jarName.equals(v.getJarName())) {
+        v.setJarName(newJarName);
+      }
+    }
+  }
+
   public TypeGraphVertex addNode(File file) throws IOException
   {
     return addNode(new FileInputStream(file), file.getAbsolutePath());
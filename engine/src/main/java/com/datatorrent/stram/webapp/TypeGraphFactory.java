@@ -20,12 +20,8 @@ package com.datatorrent.stram.webapp;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
-import java.io.File;
-import java.io.IOException;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Set;
-import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -55,7 +51,7 @@ public class TypeGraphFactory
 
   static {
     LOG.debug("Pre compute the type graph out of classes in jdk and jars in current classpath");
-    final Set<String> pathsToScan = new HashSet<>();
+    final Set<String> pathsToScan = new LinkedHashSet<>();
 
     String classpath = System.getProperty("java.class.path");
     String[] paths = classpath.split(":");
@@ -67,32 +63,14 @@ public class TypeGraphFactory
     String jdkJar = javahome + "/lib/rt.jar";
     pathsToScan.add(jdkJar);
 
+    long start = System.currentTimeMillis();
     tg = new TypeGraph();
-
-
-    for (String path : pathsToScan) {
-      try {
-        File f = new File(path);
-        if (!f.exists() || !f.getName().endsWith("jar")) {
-          continue;
-        }
-        JarFile jar = new JarFile(path);
-        try {
-          java.util.Enumeration<JarEntry> entriesEnum = jar.entries();
-          while (entriesEnum.hasMoreElements()) {
-            java.util.jar.JarEntry jarEntry = entriesEnum.nextElement();
-            if (!jarEntry.isDirectory() && jarEntry.getName().endsWith(".class")) {
-              tg.addNode(jarEntry, jar);
-            }
-          }
-
-        } finally {
-          jar.close();
-        }
-      } catch (IOException ex) {
-        LOG.warn("Some error happens when parsing the file {}", path, ex);
-      }
+    TypeGraphIndex index = new TypeGraphIndex(TypeGraphIndex.getDefaultIndexDir());
+    for (TypeGraph jarGraph : index.getJarGraphs(pathsToScan, false).values()) {
+      tg.merge(jarGraph);
     }
+    LOG.info("Type graph of {} classes from {} indexed and {} scanned jars built in {} ms", tg.size(), index.getHits(),
+        index.getMisses(), System.currentTimeMillis() - start);
 
     Kryo kryo = new Kryo();
     TypeGraphSerializer tgs = new TypeGraphSerializer();
@@ -0,0 +1,357 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.webapp;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.io.IOUtils;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+
+import com.datatorrent.common.util.NameableThreadFactory;
+import com.datatorrent.stram.client.StramClientUtils;
+import com.datatorrent.stram.webapp.TypeGraph.TypeGraphSerializer;
+
+/**
+ * On-disk index of the type graphs of individual jars. Each jar is scanned into its own untrimmed {@link TypeGraph},
+ * which is stored with {@link TypeGraphSerializer} in a file keyed by the path, size and modification time of the jar,
+ * so that the jars of the class path, such as the JDK and Hadoop jars, are only read when they changed. Application
+ * jars are extracted to a new location for every package that contains them, their entries are keyed by the SHA-256
+ * digest of the content instead, so copies of a jar at other paths share the entry. Only the jars which are not in the
+ * index are scanned. Jars are read and scanned in parallel and the graphs are combined with
+ * {@link TypeGraph#merge(TypeGraph)}.
+ * <p>
+ * Entries are touched when they are used. When the index grows beyond its maximum size, the least recently used
+ * entries are removed.
+ *
+ * @since 3.5.0
+ */
+public class TypeGraphIndex
+{
+  private static final Logger LOG = LoggerFactory.getLogger(TypeGraphIndex.class);
+
+  /**
+   * System property to override the index directory, an empty value disables the on-disk index.
+   */
+  public static final String INDEX_DIR_PROPERTY = "apex.typegraph.index.dir";
+  /**
+   * System property to override the maximum size of the index in bytes.
+   */
+  public static final String INDEX_MAX_SIZE_PROPERTY = "apex.typegraph.index.maxSize";
+  public static final long DEFAULT_INDEX_MAX_SIZE = 256L * 1024 * 1024;
+  private static final String INDEX_FILE_SUFFIX = ".tgi";
+
+  private final File indexDir;
+  private final int parallelism;
+  private final long maxSize;
+  private final AtomicInteger hits = new AtomicInteger();
+  private final AtomicInteger misses = new AtomicInteger();
+
+  public TypeGraphIndex(File indexDir)
+  {
+    this(indexDir, Runtime.getRuntime().availableProcessors(), Long.getLong(INDEX_MAX_SIZE_PROPERTY,
+        DEFAULT_INDEX_MAX_SIZE));
+  }
+
+  public TypeGraphIndex(File indexDir, int parallelism, long maxSize)
+  {
+    this.indexDir = indexDir;
+    this.parallelism = Math.max(1, parallelism);
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * @return the index directory configured through {@link #INDEX_DIR_PROPERTY}, typegraph under the user DT directory
+   * by default and null when disabled
+   */
+  public static File getDefaultIndexDir()
+  {
+    String dir = System.getProperty(INDEX_DIR_PROPERTY);
+    if (dir == null) {
+      return new File(StramClientUtils.getUserDTDirectory(), "typegraph");
+    }
+    return dir.isEmpty() ? null : new File(dir);
+  }
+
+  /**
+   * Get the type graphs of the given jars, reading them from the index or scanning the jars that are not indexed.
+   * Paths that are not readable jar files are skipped.
+   *
+   * @param jarPaths jar paths
+   * @param applicationJars whether the jars are application jars, which are indexed by the digest of their content
+   * rather than by their path, size and modification time
+   * @return the graph per jar path, in the order of the given paths
+   */
+  public Map<String, TypeGraph> getJarGraphs(Collection<String> jarPaths, final boolean applicationJars)
+  {
+    long start = System.currentTimeMillis();
+    int scanned = misses.get();
+    Map<String, Future<TypeGraph>> futures = new LinkedHashMap<>();
+    ExecutorService executor = Executors.newFixedThreadPool(parallelism, new NameableThreadFactory("TypeGraphIndex", true));
+    try {
+      for (final String path : jarPaths) {
+        final File f = new File(path);
+        if (!f.isFile() || !f.getName().endsWith("jar") || futures.containsKey(path)) {
+          continue;
+        }
+        futures.put(path, executor.submit(new Callable<TypeGraph>()
+        {
+          @Override
+          public TypeGraph call() throws Exception
+          {
+            String key = indexDir == null ? null : applicationJars ? digest(f) : getFileKey(f);
+            TypeGraph tg = read(f, key);
+            if (tg == null) {
+              misses.incrementAndGet();
+              tg = scan(f, key);
+            } else {
+              hits.incrementAndGet();
+            }
+            return tg;
+          }
+        }));
+      }
+
+      Map<String, TypeGraph> result = new LinkedHashMap<>();
+      for (Map.Entry<String, Future<TypeGraph>> e : futures.entrySet()) {
+        try {
+          result.put(e.getKey(), e.getValue().get());
+        } catch (ExecutionException ex) {
+          LOG.warn("Cannot scan {}", e.getKey(), ex.getCause());
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+          throw new RuntimeException(ex);
+        }
+      }
+      scanned = misses.get() - scanned;
+      if (scanned > 0) {
+        evict(start);
+      }
+      if (!result.isEmpty()) {
+        LOG.info("Type graphs of {} jars, {} indexed and {} scanned in {} ms", result.size(), result.size() - scanned,
+            scanned, System.currentTimeMillis() - start);
+      }
+      return result;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * @return number of graphs read from the index
+   */
+  public int getHits()
+  {
+    return hits.get();
+  }
+
+  /**
+   * @return number of jars scanned
+   */
+  public int getMisses()
+  {
+    return misses.get();
+  }
+
+  /**
+   * Remove the least recently used entries until the index is within its maximum size. Entries used since the given
+   * time are kept.
+   *
+   * @param usedSince start time of the current use of the index
+   */
+  private void evict(long usedSince)
+  {
+    File[] files = indexDir == null ? null : indexDir.listFiles();
+    if (files == null) {
+      return;
+    }
+    long size = 0;
+    for (File f : files) {
+      size += f.length();
+    }
+    if (size <= maxSize) {
+      return;
+    }
+    Arrays.sort(files, new Comparator<File>()
+    {
+      @Override
+      public int compare(File f1, File f2)
+      {
+        return Long.compare(f1.lastModified(), f2.lastModified());
+      }
+    });
+    // allow for file systems that keep the modification time in seconds
+    long keepAfter = usedSince - 1000;
+    for (File f : files) {
+      if (size <= maxSize || f.lastModified() >= keepAfter) {
+        break;
+      }
+      long length = f.length();
+      if (f.delete()) {
+        LOG.debug("Removed type graph index {}", f);
+        size -= length;
+      }
+    }
+  }
+
+  private TypeGraph scan(File f, String key) throws IOException
+  {
+    TypeGraph tg = new TypeGraph();
+    try (JarFile jar = new JarFile(f)) {
+      Enumeration<JarEntry> entriesEnum = jar.entries();
+      while (entriesEnum.hasMoreElements()) {
+        JarEntry jarEntry = entriesEnum.nextElement();
+        if (!jarEntry.isDirectory() && jarEntry.getName().endsWith(".class")) {
+          tg.addNode(jarEntry, jar);
+        }
+      }
+    }
+    write(f, key, tg);
+    return tg;
+  }
+
+  private File getIndexFile(String key)
+  {
+    return new File(indexDir, key + INDEX_FILE_SUFFIX);
+  }
+
+  /**
+   * @return the key of the jar at its path with its current size and modification time, without reading the jar
+   */
+  private static String getFileKey(File f) throws IOException
+  {
+    String file = f.getAbsolutePath() + ':' + f.length() + ':' + f.lastModified();
+    return digest(new ByteArrayInputStream(file.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  private static String digest(File f) throws IOException
+  {
+    try (InputStream is = new FileInputStream(f)) {
+      return digest(is);
+    }
+  }
+
+  private static String digest(InputStream is) throws IOException
+  {
+    MessageDigest md;
+    try {
+      md = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException ex) {
+      throw new IOException(ex);
+    }
+    byte[] buffer = new byte[64 * 1024];
+    int len;
+    while ((len = is.read(buffer)) != -1) {
+      md.update(buffer, 0, len);
+    }
+    return new String(Hex.encodeHex(md.digest()));
+  }
+
+  private static Kryo newKryo()
+  {
+    Kryo kryo = new Kryo();
+    kryo.register(TypeGraph.class, new TypeGraphSerializer());
+    return kryo;
+  }
+
+  private TypeGraph read(File jar, String key)
+  {
+    if (indexDir == null) {
+      return null;
+    }
+    File indexFile = getIndexFile(key);
+    if (!indexFile.exists()) {
+      return null;
+    }
+    Input input = null;
+    try {
+      input = new Input(new FileInputStream(indexFile));
+      String jarName = input.readString();
+      if (input.readLong() != jar.length()) {
+        return null;
+      }
+      TypeGraph tg = newKryo().readObject(input, TypeGraph.class);
+      if (!jarName.equals(jar.getPath())) {
+        // the entry was written for a copy of the jar
+        tg.setJarName(jarName, jar.getPath());
+      }
+      indexFile.setLastModified(System.currentTimeMillis());
+      return tg;
+    } catch (IOException | KryoException ex) {
+      LOG.warn("Cannot read type graph index {}", indexFile, ex);
+      return null;
+    } finally {
+      IOUtils.closeQuietly(input);
+    }
+  }
+
+  private void write(File jar, String key, TypeGraph tg)
+  {
+    if (indexDir == null) {
+      return;
+    }
+    File indexFile = getIndexFile(key);
+    File tmpFile = new File(indexDir, indexFile.getName() + "." + Thread.currentThread().getId() + ".tmp");
+    try {
+      if (!indexDir.isDirectory() && !indexDir.mkdirs() && !indexDir.isDirectory()) {
+        throw new IOException("Cannot create " + indexDir);
+      }
+      try (Output output = new Output(new FileOutputStream(tmpFile))) {
+        output.writeString(jar.getPath());
+        output.writeLong(jar.length());
+        newKryo().writeObject(output, tg);
+      }
+      if (!tmpFile.renameTo(indexFile)) {
+        throw new IOException("Cannot rename " + tmpFile + " to " + indexFile);
+      }
+    } catch (IOException | KryoException ex) {
+      LOG.warn("Cannot write type graph index {}", indexFile, ex);
+      tmpFile.delete();
+    }
+  }
+}
@@ -0,0 +1,112 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram;
+
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+
+import com.datatorrent.common.util.Pair;
+
+public class LogicalMetricsStoreTest
+{
+  @Test
+  public void testWindowRing()
+  {
+    LogicalMetricsStore store = new LogicalMetricsStore(3, new String[]{"1s"}, 10);
+    Assert.assertNull("latest", store.getLatest());
+    Assert.assertTrue("empty", store.getWindowMetrics(-1).isEmpty());
+
+    Assert.assertTrue("new metrics", store.add(1, 0, ImmutableMap.<String, Object>of("count", 1L)));
+    Assert.assertFalse("same metrics", store.add(2, 500, ImmutableMap.<String, Object>of("count", 2L)));
+    Assert.assertTrue("changed metrics", store.add(3, 1000, ImmutableMap.<String, Object>of("count", 3L, "max", 7)));
+    store.add(4, 1500, ImmutableMap.<String, Object>of("count", 4L, "max", 9));
+
+    List<Pair<Long, Map<String, Object>>> windows = store.getWindowMetrics(-1);
+    Assert.assertEquals("retained windows", 3, windows.size());
+    Assert.assertEquals("oldest window", 2L, (long)windows.get(0).first);
+    Assert.assertEquals("newest window", 4L, (long)windows.get(2).first);
+    Assert.assertEquals("since window", 1, store.getWindowMetrics(3).size());
+    Assert.assertEquals("latest", 4L, store.getLatest().get("count"));
+  }
+
+  @Test
+  public void testRollups()
+  {
+    LogicalMetricsStore store = new LogicalMetricsStore(10, new String[]{"1s", "1m", "bogus"}, 2);
+    for (int i = 0; i < 6; i++) {
+      store.add(i, i * 500, ImmutableMap.<String, Object>of("count", (long)i, "name", "w" + i));
+    }
+    Map<String, List<LogicalMetricsStore.Bucket>> rollups = store.getRollups();
+    Assert.assertEquals("valid time buckets", 2, rollups.size());
+
+    List<LogicalMetricsStore.Bucket> seconds = rollups.get("1s");
+    Assert.assertEquals("retained buckets", 2, seconds.size());
+    Assert.assertEquals("bucket start", 1000, seconds.get(0).startTime);
+    Assert.assertEquals("bucket start", 2000, seconds.get(1).startTime);
+    LogicalMetricsStore.NumberSummary summary = (LogicalMetricsStore.NumberSummary)seconds.get(1).metrics.get("count");
+    Assert.assertEquals("sum", 9.0, summary.sum, 0);
+    Assert.assertEquals("min", 4.0, summary.min, 0);
+    Assert.assertEquals("max", 5.0, summary.max, 0);
+    Assert.assertEquals("last", 5L, summary.last);
+    Assert.assertEquals("non numeric", "w5", seconds.get(1).metrics.get("name"));
+
+    List<LogicalMetricsStore.Bucket> minutes = rollups.get("1m");
+    Assert.assertEquals("retained buckets", 1, minutes.size());
+    Assert.assertEquals("windows", 6, minutes.get(0).windowCount);
+
+    // the bucket in progress is merged in place
+    store.add(6, 3000, ImmutableMap.<String, Object>of("count", 6L));
+    Assert.assertEquals("windows", 7, minutes.get(0).windowCount);
+    Assert.assertEquals("count", 7, ((LogicalMetricsStore.NumberSummary)minutes.get(0).metrics.get("count")).count);
+  }
+
+  @Test
+  public void testWindowAddedTwice()
+  {
+    LogicalMetricsStore store = new LogicalMetricsStore(10, new String[]{"1m"}, 2);
+    store.add(1, 0, ImmutableMap.<String, Object>of("count", 1L));
+    store.add(2, 500, ImmutableMap.<String, Object>of("count", 2L));
+    Assert.assertFalse("repeated window", store.add(2, 500, ImmutableMap.<String, Object>of("count", 5L)));
+    Assert.assertFalse("older window", store.add(1, 0, ImmutableMap.<String, Object>of("count", 3L)));
+
+    List<Pair<Long, Map<String, Object>>> windows = store.getWindowMetrics(-1);
+    Assert.assertEquals("windows", 2, windows.size());
+    Assert.assertEquals("first aggregate kept", 2L, windows.get(1).second.get("count"));
+    Assert.assertEquals("latest", 2L, store.getLatest().get("count"));
+
+    LogicalMetricsStore.Bucket bucket = store.getRollups().get("1m").get(0);
+    Assert.assertEquals("windows", 2, bucket.windowCount);
+    LogicalMetricsStore.NumberSummary summary = (LogicalMetricsStore.NumberSummary)bucket.metrics.get("count");
+    Assert.assertEquals("sum", 3.0, summary.sum, 0);
+    Assert.assertEquals("count", 2, summary.count);
+  }
+
+  @Test
+  public void testParseTimeBucket()
+  {
+    Assert.assertEquals(5000, LogicalMetricsStore.parseTimeBucket("5s"));
+    Assert.assertEquals(3600000, LogicalMetricsStore.parseTimeBucket("1h"));
+    Assert.assertEquals(7 * 86400000L, LogicalMetricsStore.parseTimeBucket("1w"));
+  }
+}
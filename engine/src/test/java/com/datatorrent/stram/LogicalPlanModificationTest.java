@@ -24,7 +24,9 @@ import java.util.List;
 import java.util.Set;
 import java.util.concurrent.FutureTask;
 
+import javax.validation.ConstraintViolationException;
 import javax.validation.ValidationException;
+import javax.validation.constraints.NotNull;
 
 import org.junit.Assert;
 import org.junit.Before;
@@ -38,8 +40,10 @@ import com.datatorrent.api.AffinityRule.Type;
 import com.datatorrent.api.AffinityRulesSet;
 import com.datatorrent.api.Context.DAGContext;
 import com.datatorrent.api.DAG.Locality;
+import com.datatorrent.api.InputOperator;
 import com.datatorrent.api.StorageAgent;
 import com.datatorrent.common.util.AsyncFSStorageAgent;
+import com.datatorrent.common.util.BaseOperator;
 import com.datatorrent.common.util.FSStorageAgent;
 import com.datatorrent.stram.engine.GenericTestOperator;
 import com.datatorrent.stram.engine.OperatorContext;
@@ -359,6 +363,55 @@ public class LogicalPlanModificationTest
 
   }
 
+  @Test
+  public void testIncrementalValidation()
+  {
+    TestGeneratorInputOperator o1 = dag.addOperator("o1", TestGeneratorInputOperator.class);
+    GenericTestOperator o2 = dag.addOperator("o2", GenericTestOperator.class);
+    dag.addStream("o1.outport", o1.outport, o2.inport1);
+    dag.validate();
+
+    PlanModifier pm = new PlanModifier(dag);
+    GenericTestOperator o3 = new GenericTestOperator();
+    pm.addOperator("o3", o3);
+    pm.addStream("o2.outport1", o2.outport1, o3.inport1);
+    Assert.assertEquals("changed operators", Sets.newHashSet(dag.getMeta(o2), dag.getMeta(o3)), pm.getChangedOperators());
+    dag.validate(pm.getChangedOperators());
+
+    // the graph structure is validated completely
+    pm = new PlanModifier(dag);
+    pm.addStream("o3.outport1", o3.outport1, o2.inport2);
+    try {
+      dag.validate(pm.getChangedOperators());
+      Assert.fail("validation should fail");
+    } catch (ValidationException e) {
+      Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("Loops in graph"));
+    }
+    pm.removeStream("o3.outport1");
+
+    // the configuration is validated for changed operators only
+    pm = new PlanModifier(dag);
+    pm.addOperator("o4", new NotNullPropertyOperator());
+    dag.validate(Collections.<OperatorMeta>emptySet());
+    try {
+      dag.validate(pm.getChangedOperators());
+      Assert.fail("validation should fail");
+    } catch (ConstraintViolationException e) {
+      Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("Operator o4 violates constraints"));
+    }
+  }
+
+  public static class NotNullPropertyOperator extends BaseOperator implements InputOperator
+  {
+    @NotNull
+    private String property;
+
+    @Override
+    public void emitTuples()
+    {
+    }
+  }
+
   private void testExecutionManager(StorageAgent agent) throws Exception
   {
     dag.setAttribute(OperatorContext.STORAGE_AGENT, agent);
@@ -56,6 +56,7 @@ import com.datatorrent.stram.engine.TestGeneratorInputOperator;
 import com.datatorrent.stram.engine.TestOutputOperator;
 import com.datatorrent.stram.engine.WindowGenerator;
 import com.datatorrent.stram.plan.logical.LogicalPlan;
+import com.datatorrent.stram.plan.physical.PTContainer;
 import com.datatorrent.stram.plan.physical.PTOperator;
 import com.datatorrent.stram.support.ManualScheduledExecutorService;
 import com.datatorrent.stram.support.StramTestSupport;
@@ -287,6 +288,109 @@ public class StramLocalClusterTest
     localCluster.shutdown();
   }
 
+  /**
+   * Fails the container of an operator with and without a warm standby. The standby takes over the operator and gets
+   * replaced by a new standby, without standby the operator is deployed to a new container.
+   */
+  @Test
+  public void testWarmStandbyFailover() throws Exception
+  {
+    long coldMillis = testFailover(false);
+    long warmMillis = testFailover(true);
+    LOG.info("Failover took {} ms without and {} ms with warm standby", coldMillis, warmMillis);
+    Assert.assertTrue("warm standby failover " + warmMillis + " ms faster than " + coldMillis + " ms",
+        warmMillis < coldMillis);
+  }
+
+  /**
+   * @return milliseconds from the failure of the container until the recovered operator was deployed
+   */
+  @SuppressWarnings("SleepWhileInLoop")
+  private long testFailover(boolean warmStandby) throws Exception
+  {
+    LogicalPlan failoverDag = StramTestSupport.createDAG(testMeta);
+    AsyncFSStorageAgent agent = new AsyncFSStorageAgent(testMeta.getPath() + "/checkpoints-" + warmStandby, null);
+    agent.setSyncCheckpoint(true);
+    failoverDag.setAttribute(OperatorContext.STORAGE_AGENT, agent);
+    failoverDag.setAttribute(LogicalPlan.STREAMING_WINDOW_SIZE_MILLIS, 100);
+    failoverDag.setAttribute(LogicalPlan.CHECKPOINT_WINDOW_COUNT, 10);
+    failoverDag.setAttribute(LogicalPlan.CONTAINERS_MAX_COUNT, 2);
+
+    TestGeneratorInputOperator node1 = failoverDag.addOperator("o1", TestGeneratorInputOperator.class);
+    node1.setMaxTuples(0);
+    GenericTestOperator node2 = failoverDag.addOperator("o2", GenericTestOperator.class);
+    failoverDag.setOperatorAttribute(node2, OperatorContext.WARM_STANDBY, warmStandby);
+    failoverDag.addStream("o1o2", node1.outport, node2.inport1);
+
+    StramLocalCluster localCluster = new StramLocalCluster(failoverDag);
+    localCluster.runAsync();
+    try {
+      PTOperator ptNode2 = localCluster.findByLogicalNode(failoverDag.getMeta(node2));
+      LocalStreamingContainer c = StramTestSupport.waitForActivation(localCluster, ptNode2);
+
+      // wait for a committed checkpoint and, with the standby, till the standby prefetched it
+      String standbyId = null;
+      long end = System.currentTimeMillis() + StramTestSupport.DEFAULT_TIMEOUT_MILLIS;
+      while (standbyId == null && System.currentTimeMillis() < end) {
+        long checkpoint = ptNode2.getRecoveryCheckpoint().windowId;
+        if (checkpoint != Checkpoint.INITIAL_CHECKPOINT.windowId) {
+          if (!warmStandby) {
+            break;
+          }
+          StreamingContainerAgent sca = getStandbyAgent(localCluster, ptNode2.getContainer());
+          if (sca != null && sca.prefetchCheckpoints != null
+              && Long.valueOf(checkpoint).equals(sca.prefetchCheckpoints.get(ptNode2.getId()))) {
+            standbyId = sca.container.getExternalId();
+          }
+        }
+        Thread.sleep(20);
+      }
+      Assert.assertTrue("standby ready", !warmStandby || standbyId != null);
+      Assert.assertTrue("standby only when requested", warmStandby || ptNode2.getContainer().getStandby() == null);
+
+      long start = System.currentTimeMillis();
+      localCluster.failContainer(c);
+      LocalStreamingContainer recovered = null;
+      while (recovered == null && System.currentTimeMillis() < start + StramTestSupport.DEFAULT_TIMEOUT_MILLIS) {
+        if (ptNode2.getState() == PTOperator.State.ACTIVE) {
+          recovered = localCluster.getContainer(ptNode2);
+        }
+        Thread.sleep(10);
+      }
+      Assert.assertNotNull("recovered " + ptNode2, recovered);
+      long failoverMillis = System.currentTimeMillis() - start;
+      OperatorContext ctx = recovered.getNodeContext(ptNode2.getId());
+      StramTestSupport.waitForWindowComplete(ctx, ptNode2.getRecoveryCheckpoint().windowId + 1);
+      Assert.assertNotEquals("new container", c.getContainerId(), recovered.getContainerId());
+
+      if (warmStandby) {
+        Assert.assertEquals("standby promoted", standbyId, recovered.getContainerId());
+        Assert.assertEquals("container of the operator", standbyId, ptNode2.getContainer().getExternalId());
+
+        // the promoted container gets a new standby
+        StreamingContainerAgent sca = null;
+        end = System.currentTimeMillis() + StramTestSupport.DEFAULT_TIMEOUT_MILLIS;
+        while (sca == null && System.currentTimeMillis() < end) {
+          sca = getStandbyAgent(localCluster, ptNode2.getContainer());
+          Thread.sleep(20);
+        }
+        Assert.assertNotNull("new standby", sca);
+        Assert.assertNotEquals("new standby", standbyId, sca.container.getExternalId());
+        Assert.assertSame("primary", ptNode2.getContainer(), sca.container.getPrimary());
+      }
+      return failoverMillis;
+    } finally {
+      localCluster.shutdown();
+    }
+  }
+
+  private static StreamingContainerAgent getStandbyAgent(StramLocalCluster localCluster, PTContainer container)
+  {
+    PTContainer standby = container.getStandby();
+    String externalId = standby == null ? null : standby.getExternalId();
+    return externalId == null ? null : localCluster.dnmgr.getContainerAgent(externalId);
+  }
+
   @Test
   public void testDynamicLoading() throws Exception
   {
@@ -76,6 +76,9 @@ import com.datatorrent.stram.support.StramTestSupport;
 import com.datatorrent.stram.support.StramTestSupport.TestMeta;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 public class StramRecoveryTest
 {
@@ -396,6 +399,49 @@ public class StramRecoveryTest
     scm.setPhysicalOperatorProperty(o1p1.getId(), "maxTuples", "50");
   }
 
+  @Test
+  public void testStandbyWriteAheadLog() throws Exception
+  {
+    dag.setAttribute(OperatorContext.STORAGE_AGENT, new FSStorageAgent(testMeta.getPath(), null));
+    dag.addOperator("o1", TestGeneratorInputOperator.class);
+    StreamingContainerManager scm = new StreamingContainerManager(dag);
+    PhysicalPlan plan = scm.getPhysicalPlan();
+    Journal j = scm.getJournal();
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    j.setOutputStream(new DataOutputStream(bos));
+
+    PTContainer c1 = plan.getContainers().get(0);
+    PTContainer standby = plan.newStandbyContainer(c1);
+    standby.setState(PTContainer.State.ALLOCATED);
+    standby.setExternalId("standby1");
+    standby.host = "host2";
+    standby.setAllocatedMemoryMB(2);
+    j.write(c1.getSetStandbyState());
+
+    // the standby is not in the plan checkpointed before it was allocated
+    c1.setStandby(null);
+    j.setOutputStream(null);
+    j.replay(new DataInputStream(new ByteArrayInputStream(bos.toByteArray())));
+
+    standby = c1.getStandby();
+    assertNotNull("standby restored", standby);
+    assertSame("primary", c1, standby.getPrimary());
+    assertEquals("standby1", standby.getExternalId());
+    assertEquals(PTContainer.State.ALLOCATED, standby.getState());
+    assertEquals("host2", standby.host);
+    assertEquals(2, standby.getAllocatedMemoryMB());
+
+    // the standby was released or promoted
+    bos.reset();
+    j.setOutputStream(new DataOutputStream(bos));
+    c1.setStandby(null);
+    j.write(c1.getSetStandbyState());
+    j.setOutputStream(null);
+    c1.setStandby(standby);
+    j.replay(new DataInputStream(new ByteArrayInputStream(bos.toByteArray())));
+    assertNull("standby removed", c1.getStandby());
+  }
+
   private void testRestartApp(StorageAgent agent, String appPath1) throws Exception
   {
     String appId1 = "app1";
@@ -18,6 +18,7 @@
  */
 package com.datatorrent.stram;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.Serializable;
 import java.net.InetSocketAddress;
@@ -29,6 +30,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
 
 import org.codehaus.jettison.json.JSONObject;
 import org.eclipse.jetty.websocket.WebSocket;
@@ -39,6 +41,7 @@ import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.hadoop.io.DataInputByteBuffer;
 import org.apache.hadoop.io.DataOutputByteBuffer;
@@ -74,6 +77,7 @@ import com.datatorrent.stram.api.StreamingContainerUmbilicalProtocol.ContainerSt
 import com.datatorrent.stram.api.StreamingContainerUmbilicalProtocol.OperatorHeartbeat;
 import com.datatorrent.stram.api.StreamingContainerUmbilicalProtocol.OperatorHeartbeat.DeployState;
 import com.datatorrent.stram.appdata.AppDataPushAgent;
+import com.datatorrent.stram.appdata.BinaryMetricsTransport;
 import com.datatorrent.stram.codec.DefaultStatefulStreamCodec;
 import com.datatorrent.stram.engine.DefaultUnifier;
 import com.datatorrent.stram.engine.GenericTestOperator;
@@ -96,6 +100,7 @@ import com.datatorrent.stram.support.StramTestSupport.MemoryStorageAgent;
 import com.datatorrent.stram.support.StramTestSupport.TestMeta;
 import com.datatorrent.stram.tuple.Tuple;
 import com.datatorrent.stram.webapp.LogicalOperatorInfo;
+import com.datatorrent.stram.webapp.StreamInfo;
 
 public class StreamingContainerManagerTest
 {
@@ -421,6 +426,35 @@ public class StreamingContainerManagerTest
 
   }
 
+  @Test
+  public void testPrefetchCheckpoints() throws Exception
+  {
+    GenericTestOperator node1 = dag.addOperator("node1", GenericTestOperator.class);
+    GenericTestOperator node2 = dag.addOperator("node2", GenericTestOperator.class);
+    GenericTestOperator node3 = dag.addOperator("node3", GenericTestOperator.class);
+
+    dag.addStream("n1n2", node1.outport1, node2.inport1).setLocality(Locality.CONTAINER_LOCAL);
+    dag.addStream("n2n3", node2.outport1, node3.inport1).setLocality(Locality.CONTAINER_LOCAL);
+
+    dag.setAttribute(OperatorContext.STORAGE_AGENT, new MemoryStorageAgent());
+    dag.setOperatorAttribute(node2, OperatorContext.STATELESS, true);
+    dag.setOperatorAttribute(node3, OperatorContext.STORAGE_AGENT, new MemoryStorageAgent());
+
+    StreamingContainerManager scm = new StreamingContainerManager(dag);
+    PhysicalPlan plan = scm.getPhysicalPlan();
+    Assert.assertEquals("containers", 1, plan.getContainers().size());
+
+    PTOperator o1 = plan.getOperators(dag.getMeta(node1)).get(0);
+    PTOperator o2 = plan.getOperators(dag.getMeta(node2)).get(0);
+    o1.setRecoveryCheckpoint(new Checkpoint(5, 0, 0));
+
+    StreamingContainerAgent sca = assignContainer(scm, "container1");
+    Map<Integer, Long> expected = new HashMap<>();
+    expected.put(o1.getId(), 5L);
+    expected.put(o2.getId(), Stateless.WINDOW_ID);
+    Assert.assertEquals("prefetch checkpoints", expected, sca.getInitContext().prefetchCheckpoints);
+  }
+
   @Test
   public void testRecoveryUpstreamInline() throws Exception
   {
@@ -598,6 +632,63 @@ public class StreamingContainerManagerTest
 
   }
 
+  @Test
+  public void testBackpressureSource() throws Exception
+  {
+    TestGeneratorInputOperator o1 = dag.addOperator("o1", TestGeneratorInputOperator.class);
+    GenericTestOperator o2 = dag.addOperator("o2", GenericTestOperator.class);
+    GenericTestOperator o3 = dag.addOperator("o3", GenericTestOperator.class);
+    dag.addStream("o1.outport", o1.outport, o2.inport1);
+    dag.addStream("o2.outport1", o2.outport1, o3.inport1);
+    dag.setAttribute(OperatorContext.STORAGE_AGENT, new MemoryStorageAgent());
+
+    StreamingContainerManager scm = new StreamingContainerManager(dag);
+    PhysicalPlan plan = scm.getPhysicalPlan();
+    PTOperator o2p1 = plan.getOperators(dag.getMeta(o2)).get(0);
+    PTOperator o3p1 = plan.getOperators(dag.getMeta(o3)).get(0);
+
+    for (StreamInfo si : scm.getStreamInfoList()) {
+      Assert.assertNull("no backpressure " + si.logicalName, si.backpressureSource);
+    }
+
+    // o3 holds back o2 half of the time, which holds back o1 in turn
+    PortStatus o2ps = o2p1.stats.new PortStatus();
+    PortStats s = new PortStats(GenericTestOperator.IPORT1);
+    s.blockedNanos = TimeUnit.MILLISECONDS.toNanos(400);
+    s.suspendCount = 2;
+    s.resumeCount = 1;
+    s.queueOccupancy = new long[] {1, 2, 3};
+    o2ps.addBackpressure(s, 1000);
+    o2p1.stats.inputPortStatusList.put(GenericTestOperator.IPORT1, o2ps);
+    PortStatus o3ps = o3p1.stats.new PortStatus();
+    s = new PortStats(GenericTestOperator.IPORT1);
+    s.blockedNanos = TimeUnit.MILLISECONDS.toNanos(500);
+    o3ps.addBackpressure(s, 1000);
+    o3p1.stats.inputPortStatusList.put(GenericTestOperator.IPORT1, o3ps);
+
+    Assert.assertEquals("blocked percentage", 40, o2ps.getBlockedPercentage(), 0.01);
+    Assert.assertEquals("suspend count", 2, o2ps.suspendCount);
+    Assert.assertArrayEquals("queue occupancy", new long[] {1, 2, 3}, o2ps.queueOccupancy);
+
+    Map<String, StreamInfo> streams = new HashMap<>();
+    for (StreamInfo si : scm.getStreamInfoList()) {
+      streams.put(si.logicalName, si);
+    }
+    Assert.assertEquals("source " + streams, String.valueOf(o3p1.getId()), streams.get("o1.outport").backpressureSource);
+    Assert.assertEquals("source " + streams, String.valueOf(o3p1.getId()),
+        streams.get("o2.outport1").backpressureSource);
+    Assert.assertEquals("sink blocked percentage", 40, streams.get("o1.outport").sinks.get(0).blockedPercentageMA, 0.01);
+
+    // o2 is the bottleneck once o3 keeps up
+    o3ps.addBackpressure(new PortStats(GenericTestOperator.IPORT1), 100000);
+    streams.clear();
+    for (StreamInfo si : scm.getStreamInfoList()) {
+      streams.put(si.logicalName, si);
+    }
+    Assert.assertEquals("source " + streams, String.valueOf(o2p1.getId()), streams.get("o1.outport").backpressureSource);
+    Assert.assertNull("source " + streams, streams.get("o2.outport1").backpressureSource);
+  }
+
   public static class TestStaticPartitioningSerDe extends DefaultStatefulStreamCodec<Object>
   {
 
@@ -1038,6 +1129,69 @@ public class StreamingContainerManagerTest
     Assert.assertTrue(msg.startsWith("xyz:"));
   }
 
+  public static class TestBinaryMetricTransport implements BinaryMetricsTransport, Serializable
+  {
+    private static List<String> messages = new ArrayList<>();
+
+    @Override
+    public void push(byte[] gzippedJsonData) throws IOException
+    {
+      try (GZIPInputStream is = new GZIPInputStream(new ByteArrayInputStream(gzippedJsonData))) {
+        messages.add(IOUtils.toString(is, "UTF-8"));
+      }
+    }
+
+    @Override
+    public void push(String jsonData) throws IOException
+    {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public long getSchemaResendInterval()
+    {
+      return 0;
+    }
+  }
+
+  @Test
+  public void testDeltaMetricsPush() throws Exception
+  {
+    TestGeneratorInputOperator o1 = dag.addOperator("o1", TestGeneratorInputOperator.class);
+    GenericTestOperator o2 = dag.addOperator("o2", GenericTestOperator.class);
+    dag.addStream("o1.outport", o1.outport, o2.inport1);
+    dag.setAttribute(LogicalPlan.METRICS_TRANSPORT, new TestBinaryMetricTransport());
+    dag.setAttribute(LogicalPlan.APP_DATA_PUSH_DELTA, true);
+    dag.setAttribute(OperatorContext.STORAGE_AGENT, new MemoryStorageAgent());
+    StreamingContainerManager dnmgr = new StreamingContainerManager(dag);
+    StramAppContext appContext = new StramTestSupport.TestAppContext(dag.getAttributes());
+    TestBinaryMetricTransport.messages.clear();
+
+    AppDataPushAgent pushAgent = new AppDataPushAgent(dnmgr, appContext);
+    pushAgent.init();
+    pushAgent.pushData();
+    Assert.assertEquals("full push", 1, TestBinaryMetricTransport.messages.size());
+    JSONObject data = new JSONObject(TestBinaryMetricTransport.messages.get(0));
+    Assert.assertFalse("full push", data.has("delta"));
+    Assert.assertEquals("operators", 2, data.getJSONObject("logicalOperators").length());
+    Assert.assertTrue(data.getJSONObject("logicalOperators").getJSONObject("o1").has("totalTuplesEmitted"));
+
+    pushAgent.pushData();
+    Assert.assertEquals("no changes", 1, TestBinaryMetricTransport.messages.size());
+
+    dag.getMeta(o2).getStatus().failureCount++;
+    pushAgent.pushData();
+    Assert.assertEquals("delta push", 2, TestBinaryMetricTransport.messages.size());
+    data = new JSONObject(TestBinaryMetricTransport.messages.get(1));
+    Assert.assertTrue("delta push", data.getBoolean("delta"));
+    JSONObject logicalOperators = data.getJSONObject("logicalOperators");
+    Assert.assertEquals("changed operators " + logicalOperators, 1, logicalOperators.length());
+    JSONObject opObj = logicalOperators.getJSONObject("o2");
+    Assert.assertEquals("changed " + opObj, 1, opObj.getLong("failureCount"));
+    Assert.assertFalse("unchanged " + opObj, opObj.has("totalTuplesEmitted"));
+    pushAgent.close();
+  }
+
   public static class HighLatencyTestOperator extends GenericTestOperator
   {
     private long firstWindowMillis;
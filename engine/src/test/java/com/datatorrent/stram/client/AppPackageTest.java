@@ -19,9 +19,13 @@
 package com.datatorrent.stram.client;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import org.codehaus.jettison.json.JSONException;
 import org.codehaus.jettison.json.JSONObject;
@@ -30,6 +34,7 @@ import org.junit.Assert;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 
 import com.datatorrent.stram.support.StramTestSupport;
@@ -128,4 +133,77 @@ public class AppPackageTest
     }
     Assert.fail("Should consist of an app called MyFirstApplication");
   }
+
+  @Test
+  public void testCache() throws Exception
+  {
+    File cacheDir = new File("target/" + AppPackageTest.class.getName() + "/cache");
+    FileUtils.deleteQuietly(cacheDir);
+    AppPackageCache cache = new AppPackageCache(cacheDir, 2, AppPackageCache.DEFAULT_MIN_AGE);
+    File file = StramTestSupport.createAppPackageFile();
+
+    File content;
+    JSONObject cachedJson;
+    try (AppPackage ap = new AppPackage(file, cache, true)) {
+      Assert.assertNotNull("plan", ap.getApplications().get(0).dag);
+      content = ap.tempDirectory();
+      Assert.assertTrue("extracted", new File(content, "app/mydtapp-1.0-SNAPSHOT.jar").exists());
+    }
+    Assert.assertTrue("shared content retained", content.exists());
+
+    try (AppPackage ap = new AppPackage(file, cache, true)) {
+      Assert.assertNull("plan read from cache", ap.getApplications().get(0).dag);
+      Assert.assertEquals("configs", new ArrayList<>(AppPackageTest.ap.getConfigs()), new ArrayList<>(ap.getConfigs()));
+      Assert.assertEquals("required properties", AppPackageTest.ap.getRequiredProperties(), ap.getRequiredProperties());
+      cachedJson = new JSONObject(jomp.getContext(null).writeValueAsString(ap));
+      Assert.assertEquals("shared content", content, ap.tempDirectory());
+      ap.makeContentPrivate();
+      Assert.assertNotEquals("private content", content, ap.tempDirectory());
+      Assert.assertTrue("copied", new File(ap.tempDirectory(), "app/mydtapp-1.0-SNAPSHOT.jar").exists());
+    }
+    Assert.assertTrue("shared content retained", content.exists());
+
+    JSONObject application = cachedJson.getJSONArray("applications").getJSONObject(0);
+    JSONObject expected = json.getJSONArray("applications").getJSONObject(0);
+    Assert.assertEquals("name", expected.getString("name"), application.getString("name"));
+    Assert.assertEquals("required properties", expected.getJSONArray("requiredProperties").toString(),
+        application.getJSONArray("requiredProperties").toString());
+    Assert.assertEquals("operators", expected.getJSONObject("dag").getJSONArray("operators").length(),
+        application.getJSONObject("dag").getJSONArray("operators").length());
+  }
+
+  private static File createZip(File file, String content) throws IOException
+  {
+    try (ZipOutputStream zos = new ZipOutputStream(new FileOutputStream(file))) {
+      zos.putNextEntry(new ZipEntry("content.txt"));
+      zos.write(content.getBytes());
+      zos.closeEntry();
+    }
+    return file;
+  }
+
+  @Test
+  public void testCacheEviction() throws Exception
+  {
+    File dir = new File("target/" + AppPackageTest.class.getName() + "/eviction");
+    FileUtils.deleteQuietly(dir);
+    FileUtils.forceMkdir(dir);
+    File cacheDir = new File(dir, "cache");
+    File zip1 = createZip(new File(dir, "1.zip"), "1");
+    File zip2 = createZip(new File(dir, "2.zip"), "2");
+
+    // entries used within the minimum age are retained
+    AppPackageCache cache = new AppPackageCache(cacheDir, 1, 60000);
+    File content1 = cache.getContentDirectory(zip1);
+    Assert.assertEquals("digest", 64, content1.getParentFile().getName().length());
+    cache.getContentDirectory(zip2);
+    Assert.assertTrue("recently used", content1.exists());
+
+    Assert.assertTrue(content1.getParentFile().setLastModified(System.currentTimeMillis() - 120000));
+    cache = new AppPackageCache(cacheDir, 1, 60000);
+    File content2 = cache.getContentDirectory(createZip(zip2, "changed"));
+    Assert.assertFalse("evicted", content1.exists());
+    Assert.assertTrue("in use", content2.exists());
+    Assert.assertEquals("keys of evicted entries removed", 1, FileUtils.listFiles(cacheDir, new String[]{"key"}, false).size());
+  }
 }
@@ -0,0 +1,144 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.client;
+
+import java.io.File;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.yarn.api.records.LocalResourceVisibility;
+
+import com.datatorrent.stram.StramClient;
+import com.datatorrent.stram.support.StramTestSupport.TestMeta;
+
+public class JarCacheTest
+{
+  @Rule
+  public TestMeta testMeta = new TestMeta();
+
+  @Test
+  public void testAddAndGc() throws Exception
+  {
+    Configuration conf = new Configuration(false);
+    FileSystem fs = FileSystem.getLocal(conf);
+    Path cacheDir = new Path(testMeta.getPath(), "jarcache");
+    Path appsDir = new Path(testMeta.getPath(), "apps");
+
+    File jar1 = new File(testMeta.getPath(), "lib1/a.jar");
+    File jar2 = new File(testMeta.getPath(), "lib2/a.jar");
+    File jar3 = new File(testMeta.getPath(), "b.jar");
+    FileUtils.write(jar1, "content1");
+    FileUtils.write(jar2, "content1");
+    FileUtils.write(jar3, "content3");
+
+    JarCache cache = new JarCache(fs, cacheDir, conf, LocalResourceVisibility.PRIVATE);
+    String app1Jars = cache.add(new String[]{jar1.getPath(), jar3.getPath()});
+    Assert.assertEquals("uploads", 2, cache.getUploads());
+    String[] entries = app1Jars.split(StramClient.LIB_JARS_SEP);
+    Assert.assertEquals("file name", "a.jar", new Path(entries[0]).getName());
+    Assert.assertEquals("content", "content1", FileUtils.readFileToString(new File(new Path(entries[0]).toUri())));
+    Path app1 = new Path(appsDir, "app1");
+    cache.writeReferences(app1, app1Jars);
+
+    // same content under a different path is served from the cache, as are existing cache entries
+    cache = new JarCache(fs, cacheDir, conf, LocalResourceVisibility.PRIVATE);
+    Assert.assertEquals("same content", new Path(entries[0]), cache.add(jar2.getPath()));
+    Assert.assertEquals("cache entry", new Path(entries[1]), cache.add(entries[1]));
+    Assert.assertEquals("uploads", 0, cache.getUploads());
+    Assert.assertEquals("visibility", LocalResourceVisibility.PRIVATE, cache.getVisibility());
+
+    FileUtils.write(jar3, "content3 changed");
+    Path changed = cache.add(jar3.getPath());
+    Assert.assertEquals("uploads", 1, cache.getUploads());
+    Assert.assertNotEquals("changed content", new Path(entries[1]), changed);
+    cache.writeReferences(new Path(appsDir, "app2"), changed.toString());
+
+    Assert.assertTrue("recent entries kept", cache.gc(appsDir, 60000).isEmpty());
+    fs.delete(app1, true);
+    List<Path> removed = cache.gc(appsDir, 0);
+    Assert.assertEquals("removed " + removed, 2, removed.size());
+    Assert.assertFalse("unreferenced", fs.exists(new Path(entries[0])));
+    Assert.assertFalse("unreferenced", fs.exists(new Path(entries[1])));
+    Assert.assertTrue("referenced", fs.exists(changed));
+  }
+
+  @Test
+  public void testReuseKeepsEntry() throws Exception
+  {
+    Configuration conf = new Configuration(false);
+    Assert.assertEquals("default", JarCache.DEFAULT_GC_MIN_AGE, JarCache.getGcMinAge(conf));
+    FileSystem fs = FileSystem.getLocal(conf);
+    Path cacheDir = new Path(testMeta.getPath(), "jarcache");
+    Path appsDir = new Path(testMeta.getPath(), "apps");
+    File jar = new File(testMeta.getPath(), "a.jar");
+    FileUtils.write(jar, "content");
+
+    JarCache cache = new JarCache(fs, cacheDir, conf, LocalResourceVisibility.PRIVATE);
+    Path entry = cache.add(jar.getPath());
+    long old = System.currentTimeMillis() - 120000;
+    fs.setTimes(entry, old, -1);
+    fs.setTimes(entry.getParent(), old, -1);
+    long jarTime = fs.getFileStatus(entry).getModificationTime();
+
+    // a launch that reuses the entry but did not record its references yet
+    Assert.assertEquals("cached", entry, cache.add(jar.getPath()));
+    Assert.assertEquals("cached jar", entry, cache.add(entry.toString()));
+    Assert.assertEquals("jar time unchanged", jarTime, fs.getFileStatus(entry).getModificationTime());
+    Assert.assertTrue("reused entry kept", cache.gc(appsDir, 60000).isEmpty());
+
+    fs.setTimes(entry.getParent(), old, -1);
+    Assert.assertEquals("removed", 1, cache.gc(appsDir, 60000).size());
+  }
+
+  @Test
+  public void testVisibility() throws Exception
+  {
+    Configuration conf = new Configuration(false);
+    Assert.assertFalse("disabled by default", JarCache.isEnabled(conf));
+    Assert.assertEquals("default", LocalResourceVisibility.PRIVATE, JarCache.getVisibility(conf));
+    conf.set(JarCache.DT_JAR_CACHE_VISIBILITY, "public");
+    Assert.assertEquals("configured", LocalResourceVisibility.PUBLIC, JarCache.getVisibility(conf));
+
+    FileSystem fs = FileSystem.getLocal(conf);
+    File jar = new File(testMeta.getPath(), "a.jar");
+    FileUtils.write(jar, "content");
+    File cacheDir = new File(testMeta.getPath(), "jarcache");
+    JarCache cache = new JarCache(fs, new Path(cacheDir.getPath()), conf, LocalResourceVisibility.PUBLIC);
+    Path entry = cache.add(jar.getPath());
+    Assert.assertTrue("readable by everyone", fs.getFileStatus(entry).getPermission().toString().endsWith("r--"));
+
+    // an ancestor that cannot be traversed by everyone prevents public localization
+    File parent = new File(testMeta.getPath());
+    Assert.assertTrue(parent.setExecutable(false, false) && parent.setExecutable(true, true));
+    try {
+      cache = new JarCache(fs, new Path(cacheDir.getPath()), conf, LocalResourceVisibility.PUBLIC);
+      cache.add(jar.getPath());
+      Assert.assertEquals("visibility", LocalResourceVisibility.PRIVATE, cache.getVisibility());
+    } finally {
+      parent.setExecutable(true, false);
+    }
+  }
+}
@@ -0,0 +1,330 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.datatorrent.api.Context.PortContext;
+import com.datatorrent.api.StreamCodec;
+import com.datatorrent.netlet.util.Slice;
+import com.datatorrent.stram.StreamingContainerAgent;
+import com.datatorrent.stram.codec.StatefulStreamCodec.DataStatePair;
+import com.datatorrent.stram.engine.GenericTestOperator;
+import com.datatorrent.stram.plan.logical.LogicalPlan;
+
+/**
+ * Tests the stream codec generated for a tuple class.
+ */
+public class GeneratedStreamCodecTest
+{
+  private static final Logger logger = LoggerFactory.getLogger(GeneratedStreamCodecTest.class);
+
+  public enum Color
+  {
+    RED, GREEN
+  }
+
+  public static class Address
+  {
+    public String city;
+    public int zip;
+  }
+
+  public static class Pojo
+  {
+    private int id;
+    private boolean active;
+    public long timestamp;
+    public double price;
+    public char code;
+    public String name;
+    public Integer count;
+    public Long missing;
+    public Color color;
+    public Address address;
+    public List<String> tags;
+    public Map<String, Integer> counts;
+    public int[] values;
+    public byte[] data;
+    public Date date;
+    public Address[] previous;
+
+    public int getId()
+    {
+      return id;
+    }
+
+    public void setId(int id)
+    {
+      this.id = id;
+    }
+
+    public boolean isActive()
+    {
+      return active;
+    }
+
+    public Pojo setActive(boolean active)
+    {
+      this.active = active;
+      return this;
+    }
+  }
+
+  public static class SubPojo extends Pojo
+  {
+    public String extra;
+  }
+
+  public static class FinalField
+  {
+    public final int x = 1;
+  }
+
+  public static class PrivateField
+  {
+    private int x;
+  }
+
+  public static class Node
+  {
+    public String name;
+    public Node next;
+  }
+
+  public static class Tree
+  {
+    public List<Branch> branches;
+  }
+
+  public static class Branch
+  {
+    public Tree tree;
+  }
+
+  private static Pojo newPojo(int id)
+  {
+    Pojo pojo = new Pojo();
+    pojo.setId(id);
+    pojo.setActive(true);
+    pojo.timestamp = -1L << 40;
+    pojo.price = 9.99;
+    pojo.code = 'x';
+    pojo.name = "pojo" + id;
+    pojo.count = 7;
+    pojo.color = Color.GREEN;
+    pojo.address = new Address();
+    pojo.address.city = "Springfield";
+    pojo.address.zip = 12345;
+    pojo.tags = new ArrayList<>(Arrays.asList("a", null, "c"));
+    pojo.counts = new HashMap<>();
+    pojo.counts.put("k", 1);
+    pojo.values = new int[] {1, -2, 3};
+    pojo.data = new byte[] {4, 5};
+    pojo.date = new Date(1000);
+    return pojo;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T roundTrip(StreamCodec<T> codec, T tuple)
+  {
+    Slice slice = codec.toByteArray(tuple);
+    return (T)codec.fromByteArray(new Slice(Arrays.copyOfRange(slice.buffer, slice.offset, slice.offset + slice.length)));
+  }
+
+  @Test
+  public void testRoundTrip()
+  {
+    GeneratedStreamCodec<Pojo> codec = new GeneratedStreamCodec<>(Pojo.class);
+    Pojo pojo = newPojo(1);
+    pojo.previous = new Address[] {new Address(), null};
+    pojo.previous[0].city = "Shelbyville";
+
+    Pojo copy = roundTrip(codec, pojo);
+    Assert.assertEquals("id", 1, copy.getId());
+    Assert.assertTrue("active", copy.isActive());
+    Assert.assertEquals("timestamp", pojo.timestamp, copy.timestamp);
+    Assert.assertEquals("price", pojo.price, copy.price, 0);
+    Assert.assertEquals("code", pojo.code, copy.code);
+    Assert.assertEquals("name", pojo.name, copy.name);
+    Assert.assertEquals("count", pojo.count, copy.count);
+    Assert.assertNull("missing", copy.missing);
+    Assert.assertEquals("color", Color.GREEN, copy.color);
+    Assert.assertEquals("city", "Springfield", copy.address.city);
+    Assert.assertEquals("zip", 12345, copy.address.zip);
+    Assert.assertEquals("tags", pojo.tags, copy.tags);
+    Assert.assertEquals("tags class", ArrayList.class, copy.tags.getClass());
+    Assert.assertEquals("counts", pojo.counts, copy.counts);
+    Assert.assertArrayEquals("values", pojo.values, copy.values);
+    Assert.assertArrayEquals("data", pojo.data, copy.data);
+    Assert.assertEquals("date", pojo.date, copy.date);
+    Assert.assertEquals("previous", 2, copy.previous.length);
+    Assert.assertEquals("previous city", "Shelbyville", copy.previous[0].city);
+    Assert.assertNull("no previous", copy.previous[1]);
+
+    Pojo empty = roundTrip(codec, new Pojo());
+    Assert.assertNull("name", empty.name);
+    Assert.assertNull("tags", empty.tags);
+    Assert.assertNull("values", empty.values);
+    Assert.assertNull("color", empty.color);
+  }
+
+  @Test
+  public void testSubclass()
+  {
+    GeneratedStreamCodec<Pojo> codec = new GeneratedStreamCodec<>(Pojo.class);
+    SubPojo pojo = new SubPojo();
+    pojo.name = "sub";
+    pojo.extra = "extra";
+
+    Pojo copy = roundTrip(codec, (Pojo)pojo);
+    Assert.assertEquals("class", SubPojo.class, copy.getClass());
+    Assert.assertEquals("extra", "extra", ((SubPojo)copy).extra);
+    Assert.assertEquals("name", "sub", copy.name);
+
+    Assert.assertNull("null tuple", roundTrip(codec, null));
+  }
+
+  @Test
+  public void testPartition()
+  {
+    GeneratedStreamCodec<Pojo> codec = new GeneratedStreamCodec<>(Pojo.class, "id", "name");
+    Pojo pojo1 = newPojo(1);
+    Pojo pojo2 = newPojo(1);
+    pojo2.price = 1;
+    Assert.assertEquals("same keys", codec.getPartition(pojo1), codec.getPartition(pojo2));
+    Assert.assertEquals("hash", 31 * (31 * 0 + 1) + "pojo1".hashCode(), codec.getPartition(pojo1));
+    pojo2.name = "other";
+    Assert.assertNotEquals("other keys", codec.getPartition(pojo1), codec.getPartition(pojo2));
+
+    GeneratedStreamCodec<Pojo> noKeys = new GeneratedStreamCodec<>(Pojo.class);
+    Assert.assertEquals("hash code", pojo1.hashCode(), noKeys.getPartition(pojo1));
+  }
+
+  @Test
+  public void testSerializable() throws Exception
+  {
+    GeneratedStreamCodec<Pojo> codec = new GeneratedStreamCodec<>(Pojo.class, "id");
+    Slice slice = codec.toByteArray(newPojo(3));
+
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    ObjectOutputStream oos = new ObjectOutputStream(bos);
+    oos.writeObject(codec);
+    oos.close();
+    @SuppressWarnings("unchecked")
+    GeneratedStreamCodec<Pojo> copy = (GeneratedStreamCodec<Pojo>)new ObjectInputStream(
+        new ByteArrayInputStream(bos.toByteArray())).readObject();
+
+    Assert.assertEquals("codec", codec, copy);
+    Assert.assertEquals("tuple", 3, ((Pojo)copy.fromByteArray(slice)).getId());
+    Assert.assertEquals("partition", codec.getPartition(newPojo(3)), copy.getPartition(newPojo(3)));
+  }
+
+  @Test
+  public void testUnsupported()
+  {
+    Assert.assertTrue(GeneratedStreamCodec.isSupported(Pojo.class, "id"));
+    Assert.assertFalse("unknown key", GeneratedStreamCodec.isSupported(Pojo.class, "unknown"));
+    Assert.assertFalse("final field", GeneratedStreamCodec.isSupported(FinalField.class));
+    Assert.assertFalse("private field", GeneratedStreamCodec.isSupported(PrivateField.class));
+    Assert.assertFalse("JDK class", GeneratedStreamCodec.isSupported(Date.class));
+    Assert.assertFalse("enum", GeneratedStreamCodec.isSupported(Color.class));
+    Assert.assertFalse("self reference", GeneratedStreamCodec.isSupported(Node.class));
+    Assert.assertFalse("cycle", GeneratedStreamCodec.isSupported(Tree.class));
+    Assert.assertFalse("cycle", GeneratedStreamCodec.isSupported(Branch.class));
+  }
+
+  @Test
+  public void testPortCodec()
+  {
+    LogicalPlan dag = new LogicalPlan();
+    GenericTestOperator o1 = dag.addOperator("o1", GenericTestOperator.class);
+    GenericTestOperator o2 = dag.addOperator("o2", GenericTestOperator.class);
+    GenericTestOperator o3 = dag.addOperator("o3", GenericTestOperator.class);
+    GenericTestOperator o4 = dag.addOperator("o4", GenericTestOperator.class);
+    dag.addStream("s1", o1.outport1, o2.inport1, o3.inport1, o4.inport1);
+    dag.setInputPortAttribute(o2.inport1, PortContext.TUPLE_CLASS, Pojo.class);
+    dag.setInputPortAttribute(o2.inport1, PortContext.TUPLE_KEY_FIELDS, "id, name");
+    dag.setInputPortAttribute(o4.inport1, PortContext.TUPLE_CLASS, Node.class);
+    dag.setInputPortAttribute(o4.inport1, PortContext.GENERATED_STREAM_CODEC, true);
+    Assert.assertNull("not enabled", StreamingContainerAgent.getStreamCodec(dag.getMeta(o2).getMeta(o2.inport1)));
+    Assert.assertNull("cyclic class", StreamingContainerAgent.getStreamCodec(dag.getMeta(o4).getMeta(o4.inport1)));
+
+    dag.setInputPortAttribute(o2.inport1, PortContext.GENERATED_STREAM_CODEC, true);
+    StreamCodec<?> codec = StreamingContainerAgent.getStreamCodec(dag.getMeta(o2).getMeta(o2.inport1));
+    Assert.assertEquals("generated codec", new GeneratedStreamCodec<>(Pojo.class, "id", "name"), codec);
+    Assert.assertSame("cached", codec, StreamingContainerAgent.getStreamCodec(dag.getMeta(o2).getMeta(o2.inport1)));
+    Assert.assertNull("no tuple class", StreamingContainerAgent.getStreamCodec(dag.getMeta(o3).getMeta(o3.inport1)));
+  }
+
+  /**
+   * Compares the generated codec with the default Kryo codec.
+   */
+  @Test
+  @Ignore
+  public void testBenchmark()
+  {
+    final int count = 1000000;
+    List<Pojo> tuples = new ArrayList<>();
+    for (int i = 0; i < 1000; i++) {
+      Pojo pojo = newPojo(i);
+      pojo.date = null;
+      tuples.add(pojo);
+    }
+
+    for (int round = 0; round < 3; round++) {
+      GeneratedStreamCodec<Pojo> generated = new GeneratedStreamCodec<>(Pojo.class, "id");
+      long bytes = 0;
+      long start = System.nanoTime();
+      for (int i = 0; i < count; i++) {
+        Slice slice = generated.toByteArray(tuples.get(i % tuples.size()));
+        bytes += slice.length;
+        generated.fromByteArray(slice);
+      }
+      long elapsed = System.nanoTime() - start;
+      logger.info("generated: {} tuples/s {} bytes/tuple", count * 1000000000L / elapsed, bytes / count);
+
+      DefaultStatefulStreamCodec<Pojo> kryo = new DefaultStatefulStreamCodec<>();
+      bytes = 0;
+      start = System.nanoTime();
+      for (int i = 0; i < count; i++) {
+        DataStatePair pair = kryo.toDataStatePair(tuples.get(i % tuples.size()));
+        bytes += pair.data.length;
+        kryo.fromDataStatePair(pair);
+      }
+      elapsed = System.nanoTime() - start;
+      logger.info("kryo: {} tuples/s {} bytes/tuple", count * 1000000000L / elapsed, bytes / count);
+    }
+  }
+}
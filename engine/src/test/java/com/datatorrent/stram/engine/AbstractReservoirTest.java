@@ -20,6 +20,7 @@ package com.datatorrent.stram.engine;
 
 import java.util.NoSuchElementException;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Condition;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -227,6 +228,36 @@ public class AbstractReservoirTest
     reservoir.add(o);
   }
 
+  @Test
+  @Parameters(method = "defaultTestParameters")
+  public void testBlockedNanos(final AbstractReservoir reservoir, final Class<? extends Throwable> type)
+      throws InterruptedException
+  {
+    final Object o = new Integer(0);
+    while (reservoir.offer(o)) {
+      assertEquals(0, reservoir.getBlockedNanos(false));
+    }
+    Thread consumer = new Thread()
+    {
+      @Override
+      public void run()
+      {
+        try {
+          sleep(50);
+        } catch (InterruptedException e) {
+          throw new RuntimeException(e);
+        }
+        reservoir.sweep();
+      }
+    };
+    consumer.start();
+    reservoir.put(o);
+    consumer.join();
+    long blockedNanos = reservoir.getBlockedNanos(true);
+    assertTrue("blocked " + blockedNanos, blockedNanos >= TimeUnit.MILLISECONDS.toNanos(40));
+    assertEquals(0, reservoir.getBlockedNanos(false));
+  }
+
   @Test
   @Ignore
   @Parameters(method = "performanceTestParameters")
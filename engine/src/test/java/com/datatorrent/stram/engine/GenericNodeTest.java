@@ -21,7 +21,9 @@ package com.datatorrent.stram.engine;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -57,7 +59,9 @@ import com.datatorrent.common.util.ScheduledThreadPoolExecutor;
 import com.datatorrent.stram.api.Checkpoint;
 import com.datatorrent.stram.tuple.EndStreamTuple;
 import com.datatorrent.stram.tuple.EndWindowTuple;
+import com.datatorrent.stram.tuple.LatencyMarkerTuple;
 import com.datatorrent.stram.tuple.Tuple;
+import com.datatorrent.stram.util.LatencyHistogram;
 
 /**
  *
@@ -476,6 +480,79 @@ public class GenericNodeTest
     Assert.assertTrue("End window not called", go.endWindowId != go.beginWindowId);
   }
 
+  @Test
+  public void testReplayedLatencyMarker() throws InterruptedException
+  {
+    final List<Object> list = new ArrayList<>();
+    GenericOperator go = new GenericOperator();
+    com.datatorrent.stram.engine.OperatorContext context = new com.datatorrent.stram.engine.OperatorContext(0,
+        "operator", new DefaultAttributeMap(), null);
+    final GenericNode gn = new GenericNode(go, context);
+    gn.setId(1);
+    AbstractReservoir reservoir = AbstractReservoir.newReservoir("ip1Res", 1024);
+    gn.connectInputPort("ip1", reservoir);
+    gn.connectOutputPort("op", new Sink<Object>()
+    {
+      @Override
+      public void put(Object tuple)
+      {
+        synchronized (list) {
+          list.add(tuple);
+        }
+      }
+
+      @Override
+      public int getCount(boolean reset)
+      {
+        return 0;
+      }
+    });
+    gn.firstWindowMillis = 0;
+    gn.windowWidthMillis = 100;
+
+    // emitted before the recovery and replayed by the buffer server afterwards
+    LatencyMarkerTuple replayed = new LatencyMarkerTuple(0x1L, 2, LatencyMarkerTuple.currentTimeMicros() - 1000000);
+    Thread t = new Thread()
+    {
+      @Override
+      public void run()
+      {
+        gn.activate();
+        gn.run();
+        gn.deactivate();
+      }
+    };
+    t.start();
+
+    reservoir.add(new Tuple(MessageType.BEGIN_WINDOW, 0x1L));
+    long end = System.currentTimeMillis() + 5000;
+    while (getSize(list) < 1 && System.currentTimeMillis() < end) {
+      Thread.sleep(10);
+    }
+    Assert.assertEquals("begin window", 1, getSize(list));
+
+    reservoir.add(replayed);
+    reservoir.add(new LatencyMarkerTuple(0x1L, 3, LatencyMarkerTuple.currentTimeMicros()));
+    reservoir.add(new EndWindowTuple(0x1L));
+    while (getSize(list) < 4 && System.currentTimeMillis() < end) {
+      Thread.sleep(10);
+    }
+    gn.shutdown();
+    t.join();
+
+    Assert.assertEquals("tuples " + list, 4, getSize(list));
+    Map<Integer, LatencyHistogram> latencies = context.drainLatencies();
+    Assert.assertNotNull("latencies", latencies);
+    Assert.assertEquals("sources", Collections.singleton(3), latencies.keySet());
+  }
+
+  private static int getSize(List<Object> list)
+  {
+    synchronized (list) {
+      return list.size();
+    }
+  }
+
   @Test
   public void testDoubleCheckpointAtleastOnce() throws Exception
   {
@@ -19,15 +19,23 @@
 package com.datatorrent.stram.engine;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Assert;
+import org.junit.Ignore;
 import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.datatorrent.api.Context;
 import com.datatorrent.api.DefaultInputPort;
 import com.datatorrent.api.DefaultOutputPort;
 import com.datatorrent.api.InputOperator;
 import com.datatorrent.api.Operator;
+import com.datatorrent.api.Sink;
 import com.datatorrent.common.util.AsyncFSStorageAgent;
 import com.datatorrent.common.util.BaseOperator;
 import com.datatorrent.stram.StramLocalCluster;
@@ -36,6 +44,8 @@ import com.datatorrent.stram.support.StramTestSupport;
 
 public class SliderTest
 {
+  private static final Logger LOG = LoggerFactory.getLogger(SliderTest.class);
+
   public static class Input extends BaseOperator implements InputOperator
   {
     private boolean emit;
@@ -104,6 +114,119 @@ public class SliderTest
     }
   }
 
+  public static class PaneSum extends BaseOperator implements Operator.RetractableSlidingUnifier<Integer, Integer>
+  {
+    int sum;
+
+    @Override
+    public void beginWindow(long windowId)
+    {
+      sum = 0;
+    }
+
+    public final transient DefaultInputPort<Integer> inputPort = new DefaultInputPort<Integer>()
+    {
+      @Override
+      public void process(Integer tuple)
+      {
+        PaneSum.this.process(tuple);
+      }
+    };
+
+    public final transient DefaultOutputPort<Integer> outputPort = new DefaultOutputPort<Integer>()
+    {
+      @Override
+      public Unifier<Integer> getUnifier()
+      {
+        return new PaneSum();
+      }
+    };
+
+    @Override
+    public void process(Integer tuple)
+    {
+      sum += tuple;
+    }
+
+    @Override
+    public void endWindow()
+    {
+      if (sum > 0) {
+        outputPort.emit(sum);
+      }
+    }
+
+    @Override
+    public Integer newPane()
+    {
+      return 0;
+    }
+
+    @Override
+    public Integer accumulate(Integer pane, Integer tuple)
+    {
+      return pane + tuple;
+    }
+
+    @Override
+    public Integer combine(Integer aggregate, Integer pane)
+    {
+      return aggregate + pane;
+    }
+
+    @Override
+    public Integer retract(Integer aggregate, Integer pane)
+    {
+      return aggregate - pane;
+    }
+
+    @Override
+    public void emitAggregate(Integer aggregate)
+    {
+      if (aggregate > 0) {
+        outputPort.emit(aggregate);
+      }
+    }
+  }
+
+  /**
+   * Pane unifier without retraction, the slider combines all panes of a sliding window.
+   */
+  public static class CombiningSum extends BaseOperator implements Operator.SlidingUnifier<Integer, Integer>
+  {
+    public final transient DefaultOutputPort<Integer> outputPort = new DefaultOutputPort<>();
+
+    @Override
+    public void process(Integer tuple)
+    {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Integer newPane()
+    {
+      return 0;
+    }
+
+    @Override
+    public Integer accumulate(Integer pane, Integer tuple)
+    {
+      return pane + tuple;
+    }
+
+    @Override
+    public Integer combine(Integer aggregate, Integer pane)
+    {
+      return aggregate + pane;
+    }
+
+    @Override
+    public void emitAggregate(Integer aggregate)
+    {
+      outputPort.emit(aggregate);
+    }
+  }
+
   public static class Validator extends BaseOperator
   {
     public static int numbersValidated;
@@ -140,21 +263,35 @@ public class SliderTest
   }
 
   private void test(int applicationWindowCount, int slideByWindowCount) throws Exception
+  {
+    test(applicationWindowCount, slideByWindowCount, false);
+  }
+
+  private void test(int applicationWindowCount, int slideByWindowCount, boolean panes) throws Exception
   {
     LogicalPlan dag = new LogicalPlan();
     String workingDir = new File("target/sliderTest").getAbsolutePath();
     dag.setAttribute(Context.OperatorContext.STORAGE_AGENT, new AsyncFSStorageAgent(workingDir, null));
     dag.getAttributes().put(LogicalPlan.STREAMING_WINDOW_SIZE_MILLIS, 100);
     Input input = dag.addOperator("Input", new Input());
-    Sum sum = dag.addOperator("Sum", new Sum());
-    dag.setOperatorAttribute(sum, OperatorContext.APPLICATION_WINDOW_COUNT, applicationWindowCount);
-    dag.setOperatorAttribute(sum, OperatorContext.SLIDE_BY_WINDOW_COUNT, slideByWindowCount);
     Validator validate = dag.addOperator("validator", new Validator());
     Validator.numbersValidated = 0;
     validate.numberOfIntegers = applicationWindowCount;
     validate.slideByNumbers = slideByWindowCount;
-    dag.addStream("input-sum", input.defaultOutputPort, sum.inputPort);
-    dag.addStream("sum-validator", sum.outputPort, validate.validate);
+    Operator sum;
+    if (panes) {
+      PaneSum paneSum = dag.addOperator("Sum", new PaneSum());
+      dag.addStream("input-sum", input.defaultOutputPort, paneSum.inputPort);
+      dag.addStream("sum-validator", paneSum.outputPort, validate.validate);
+      sum = paneSum;
+    } else {
+      Sum replaySum = dag.addOperator("Sum", new Sum());
+      dag.addStream("input-sum", input.defaultOutputPort, replaySum.inputPort);
+      dag.addStream("sum-validator", replaySum.outputPort, validate.validate);
+      sum = replaySum;
+    }
+    dag.setOperatorAttribute(sum, OperatorContext.APPLICATION_WINDOW_COUNT, applicationWindowCount);
+    dag.setOperatorAttribute(sum, OperatorContext.SLIDE_BY_WINDOW_COUNT, slideByWindowCount);
     StramLocalCluster lc = new StramLocalCluster(dag);
     lc.runAsync();
 
@@ -186,4 +323,74 @@ public class SliderTest
   {
     test(4, 2);
   }
+
+  @Test
+  public void testSliderWithPanes() throws Exception
+  {
+    test(5, 2, true);
+  }
+
+  @Test
+  public void testPaneSlides()
+  {
+    for (Operator.SlidingUnifier<Integer, Integer> unifier : new Operator.SlidingUnifier[] {new PaneSum(), new CombiningSum()}) {
+      final List<Object> results = new ArrayList<>();
+      Slider slider = new Slider((Operator.Unifier)unifier, 4, 2);
+      Sink<Object> sink = new Sink<Object>()
+      {
+        @Override
+        public void put(Object tuple)
+        {
+          results.add(tuple);
+        }
+
+        @Override
+        public int getCount(boolean reset)
+        {
+          return 0;
+        }
+      };
+      if (unifier instanceof PaneSum) {
+        ((PaneSum)unifier).outputPort.setSink(sink);
+      } else {
+        ((CombiningSum)unifier).outputPort.setSink(sink);
+      }
+      // window i contains the tuples i and 10 * i
+      for (int i = 1; i <= 8; i++) {
+        slider.beginWindow(i);
+        slider.process(i);
+        slider.process(10 * i);
+        slider.endWindow();
+      }
+      // sliding windows 1-4, 3-6 and 5-8
+      Assert.assertEquals(unifier.getClass().getSimpleName(), Arrays.<Object>asList(110, 198, 286), results);
+    }
+  }
+
+  /**
+   * Compares replaying the cached tuples with combining panes for different numbers of windows per sliding window.
+   */
+  @Test
+  @Ignore
+  public void benchmarkSlider()
+  {
+    final int tuplesPerWindow = 10000;
+    final int slides = 200;
+    for (int windowCount : new int[] {4, 16, 60}) {
+      for (boolean panes : new boolean[] {false, true}) {
+        Operator.Unifier<Integer> unifier = panes ? new PaneSum() : new Sum();
+        Slider slider = new Slider((Operator.Unifier)unifier, windowCount, 1);
+        long start = System.nanoTime();
+        for (int windowId = 0; windowId < windowCount + slides; windowId++) {
+          slider.beginWindow(windowId);
+          for (int i = 0; i < tuplesPerWindow; i++) {
+            slider.process(i);
+          }
+          slider.endWindow();
+        }
+        LOG.info("windows {} {}: {} ms", windowCount, panes ? "panes" : "replay",
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+      }
+    }
+  }
 }
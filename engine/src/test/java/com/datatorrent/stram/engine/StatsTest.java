@@ -22,6 +22,7 @@ import java.io.File;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -45,6 +46,7 @@ import com.datatorrent.stram.engine.StatsTest.TestOperator.TestInputStatsListene
 import com.datatorrent.stram.plan.logical.LogicalPlan;
 import com.datatorrent.stram.plan.physical.PTOperator;
 import com.datatorrent.stram.support.StramTestSupport;
+import com.datatorrent.stram.webapp.LogicalOperatorInfo;
 
 /**
  * Tests the stats generated in the system.
@@ -229,6 +231,48 @@ public class StatsTest
     }
   }
 
+  @Test
+  public void testLatencyMarkers() throws Exception
+  {
+    LogicalPlan dag = new LogicalPlan();
+    String workingDir = new File("target/testLatencyMarkers").getAbsolutePath();
+    dag.setAttribute(OperatorContext.STORAGE_AGENT, new AsyncFSStorageAgent(workingDir, null));
+    dag.setAttribute(LogicalPlan.LATENCY_MARKER_INTERVAL_MILLIS, 10);
+    TestGeneratorInputOperator input = dag.addOperator("input", TestGeneratorInputOperator.class);
+    GenericTestOperator o1 = dag.addOperator("o1", GenericTestOperator.class);
+    GenericTestOperator o2 = dag.addOperator("o2", GenericTestOperator.class);
+    dag.addStream("input.outport", input.outport, o1.inport1);
+    dag.addStream("o1.outport1", o1.outport1, o2.inport1).setLocality(DAG.Locality.THREAD_LOCAL);
+
+    StramLocalCluster lc = new StramLocalCluster(dag);
+    lc.runAsync();
+    try {
+      final StreamingContainerManager scm = lc.getStreamingContainerManager();
+      final LogicalPlan plan = scm.getLogicalPlan();
+      final PTOperator inputOper = scm.getPhysicalPlan().getOperators(plan.getOperatorMeta("input")).get(0);
+      final PTOperator o2Oper = scm.getPhysicalPlan().getOperators(plan.getOperatorMeta("o2")).get(0);
+      StramTestSupport.WaitCondition c = new StramTestSupport.WaitCondition()
+      {
+        @Override
+        public boolean isComplete()
+        {
+          return o2Oper.stats.getLatencies().containsKey(inputOper.getId());
+        }
+      };
+      Assert.assertTrue("latency markers received", StramTestSupport.awaitCompletion(c, 30000));
+
+      PTOperator o1Oper = scm.getPhysicalPlan().getOperators(plan.getOperatorMeta("o1")).get(0);
+      Assert.assertEquals("sources " + o1Oper, Collections.singleton(inputOper.getId()), o1Oper.stats.getLatencies().keySet());
+      LogicalOperatorInfo loi = scm.getLogicalOperatorInfo("o2");
+      Assert.assertNotNull("latency " + loi.name, loi.latency);
+      Assert.assertTrue("count", loi.latency.count > 0);
+      Assert.assertTrue("p99 " + loi.latency.p99, loi.latency.p99 >= loi.latency.p50);
+      Assert.assertEquals("sources", Collections.singleton("input"), loi.sourceLatencies.keySet());
+    } finally {
+      lc.shutdown();
+    }
+  }
+
   @SuppressWarnings("SleepWhileInLoop")
   private void baseTestForQueueSize(int maxTuples, TestCollectorStatsListener statsListener, DAG.Locality locality) throws Exception
   {
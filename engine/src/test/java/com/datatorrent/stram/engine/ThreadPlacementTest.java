@@ -0,0 +1,257 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.engine;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Rule;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.datatorrent.api.Context.OperatorContext;
+import com.datatorrent.api.DAG;
+import com.datatorrent.api.DAG.Locality;
+import com.datatorrent.api.DefaultInputPort;
+import com.datatorrent.api.DefaultOutputPort;
+import com.datatorrent.api.InputOperator;
+import com.datatorrent.common.util.BaseOperator;
+import com.datatorrent.common.util.BasicContainerOptConfigurator;
+import com.datatorrent.stram.StramLocalCluster;
+import com.datatorrent.stram.plan.logical.LogicalPlan;
+import com.datatorrent.stram.support.StramTestSupport.TestMeta;
+import com.datatorrent.stram.util.ThreadAffinity;
+
+/**
+ * Tests the placement of the container threads on the cores.
+ */
+public class ThreadPlacementTest
+{
+  private static final Logger logger = LoggerFactory.getLogger(ThreadPlacementTest.class);
+
+  @Rule
+  public TestMeta testMeta = new TestMeta();
+
+  private static BitSet cpus(String list)
+  {
+    return ThreadAffinity.parseCpuList(list);
+  }
+
+  /**
+   * Two NUMA nodes of 4 cores.
+   */
+  private static class TestAffinity extends ThreadAffinity
+  {
+    final List<BitSet> pinned = new ArrayList<>();
+
+    @Override
+    public boolean isSupported()
+    {
+      return true;
+    }
+
+    @Override
+    public synchronized boolean setAffinity(BitSet cpus)
+    {
+      pinned.add(cpus);
+      return true;
+    }
+
+    @Override
+    public BitSet getAvailableCpus()
+    {
+      return cpus("0-7");
+    }
+
+    @Override
+    public List<BitSet> getNumaNodes()
+    {
+      return Arrays.asList(cpus("0-3"), cpus("4-7"));
+    }
+  }
+
+  @Test
+  public void testCpuList()
+  {
+    Assert.assertEquals("parse", cpus("0,1,2,3,8,10,11"), cpus("0-3,8,10-11"));
+    Assert.assertEquals("format", "0-3,8,10-11", ThreadAffinity.toCpuList(cpus("0,1,2,3,8,10,11")));
+    Assert.assertEquals("empty", "", ThreadAffinity.toCpuList(cpus("")));
+  }
+
+  @Test
+  public void testLockDirectory()
+  {
+    Assert.assertEquals("configured", new File("/var/run/apex"),
+        ThreadPlacement.getLockDirectory("/var/run/apex", "/yarn/local/usercache/apex/appcache/application_1_0001"));
+    Assert.assertEquals("user directory", new File("/yarn/local/usercache/apex/apex-cpu-affinity"),
+        ThreadPlacement.getLockDirectory(null,
+        "/yarn/local/usercache/apex/appcache/application_1_0001,/yarn/local2/usercache/apex/appcache/application_1_0001"));
+    Assert.assertEquals("outside of YARN",
+        new File(System.getProperty("java.io.tmpdir"), "apex-cpu-affinity-" + System.getProperty("user.name")),
+        ThreadPlacement.getLockDirectory(null, null));
+  }
+
+  @Test
+  public void testClaim()
+  {
+    File lockDirectory = new File(testMeta.getPath());
+    TestAffinity affinity = new TestAffinity();
+    ThreadPlacement container1 = new ThreadPlacement(affinity, lockDirectory, 3);
+    ThreadPlacement container2 = new ThreadPlacement(affinity, lockDirectory, 3);
+    ThreadPlacement container3 = new ThreadPlacement(affinity, lockDirectory, 2);
+    ThreadPlacement container4 = new ThreadPlacement(affinity, lockDirectory, 2);
+    try {
+      Assert.assertEquals("first node", cpus("0-2"), container1.getCpus());
+      Assert.assertEquals("second node", cpus("4-6"), container2.getCpus());
+      Assert.assertEquals("across nodes", cpus("3,7"), container3.getCpus());
+      Assert.assertEquals("shared", cpus("0-1"), container4.getCpus());
+
+      container1.release();
+      ThreadPlacement container5 = new ThreadPlacement(affinity, lockDirectory, 16);
+      Assert.assertEquals("released and at most the available cores", cpus("0-7"), container5.getCpus());
+      container5.release();
+    } finally {
+      container1.release();
+      container2.release();
+      container3.release();
+      container4.release();
+    }
+  }
+
+  @Test
+  public void testPin()
+  {
+    TestAffinity affinity = new TestAffinity();
+    ThreadPlacement placement = new ThreadPlacement(affinity, new File(testMeta.getPath()), 2);
+    try {
+      placement.pinContainerThread();
+      Assert.assertEquals("operator core", 0, placement.pinOperatorThread());
+      Assert.assertEquals("operator core", 1, placement.pinOperatorThread());
+      Assert.assertEquals("operator core", 0, placement.pinOperatorThread());
+      Assert.assertEquals("pinned", Arrays.asList(cpus("0-1"), cpus("0"), cpus("1"), cpus("0")), affinity.pinned);
+    } finally {
+      placement.release();
+    }
+  }
+
+  @Test
+  public void testNumaJvmOptions()
+  {
+    LogicalPlan dag = new LogicalPlan();
+    GenericTestOperator o1 = dag.addOperator("o1", GenericTestOperator.class);
+    GenericTestOperator o2 = dag.addOperator("o2", GenericTestOperator.class);
+    List<DAG.OperatorMeta> operators = Arrays.<DAG.OperatorMeta>asList(dag.getMeta(o1), dag.getMeta(o2));
+    BasicContainerOptConfigurator configurator = new BasicContainerOptConfigurator();
+    Assert.assertFalse("without affinity", configurator.getJVMOptions(operators).contains("UseNUMA"));
+
+    dag.setOperatorAttribute(o2, OperatorContext.THREAD_AFFINITY, true);
+    Assert.assertTrue("with affinity", configurator.getJVMOptions(operators).endsWith(" -XX:+UseNUMA"));
+
+    dag.setOperatorAttribute(o1, OperatorContext.JVM_OPTIONS, "-XX:-UseNUMA");
+    dag.setOperatorAttribute(o2, OperatorContext.JVM_OPTIONS, "-XX:-UseNUMA");
+    Assert.assertFalse("configured", configurator.getJVMOptions(operators).contains("+UseNUMA"));
+  }
+
+  private static final AtomicLong received = new AtomicLong();
+
+  public static class Source extends BaseOperator implements InputOperator
+  {
+    public final transient DefaultOutputPort<Long> output = new DefaultOutputPort<>();
+    private long value;
+
+    @Override
+    public void emitTuples()
+    {
+      for (int i = 0; i < 1000; i++) {
+        output.emit(value++);
+      }
+    }
+  }
+
+  public static class Forward extends BaseOperator
+  {
+    public final transient DefaultOutputPort<Long> output = new DefaultOutputPort<>();
+    public final transient DefaultInputPort<Long> input = new DefaultInputPort<Long>()
+    {
+      @Override
+      public void process(Long tuple)
+      {
+        output.emit(tuple);
+      }
+    };
+  }
+
+  public static class Counter extends BaseOperator
+  {
+    public final transient DefaultInputPort<Long> input = new DefaultInputPort<Long>()
+    {
+      @Override
+      public void process(Long tuple)
+      {
+        received.incrementAndGet();
+      }
+    };
+  }
+
+  /**
+   * Compares the throughput of a CONTAINER_LOCAL chain of 6 operators with and without thread affinity.
+   */
+  @Test
+  @Ignore
+  public void testBenchmark() throws Exception
+  {
+    for (int run = 0; run < 2; run++) {
+      for (boolean threadAffinity : new boolean[] {false, true}) {
+        LogicalPlan dag = new LogicalPlan();
+        dag.setAttribute(LogicalPlan.APPLICATION_PATH, testMeta.getPath());
+        dag.setAttribute(OperatorContext.VCORES, 1);
+        dag.setAttribute(OperatorContext.THREAD_AFFINITY, threadAffinity);
+        Source source = dag.addOperator("source", Source.class);
+        DefaultOutputPort<Long> output = source.output;
+        for (int i = 1; i < 5; i++) {
+          Forward forward = dag.addOperator("forward" + i, Forward.class);
+          dag.addStream("s" + i, output, forward.input).setLocality(Locality.CONTAINER_LOCAL);
+          output = forward.output;
+        }
+        Counter counter = dag.addOperator("counter", Counter.class);
+        dag.addStream("s5", output, counter.input).setLocality(Locality.CONTAINER_LOCAL);
+
+        StramLocalCluster lc = new StramLocalCluster(dag);
+        lc.setHeartbeatMonitoringEnabled(false);
+        lc.runAsync();
+        Thread.sleep(5000);
+        long start = received.get();
+        long startNanos = System.nanoTime();
+        Thread.sleep(10000);
+        long count = received.get() - start;
+        long elapsed = System.nanoTime() - startNanos;
+        lc.shutdown();
+        logger.info("thread affinity {} supported {}: {} tuples/s", threadAffinity,
+            ThreadAffinity.getInstance().isSupported(), count * 1000000000L / elapsed);
+      }
+    }
+  }
+}
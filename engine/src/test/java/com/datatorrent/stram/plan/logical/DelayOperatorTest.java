@@ -20,6 +20,7 @@ package com.datatorrent.stram.plan.logical;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -156,6 +157,22 @@ public class DelayOperatorTest
     } catch (ValidationException e) {
       // expected
     }
+
+    // the loop is entered through C without passing through B
+    dag = new LogicalPlan();
+
+    TestGeneratorInputOperator opA = dag.addOperator("A", TestGeneratorInputOperator.class);
+    opB = dag.addOperator("B", GenericTestOperator.class);
+    opC = dag.addOperator("C", GenericTestOperator.class);
+    opDelay = dag.addOperator("opDelay", DefaultDelayOperator.class);
+    dag.addStream("AtoBC", opA.outport, opB.inport1, opC.inport1);
+    dag.addStream("BtoC", opB.outport1, opC.inport2);
+    dag.addStream("CtoDelay", opC.outport1, opDelay.input);
+    dag.addStream("DelayToB", opDelay.output, opB.inport2);
+
+    invalidDelays = new ArrayList<>();
+    dag.findInvalidDelays(dag.getRootOperators(), invalidDelays);
+    assertEquals("invalid delays", Collections.singletonList(Arrays.asList("opDelay", "B")), invalidDelays);
   }
 
   @Test
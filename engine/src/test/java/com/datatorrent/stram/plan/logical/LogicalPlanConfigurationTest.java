@@ -32,6 +32,7 @@ import javax.validation.ValidationException;
 
 import org.codehaus.jettison.json.JSONObject;
 import org.junit.Assert;
+import org.junit.Ignore;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -1582,6 +1583,80 @@ public class LogicalPlanConfigurationTest
     long serialVersionUID = AttributeMap.AttributeInitializer.initialize(MockContext2.class);
   }
 
+  @Test
+  public void testLargePlanConfiguration()
+  {
+    configureLargePlan(500);
+  }
+
+  @Test
+  @Ignore
+  public void testLargePlanConfigurationBenchmark()
+  {
+    configureLargePlan(5000);
+    for (int i = 0; i < 3; i++) {
+      configureLargePlan(5000);
+    }
+  }
+
+  /**
+   * Configure a chain of operators with per operator, wildcard, regular expression and template keys and verify the
+   * resolved values.
+   */
+  private void configureLargePlan(int operatorCount)
+  {
+    Properties props = new Properties();
+    props.put(StreamingApplication.DT_PREFIX + "operator.*.attr.MEMORY_MB", "256");
+    for (int i = 0; i < operatorCount; i++) {
+      props.put(StreamingApplication.DT_PREFIX + "operator.op" + i + ".prop.myStringProperty", "v" + i);
+      if (i % 10 == 0) {
+        props.put(StreamingApplication.DT_PREFIX + "operator.op" + i + ".port.outport1.attr.QUEUE_CAPACITY", "" + (1000 + i));
+      }
+    }
+    for (int i = 1; i < 10; i++) {
+      // regular expression keys and templates that match all operator ids starting with the digit
+      props.put(StreamingApplication.DT_PREFIX + "operator.op" + i + "\\d*.attr.APPLICATION_WINDOW_COUNT", "" + i);
+      props.put(StreamingApplication.DT_PREFIX + "template.t" + i + ".matchIdRegExp", "op" + i + "\\d*");
+      props.put(StreamingApplication.DT_PREFIX + "template.t" + i + ".prop.emitFormat", "f" + i);
+    }
+
+    final int count = operatorCount;
+    StreamingApplication app = new StreamingApplication()
+    {
+      @Override
+      public void populateDAG(DAG dag, Configuration conf)
+      {
+        GenericTestOperator prev = dag.addOperator("op0", GenericTestOperator.class);
+        for (int i = 1; i < count; i++) {
+          GenericTestOperator op = dag.addOperator("op" + i, GenericTestOperator.class);
+          dag.addStream("s" + i, prev.outport1, op.inport1);
+          prev = op;
+        }
+      }
+    };
+
+    long start = System.currentTimeMillis();
+    LogicalPlanConfiguration lpc = new LogicalPlanConfiguration(new Configuration(false));
+    lpc.addFromProperties(props, null);
+    LogicalPlan dag = new LogicalPlan();
+    lpc.prepareDAG(dag, app, "LargeApp");
+    LOG.info("Configured {} operators with {} properties in {} ms", operatorCount, props.size(), System.currentTimeMillis() - start);
+
+    for (int i = 0; i < operatorCount; i++) {
+      OperatorMeta om = dag.getOperatorMeta("op" + i);
+      GenericTestOperator op = (GenericTestOperator)om.getOperator();
+      assertEquals("property", "v" + i, op.getMyStringProperty());
+      assertEquals("wildcard attribute", 256, (int)om.getValue(OperatorContext.MEMORY_MB));
+      String id = Integer.toString(i);
+      int digit = id.charAt(0) - '0';
+      assertEquals("template", digit == 0 ? null : "f" + digit, op.getEmitFormat());
+      assertEquals("regex attribute", digit == 0 ? 1 : digit, (int)om.getValue(OperatorContext.APPLICATION_WINDOW_COUNT));
+      if (i % 10 == 0 && i < operatorCount - 1) {
+        assertEquals("port attribute", 1000 + i, (int)om.getMeta(op.outport1).getValue(PortContext.QUEUE_CAPACITY));
+      }
+    }
+  }
+
   @ApplicationAnnotation(name = "SimpleTestApp")
   public static class SimpleTestApplicationWithName extends SimpleTestApplication
   {
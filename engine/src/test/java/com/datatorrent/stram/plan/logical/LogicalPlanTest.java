@@ -42,7 +42,10 @@ import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Pattern;
 
 import org.junit.Assert;
+import org.junit.Ignore;
 import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.esotericsoftware.kryo.DefaultSerializer;
 import com.esotericsoftware.kryo.serializers.JavaSerializer;
@@ -88,6 +91,7 @@ import static org.junit.Assert.fail;
 
 public class LogicalPlanTest
 {
+  private static final Logger LOG = LoggerFactory.getLogger(LogicalPlanTest.class);
 
   @Test
   public void testCycleDetection()
@@ -1227,6 +1231,96 @@ public class LogicalPlanTest
     public final transient DefaultOutputPort<Object> output = new DefaultOutputPort<>();
   }
 
+  @Test
+  public void testValidateLargePlan()
+  {
+    // the number of paths through the diamonds is exponential and the chain is deep
+    LogicalPlan dag = createLargePlan(100, 10000, null);
+    dag.getOperatorMeta("input").getAttributes().put(OperatorContext.PROCESSING_MODE, Operator.ProcessingMode.AT_MOST_ONCE);
+    dag.validate();
+    for (OperatorMeta om : dag.getAllOperators()) {
+      assertEquals("processing mode " + om.getName(), Operator.ProcessingMode.AT_MOST_ONCE, om.getValue(OperatorContext.PROCESSING_MODE));
+    }
+
+    dag = createLargePlan(100, 100, "s0");
+    dag.validate();
+
+    dag = createLargePlan(100, 100, "l0");
+    try {
+      dag.validate();
+      fail("validation should fail");
+    } catch (ValidationException e) {
+      assertEquals("Invalid delays in graph: [[delay, l0]]", e.getMessage());
+    }
+
+    dag = createLargePlan(100, 100, null);
+    GenericTestOperator last = (GenericTestOperator)dag.getOperatorMeta("c99").getOperator();
+    GenericTestOperator first = (GenericTestOperator)dag.getOperatorMeta("c0").getOperator();
+    dag.addStream("loop", last.outport1, first.inport2);
+    try {
+      dag.validate();
+      fail("validation should fail");
+    } catch (ValidationException e) {
+      assertTrue(e.getMessage(), e.getMessage().startsWith("Loops in graph: "));
+    }
+  }
+
+  @Test
+  @Ignore
+  public void testValidateLargePlanBenchmark()
+  {
+    for (int diamonds : new int[]{1000, 3000, 10000}) {
+      LogicalPlan dag = createLargePlan(diamonds, diamonds, "s0");
+      dag.validate();
+      long start = System.nanoTime();
+      for (int i = 0; i < 10; i++) {
+        dag.validate();
+      }
+      long full = (System.nanoTime() - start) / 10;
+      start = System.nanoTime();
+      for (int i = 0; i < 10; i++) {
+        dag.validate(Collections.singleton(dag.getOperatorMeta("c0")));
+      }
+      long incremental = (System.nanoTime() - start) / 10;
+      LOG.info("Validated {} operators in {} ms, incremental {} ms", dag.getAllOperators().size(), full / 1000000,
+          incremental / 1000000);
+    }
+  }
+
+  /**
+   * Create a plan with an input operator followed by a sequence of diamonds and a chain of operators, with an optional
+   * delay operator from the last operator to the named operator.
+   */
+  private static LogicalPlan createLargePlan(int diamonds, int chainLength, String delayTarget)
+  {
+    LogicalPlan dag = new LogicalPlan();
+    TestGeneratorInputOperator input = dag.addOperator("input", TestGeneratorInputOperator.class);
+    GenericTestOperator split = dag.addOperator("s0", GenericTestOperator.class);
+    dag.addStream("input", input.outport, split.inport1);
+    for (int i = 0; i < diamonds; i++) {
+      GenericTestOperator left = dag.addOperator("l" + i, GenericTestOperator.class);
+      GenericTestOperator right = dag.addOperator("r" + i, GenericTestOperator.class);
+      GenericTestOperator join = dag.addOperator("s" + (i + 1), GenericTestOperator.class);
+      dag.addStream("s" + i + "l", split.outport1, left.inport1);
+      dag.addStream("s" + i + "r", split.outport2, right.inport1);
+      dag.addStream("l" + i, left.outport1, join.inport1);
+      dag.addStream("r" + i, right.outport1, join.inport2);
+      split = join;
+    }
+    GenericTestOperator prev = split;
+    for (int i = 0; i < chainLength; i++) {
+      GenericTestOperator next = dag.addOperator("c" + i, GenericTestOperator.class);
+      dag.addStream("c" + i, prev.outport1, next.inport1);
+      prev = next;
+    }
+    if (delayTarget != null) {
+      DefaultDelayOperator<Object> delay = dag.addOperator("delay", new DefaultDelayOperator<>());
+      dag.addStream("delay", prev.outport1, delay.input);
+      dag.addStream("delayed", delay.output, ((GenericTestOperator)dag.getOperatorMeta(delayTarget).getOperator()).inport2);
+    }
+    return dag;
+  }
+
   /*
   These were tests for operator semantics that verified if an operator class implements InputOperator then the same class should not declare input ports.
   This would be done later when we are able to verify user code at compile-time.
@@ -57,6 +57,7 @@ import com.datatorrent.api.Partitioner.PartitionKeys;
 import com.datatorrent.api.StatsListener;
 import com.datatorrent.api.StreamCodec;
 import com.datatorrent.api.annotation.InputPortFieldAnnotation;
+import com.datatorrent.common.partitioner.AutoScalingPartitioner;
 import com.datatorrent.common.partitioner.StatelessPartitioner;
 import com.datatorrent.stram.PartitioningTest;
 import com.datatorrent.stram.PartitioningTest.TestInputOperator;
@@ -67,6 +68,7 @@ import com.datatorrent.stram.engine.TestGeneratorInputOperator;
 import com.datatorrent.stram.plan.TestPlanContext;
 import com.datatorrent.stram.plan.logical.LogicalPlan;
 import com.datatorrent.stram.plan.logical.LogicalPlan.OperatorMeta;
+import com.datatorrent.stram.plan.logical.LogicalPlan.StreamMeta;
 import com.datatorrent.stram.plan.physical.PTOperator.PTInput;
 import com.datatorrent.stram.plan.physical.PTOperator.PTOutput;
 import com.datatorrent.stram.plan.physical.PhysicalPlan.LoadIndicator;
@@ -366,6 +368,95 @@ public class PhysicalPlanTest
     Assert.assertEquals("Number of unifiers", 3, unifierCount);
   }
 
+  @Test
+  public void testAdaptiveUnifierLimit()
+  {
+    LogicalPlan dag = new LogicalPlan();
+    GenericTestOperator node1 = dag.addOperator("node1", GenericTestOperator.class);
+    GenericTestOperator node2 = dag.addOperator("node2", GenericTestOperator.class);
+    dag.addStream("node1.outport1", node1.outport1, node2.inport1);
+    dag.setOperatorAttribute(node1, OperatorContext.PARTITIONER, new StatelessPartitioner<GenericTestOperator>(8));
+    dag.setOutputPortAttribute(node1.outport1, PortContext.UNIFIER_ADAPTIVE, true);
+    TestPlanContext ctx = new TestPlanContext();
+    dag.setAttribute(OperatorContext.STORAGE_AGENT, ctx);
+    PhysicalPlan plan = new PhysicalPlan(dag, ctx);
+    OperatorMeta node1Meta = dag.getMeta(node1);
+
+    List<PTOperator> unifiers = plan.getMergeOperators(node1Meta);
+    Assert.assertEquals("single unifier", 1, unifiers.size());
+    PTOperator finalUnifier = unifiers.get(0);
+    Assert.assertEquals("inputs " + finalUnifier, 8, finalUnifier.getInputs().size());
+    Assert.assertEquals("listeners " + finalUnifier, 1, finalUnifier.statsListeners.size());
+    AdaptiveUnifierListener listener = (AdaptiveUnifierListener)finalUnifier.statsListeners.get(0);
+
+    // latency above the target requires consecutive evaluations before the unifiers are cascaded
+    finalUnifier.stats.latencyMA.add(5000);
+    for (int i = 1; i < AdaptiveUnifierListener.EVALUATIONS; i++) {
+      plan.onStatusUpdate(finalUnifier);
+    }
+    Assert.assertEquals("hysteresis", 0, ctx.events.size());
+    plan.onStatusUpdate(finalUnifier);
+    Assert.assertEquals("change triggered", 1, ctx.events.size());
+    ctx.events.remove(0).run();
+
+    unifiers = plan.getMergeOperators(node1Meta);
+    Assert.assertEquals("cascading unifiers " + unifiers, 3, unifiers.size());
+    for (PTOperator p : plan.getOperators(node1Meta)) {
+      Assert.assertFalse("partition not redeployed " + p, ctx.deploy.contains(p));
+      Assert.assertFalse("partition not undeployed " + p, ctx.undeploy.contains(p));
+    }
+    Assert.assertTrue("final unifier undeployed", ctx.undeploy.contains(finalUnifier));
+
+    finalUnifier = plan.getOperators(dag.getMeta(node2)).get(0).getInputs().get(0).source.source;
+    Assert.assertEquals("listeners " + finalUnifier, Collections.singletonList(listener), finalUnifier.statsListeners);
+
+    // unifier caught up
+    for (int i = 0; i < 100; i++) {
+      finalUnifier.stats.latencyMA.add(0);
+    }
+    for (int i = 0; i < AdaptiveUnifierListener.EVALUATIONS; i++) {
+      plan.onStatusUpdate(finalUnifier);
+    }
+    Assert.assertEquals("no change during cool down", 0, ctx.events.size());
+
+    listener.cooldownMillis = 0;
+    for (int i = 0; i < AdaptiveUnifierListener.EVALUATIONS; i++) {
+      plan.onStatusUpdate(finalUnifier);
+    }
+    Assert.assertEquals("change triggered", 1, ctx.events.size());
+    ctx.events.remove(0).run();
+    unifiers = plan.getMergeOperators(node1Meta);
+    Assert.assertEquals("single unifier " + unifiers, 1, unifiers.size());
+    Assert.assertEquals("inputs " + unifiers, 8, unifiers.get(0).getInputs().size());
+  }
+
+  @Test
+  public void testAdaptiveUnifierQueueCapacity()
+  {
+    LogicalPlan dag = new LogicalPlan();
+    GenericTestOperator node1 = dag.addOperator("node1", GenericTestOperator.class);
+    GenericTestOperator node2 = dag.addOperator("node2", GenericTestOperator.class);
+    dag.addStream("node1.outport1", node1.outport1, node2.inport1);
+    dag.setOperatorAttribute(node1, OperatorContext.PARTITIONER, new StatelessPartitioner<GenericTestOperator>(8));
+    dag.setOutputPortAttribute(node1.outport1, PortContext.UNIFIER_ADAPTIVE, true);
+    dag.setOutputPortAttribute(node1.outport1, PortContext.QUEUE_CAPACITY, 100);
+    TestPlanContext ctx = new TestPlanContext();
+    dag.setAttribute(OperatorContext.STORAGE_AGENT, ctx);
+    PhysicalPlan plan = new PhysicalPlan(dag, ctx);
+
+    PTOperator finalUnifier = plan.getMergeOperators(dag.getMeta(node1)).get(0);
+    OperatorStatus.PortStatus ps = finalUnifier.stats.new PortStatus();
+    finalUnifier.stats.inputPortStatusList.put("in", ps);
+    // more than half of the configured capacity, much less than half of the default one
+    for (int i = 0; i < 10; i++) {
+      ps.queueSizeMA.add(60);
+    }
+    for (int i = 0; i < AdaptiveUnifierListener.EVALUATIONS; i++) {
+      plan.onStatusUpdate(finalUnifier);
+    }
+    Assert.assertEquals("change triggered", 1, ctx.events.size());
+  }
+
   @Test
   public void testRepartitioningScaleUp()
   {
@@ -462,6 +553,54 @@ public class PhysicalPlanTest
 
   }
 
+  @Test
+  public void testAutoScalingPartitioner()
+  {
+    LogicalPlan dag = new LogicalPlan();
+
+    GenericTestOperator o1 = dag.addOperator("o1", GenericTestOperator.class);
+    GenericTestOperator o2 = dag.addOperator("o2", GenericTestOperator.class);
+    dag.addStream("o1.outport1", o1.outport1, o2.inport1);
+
+    AutoScalingPartitioner<GenericTestOperator> partitioner = new AutoScalingPartitioner<>(100);
+    partitioner.setMaxPartitions(2);
+    partitioner.setEvaluations(2);
+    partitioner.setCooldownMillis(0);
+    OperatorMeta o2Meta = dag.getMeta(o2);
+    o2Meta.getAttributes().put(OperatorContext.PARTITIONER, partitioner);
+
+    TestPlanContext ctx = new TestPlanContext();
+    dag.setAttribute(OperatorContext.STORAGE_AGENT, ctx);
+    PhysicalPlan plan = new PhysicalPlan(dag, ctx);
+
+    PTOperator o2p1 = plan.getOperators(o2Meta).get(0);
+    Assert.assertEquals("partitioner registered as stats listener", Lists.newArrayList(partitioner), o2p1.statsListeners);
+
+    setThroughput(o2p1, 150);
+    plan.onStatusUpdate(o2p1);
+    Assert.assertEquals("hysteresis", 0, ctx.events.size());
+    plan.onStatusUpdate(o2p1);
+    Assert.assertEquals("partitioning triggered", 1, ctx.events.size());
+    ctx.events.remove(0).run();
+    Assert.assertEquals("partition count", 2, plan.getOperators(o2Meta).size());
+
+    for (PTOperator p : plan.getOperators(o2Meta)) {
+      setThroughput(p, 150);
+      plan.onStatusUpdate(p);
+      plan.onStatusUpdate(p);
+    }
+    Assert.assertEquals("max partitions", 0, ctx.events.size());
+
+    for (PTOperator p : plan.getOperators(o2Meta)) {
+      setThroughput(p, 10);
+      plan.onStatusUpdate(p);
+      plan.onStatusUpdate(p);
+    }
+    Assert.assertEquals("partitioning triggered", 1, ctx.events.size());
+    ctx.events.remove(0).run();
+    Assert.assertEquals("partition count", 1, plan.getOperators(o2Meta).size());
+  }
+
   /**
    * Test partitioning of an input operator (no input port).
    * Cover aspects that are not part of generic operator test.
@@ -885,6 +1024,114 @@ public class PhysicalPlanTest
 
   }
 
+  @Test
+  public void testOperatorChaining()
+  {
+    LogicalPlan dag = new LogicalPlan();
+
+    TestGeneratorInputOperator o1 = dag.addOperator("o1", TestGeneratorInputOperator.class);
+    GenericTestOperator o2 = dag.addOperator("o2", GenericTestOperator.class);
+    GenericTestOperator o3 = dag.addOperator("o3", GenericTestOperator.class);
+    GenericTestOperator o4 = dag.addOperator("o4", GenericTestOperator.class);
+    GenericTestOperator o5 = dag.addOperator("o5", GenericTestOperator.class);
+    dag.setOperatorAttribute(o4, OperatorContext.PARTITIONER, new StatelessPartitioner<GenericTestOperator>(2));
+    dag.setOperatorAttribute(o5, OperatorContext.APPLICATION_WINDOW_COUNT, 2);
+
+    StreamMeta s1 = dag.addStream("o1.outport", o1.outport, o2.inport1);
+    StreamMeta s2 = dag.addStream("o2.outport1", o2.outport1, o3.inport1);
+    StreamMeta s3 = dag.addStream("o3.outport1", o3.outport1, o4.inport1);
+    StreamMeta s4 = dag.addStream("o4.outport1", o4.outport1, o5.inport1);
+
+    dag.setAttribute(LogicalPlan.OPERATOR_CHAINING, true);
+    dag.setAttribute(OperatorContext.STORAGE_AGENT, new TestPlanContext());
+    TestPlanContext ctx = new TestPlanContext();
+    PhysicalPlan plan = new PhysicalPlan(dag, ctx);
+
+    Assert.assertEquals("locality " + s1, Locality.THREAD_LOCAL, plan.getLocality(s1));
+    Assert.assertNull("logical locality " + s1, s1.getLocality());
+    Assert.assertEquals("locality " + s2, Locality.THREAD_LOCAL, plan.getLocality(s2));
+    Assert.assertNull("partitioned " + s3, plan.getLocality(s3));
+    Assert.assertNull("application window count " + s4, plan.getLocality(s4));
+
+    PTOperator o1p = plan.getOperators(dag.getMeta(o1)).get(0);
+    PTOperator o2p = plan.getOperators(dag.getMeta(o2)).get(0);
+    PTOperator o3p = plan.getOperators(dag.getMeta(o3)).get(0);
+    Assert.assertEquals("container " + o2p, o1p.getContainer(), o2p.getContainer());
+    Assert.assertEquals("container " + o3p, o2p.getContainer(), o3p.getContainer());
+
+    // every operator of the chain reports the CPU time of the thread, only the first operator is checked
+    o3p.stats.statsRevs.checkout();
+    o3p.stats.tuplesProcessedPSMA.set(1000);
+    o3p.stats.statsRevs.commit();
+    o3p.stats.cpuNanosPMSMA.add(1000000000, 1000);
+    plan.checkChaining(o3p);
+    Assert.assertTrue("no unchaining scheduled", ctx.events.isEmpty());
+
+    // cheap chain stays
+    o1p.stats.statsRevs.checkout();
+    o1p.stats.tuplesEmittedPSMA.set(1000);
+    o1p.stats.statsRevs.commit();
+    o1p.stats.cpuNanosPMSMA.add(1000000, 1000);
+    plan.checkChaining(o1p);
+    Assert.assertTrue("no unchaining scheduled", ctx.events.isEmpty());
+
+    // hot chain is redeployed into separate threads
+    o1p.stats.cpuNanosPMSMA.add(1000000000, 1000);
+    plan.checkChaining(o1p);
+    Assert.assertEquals("unchaining scheduled", 1, ctx.events.size());
+    ctx.events.remove(0).run();
+    Assert.assertEquals("locality " + s1, Locality.CONTAINER_LOCAL, plan.getLocality(s1));
+    Assert.assertEquals("locality " + s2, Locality.CONTAINER_LOCAL, plan.getLocality(s2));
+    Assert.assertNull("logical locality " + s2, s2.getLocality());
+    Assert.assertTrue("undeploy " + ctx.undeploy, ctx.undeploy.containsAll(Arrays.asList(o1p, o2p, o3p)));
+    Assert.assertTrue("deploy " + ctx.deploy, ctx.deploy.containsAll(Arrays.asList(o1p, o2p, o3p)));
+    Assert.assertEquals("container " + o3p, o2p.getContainer(), o3p.getContainer());
+
+    plan.checkChaining(o1p);
+    Assert.assertTrue("no chain left", ctx.events.isEmpty());
+  }
+
+  @Test
+  public void testSharedMemoryStream()
+  {
+    LogicalPlan dag = new LogicalPlan();
+    dag.setAttribute(OperatorContext.STORAGE_AGENT, new TestPlanContext());
+    dag.setAttribute(LogicalPlan.SHARED_MEMORY_DIR, "/dev/shm");
+
+    GenericTestOperator o1 = dag.addOperator("o1", GenericTestOperator.class);
+    GenericTestOperator o2 = dag.addOperator("o2", GenericTestOperator.class);
+    dag.addStream("o1.outport1", o1.outport1, o2.inport1).setLocality(Locality.NODE_LOCAL);
+
+    TestPlanContext ctx = new TestPlanContext();
+    PhysicalPlan plan = new PhysicalPlan(dag, ctx);
+    PTOperator o1p = plan.getOperators(dag.getMeta(o1)).get(0);
+    PTOperator o2p = plan.getOperators(dag.getMeta(o2)).get(0);
+    Assert.assertNotSame("separate containers", o1p.getContainer(), o2p.getContainer());
+    PTOutput out = o1p.getOutputs().get(0);
+
+    o1p.getContainer().host = "host1";
+    o2p.getContainer().host = "host1";
+    Assert.assertTrue("same host", plan.isSharedMemoryStream(out));
+
+    // subscriber placed on another host after failure
+    o2p.getContainer().host = "host2";
+    Assert.assertFalse("different hosts", plan.isSharedMemoryStream(out));
+    Assert.assertEquals("redeploy scheduled", 1, ctx.events.size());
+    ctx.events.remove(0).run();
+    Assert.assertTrue("undeploy " + ctx.undeploy, ctx.undeploy.contains(o1p));
+    Assert.assertTrue("deploy " + ctx.deploy, ctx.deploy.containsAll(Arrays.asList(o1p, o2p)));
+
+    o2p.getContainer().host = "host1";
+    Assert.assertFalse("stays with the buffer server", plan.isSharedMemoryStream(out));
+    Assert.assertTrue("no redeploy", ctx.events.isEmpty());
+
+    // the host of the subscriber is not known when the stream is first deployed
+    plan = new PhysicalPlan(dag, ctx);
+    o1p = plan.getOperators(dag.getMeta(o1)).get(0);
+    o1p.getContainer().host = "host1";
+    Assert.assertFalse("unknown host", plan.isSharedMemoryStream(o1p.getOutputs().get(0)));
+  }
+
   @Test
   public void testInlineMultipleInputs()
   {
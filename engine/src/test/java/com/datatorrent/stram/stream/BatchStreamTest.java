@@ -0,0 +1,199 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.stream;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.datatorrent.api.DefaultBatchInputPort;
+import com.datatorrent.api.DefaultInputPort;
+import com.datatorrent.api.DefaultOutputPort;
+import com.datatorrent.stram.codec.DefaultStatefulStreamCodec;
+import com.datatorrent.stram.engine.StreamContext;
+import com.datatorrent.stram.engine.SweepableReservoir;
+import com.datatorrent.stram.support.StramTestSupport;
+import com.datatorrent.stram.tuple.Tuple;
+
+/**
+ * Tests the delivery of the batches emitted by output ports through the streams.
+ */
+public class BatchStreamTest
+{
+  private static final Logger logger = LoggerFactory.getLogger(BatchStreamTest.class);
+
+  private static InlineStream newInlineStream(int capacity)
+  {
+    InlineStream stream = new InlineStream(capacity);
+    stream.setup(new StreamContext("stream"));
+    return stream;
+  }
+
+  @Test
+  public void testInlineStream()
+  {
+    InlineStream stream = newInlineStream(1024);
+    DefaultOutputPort<Object> output = new DefaultOutputPort<>();
+    output.setSink(stream);
+    CollectingBatchInputPort input = new CollectingBatchInputPort();
+    SweepableReservoir reservoir = stream.getReservoir();
+    reservoir.setSink(input);
+
+    List<Object> batch = Arrays.<Object>asList(1, 2, 3);
+    stream.put(StramTestSupport.generateBeginWindowTuple("1", 1));
+    output.emitBatch(batch);
+    output.emitBatch(Collections.emptyList());
+    output.emit(4);
+    stream.put(StramTestSupport.generateEndWindowTuple("1", 1));
+    Assert.assertEquals("queued elements", 4, reservoir.size(false));
+
+    Tuple tuple = reservoir.sweep();
+    Assert.assertNotNull("begin window", tuple);
+    reservoir.remove();
+    tuple = reservoir.sweep();
+    Assert.assertNotNull("end window", tuple);
+    Assert.assertEquals("batches", 2, input.batches.size());
+    Assert.assertSame("batch passed as is", batch, input.batches.get(0));
+    Assert.assertEquals("single tuple", Collections.singletonList(4), input.batches.get(1));
+    Assert.assertEquals("stream count", 4, stream.getCount(false));
+    Assert.assertEquals("reservoir count", 4, reservoir.getCount(false));
+    Assert.assertEquals("port count", 4, input.getCount(true));
+    Assert.assertEquals("port count reset", 0, input.getCount(false));
+  }
+
+  @Test
+  public void testUnbatchedInputPort()
+  {
+    InlineStream stream = newInlineStream(1024);
+    DefaultOutputPort<Object> output = new DefaultOutputPort<>();
+    output.setSink(stream);
+    final List<Object> tuples = new ArrayList<>();
+    DefaultInputPort<Object> input = new DefaultInputPort<Object>()
+    {
+      @Override
+      public void process(Object tuple)
+      {
+        tuples.add(tuple);
+      }
+    };
+    SweepableReservoir reservoir = stream.getReservoir();
+    reservoir.setSink(input);
+
+    output.emitBatch(Arrays.<Object>asList(1, 2, 3));
+    output.emit(4);
+    Assert.assertNull("no control tuple", reservoir.sweep());
+    Assert.assertEquals("tuples", Arrays.<Object>asList(1, 2, 3, 4), tuples);
+    Assert.assertEquals("port count", 4, input.getCount(false));
+  }
+
+  @Test
+  public void testPartitions()
+  {
+    DefaultStatefulStreamCodec<Object> codec = new DefaultStatefulStreamCodec<>();
+    CollectingBatchInputPort even = new CollectingBatchInputPort();
+    CollectingBatchInputPort odd = new CollectingBatchInputPort();
+    MuxStream stream = new MuxStream();
+    stream.setSink("even", new PartitionAwareSink<>(codec, Collections.singleton(0), 1, even));
+    stream.setSink("odd", new PartitionAwareSink<>(codec, Collections.singleton(1), 1, odd));
+    stream.activate(null);
+    DefaultOutputPort<Object> output = new DefaultOutputPort<>();
+    output.setSink(stream);
+
+    output.emitBatch(Arrays.<Object>asList(0, 1, 2, 3));
+    List<Object> evenBatch = Arrays.<Object>asList(4, 6);
+    output.emitBatch(evenBatch);
+
+    Assert.assertEquals("even batches", Arrays.asList(Arrays.asList(0, 2), evenBatch), even.batches);
+    Assert.assertSame("batch passed as is", evenBatch, even.batches.get(1));
+    Assert.assertEquals("odd batches", Collections.singletonList(Arrays.asList(1, 3)), odd.batches);
+    Assert.assertEquals("stream count", 6, stream.getCount(false));
+  }
+
+  /**
+   * Compares the throughput of the tuples emitted one by one and in batches through an inline stream.
+   */
+  @Test
+  @Ignore
+  public void testBenchmark()
+  {
+    final int tupleCount = 10000000;
+    final int batchSize = 1024;
+    List<Object> batch = new ArrayList<>(batchSize);
+    for (int i = 0; i < batchSize; i++) {
+      batch.add(i);
+    }
+
+    for (int run = 0; run < 3; run++) {
+      InlineStream stream = newInlineStream(batchSize);
+      DefaultOutputPort<Object> output = new DefaultOutputPort<>();
+      output.setSink(stream);
+      SweepableReservoir reservoir = stream.getReservoir();
+      reservoir.setSink(new DefaultInputPort<Object>()
+      {
+        @Override
+        public void process(Object tuple)
+        {
+        }
+      });
+      long start = System.nanoTime();
+      for (int i = 0; i < tupleCount; i += batchSize) {
+        for (Object tuple : batch) {
+          output.emit(tuple);
+        }
+        reservoir.sweep();
+      }
+      long single = System.nanoTime() - start;
+
+      reservoir.setSink(new DefaultBatchInputPort<Object>()
+      {
+        @Override
+        public void processBatch(List<Object> tuples)
+        {
+        }
+      });
+      start = System.nanoTime();
+      for (int i = 0; i < tupleCount; i += batchSize) {
+        output.emitBatch(batch);
+        reservoir.sweep();
+      }
+      long batched = System.nanoTime() - start;
+      logger.info("emit {} tuples/s emitBatch {} tuples/s", tupleCount * 1000000000L / single,
+          tupleCount * 1000000000L / batched);
+    }
+  }
+
+  private static class CollectingBatchInputPort extends DefaultBatchInputPort<Object>
+  {
+    final List<List<Object>> batches = new ArrayList<>();
+
+    @Override
+    public void processBatch(List<Object> tuples)
+    {
+      batches.add(tuples);
+    }
+  }
+
+}
@@ -21,6 +21,9 @@ package com.datatorrent.stram.stream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.Assert;
 import org.junit.Test;
@@ -31,6 +34,7 @@ import com.datatorrent.api.Sink;
 import com.datatorrent.api.StreamCodec;
 import com.datatorrent.bufferserver.packet.PayloadTuple;
 import com.datatorrent.netlet.util.Slice;
+import com.datatorrent.stram.engine.StreamContext;
 import com.datatorrent.stram.engine.SweepableReservoir;
 
 /**
@@ -38,36 +42,36 @@ import com.datatorrent.stram.engine.SweepableReservoir;
  */
 public class BufferServerSubscriberTest
 {
-  @Test
-  public void testEmergencySinks() throws InterruptedException
+  private static final StreamCodec<Object> myserde = new StreamCodec<Object>()
   {
-    final List<Object> list = new ArrayList<Object>();
-    final StreamCodec<Object> myserde = new StreamCodec<Object>()
+    @Override
+    public Object fromByteArray(Slice fragment)
     {
-      @Override
-      public Object fromByteArray(Slice fragment)
-      {
-        if (fragment.offset == 0 && fragment.length == fragment.buffer.length) {
-          return fragment.buffer;
-        } else {
-          return Arrays.copyOfRange(fragment.buffer, fragment.offset, fragment.offset + fragment.length);
-        }
+      if (fragment.offset == 0 && fragment.length == fragment.buffer.length) {
+        return fragment.buffer;
+      } else {
+        return Arrays.copyOfRange(fragment.buffer, fragment.offset, fragment.offset + fragment.length);
       }
+    }
 
-      @Override
-      public Slice toByteArray(Object o)
-      {
-        return new Slice((byte[])o, 0, ((byte[])o).length);
-      }
+    @Override
+    public Slice toByteArray(Object o)
+    {
+      return new Slice((byte[])o, 0, ((byte[])o).length);
+    }
 
-      @Override
-      public int getPartition(Object o)
-      {
-        return 0;
-      }
+    @Override
+    public int getPartition(Object o)
+    {
+      return 0;
+    }
 
-    };
+  };
 
+  @Test
+  public void testEmergencySinks() throws InterruptedException
+  {
+    final List<Object> list = new ArrayList<Object>();
     Sink<Object> unbufferedSink = new Sink<Object>()
     {
       @Override
@@ -122,5 +126,148 @@ public class BufferServerSubscriberTest
     Assert.assertEquals("10  received", 10, list.size());
   }
 
+  @Test
+  @SuppressWarnings("SleepWhileInLoop")
+  public void testDecodeAhead() throws InterruptedException
+  {
+    final List<Object> list = new ArrayList<Object>();
+    Sink<Object> sink = new Sink<Object>()
+    {
+      @Override
+      public void put(Object tuple)
+      {
+        list.add(tuple);
+      }
+
+      @Override
+      public int getCount(boolean reset)
+      {
+        return 0;
+      }
+
+    };
+
+    BufferServerSubscriber bss = new BufferServerSubscriber("subscriber", 4)
+    {
+      @Override
+      public void suspendRead()
+      {
+        logger.debug("read suspended");
+      }
+
+      @Override
+      public void resumeRead()
+      {
+        logger.debug("read resumed");
+      }
+
+    };
+
+    ThreadPoolExecutor decoder = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+        new LinkedBlockingQueue<Runnable>());
+    try {
+      StreamContext context = new StreamContext("stream");
+      context.put(StreamContext.CODEC, myserde);
+      context.put(StreamContext.DECODER, decoder);
+      context.setFinishedWindowId(-1);
+      bss.setup(context);
+      Assert.assertTrue("decode ahead", bss.isDecodeAhead());
+
+      SweepableReservoir reservoir = bss.acquireReservoir("sink", 3);
+      reservoir.setSink(sink);
+
+      for (int i = 0; i < 20; i++) {
+        Slice fragment = myserde.toByteArray(new byte[]{(byte)i});
+        byte[] buffer = PayloadTuple.getSerializedTuple(myserde.getPartition(i), fragment);
+        bss.onMessage(buffer, 0, buffer.length);
+      }
+
+      for (int i = 0; i < 200 && list.size() < 20; i++) {
+        if (reservoir.sweep() == null) {
+          Thread.sleep(5);
+        }
+      }
+
+      Assert.assertEquals("received", 20, list.size());
+      for (int i = 0; i < 20; i++) {
+        Assert.assertArrayEquals("tuple " + i, new byte[]{(byte)i}, (byte[])list.get(i));
+      }
+      Assert.assertTrue("decode time", bss.getDecodeNanos(true) > 0);
+
+      // sweeping the drained stream does not schedule the decoder
+      long tasks = decoder.getTaskCount();
+      for (int i = 0; i < 10; i++) {
+        Assert.assertNull("no tuple", reservoir.sweep());
+      }
+      Assert.assertEquals("decode tasks", tasks, decoder.getTaskCount());
+    } finally {
+      decoder.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testNullPayload()
+  {
+    final List<Object> list = new ArrayList<Object>();
+    Sink<Object> sink = new Sink<Object>()
+    {
+      @Override
+      public void put(Object tuple)
+      {
+        list.add(tuple);
+      }
+
+      @Override
+      public int getCount(boolean reset)
+      {
+        return 0;
+      }
+
+    };
+
+    BufferServerSubscriber bss = new BufferServerSubscriber("subscriber", 4)
+    {
+      {
+        serde = new StreamCodec<Object>()
+        {
+          @Override
+          public Object fromByteArray(Slice fragment)
+          {
+            return fragment.length == 0 ? null : myserde.fromByteArray(fragment);
+          }
+
+          @Override
+          public Slice toByteArray(Object o)
+          {
+            return myserde.toByteArray(o);
+          }
+
+          @Override
+          public int getPartition(Object o)
+          {
+            return 0;
+          }
+
+        };
+      }
+
+    };
+
+    SweepableReservoir reservoir = bss.acquireReservoir("sink", 4);
+    reservoir.setSink(sink);
+
+    for (byte[] tuple : new byte[][] {{1}, {}, {3}}) {
+      byte[] buffer = PayloadTuple.getSerializedTuple(0, myserde.toByteArray(tuple));
+      bss.onMessage(buffer, 0, buffer.length);
+    }
+
+    reservoir.sweep();
+    reservoir.sweep();
+    Assert.assertEquals("received", 3, list.size());
+    Assert.assertArrayEquals("first", new byte[]{1}, (byte[])list.get(0));
+    Assert.assertNull("null payload", list.get(1));
+    Assert.assertArrayEquals("third", new byte[]{3}, (byte[])list.get(2));
+  }
+
   private static final Logger logger = LoggerFactory.getLogger(BufferServerSubscriberTest.class);
 }
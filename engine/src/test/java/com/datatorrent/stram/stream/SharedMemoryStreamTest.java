@@ -0,0 +1,401 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.stream;
+
+import java.io.File;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Ignore;
+import org.junit.Rule;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.datatorrent.api.Sink;
+import com.datatorrent.bufferserver.packet.MessageType;
+import com.datatorrent.bufferserver.server.Server;
+import com.datatorrent.netlet.DefaultEventLoop;
+import com.datatorrent.stram.codec.DefaultStatefulStreamCodec;
+import com.datatorrent.stram.engine.StreamContext;
+import com.datatorrent.stram.engine.SweepableReservoir;
+import com.datatorrent.stram.support.StramTestSupport;
+import com.datatorrent.stram.support.StramTestSupport.TestMeta;
+import com.datatorrent.stram.tuple.EndWindowTuple;
+import com.datatorrent.stram.tuple.ResetWindowTuple;
+import com.datatorrent.stram.tuple.Tuple;
+import com.datatorrent.stram.util.LatencyHistogram;
+
+/**
+ * Tests the shared memory publisher and subscriber, and compares them with the buffer server ones.
+ */
+public class SharedMemoryStreamTest
+{
+  private static final Logger logger = LoggerFactory.getLogger(SharedMemoryStreamTest.class);
+  private static final long BASE_SECONDS = 0x57f0000000000000L;
+
+  @Rule
+  public TestMeta testMeta = new TestMeta();
+
+  private String getFile()
+  {
+    return new File(testMeta.getPath(), "1.out.1").getPath();
+  }
+
+  private static StreamContext newContext(String file, long finishedWindowId)
+  {
+    StreamContext context = new StreamContext("stream");
+    context.setSourceId("1.out.1");
+    context.setSinkId("2.in");
+    context.setFinishedWindowId(finishedWindowId);
+    context.put(StreamContext.CODEC, new DefaultStatefulStreamCodec<>());
+    context.put(StreamContext.SHARED_MEMORY_FILE, file);
+    return context;
+  }
+
+  private static SharedMemoryPublisher newPublisher(StreamContext context)
+  {
+    SharedMemoryPublisher publisher = new SharedMemoryPublisher(context.getSourceId());
+    publisher.setup(context);
+    publisher.activate(context);
+    return publisher;
+  }
+
+  private static void publish(BufferServerPublisher publisher, int fromWindowId, int toWindowId)
+  {
+    publisher.put(new ResetWindowTuple(BASE_SECONDS | 500));
+    for (int windowId = fromWindowId; windowId <= toWindowId; windowId++) {
+      publisher.put(StramTestSupport.generateBeginWindowTuple("1", windowId));
+      for (int i = 0; i < 10; i++) {
+        publisher.put(windowId * 100 + i);
+      }
+      publisher.put(StramTestSupport.generateEndWindowTuple("1", windowId));
+    }
+  }
+
+  /**
+   * Subscribe and collect the tuples of the windows.
+   *
+   * @return the control tuples
+   */
+  @SuppressWarnings("SleepWhileInLoop")
+  private static List<Tuple> subscribe(StreamContext context, List<Object> payloads, int windows) throws Exception
+  {
+    SharedMemorySubscriber subscriber = new SharedMemorySubscriber(context.getSinkId(), 1024);
+    subscriber.setup(context);
+    SweepableReservoir reservoir = subscriber.acquireReservoir("2.in", 1024);
+    reservoir.setSink(new CollectingSink(payloads));
+    subscriber.activate(context);
+
+    List<Tuple> controlTuples = new ArrayList<>();
+    try {
+      long end = System.currentTimeMillis() + 10000;
+      while (windows > 0 && System.currentTimeMillis() < end) {
+        Tuple tuple = reservoir.sweep();
+        if (tuple == null) {
+          Thread.sleep(1);
+          continue;
+        }
+        reservoir.remove();
+        controlTuples.add(tuple);
+        if (tuple instanceof EndWindowTuple) {
+          windows--;
+        }
+      }
+    } finally {
+      subscriber.deactivate();
+    }
+    return controlTuples;
+  }
+
+  private static List<Long> getBeginWindowIds(List<Tuple> controlTuples)
+  {
+    List<Long> windowIds = new ArrayList<>();
+    for (Tuple tuple : controlTuples) {
+      if (tuple.getType() == MessageType.BEGIN_WINDOW) {
+        windowIds.add(tuple.getWindowId() & 0xffffffffL);
+      }
+    }
+    return windowIds;
+  }
+
+  @Test
+  public void testPublishSubscribe() throws Exception
+  {
+    SharedMemoryPublisher publisher = newPublisher(newContext(getFile(), -1));
+    publish(publisher, 1, 3);
+
+    List<Object> payloads = new ArrayList<>();
+    List<Tuple> controlTuples = subscribe(newContext(getFile(), BASE_SECONDS | 1), payloads, 2);
+    Assert.assertEquals("first tuple", MessageType.RESET_WINDOW, controlTuples.get(0).getType());
+    Assert.assertEquals("windows", Arrays.asList(2L, 3L), getBeginWindowIds(controlTuples));
+    Assert.assertEquals("payloads", 20, payloads.size());
+    Assert.assertEquals("first payload", 200, payloads.get(0));
+
+    payloads.clear();
+    controlTuples = subscribe(newContext(getFile(), -1), payloads, 3);
+    Assert.assertEquals("windows", Arrays.asList(1L, 2L, 3L), getBeginWindowIds(controlTuples));
+    Assert.assertEquals("payloads", 30, payloads.size());
+
+    publisher.deactivate();
+    publisher.teardown();
+    Assert.assertFalse("file deleted", new File(getFile()).exists());
+  }
+
+  @Test
+  public void testPurgeAndRewind() throws Exception
+  {
+    SharedMemoryPublisher publisher = newPublisher(newContext(getFile(), -1));
+    publish(publisher, 1, 5);
+    publisher.purge(BASE_SECONDS | 3);
+
+    List<Object> payloads = new ArrayList<>();
+    List<Tuple> controlTuples = subscribe(newContext(getFile(), -1), payloads, 2);
+    Assert.assertEquals("first tuple", MessageType.RESET_WINDOW, controlTuples.get(0).getType());
+    Assert.assertEquals("base seconds", BASE_SECONDS, controlTuples.get(0).getWindowId());
+    Assert.assertEquals("windows after purge", Arrays.asList(4L, 5L), getBeginWindowIds(controlTuples));
+    Assert.assertEquals("payloads", 20, payloads.size());
+    publisher.deactivate();
+
+    publisher = newPublisher(newContext(getFile(), BASE_SECONDS | 4));
+    publish(publisher, 5, 6);
+    payloads.clear();
+    controlTuples = subscribe(newContext(getFile(), -1), payloads, 3);
+    Assert.assertEquals("windows after rewind", Arrays.asList(4L, 5L, 6L), getBeginWindowIds(controlTuples));
+    Assert.assertEquals("payloads", 30, payloads.size());
+    Assert.assertEquals("republished payload", 500, payloads.get(10));
+    publisher.deactivate();
+    publisher.teardown();
+  }
+
+  private int getSpilledSegments()
+  {
+    int segments = 0;
+    for (String name : new File(testMeta.getPath()).list()) {
+      if (name.contains(".spill.")) {
+        segments++;
+      }
+    }
+    return segments;
+  }
+
+  @Test(timeout = 60000)
+  public void testSpill() throws Exception
+  {
+    StreamContext context = newContext(getFile(), -1);
+    context.put(StreamContext.SHARED_MEMORY_CAPACITY, 4096);
+    SharedMemoryPublisher publisher = newPublisher(context);
+    publish(publisher, 1, 100);
+    Assert.assertTrue("more than the ring written", publisher.getByteCount(false) > 2 * 4096);
+    Assert.assertTrue("spilled", getSpilledSegments() > 1);
+
+    List<Object> payloads = new ArrayList<>();
+    List<Tuple> controlTuples = subscribe(newContext(getFile(), -1), payloads, 100);
+    Assert.assertEquals("first tuple", MessageType.RESET_WINDOW, controlTuples.get(0).getType());
+    Assert.assertEquals("windows", 100, getBeginWindowIds(controlTuples).size());
+    Assert.assertEquals("last window", 100L, (long)getBeginWindowIds(controlTuples).get(99));
+    Assert.assertEquals("payloads", 1000, payloads.size());
+    Assert.assertEquals("last payload", 10009, payloads.get(999));
+
+    payloads.clear();
+    controlTuples = subscribe(newContext(getFile(), BASE_SECONDS | 50), payloads, 50);
+    Assert.assertEquals("first window", 51L, (long)getBeginWindowIds(controlTuples).get(0));
+    Assert.assertEquals("payloads", 500, payloads.size());
+    publisher.deactivate();
+
+    context = newContext(getFile(), BASE_SECONDS | 20);
+    context.put(StreamContext.SHARED_MEMORY_CAPACITY, 4096);
+    publisher = newPublisher(context);
+    publish(publisher, 21, 22);
+    payloads.clear();
+    controlTuples = subscribe(newContext(getFile(), -1), payloads, 22);
+    Assert.assertEquals("windows after rewind in the spill", 22, getBeginWindowIds(controlTuples).size());
+    Assert.assertEquals("republished window", 21L, (long)getBeginWindowIds(controlTuples).get(20));
+    Assert.assertEquals("republished payload", 2100, payloads.get(200));
+
+    publisher.purge(BASE_SECONDS | 21);
+    Assert.assertEquals("committed segments deleted", 0, getSpilledSegments());
+    payloads.clear();
+    controlTuples = subscribe(newContext(getFile(), -1), payloads, 1);
+    Assert.assertEquals("windows after purge", Arrays.asList(22L), getBeginWindowIds(controlTuples));
+
+    publisher.deactivate();
+    publisher.teardown();
+  }
+
+  @Test
+  public void testWrap() throws Exception
+  {
+    File file = new File(getFile());
+    SharedMemoryRing writer = SharedMemoryRing.create(file, 1000);
+    SharedMemoryRing reader = SharedMemoryRing.open(file);
+    Assert.assertNotNull("ring", reader);
+
+    byte[] record = new byte[97];
+    byte[] copy = new byte[record.length];
+    long position = 0;
+    int written = 0;
+    int read = 0;
+    while (read < 100) {
+      record[0] = (byte)written;
+      if (written < 100 && writer.append(record, 0, record.length) != -1) {
+        written++;
+        continue;
+      }
+
+      Assert.assertTrue("data to read", position < reader.getTail());
+      position = reader.skipPadding(position);
+      Assert.assertEquals("length", record.length, reader.getLength(position));
+      reader.get(position, copy, 0, copy.length);
+      Assert.assertEquals("record", (byte)read++, copy[0]);
+      position += 4 + copy.length;
+      writer.purge(position, 0, 0, false);
+    }
+    Assert.assertEquals("all read", reader.getTail(), position);
+    Assert.assertTrue("wrapped", position > 5 * reader.getCapacity());
+
+    reader.close();
+    writer.close();
+  }
+
+  /**
+   * Compares the throughput and the latency of the shared memory ring with the buffer server over the loopback
+   * interface, with the publisher and the subscriber in the same process.
+   */
+  @Test
+  @Ignore
+  public void testBenchmark() throws Exception
+  {
+    DefaultEventLoop eventloop = DefaultEventLoop.createEventLoop("benchmark");
+    eventloop.start();
+    Server server = new Server(0);
+    InetSocketAddress address = server.run(eventloop);
+    try {
+      for (int i = 0; i < 3; i++) {
+        StreamContext context = newContext(getFile(), -1);
+        context.put(StreamContext.EVENT_LOOP, eventloop);
+        context.setBufferServerAddress(address);
+        context.setSourceId("1.out.1." + i);
+        benchmark("buffer server", new BufferServerPublisher(context.getSourceId(), 1024),
+            new BufferServerSubscriber(context.getSinkId(), 1024), context);
+
+        context.put(StreamContext.SHARED_MEMORY_FILE, getFile() + i);
+        benchmark("shared memory", new SharedMemoryPublisher(context.getSourceId()),
+            new SharedMemorySubscriber(context.getSinkId(), 1024), context);
+      }
+    } finally {
+      eventloop.stop(server);
+      eventloop.stop();
+    }
+  }
+
+  @SuppressWarnings("SleepWhileInLoop")
+  private static void benchmark(String name, final BufferServerPublisher publisher, BufferServerSubscriber subscriber,
+      StreamContext context) throws Exception
+  {
+    final int windows = 1000;
+    final int tuplesPerWindow = 1000;
+    final LatencyHistogram histogram = new LatencyHistogram();
+    Sink<Object> sink = new Sink<Object>()
+    {
+      @Override
+      public void put(Object tuple)
+      {
+        histogram.record((System.nanoTime() - (Long)tuple) / 1000);
+      }
+
+      @Override
+      public int getCount(boolean reset)
+      {
+        return 0;
+      }
+    };
+
+    subscriber.setup(context);
+    SweepableReservoir reservoir = subscriber.acquireReservoir("2.in", 1024);
+    reservoir.setSink(sink);
+    subscriber.activate(context);
+    publisher.setup(context);
+    publisher.activate(context);
+
+    Thread thread = new Thread(name)
+    {
+      @Override
+      public void run()
+      {
+        publisher.put(new ResetWindowTuple(BASE_SECONDS | 500));
+        for (int windowId = 0; windowId < windows; windowId++) {
+          publisher.put(StramTestSupport.generateBeginWindowTuple("1", windowId));
+          for (int i = 0; i < tuplesPerWindow; i++) {
+            publisher.put(System.nanoTime());
+          }
+          publisher.put(StramTestSupport.generateEndWindowTuple("1", windowId));
+        }
+      }
+    };
+
+    long start = System.nanoTime();
+    thread.start();
+    int endWindows = 0;
+    while (endWindows < windows) {
+      Tuple tuple = reservoir.sweep();
+      if (tuple == null) {
+        Thread.yield();
+        continue;
+      }
+      reservoir.remove();
+      if (tuple.getType() == MessageType.END_WINDOW) {
+        endWindows++;
+      }
+    }
+    long elapsed = System.nanoTime() - start;
+    thread.join();
+
+    subscriber.deactivate();
+    publisher.deactivate();
+    publisher.teardown();
+    logger.info("{}: {} tuples/s latency {}", name, (long)windows * tuplesPerWindow * 1000000000L / elapsed,
+        histogram);
+  }
+
+  private static class CollectingSink implements Sink<Object>
+  {
+    private final List<Object> payloads;
+
+    CollectingSink(List<Object> payloads)
+    {
+      this.payloads = payloads;
+    }
+
+    @Override
+    public void put(Object tuple)
+    {
+      payloads.add(tuple);
+    }
+
+    @Override
+    public int getCount(boolean reset)
+    {
+      return payloads.size();
+    }
+  }
+}
@@ -0,0 +1,67 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LatencyHistogramTest
+{
+  @Test
+  public void testBuckets()
+  {
+    long lowerBound = 0;
+    for (int i = 0; i < 40 * LatencyHistogram.SUB_BUCKETS; i++) {
+      long upperBound = LatencyHistogram.getUpperBound(i);
+      Assert.assertEquals("lower bound of " + i, i, LatencyHistogram.getIndex(lowerBound));
+      Assert.assertEquals("upper bound of " + i, i, LatencyHistogram.getIndex(upperBound));
+      Assert.assertTrue("relative error of " + i, upperBound - lowerBound <= Math.max(1, upperBound / LatencyHistogram.SUB_BUCKETS));
+      lowerBound = upperBound + 1;
+    }
+  }
+
+  @Test
+  public void testPercentiles()
+  {
+    LatencyHistogram h1 = new LatencyHistogram();
+    Assert.assertEquals("empty", 0, h1.getPercentile(50));
+    for (int i = 1; i <= 990; i++) {
+      h1.record(i);
+    }
+    LatencyHistogram h2 = new LatencyHistogram();
+    for (int i = 0; i < 10; i++) {
+      h2.record(1000000);
+    }
+    h2.record(-5);
+    h1.merge(h2);
+
+    Assert.assertEquals("count", 1001, h1.getCount());
+    Assert.assertEquals("max", 1000000, h1.getMax());
+    assertWithin(500, h1.getPercentile(50));
+    assertWithin(990, h1.getPercentile(99));
+    assertWithin(1000000, h1.getPercentile(99.9));
+    Assert.assertEquals("p100", 1000000, h1.getPercentile(100));
+  }
+
+  private static void assertWithin(long expected, long actual)
+  {
+    Assert.assertTrue("expected " + expected + " actual " + actual,
+        actual >= expected && actual <= expected + expected / LatencyHistogram.SUB_BUCKETS);
+  }
+}
@@ -0,0 +1,75 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.util;
+
+import java.util.Arrays;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.datatorrent.stram.util.PubSubOutboundQueue.OverflowPolicy;
+
+public class PubSubOutboundQueueTest
+{
+  @Test
+  public void testOverflowPolicies() throws Exception
+  {
+    PubSubOutboundQueue queue = fill(OverflowPolicy.DROP_NEWEST);
+    Assert.assertTrue(queue.offer("b", "b2"));
+    Assert.assertEquals("dropped", 1, queue.getDroppedCount());
+    Assert.assertEquals(Arrays.asList("a1", "b1", "a2"), queue.take());
+
+    queue = fill(OverflowPolicy.DROP_OLDEST);
+    Assert.assertTrue(queue.offer("b", "b2"));
+    Assert.assertEquals("dropped", 1, queue.getDroppedCount());
+    Assert.assertEquals(Arrays.asList("b1", "a2", "b2"), queue.take());
+
+    queue = fill(OverflowPolicy.CONFLATE);
+    Assert.assertTrue(queue.offer("b", "b2"));
+    Assert.assertTrue(queue.offer("a", "a3"));
+    Assert.assertEquals("conflated", 2, queue.getConflatedCount());
+    Assert.assertTrue(queue.offer("c", "c1"));
+    Assert.assertEquals("dropped", 1, queue.getDroppedCount());
+    Assert.assertEquals(Arrays.asList("b2", "a3", "c1"), queue.take());
+    Assert.assertEquals("depth", 0, queue.getDepth());
+    Assert.assertEquals("max depth", 3, queue.getMaxDepth());
+
+    // messages without topic are not conflated
+    queue = new PubSubOutboundQueue(2, OverflowPolicy.CONFLATE);
+    Assert.assertTrue(queue.offer(null, "x1"));
+    Assert.assertTrue(queue.offer(null, "x2"));
+    Assert.assertTrue(queue.offer(null, "x3"));
+    Assert.assertEquals("conflated", 0, queue.getConflatedCount());
+    Assert.assertEquals("dropped", 1, queue.getDroppedCount());
+    Assert.assertEquals(Arrays.asList("x2", "x3"), queue.take());
+
+    queue = fill(OverflowPolicy.DISCONNECT);
+    Assert.assertFalse(queue.offer("b", "b2"));
+    Assert.assertEquals("depth", 3, queue.getDepth());
+  }
+
+  private static PubSubOutboundQueue fill(OverflowPolicy policy)
+  {
+    PubSubOutboundQueue queue = new PubSubOutboundQueue(3, policy);
+    Assert.assertTrue(queue.offer("a", "a1"));
+    Assert.assertTrue(queue.offer("b", "b1"));
+    Assert.assertTrue(queue.offer("a", "a2"));
+    return queue;
+  }
+}
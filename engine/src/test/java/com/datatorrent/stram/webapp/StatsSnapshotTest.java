@@ -0,0 +1,186 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.webapp;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.codehaus.jackson.map.ObjectMapper;
+import org.codehaus.jettison.json.JSONArray;
+import org.codehaus.jettison.json.JSONObject;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+
+import com.google.common.base.Predicate;
+
+import com.datatorrent.api.Context.OperatorContext;
+import com.datatorrent.stram.StreamingContainerManager;
+import com.datatorrent.stram.engine.GenericTestOperator;
+import com.datatorrent.stram.engine.TestGeneratorInputOperator;
+import com.datatorrent.stram.plan.logical.LogicalPlan;
+import com.datatorrent.stram.plan.physical.PTOperator;
+import com.datatorrent.stram.support.StramTestSupport;
+import com.datatorrent.stram.support.StramTestSupport.MemoryStorageAgent;
+import com.datatorrent.stram.support.StramTestSupport.TestMeta;
+import com.datatorrent.stram.util.JSONSerializationProvider;
+
+public class StatsSnapshotTest
+{
+  @Rule
+  public TestMeta testMeta = new TestMeta();
+
+  private final ObjectMapper mapper = new JSONSerializationProvider().getContext(null);
+
+  @Test
+  public void testSnapshotRevisions() throws Exception
+  {
+    LogicalPlan dag = StramTestSupport.createDAG(testMeta);
+    TestGeneratorInputOperator o1 = dag.addOperator("o1", TestGeneratorInputOperator.class);
+    GenericTestOperator o2 = dag.addOperator("o2", GenericTestOperator.class);
+    dag.addStream("o1.outport", o1.outport, o2.inport1);
+    dag.setAttribute(OperatorContext.STORAGE_AGENT, new MemoryStorageAgent());
+    StreamingContainerManager scm = new StreamingContainerManager(dag);
+
+    StatsSnapshot s1 = StatsSnapshot.create(scm, mapper, null);
+    Assert.assertEquals("operators", 2, s1.getOperators().getItems().size());
+    Assert.assertEquals("logical operators", 2, s1.getLogicalOperators().getItems().size());
+    JSONObject full = write(s1.getOperators(), null, null, s1.getRevision());
+    Assert.assertEquals("operators " + full, 2, full.getJSONArray("operators").length());
+    Assert.assertFalse("no revision " + full, full.has("revision"));
+
+    StatsSnapshot s2 = StatsSnapshot.create(scm, mapper, s1);
+    Assert.assertEquals("revision", s1.getRevision() + 1, s2.getRevision());
+    Assert.assertEquals("unchanged", s1.getOperators().getRevision(), s2.getOperators().getRevision());
+    Assert.assertEquals("same tag", s1.getEntityTag(s1.getOperators().getRevision()),
+        s2.getEntityTag(s2.getOperators().getRevision()));
+    JSONObject delta = write(s2.getOperators(), null, s1.getRevision(), s2.getRevision());
+    Assert.assertEquals("revision", s2.getRevision(), delta.getLong("revision"));
+    Assert.assertFalse("full", delta.getBoolean("full"));
+    Assert.assertEquals("no changes " + delta, 0, delta.getJSONArray("operators").length());
+
+    PTOperator o2p = scm.getPhysicalPlan().getOperators(dag.getMeta(o2)).get(0);
+    o2p.setState(PTOperator.State.ACTIVE);
+    StatsSnapshot s3 = StatsSnapshot.create(scm, mapper, s2);
+    Assert.assertEquals("changed", s3.getRevision(), s3.getOperators().getRevision());
+    delta = write(s3.getOperators(), null, s2.getRevision(), s3.getRevision());
+    JSONArray changed = delta.getJSONArray("operators");
+    Assert.assertEquals("changes " + delta, 1, changed.length());
+    Assert.assertEquals("changed operator", Integer.toString(o2p.getId()), changed.getJSONObject(0).getString("id"));
+    Assert.assertEquals("status", PTOperator.State.ACTIVE.name(), changed.getJSONObject(0).getString("status"));
+
+    // revision from another application master instance
+    delta = write(s3.getOperators(), null, s3.getRevision() + 1, s3.getRevision());
+    Assert.assertTrue("full", delta.getBoolean("full"));
+    Assert.assertEquals("operators " + delta, 2, delta.getJSONArray("operators").length());
+  }
+
+  @Test
+  public void testRemovedItems() throws Exception
+  {
+    Map<String, String> values = new LinkedHashMap<>();
+    values.put("a", "1");
+    values.put("b", "2");
+    values.put("c", "3");
+    StatsSnapshot.Table<String> t1 = StatsSnapshot.Table.create("items", sources(values), 1, null, mapper);
+    values.remove("b");
+    values.put("c", "4");
+    StatsSnapshot.Table<String> t2 = StatsSnapshot.Table.create("items", sources(values), 2, t1, mapper);
+    Assert.assertEquals("revision", 2, t2.getRevision());
+    Assert.assertEquals("unchanged item", 1, t2.getItem("a").getRevision());
+
+    JSONObject delta = write(t2, null, 1L, 2);
+    Assert.assertEquals("changed " + delta, "[\"4\"]", delta.getJSONArray("items").toString());
+    Assert.assertEquals("removed " + delta, "[\"b\"]", delta.getJSONArray("removed").toString());
+
+    Predicate<String> filter = new Predicate<String>()
+    {
+      @Override
+      public boolean apply(String input)
+      {
+        return !"4".equals(input);
+      }
+    };
+    delta = write(t2, filter, 1L, 2);
+    Assert.assertEquals("filtered " + delta, 0, delta.getJSONArray("items").length());
+    Assert.assertEquals("filtered as removed " + delta, 2, delta.getJSONArray("removed").length());
+    JSONObject full = write(t2, filter, null, 2);
+    Assert.assertEquals("filtered " + full, "[\"1\"]", full.getJSONArray("items").toString());
+
+    // removals are forgotten after the retained number of revisions
+    long revision = 2 + StatsSnapshot.MAX_REMOVED_REVISIONS;
+    StatsSnapshot.Table<String> t3 = StatsSnapshot.Table.create("items", sources(values), revision, t2, mapper);
+    Assert.assertEquals("revision", 2, t3.getRevision());
+    delta = write(t3, null, 1L, revision);
+    Assert.assertTrue("full " + delta, delta.getBoolean("full"));
+    Assert.assertEquals("items " + delta, 2, delta.getJSONArray("items").length());
+    delta = write(t3, null, 2L, revision);
+    Assert.assertFalse("full " + delta, delta.getBoolean("full"));
+    Assert.assertEquals("items " + delta, 0, delta.getJSONArray("items").length());
+  }
+
+  @Test
+  public void testVersionedSources() throws Exception
+  {
+    final AtomicInteger builds = new AtomicInteger();
+    List<StatsSnapshot.Source<String>> sources = new ArrayList<>();
+    for (final String key : new String[]{"a", "b"}) {
+      sources.add(new StatsSnapshot.Source<String>(key, key.equals("a") ? 1L : null)
+      {
+        @Override
+        String getValue()
+        {
+          builds.incrementAndGet();
+          return key;
+        }
+      });
+    }
+    StatsSnapshot.Table<String> t1 = StatsSnapshot.Table.create("items", sources, 1, null, mapper);
+    Assert.assertEquals("built", 2, builds.get());
+    StatsSnapshot.Table<String> t2 = StatsSnapshot.Table.create("items", sources, 2, t1, mapper);
+    Assert.assertEquals("built without version", 3, builds.get());
+    Assert.assertEquals("unchanged", 1, t2.getRevision());
+
+    // a new version with the same content is built but does not change the item
+    sources.set(0, StatsSnapshot.Source.of("a", "a"));
+    StatsSnapshot.Table<String> t3 = StatsSnapshot.Table.create("items", sources, 3, t2, mapper);
+    Assert.assertEquals("unchanged", 1, t3.getItem("a").getRevision());
+  }
+
+  private static List<StatsSnapshot.Source<String>> sources(Map<String, String> values)
+  {
+    List<StatsSnapshot.Source<String>> sources = new ArrayList<>();
+    for (Map.Entry<String, String> e : values.entrySet()) {
+      sources.add(StatsSnapshot.Source.of(e.getKey(), e.getValue()));
+    }
+    return sources;
+  }
+
+  private <T> JSONObject write(StatsSnapshot.Table<T> table, Predicate<? super T> filter, Long sinceRevision,
+      long revision) throws Exception
+  {
+    ByteArrayOutputStream bos = new ByteArrayOutputStream();
+    table.write(bos, filter, sinceRevision, revision, mapper);
+    return new JSONObject(bos.toString("UTF-8"));
+  }
+}
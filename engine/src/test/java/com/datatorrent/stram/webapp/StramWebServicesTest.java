@@ -348,6 +348,28 @@ public class StramWebServicesTest extends JerseyTest
         attrs.getString(Context.DAGContext.METRICS_TRANSPORT.getSimpleName()));
   }
 
+  @Test
+  public void testConditionalGet() throws Exception
+  {
+    WebResource r = resource().path(StramWebServices.PATH).path(StramWebServices.PATH_PHYSICAL_PLAN_CONTAINERS);
+    ClientResponse response = r.accept(MediaType.APPLICATION_JSON).get(ClientResponse.class);
+    assertEquals(Status.OK, response.getClientResponseStatus());
+    assertEquals(MediaType.APPLICATION_JSON_TYPE, response.getType());
+    String etag = response.getHeaders().getFirst("ETag");
+    Assert.assertNotNull("etag", etag);
+    JSONObject json = response.getEntity(JSONObject.class);
+    assertEquals("app master container " + json, 1, json.getJSONArray("containers").length());
+
+    response = r.accept(MediaType.APPLICATION_JSON).header("If-None-Match", etag).get(ClientResponse.class);
+    assertEquals(Status.NOT_MODIFIED, response.getClientResponseStatus());
+
+    response = r.queryParam("sinceRevision", "0").accept(MediaType.APPLICATION_JSON).get(ClientResponse.class);
+    json = response.getEntity(JSONObject.class);
+    Assert.assertTrue("revision " + json, json.getLong("revision") > 0);
+    assertEquals("removed " + json, 0, json.getJSONArray("removed").length());
+    assertEquals("containers " + json, 1, json.getJSONArray("containers").length());
+  }
+
   @Test
   public void testSubmitLogicalPlanChange() throws JSONException, Exception
   {
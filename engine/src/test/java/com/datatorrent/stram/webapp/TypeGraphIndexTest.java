@@ -0,0 +1,174 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package com.datatorrent.stram.webapp;
+
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.StringUtils;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.google.common.collect.Lists;
+
+import com.datatorrent.stram.support.StramTestSupport.TestMeta;
+
+public class TypeGraphIndexTest
+{
+  private static final Logger LOG = LoggerFactory.getLogger(TypeGraphIndexTest.class);
+
+  @Rule
+  public TestMeta testMeta = new TestMeta();
+
+  private static String getJar(Class<?> clazz)
+  {
+    return clazz.getProtectionDomain().getCodeSource().getLocation().getPath();
+  }
+
+  @Test
+  public void testIndex() throws Exception
+  {
+    File indexDir = new File(testMeta.getPath(), "index");
+    List<String> jars = Lists.newArrayList(getJar(Kryo.class), getJar(StringUtils.class), getJar(FileUtils.class));
+
+    TypeGraph expected = new TypeGraph();
+    for (String path : jars) {
+      try (JarFile jar = new JarFile(path)) {
+        for (JarEntry entry : Collections.list(jar.entries())) {
+          if (!entry.isDirectory() && entry.getName().endsWith(".class")) {
+            expected.addNode(entry, jar);
+          }
+        }
+      }
+    }
+
+    long start = System.currentTimeMillis();
+    TypeGraphIndex index = new TypeGraphIndex(indexDir);
+    Map<String, TypeGraph> graphs = index.getJarGraphs(jars, false);
+    long cold = System.currentTimeMillis() - start;
+    Assert.assertEquals("scanned", 3, index.getMisses());
+    Assert.assertEquals("indexed", 0, index.getHits());
+
+    start = System.currentTimeMillis();
+    index = new TypeGraphIndex(indexDir);
+    Map<String, TypeGraph> cachedGraphs = index.getJarGraphs(jars, false);
+    long warm = System.currentTimeMillis() - start;
+    Assert.assertEquals("scanned", 0, index.getMisses());
+    Assert.assertEquals("indexed", 3, index.getHits());
+    LOG.info("Type graph index cold {} ms warm {} ms", cold, warm);
+
+    for (Map<String, TypeGraph> m : Lists.newArrayList(graphs, cachedGraphs)) {
+      TypeGraph tg = new TypeGraph();
+      for (TypeGraph jarGraph : m.values()) {
+        tg.merge(jarGraph);
+      }
+      Assert.assertEquals("size", expected.size(), tg.size());
+      Assert.assertEquals("descendants", expected.getDescendants(Serializer.class.getName()),
+          tg.getDescendants(Serializer.class.getName()));
+      Assert.assertEquals("instantiable descendants", expected.getInstantiableDescendants(Serializer.class.getName()),
+          tg.getInstantiableDescendants(Serializer.class.getName()));
+      Assert.assertEquals("jar", getJar(Kryo.class), tg.getNode(Kryo.class.getName()).getJarName());
+    }
+  }
+
+  @Test
+  public void testChangedJar() throws Exception
+  {
+    File indexDir = new File(testMeta.getPath(), "index");
+    File jar = new File(testMeta.getPath(), "test.jar");
+    FileUtils.copyFile(new File(getJar(StringUtils.class)), jar);
+    List<String> jars = Lists.newArrayList(jar.getPath());
+
+    TypeGraphIndex index = new TypeGraphIndex(indexDir);
+    Assert.assertNotNull(index.getJarGraphs(jars, false).get(jar.getPath()).getNode(StringUtils.class.getName()));
+
+    FileUtils.copyFile(new File(getJar(FileUtils.class)), jar);
+    index = new TypeGraphIndex(indexDir);
+    TypeGraph tg = index.getJarGraphs(jars, false).get(jar.getPath());
+    Assert.assertEquals("rescanned", 1, index.getMisses());
+    Assert.assertNull(tg.getNode(StringUtils.class.getName()));
+    Assert.assertNotNull(tg.getNode(FileUtils.class.getName()));
+  }
+
+  @Test
+  public void testCopiedJar() throws Exception
+  {
+    File indexDir = new File(testMeta.getPath(), "index");
+    File jar = new File(testMeta.getPath(), "test.jar");
+    File copy = new File(testMeta.getPath(), "copy.jar");
+    FileUtils.copyFile(new File(getJar(StringUtils.class)), jar);
+    FileUtils.copyFile(jar, copy);
+
+    TypeGraphIndex index = new TypeGraphIndex(indexDir);
+    index.getJarGraphs(Lists.newArrayList(jar.getPath()), true);
+    TypeGraph tg = index.getJarGraphs(Lists.newArrayList(copy.getPath()), true).get(copy.getPath());
+    Assert.assertEquals("scanned", 1, index.getMisses());
+    Assert.assertEquals("indexed", 1, index.getHits());
+    Assert.assertEquals("jar", copy.getPath(), tg.getNode(StringUtils.class.getName()).getJarName());
+  }
+
+  @Test
+  public void testClassPathJar() throws Exception
+  {
+    File indexDir = new File(testMeta.getPath(), "index");
+    File jar = new File(testMeta.getPath(), "test.jar");
+    File copy = new File(testMeta.getPath(), "copy.jar");
+    FileUtils.copyFile(new File(getJar(StringUtils.class)), jar);
+    FileUtils.copyFile(jar, copy);
+
+    // class path jars are keyed by path, size and modification time without reading their content
+    TypeGraphIndex index = new TypeGraphIndex(indexDir);
+    index.getJarGraphs(Lists.newArrayList(jar.getPath(), copy.getPath()), false);
+    Assert.assertEquals("scanned", 2, index.getMisses());
+    index.getJarGraphs(Lists.newArrayList(jar.getPath(), copy.getPath()), false);
+    Assert.assertEquals("indexed", 2, index.getHits());
+
+    Assert.assertTrue(jar.setLastModified(jar.lastModified() - 60000));
+    index = new TypeGraphIndex(indexDir);
+    TypeGraph tg = index.getJarGraphs(Lists.newArrayList(jar.getPath()), false).get(jar.getPath());
+    Assert.assertEquals("rescanned", 1, index.getMisses());
+    Assert.assertNotNull(tg.getNode(StringUtils.class.getName()));
+  }
+
+  @Test
+  public void testEviction() throws Exception
+  {
+    File indexDir = new File(testMeta.getPath(), "index");
+    TypeGraphIndex index = new TypeGraphIndex(indexDir, 1, 0);
+    index.getJarGraphs(Lists.newArrayList(getJar(StringUtils.class)), false);
+    File[] files = indexDir.listFiles();
+    Assert.assertEquals("entries", 1, files.length);
+    Assert.assertTrue(files[0].setLastModified(System.currentTimeMillis() - 60000));
+
+    index.getJarGraphs(Lists.newArrayList(getJar(FileUtils.class)), false);
+    Assert.assertFalse("least recently used entry removed", files[0].exists());
+    Assert.assertEquals("entries", 1, indexDir.listFiles().length);
+  }
+}